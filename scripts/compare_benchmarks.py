@@ -0,0 +1,92 @@
+import json
+import sys
+
+
+# Compare two JMH result files (as written by "mvn -P benchmark -DskipTests test-compile exec:exec")
+# Usage: python scripts/compare_benchmarks.py results/benchmarks/jmh_old.json results/benchmarks/jmh_new.json [threshold]
+# Prints the change in score, p99 and allocation per operation for every benchmark found in both files, and exits
+# with status 1 if any benchmark regressed by more than the threshold (default 0.10, i.e. 10%).
+
+ALLOC_METRIC = "·gc.alloc.rate.norm"
+
+
+def load_results(path):
+    with open(path) as f:
+        entries = json.load(f)
+    results = {}
+    for entry in entries:
+        params = entry.get("params", {})
+        param_string = ",".join(k + "=" + str(params[k]) for k in sorted(params))
+        key = (entry["benchmark"], entry["mode"], param_string)
+        primary = entry["primaryMetric"]
+        alloc = entry.get("secondaryMetrics", {}).get(ALLOC_METRIC)
+        results[key] = {
+            "score": primary["score"],
+            "unit": primary["scoreUnit"],
+            "p99": primary.get("scorePercentiles", {}).get("99.0"),
+            "alloc": alloc["score"] if alloc else None
+        }
+    return results
+
+
+def relative_change(old, new):
+    if old is None or new is None or old == 0:
+        return None
+    return (new - old) / old
+
+
+def format_change(change):
+    return "n/a" if change is None else "{:+.1f}%".format(change * 100)
+
+
+def is_regression(mode, score_change, threshold):
+    if score_change is None:
+        return False
+    # Throughput should go up, every other mode reports time per operation and should go down
+    if mode == "thrpt":
+        return score_change < -threshold
+    return score_change > threshold
+
+
+def compare(old_path, new_path, threshold):
+    old_results = load_results(old_path)
+    new_results = load_results(new_path)
+    regressions = []
+    for key in sorted(set(old_results) & set(new_results)):
+        benchmark, mode, params = key
+        old = old_results[key]
+        new = new_results[key]
+        score_change = relative_change(old["score"], new["score"])
+        print("{} [{}] {}".format(benchmark.split(".")[-2] + "." + benchmark.split(".")[-1], mode, params))
+        print("    score: {:.4f} -> {:.4f} {} ({})".format(old["score"], new["score"], new["unit"],
+                                                          format_change(score_change)))
+        if mode == "sample":
+            print("    p99:   {} -> {} ({})".format(old["p99"], new["p99"],
+                                                   format_change(relative_change(old["p99"], new["p99"]))))
+        if old["alloc"] is not None and new["alloc"] is not None:
+            print("    alloc: {:.0f} -> {:.0f} B/op ({})".format(old["alloc"], new["alloc"],
+                                                            format_change(relative_change(old["alloc"], new["alloc"]))))
+        if is_regression(mode, score_change, threshold):
+            regressions.append(key)
+
+    missing = set(old_results) ^ set(new_results)
+    if missing:
+        print("{} benchmarks appear in only one of the files".format(len(missing)))
+    if regressions:
+        print("Regressions over {:.0f}%:".format(threshold * 100))
+        for benchmark, mode, params in regressions:
+            print("    {} [{}] {}".format(benchmark, mode, params))
+        return 1
+    return 0
+
+
+def print_usage_message():
+    print("Usage: python compare_benchmarks.py old_results.json new_results.json [threshold]")
+
+
+if __name__ == "__main__":
+    if len(sys.argv) not in [3, 4]:
+        print_usage_message()
+        sys.exit(-1)
+    threshold_value = float(sys.argv[3]) if len(sys.argv) == 4 else 0.10
+    sys.exit(compare(sys.argv[1], sys.argv[2], threshold_value))
@@ -0,0 +1,60 @@
+import csv
+import json
+import sys
+
+
+# Turn the JMH results of ScalingBenchmark / AnalysisScalingBenchmark into runtime and memory curves
+# Usage: python scripts/scaling_report.py results/benchmarks/jmh_{timestamp}.json [output.csv]
+# One row per benchmark and parameter combination, sorted by number of nodes, with the mean runtime (ms) and the
+# allocation per operation (MB) reported by the gc profiler.
+
+ALLOC_METRIC = "·gc.alloc.rate.norm"
+SCALING_BENCHMARKS = ["ScalingBenchmark", "AnalysisScalingBenchmark"]
+COLUMNS = ["benchmark", "model", "algorithm", "routingType", "numNodes", "runtimeMs", "runtimeErrorMs", "allocatedMB"]
+
+
+def build_rows(path):
+    with open(path) as f:
+        entries = json.load(f)
+    rows = []
+    for entry in entries:
+        class_name, method_name = entry["benchmark"].split(".")[-2:]
+        if class_name not in SCALING_BENCHMARKS:
+            continue
+        params = entry.get("params", {})
+        alloc = entry.get("secondaryMetrics", {}).get(ALLOC_METRIC)
+        rows.append({
+            "benchmark": class_name + "." + method_name,
+            "model": params.get("model", ""),
+            "algorithm": params.get("algorithm", ""),
+            "routingType": params.get("routingType", ""),
+            "numNodes": int(params.get("numNodes", 0)),
+            "runtimeMs": entry["primaryMetric"]["score"],
+            "runtimeErrorMs": entry["primaryMetric"].get("scoreError", ""),
+            "allocatedMB": alloc["score"] / (1024 * 1024) if alloc else ""
+        })
+    rows.sort(key=lambda r: (r["benchmark"], r["model"], r["algorithm"], r["routingType"], r["numNodes"]))
+    return rows
+
+
+def write_rows(rows, output):
+    writer = csv.DictWriter(output, fieldnames=COLUMNS)
+    writer.writeheader()
+    for row in rows:
+        writer.writerow(row)
+
+
+def print_usage_message():
+    print("Usage: python scaling_report.py jmh_results.json [output.csv]")
+
+
+if __name__ == "__main__":
+    if len(sys.argv) not in [2, 3]:
+        print_usage_message()
+        sys.exit(-1)
+    scaling_rows = build_rows(sys.argv[1])
+    if len(sys.argv) == 3:
+        with open(sys.argv[2], "w", newline="") as out_file:
+            write_rows(scaling_rows, out_file)
+    else:
+        write_rows(scaling_rows, sys.stdout)
@@ -0,0 +1,69 @@
+package netlab.benchmark;
+
+import netlab.analysis.analyzed.Analysis;
+import netlab.analysis.services.AnalysisService;
+import netlab.processing.disjointpaths.FlexBhandariService;
+import netlab.storage.services.StorageService;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import netlab.topology.elements.Topology;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analysis of a routed request, and the local storage round-trip for the same request. The request is generated
+ * and routed once per trial, outside of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalysisBenchmark {
+
+    @Param({"nsfnet", "tw", "grid_100"})
+    public String topologyId;
+
+    @Param({"unicast", "manycast"})
+    public String routingType;
+
+    private AnalysisService analysisService;
+    private StorageService storageService;
+
+    private Request request;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        analysisService = BenchmarkContext.getBean(AnalysisService.class);
+        storageService = BenchmarkContext.getBean(StorageService.class);
+        Topology topo = BenchmarkContext.getTopology(topologyId);
+        SimulationParameters params = SimulationParameters.builder()
+                .requestId("benchmark_" + topologyId + "_" + routingType)
+                .seed(1L)
+                .topologyId(topologyId)
+                .algorithm("flexbhandari")
+                .objective("totalcost")
+                .routingType(routingType)
+                .numSources(1)
+                .numDestinations(routingType.equals("unicast") ? 1 : 3)
+                .failureScenario("allLinks")
+                .numFailureEvents(1)
+                .useAws(false)
+                .build();
+        request = BenchmarkContext.makeRequest(params);
+        request.setDetails(BenchmarkContext.getBean(FlexBhandariService.class).solve(request, topo));
+    }
+
+    @Benchmark
+    public Analysis analyzeRequest(){
+        return analysisService.analyzeRequest(request);
+    }
+
+    @Benchmark
+    public Request storageRoundTrip(){
+        storageService.storeRequestSet(request, false);
+        return storageService.retrieveRequestSet(request.getId(), false);
+    }
+}
@@ -0,0 +1,66 @@
+package netlab.benchmark;
+
+import netlab.analysis.analyzed.Analysis;
+import netlab.analysis.services.AnalysisService;
+import netlab.processing.ProcessingService;
+import netlab.submission.enums.SyntheticModel;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import netlab.topology.elements.Topology;
+import netlab.topology.services.SyntheticTopologyService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Companion to ScalingBenchmark: topology generation and analysis of a routed request, on synthetic topologies of
+ * 100 to 10,000 nodes. The request is routed once per trial with FlexBhandari, outside of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class AnalysisScalingBenchmark {
+
+    @Param({"waxman", "ba", "geometric"})
+    public String model;
+
+    @Param({"100", "500", "1000", "5000", "10000"})
+    public int numNodes;
+
+    private AnalysisService analysisService;
+    private SyntheticTopologyService syntheticTopologyService;
+
+    private Request request;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        analysisService = BenchmarkContext.getBean(AnalysisService.class);
+        syntheticTopologyService = BenchmarkContext.getBean(SyntheticTopologyService.class);
+        SimulationParameters params = SimulationParameters.builder()
+                .seed(1L)
+                .topologyId(model + "_" + numNodes)
+                .algorithm("flexbhandari")
+                .objective("totalcost")
+                .routingType("manycast")
+                .numSources(5)
+                .numDestinations(5)
+                .failureScenario("allLinks")
+                .numFailureEvents(1)
+                .useAws(false)
+                .build();
+        request = BenchmarkContext.getBean(ProcessingService.class).processRequest(BenchmarkContext.makeRequest(params));
+    }
+
+    @Benchmark
+    public Topology generateTopology(){
+        return syntheticTopologyService.generate(model + "_" + numNodes, SyntheticModel.get(model).get(), numNodes, 1L, 4);
+    }
+
+    @Benchmark
+    public Analysis analyze(){
+        return analysisService.analyzeRequest(request);
+    }
+}
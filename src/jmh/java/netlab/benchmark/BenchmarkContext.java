@@ -0,0 +1,57 @@
+package netlab.benchmark;
+
+import netlab.TestConfiguration;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import netlab.submission.services.GenerationService;
+import netlab.topology.elements.Node;
+import netlab.topology.elements.Topology;
+import netlab.topology.services.TopologyService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.*;
+
+/**
+ * Shared Spring context for the benchmarks, started once per forked JVM without the web server. Topology ids used
+ * as benchmark parameters are resolved by the TopologyService, so synthetic ids such as "grid_100" or "waxman_1000"
+ * can be used alongside nsfnet and tw.
+ */
+public class BenchmarkContext {
+
+    private static ConfigurableApplicationContext context;
+
+    public static synchronized <T> T getBean(Class<T> beanClass){
+        if(context == null){
+            context = new SpringApplicationBuilder(TestConfiguration.class)
+                    .web(WebApplicationType.NONE)
+                    .run("--metrics_enabled=false", "--admission_enabled=false");
+        }
+        return context.getBean(beanClass);
+    }
+
+    public static Topology getTopology(String topologyId){
+        return getBean(TopologyService.class).getTopologyById(topologyId);
+    }
+
+    public static Request makeRequest(SimulationParameters params){
+        return getBean(GenerationService.class).generateFromSimParams(params);
+    }
+
+    // Pick a fixed set of source/destination pairs, so every benchmark iteration does the same work
+    public static List<Node[]> pickPairs(Topology topo, int numPairs, long seed){
+        List<Node> nodes = new ArrayList<>(topo.getNodes());
+        nodes.sort(Comparator.comparing(Node::getId));
+        Random rng = new Random(seed);
+        List<Node[]> pairs = new ArrayList<>();
+        while(pairs.size() < numPairs){
+            Node src = nodes.get(rng.nextInt(nodes.size()));
+            Node dst = nodes.get(rng.nextInt(nodes.size()));
+            if(!src.equals(dst)){
+                pairs.add(new Node[]{src, dst});
+            }
+        }
+        return pairs;
+    }
+}
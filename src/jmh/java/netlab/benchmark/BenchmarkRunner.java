@@ -0,0 +1,36 @@
+package netlab.benchmark;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Entry point for the benchmark profile. Passes its arguments through to JMH, defaulting to JSON results under
+ * results/benchmarks/ and the GC/allocation profiler, so every run leaves a file that can be compared with
+ * scripts/compare_benchmarks.py.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if(!jmhArgs.contains("-rff")){
+            File resultsDir = new File(System.getProperty("user.dir"), "results/benchmarks");
+            if(!resultsDir.exists() && !resultsDir.mkdirs()){
+                throw new IllegalStateException("Could not create " + resultsDir);
+            }
+            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+            jmhArgs.add("-rf");
+            jmhArgs.add("json");
+            jmhArgs.add("-rff");
+            jmhArgs.add(new File(resultsDir, "jmh_" + timestamp + ".json").getPath());
+        }
+        if(!jmhArgs.contains("-prof")){
+            jmhArgs.add("-prof");
+            jmhArgs.add("gc");
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,57 @@
+package netlab.benchmark;
+
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import netlab.submission.services.FailureGenerationService;
+import netlab.topology.elements.Failure;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enumeration of all k-size failure groups. The number of groups grows combinatorially with k, so this is where
+ * large failure sets become expensive.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FailureGroupBenchmark {
+
+    @Param({"nsfnet", "tw", "grid_100"})
+    public String topologyId;
+
+    @Param({"1", "2", "3"})
+    public int k;
+
+    private FailureGenerationService failureGenerationService;
+
+    private Set<Failure> failureSet;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        failureGenerationService = BenchmarkContext.getBean(FailureGenerationService.class);
+        SimulationParameters params = SimulationParameters.builder()
+                .seed(1L)
+                .topologyId(topologyId)
+                .algorithm("flexbhandari")
+                .routingType("unicast")
+                .numSources(1)
+                .numDestinations(1)
+                .failureScenario("allLinks")
+                .numFailureEvents(k)
+                .useAws(false)
+                .build();
+        Request request = BenchmarkContext.makeRequest(params);
+        failureSet = request.getDetails().getFailures().getFailureSet();
+    }
+
+    @Benchmark
+    public List<List<Failure>> generateFailureGroups(){
+        return failureGenerationService.generateFailureGroups(k, failureSet);
+    }
+}
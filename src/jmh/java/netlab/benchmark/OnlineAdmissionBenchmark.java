@@ -0,0 +1,77 @@
+package netlab.benchmark;
+
+import netlab.processing.online.OnlineArrival;
+import netlab.processing.online.OnlineRoutingService;
+import netlab.processing.online.OnlineTraceResult;
+import netlab.submission.request.SimulationParameters;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a trace of groupcast arrivals on a network with link capacity, admitting or blocking each one. The trace
+ * (and so request generation) is made once per trial, each invocation replays it on an empty network. Besides the
+ * time per replay, the admitted and blocked counts are reported per replay, and the blocking probability and
+ * admissions per second of each replay are logged.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OnlineAdmissionBenchmark {
+
+    @Param({"nsfnet", "grid_100"})
+    public String topologyId;
+
+    @Param({"bhandari", "flexbhandari", "memberforwarding"})
+    public String algorithm;
+
+    // Offered load in Erlangs, with a mean holding time of one hour
+    @Param({"20", "60"})
+    public double load;
+
+    @Param({"10"})
+    public int linkCapacity;
+
+    @Param({"500"})
+    public int numArrivals;
+
+    private OnlineRoutingService onlineRoutingService;
+    private List<OnlineArrival> trace;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long admitted;
+        public long blocked;
+    }
+
+    @Setup(Level.Trial)
+    public void setup(){
+        onlineRoutingService = BenchmarkContext.getBean(OnlineRoutingService.class);
+        SimulationParameters template = SimulationParameters.builder()
+                .topologyId(topologyId)
+                .algorithm(algorithm)
+                .objective("totalcost")
+                .routingType("manycast")
+                .numSources(1)
+                .numDestinations(3)
+                .failureSetSize(1)
+                .failureClass("link")
+                .numFailureEvents(1)
+                .useAws(false)
+                .build();
+        trace = onlineRoutingService.generateTrace(template, numArrivals, load, 1.0, 1, 1L);
+    }
+
+    @Benchmark
+    public OnlineTraceResult replay(Outcomes outcomes){
+        OnlineTraceResult result = onlineRoutingService.replay(onlineRoutingService.open(topologyId, linkCapacity), trace);
+        outcomes.admitted += result.getAdmitted();
+        outcomes.blocked += result.getBlocked();
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+package netlab.benchmark;
+
+import netlab.processing.disjointpaths.BhandariService;
+import netlab.processing.shortestPaths.DijkstraService;
+import netlab.processing.shortestPaths.YensService;
+import netlab.topology.elements.Link;
+import netlab.topology.elements.Node;
+import netlab.topology.elements.Path;
+import netlab.topology.elements.Topology;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single source/destination path computations. Each invocation routes the next pair from a fixed, seeded list of
+ * pairs, so the measured work is identical between runs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathBenchmark {
+
+    @Param({"nsfnet", "tw", "grid_100", "grid_400"})
+    public String topologyId;
+
+    @Param({"2", "4"})
+    public int k;
+
+    private DijkstraService dijkstraService;
+    private BhandariService bhandariService;
+    private YensService yensService;
+
+    private Topology topo;
+    private List<Node[]> pairs;
+    private int pairIndex;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        dijkstraService = BenchmarkContext.getBean(DijkstraService.class);
+        bhandariService = BenchmarkContext.getBean(BhandariService.class);
+        yensService = BenchmarkContext.getBean(YensService.class);
+        topo = BenchmarkContext.getTopology(topologyId);
+        pairs = BenchmarkContext.pickPairs(topo, 64, 1L);
+        pairIndex = 0;
+    }
+
+    private Node[] nextPair(){
+        Node[] pair = pairs.get(pairIndex);
+        pairIndex = (pairIndex + 1) % pairs.size();
+        return pair;
+    }
+
+    @Benchmark
+    public List<Link> dijkstraShortestPath(){
+        Node[] pair = nextPair();
+        return dijkstraService.shortestPath(topo, pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public List<Path> bhandariDisjointPaths(){
+        Node[] pair = nextPair();
+        return bhandariService.computeDisjointPaths(topo, pair[0], pair[1], k, false);
+    }
+
+    @Benchmark
+    public List<Path> yensKPaths(){
+        Node[] pair = nextPair();
+        return yensService.computeKPaths(topo, pair[0], pair[1], k);
+    }
+}
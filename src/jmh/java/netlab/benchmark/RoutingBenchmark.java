@@ -0,0 +1,73 @@
+package netlab.benchmark;
+
+import netlab.processing.disjointpaths.FlexBhandariService;
+import netlab.processing.tabu.TabuSearchService;
+import netlab.submission.request.Details;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import netlab.topology.elements.Topology;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full routing runs for the heuristics. The solvers write their results into the request's details, so a fresh
+ * request is generated (outside of the measurement) before every invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RoutingBenchmark {
+
+    @Param({"nsfnet", "tw", "grid_100"})
+    public String topologyId;
+
+    @Param({"unicast", "manycast"})
+    public String routingType;
+
+    @Param({"1", "2"})
+    public int numFailureEvents;
+
+    private TabuSearchService tabuSearchService;
+    private FlexBhandariService flexBhandariService;
+
+    private Topology topo;
+    private Request request;
+
+    @Setup(Level.Trial)
+    public void setupTrial(){
+        tabuSearchService = BenchmarkContext.getBean(TabuSearchService.class);
+        flexBhandariService = BenchmarkContext.getBean(FlexBhandariService.class);
+        topo = BenchmarkContext.getTopology(topologyId);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation(){
+        SimulationParameters params = SimulationParameters.builder()
+                .seed(1L)
+                .topologyId(topologyId)
+                .algorithm("tabu")
+                .objective("totalcost")
+                .routingType(routingType)
+                .numSources(1)
+                .numDestinations(routingType.equals("unicast") ? 1 : 3)
+                .failureScenario("allLinks")
+                .numFailureEvents(numFailureEvents)
+                .useAws(false)
+                .build();
+        request = BenchmarkContext.makeRequest(params);
+    }
+
+    @Benchmark
+    public Details tabuSearch(){
+        return tabuSearchService.solve(request, topo);
+    }
+
+    @Benchmark
+    public Details flexBhandari(){
+        return flexBhandariService.solve(request, topo);
+    }
+}
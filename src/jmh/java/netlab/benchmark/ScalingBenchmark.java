@@ -0,0 +1,74 @@
+package netlab.benchmark;
+
+import netlab.processing.ProcessingService;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routing runtime and allocation as the topology grows, on synthetic topologies of 100 to 10,000 nodes. Each
+ * iteration routes one freshly generated request (single shot), so the curves include per-request setup costs.
+ *
+ * Tabu is left out of the default sweep, since it precomputes k shortest and disjoint paths between all pairs,
+ * and the ILP needs an AMPL license. Both can be added for the smaller sizes, e.g.
+ * -Djmh.args="ScalingBenchmark -p algorithm=tabu -p numNodes=100,500"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ScalingBenchmark {
+
+    @Param({"waxman", "ba", "geometric"})
+    public String model;
+
+    @Param({"100", "500", "1000", "5000", "10000"})
+    public int numNodes;
+
+    @Param({"minimumcost", "minimumrisk", "bhandari", "flexbhandari", "yens"})
+    public String algorithm;
+
+    @Param({"unicast", "manycast"})
+    public String routingType;
+
+    private ProcessingService processingService;
+
+    private Request request;
+
+    @Setup(Level.Trial)
+    public void setupTrial(){
+        processingService = BenchmarkContext.getBean(ProcessingService.class);
+        // Generate the topology before the first measurement
+        BenchmarkContext.getTopology(topologyId());
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration(){
+        SimulationParameters params = SimulationParameters.builder()
+                .seed(1L)
+                .topologyId(topologyId())
+                .algorithm(algorithm)
+                .objective("totalcost")
+                .routingType(routingType)
+                .numSources(routingType.equals("unicast") ? 1 : 5)
+                .numDestinations(routingType.equals("unicast") ? 1 : 5)
+                .failureScenario("allLinks")
+                .numFailureEvents(1)
+                .useAws(false)
+                .build();
+        request = BenchmarkContext.makeRequest(params);
+    }
+
+    private String topologyId(){
+        return model + "_" + numNodes;
+    }
+
+    @Benchmark
+    public Request route(){
+        return processingService.processRequest(request);
+    }
+}
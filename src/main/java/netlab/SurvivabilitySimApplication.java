@@ -14,6 +14,7 @@ import netlab.storage.controller.StorageController;
 import netlab.submission.controller.SubmissionController;
 import netlab.submission.request.Request;
 import netlab.submission.request.SimulationParameters;
+import netlab.submission.services.MassRunService;
 import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
@@ -40,6 +41,7 @@ public class SurvivabilitySimApplication {
 		AggregationParameters aggregationParameters = null;
 		MassAnalysisParameters massAnalysisParameters = null;
 		List<SimulationParameters> simParamList = null;
+		String massRunId = null;
 		boolean defaultAggregate = false;
 		ObjectMapper mapper = new ObjectMapper();
 		mapper.enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
@@ -92,6 +94,7 @@ public class SurvivabilitySimApplication {
 			if(option.contains("--massRun")){
 				try{
 					String firstId = value;
+					massRunId = firstId;
 					String fileName = "scripts/input/" + firstId + "_mass.txt";
 					TypeReference<List<SimulationParameters>> mapType = new TypeReference<List<SimulationParameters>>() {};
 					value = new String(Files.readAllBytes(Paths.get(fileName))).replace("\n", "").replace("\r", "");
@@ -163,14 +166,13 @@ public class SurvivabilitySimApplication {
 
 		// Mass simulation run
 		if(simParamList != null){
-			for(SimulationParameters simulationParameters : simParamList){
-				String requestId = subCon.submitRequest(simulationParameters);
-				log.info("Details ID: " + requestId);
-				AnalysisParameters analysisParameters = AnalysisParameters.builder()
-						.requestId(requestId)
-						.useAws(simulationParameters.getUseAws())
-						.build();
-				analysCon.analyzeRequest(analysisParameters);
+			// Routing, analysis, and storage overlap, and a killed run picks up from its journal when rerun
+			MassRunService massRunService = ctx.getBean(MassRunService.class);
+			try {
+				List<String> requestIds = massRunService.run(massRunId, simParamList);
+				log.info("Completed " + requestIds.size() + " of " + simParamList.size() + " request sets");
+			} catch (IOException e) {
+				log.error("Could not open journal " + massRunService.getJournalPath(massRunId), e);
 			}
 			//waitMinTime(startTime, 300);
 			// If you're not analyzing the request, close the context and shut down the simulator
@@ -0,0 +1,27 @@
+package netlab.analysis.analyzed;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilitySimulationParameters {
+
+    private String requestId;
+    private Boolean useAws;
+
+    // Simulated time per replication
+    private Double years;
+    // Independent replications, run in parallel
+    private Integer replications;
+    private Long seed;
+
+    // Each element in the request's failure set fails probability * failuresPerYear times a year on average while up
+    private Double failuresPerYear;
+    // Repair times are exponential with this mean
+    private Double meanRepairHours;
+}
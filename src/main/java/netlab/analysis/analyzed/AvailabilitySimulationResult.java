@@ -0,0 +1,43 @@
+package netlab.analysis.analyzed;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilitySimulationResult implements Serializable {
+
+    private String requestId;
+    private long seed;
+    private double years;
+    private int replications;
+    // Sources with at least one path, and failure set elements that can fail
+    private int numConnections;
+    private int numFailureElements;
+
+    // Fraction of time connections are up, averaged over connections. Mean, worst and best replication, and the
+    // half-width of the 95% confidence interval of the mean.
+    private double availability;
+    private double minAvailability;
+    private double maxAvailability;
+    private double availabilityHalfWidth;
+
+    // Per connection, averaged over replications
+    private double downtimeMinutesPerYear;
+    private double outagesPerYear;
+    private double switchoversPerYear;
+
+    // Source id -> availability over all replications
+    private Map<String, Double> connectionAvailability;
+
+    private long numEvents;
+    private double eventsPerSecond;
+    private double runningTimeSeconds;
+}
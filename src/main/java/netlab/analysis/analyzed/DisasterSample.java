@@ -0,0 +1,25 @@
+package netlab.analysis.analyzed;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DisasterSample implements Serializable {
+
+    private int index;
+    private double latitude;
+    private double longitude;
+    private int radius;
+
+    private int numFailures;
+    // Fraction of pairs with at least one intact path, and fraction of paths left intact
+    private double pairSurvivability;
+    private double pathSurvivability;
+}
@@ -0,0 +1,40 @@
+package netlab.analysis.analyzed;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DisasterSimulationParameters {
+
+    private String requestId;
+    private Boolean useAws;
+
+    private Integer numSamples;
+    private Long seed;
+
+    // Disaster radius in km: "uniform" between min and max, or "exponential" with the given mean above the min,
+    // capped at the max
+    private String radiusDistribution;
+    private Double minRadius;
+    private Double maxRadius;
+    private Double meanRadius;
+
+    // Region to draw centers from. Any missing bound is taken from the topology's nodes, padded by the max radius.
+    private Double minLatitude;
+    private Double maxLatitude;
+    private Double minLongitude;
+    private Double maxLongitude;
+
+    // If true, everything within the radius fails. Otherwise elements fail with the area's distance-based weight.
+    private Boolean mustFail;
+    // Defaults to the request's failure class
+    private String failureClass;
+
+    // Number of most damaging samples to report
+    private Integer worstK;
+}
@@ -0,0 +1,30 @@
+package netlab.analysis.analyzed;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DisasterSimulationResult implements Serializable {
+
+    private String requestId;
+    private long seed;
+    private int numSamples;
+    // Samples that caused at least one failure
+    private int numSamplesWithFailures;
+
+    private SurvivabilityDistribution pairSurvivability;
+    private SurvivabilityDistribution pathSurvivability;
+
+    // Most damaging samples, lowest pair survivability first
+    private List<DisasterSample> worstSamples;
+
+    private double runningTimeSeconds;
+}
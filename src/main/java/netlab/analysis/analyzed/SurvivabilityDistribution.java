@@ -0,0 +1,22 @@
+package netlab.analysis.analyzed;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SurvivabilityDistribution implements Serializable {
+
+    private double mean;
+    private double min;
+    private double max;
+    // Quantile (e.g. 0.05) -> survivability, using the nearest rank
+    private Map<Double, Double> quantiles;
+}
@@ -5,7 +5,11 @@ import netlab.analysis.analyzed.*;
 import netlab.analysis.services.AggregationAnalysisService;
 import netlab.analysis.services.AggregationOutputService;
 import netlab.analysis.services.AnalysisService;
+import netlab.analysis.services.AvailabilitySimulationService;
+import netlab.analysis.services.DisasterSimulationService;
 import netlab.analysis.services.HashingService;
+import netlab.metrics.services.MetricsService;
+import netlab.processing.admission.AdmissionService;
 import netlab.storage.services.StorageService;
 import netlab.submission.enums.Algorithm;
 import netlab.submission.enums.RoutingType;
@@ -32,12 +36,19 @@ public class AnalysisController {
 
     @Autowired
     private AnalysisController(AnalysisService analysisService, AggregationAnalysisService aggregationAnalysisService,
-                               StorageService storageService, HashingService hashingService, AggregationOutputService aggregationOutputService){
+                               StorageService storageService, HashingService hashingService, AggregationOutputService aggregationOutputService,
+                               AdmissionService admissionService, MetricsService metricsService,
+                               DisasterSimulationService disasterSimulationService,
+                               AvailabilitySimulationService availabilitySimulationService){
         this.analysisService = analysisService;
         this.aggregationAnalysisService = aggregationAnalysisService;
         this.storageService = storageService;
         this.hashingService = hashingService;
         this.aggregationOutputService = aggregationOutputService;
+        this.admissionService = admissionService;
+        this.metricsService = metricsService;
+        this.disasterSimulationService = disasterSimulationService;
+        this.availabilitySimulationService = availabilitySimulationService;
     }
 
     private AnalysisService analysisService;
@@ -45,6 +56,10 @@ public class AnalysisController {
     private AggregationOutputService aggregationOutputService;
     private StorageService storageService;
     private HashingService hashingService;
+    private AdmissionService admissionService;
+    private MetricsService metricsService;
+    private DisasterSimulationService disasterSimulationService;
+    private AvailabilitySimulationService availabilitySimulationService;
 
     @RequestMapping(value = "/analyze", method = RequestMethod.POST)
     @ResponseBody
@@ -59,7 +74,7 @@ public class AnalysisController {
             log.info("Request not completed! Aborting...");
             return null;
         }
-        Analysis analysis = analysisService.analyzeRequest(request);
+        Analysis analysis = admissionService.admit("analyze", request.getAlgorithm(), () -> analysisService.analyzeRequest(request));
         log.info(analysis.toString());
         // Store the analyzed set
         boolean stored = storageService.storeAnalyzedSet(analysis, params.getUseAws());
@@ -74,6 +89,36 @@ public class AnalysisController {
 
     }
 
+    @RequestMapping(value = "/analyze/disasters", method = RequestMethod.POST)
+    @ResponseBody
+    public DisasterSimulationResult simulateDisasters(@RequestBody DisasterSimulationParameters params){
+        Request request = storageService.retrieveRequestSet(params.getRequestId(), params.getUseAws() != null && params.getUseAws());
+        if(request == null || !request.isCompleted()){
+            log.info("Request " + params.getRequestId() + " not found or not completed! Aborting...");
+            return null;
+        }
+        DisasterSimulationResult result = admissionService.admit("analyze", request.getAlgorithm(),
+                () -> disasterSimulationService.simulate(request, params));
+        log.info("Disaster simulation for " + params.getRequestId() + ": mean pair survivability "
+                + result.getPairSurvivability().getMean());
+        return result;
+    }
+
+    @RequestMapping(value = "/analyze/availability", method = RequestMethod.POST)
+    @ResponseBody
+    public AvailabilitySimulationResult simulateAvailability(@RequestBody AvailabilitySimulationParameters params){
+        Request request = storageService.retrieveRequestSet(params.getRequestId(), params.getUseAws() != null && params.getUseAws());
+        if(request == null || !request.isCompleted()){
+            log.info("Request " + params.getRequestId() + " not found or not completed! Aborting...");
+            return null;
+        }
+        AvailabilitySimulationResult result = admissionService.admit("analyze", request.getAlgorithm(),
+                () -> availabilitySimulationService.simulate(request, params));
+        log.info("Availability simulation for " + params.getRequestId() + ": availability " + result.getAvailability()
+                + ", " + result.getSwitchoversPerYear() + " switchovers per connection-year");
+        return result;
+    }
+
     public void massAnalysis(MassAnalysisParameters massAnalysisParameters) {
         List<Long> seeds = massAnalysisParameters.getSeeds();
         String topology = massAnalysisParameters.getTopology();
@@ -147,7 +192,8 @@ public class AnalysisController {
         long startTime = System.nanoTime();
         ExecutorService executor = Executors.newFixedThreadPool(5);
         Map<RoutingType, List<Algorithm>> algorithmMap = agParams.getAlgorithmMap();
-        Map<String, List<Analysis>> analysisMap = buildAnalysisMap(agParams.getSeeds(), agParams.getRoutingTypes(), agParams.getTopologyIds(), algorithmMap, executor);
+        Map<String, List<Analysis>> analysisMap = metricsService.time("aggregation.gather",
+                () -> buildAnalysisMap(agParams.getSeeds(), agParams.getRoutingTypes(), agParams.getTopologyIds(), algorithmMap, executor));
         long endTime = System.nanoTime();
         double duration = (endTime - startTime)/1e9;
         log.info("Analysis gathering took: " + duration + " seconds");
@@ -159,7 +205,8 @@ public class AnalysisController {
         // We now has a map of matching analyses, each list should be an analysis per string
         // Use this to get an aggregate analysis per hash
         startTime = System.nanoTime();
-        Map<String, AggregateAnalysis> aggregateAnalysisMap = buildAggregateAnalysisMap(analysisMap, executor);
+        Map<String, AggregateAnalysis> aggregateAnalysisMap = metricsService.time("aggregation.aggregate",
+                () -> buildAggregateAnalysisMap(analysisMap, executor));
         endTime = System.nanoTime();
         duration = (endTime - startTime)/1e9;
         log.info("Aggregation took: " + duration + " seconds");
@@ -0,0 +1,40 @@
+package netlab.analysis.enums;
+
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+public enum RadiusDistribution {
+    Uniform("uniform"),
+    Exponential("exponential");
+
+
+    private String code;
+
+    RadiusDistribution(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return this.code;
+    }
+
+    private static final Map<String, RadiusDistribution> lookup = new HashMap<>();
+
+    static {
+        for (RadiusDistribution rd : EnumSet.allOf(RadiusDistribution.class)) {
+            lookup.put(rd.getCode(), rd);
+        }
+    }
+
+    public static Optional<RadiusDistribution> get(String code) {
+        String lookupCode = code.toLowerCase();
+        if (lookup.containsKey(lookupCode)) {
+            return Optional.of(lookup.get(lookupCode));
+        } else {
+            return Optional.empty();
+        }
+    }
+}
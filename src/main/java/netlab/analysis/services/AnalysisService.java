@@ -3,6 +3,8 @@ package netlab.analysis.services;
 import lombok.extern.slf4j.Slf4j;
 import netlab.analysis.analyzed.*;
 import netlab.analysis.enums.CachingType;
+import netlab.metrics.events.AnalysisEvent;
+import netlab.metrics.services.MetricsService;
 import netlab.processing.pathmapping.PathMappingService;
 import netlab.submission.enums.*;
 import netlab.submission.request.*;
@@ -19,14 +21,35 @@ public class AnalysisService {
 
     private PathMappingService pathMappingService;
     private CachingService cachingService;
+    private MetricsService metricsService;
 
     @Autowired
-    public AnalysisService( PathMappingService pathMappingService, CachingService cachingService) {
+    public AnalysisService( PathMappingService pathMappingService, CachingService cachingService,
+                            MetricsService metricsService) {
         this.pathMappingService = pathMappingService;
         this.cachingService = cachingService;
+        this.metricsService = metricsService;
     }
 
     public Analysis analyzeRequest(Request request) {
+        AnalysisEvent event = new AnalysisEvent();
+        event.begin();
+        Analysis analysis = metricsService.time("analysis", () -> analyze(request));
+        event.end();
+        if(event.shouldCommit()){
+            Details details = request.getDetails();
+            event.requestId = request.getId();
+            event.algorithm = request.getAlgorithm() != null ? request.getAlgorithm().getCode() : null;
+            event.pathCount = details.getChosenPaths() != null
+                    ? details.getChosenPaths().values().stream().mapToInt(Map::size).sum() : 0;
+            event.failureGroupCount = details.getFailures() != null && details.getFailures().getFailureGroups() != null
+                    ? details.getFailures().getFailureGroups().size() : 0;
+            event.commit();
+        }
+        return analysis;
+    }
+
+    private Analysis analyze(Request request) {
 
         Details details = request.getDetails();
         Map<SourceDestPair, Map<String, Path>> chosenPaths = pathMappingService.filterEmptyPaths(details.getChosenPaths());
@@ -52,6 +75,8 @@ public class AnalysisService {
         );
 
         cachingService.buildCacheMaps(cachingResults, chosenPaths, failureColl.getFailureSet());
+        CachingPlan cachingPlan = cachingService.buildEvaluationPlan(cachingResults, pathsPerSrc, primaryPathPerSrc,
+                details.getDestinations());
 
 
         Double totalCost = 0.0;
@@ -181,13 +206,18 @@ public class AnalysisService {
 
             }
             // End of analysis for this FG
-            // Content analysis
-            cachingService.evaluateContentAccessibility(cachingResults, chosenPaths, chosenFailures, details.getDestinations(), true);
             if(justOnce){
                 break;
             }
         }
 
+        // Content analysis, for the same failure groups
+        try(MetricsService.Sample sample = metricsService.start("analysis.caching")) {
+            List<List<Failure>> evaluatedGroups = justOnce && !sortedFailureGroups.isEmpty() ?
+                    sortedFailureGroups.subList(0, 1) : sortedFailureGroups;
+            cachingService.evaluateContentAccessibility(cachingPlan, cachingResults, evaluatedGroups);
+        }
+
         // If you're considering all failure groups, divide the totals by the number of failure groups
         if(!justOnce){
             totalCost /= failureGroups.size();
@@ -358,9 +388,12 @@ public class AnalysisService {
         }
         Map<List<Failure>, Double> likelihoods = new HashMap<>();
         Map<List<Failure>, String> combinedIds = new HashMap<>();
-        for(List<Failure> failureGroup : failureGroups){
+        List<List<Failure>> orderedGroups = new ArrayList<>();
+        for(List<Failure> group : failureGroups){
             Double likelihood = 1.0;
             String combinedId = "";
+            // Sort a copy, the request's failure groups may be shared with other requests
+            List<Failure> failureGroup = new ArrayList<>(group);
             failureGroup.sort(Comparator.comparing(f -> f.getNode() == null ? f.getLink().getId() : f.getNode().getId()));
             for(Failure failure : failureGroup){
                 likelihood *= failure.getProbability();
@@ -368,9 +401,10 @@ public class AnalysisService {
             }
             likelihoods.put(failureGroup, likelihood);
             combinedIds.put(failureGroup, combinedId);
+            orderedGroups.add(failureGroup);
         }
 
-        List<List<Failure>> sortedGroups = failureGroups.stream()
+        List<List<Failure>> sortedGroups = orderedGroups.stream()
                 .sorted(Comparator.comparingDouble(likelihoods::get).reversed().thenComparing(combinedIds::get))
                 .collect(Collectors.toList());
 
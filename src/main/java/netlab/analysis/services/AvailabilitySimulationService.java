@@ -0,0 +1,307 @@
+package netlab.analysis.services;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.analysis.analyzed.AvailabilitySimulationParameters;
+import netlab.analysis.analyzed.AvailabilitySimulationResult;
+import netlab.metrics.services.MetricsService;
+import netlab.submission.request.Failures;
+import netlab.submission.request.Request;
+import netlab.topology.elements.Failure;
+import netlab.topology.elements.Path;
+import netlab.topology.elements.SourceDestPair;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Discrete-event simulation of a routed request over time. Every element in the request's failure set alternates
+ * between up and down: it fails as a Poisson process with a rate set by its probability, and is repaired after an
+ * exponential repair time. As in AnalysisService, a connection is a source with all of its paths, the cheapest being
+ * the primary. The connection uses the cheapest intact path, switching to a backup when that path fails and back
+ * when it's repaired, and is down while none of its paths are intact.
+ * Each element has exactly one pending event (its next failure or repair), so the event pool is one EventQueue slot
+ * per element and the event loop doesn't allocate. Replications run in parallel, each with its own random stream
+ * derived from the seed and its index, so results don't depend on how replications are split across threads.
+ */
+@Service
+@Slf4j
+public class AvailabilitySimulationService {
+
+    private static final double HOURS_PER_YEAR = 8760.0;
+    // Two-sided 95% normal quantile
+    private static final double Z_95 = 1.96;
+
+    private MetricsService metricsService;
+
+    @Autowired
+    public AvailabilitySimulationService(MetricsService metricsService){
+        this.metricsService = metricsService;
+    }
+
+    public AvailabilitySimulationResult simulate(Request request, AvailabilitySimulationParameters params){
+        return metricsService.time("analysis.availability", () -> simulateRequest(request, params));
+    }
+
+    private AvailabilitySimulationResult simulateRequest(Request request, AvailabilitySimulationParameters params){
+        long startTime = System.nanoTime();
+        double years = params.getYears() != null ? params.getYears() : 10.0;
+        int replications = Math.max(1, params.getReplications() != null ? params.getReplications() : 8);
+        long seed = params.getSeed() != null ? params.getSeed() : 1L;
+        double failuresPerYear = params.getFailuresPerYear() != null ? params.getFailuresPerYear() : 1.0;
+        double meanRepairHours = params.getMeanRepairHours() != null ? params.getMeanRepairHours() : 24.0;
+        double horizon = years * HOURS_PER_YEAR;
+
+        Model model = new Model(request, failuresPerYear);
+        List<Replication> runs = IntStream.range(0, replications).parallel()
+                .mapToObj(r -> new Replication(model, seed + r * 0x9E3779B97F4A7C15L).run(horizon, meanRepairHours))
+                .collect(Collectors.toList());
+
+        int numConnections = model.numConnections;
+        double[] availabilities = new double[replications];
+        double[] connectionDowntime = new double[numConnections];
+        long outages = 0;
+        long switchovers = 0;
+        long events = 0;
+        for(int r = 0; r < replications; r++){
+            Replication run = runs.get(r);
+            double downtime = 0.0;
+            for(int c = 0; c < numConnections; c++){
+                downtime += run.downtime[c];
+                connectionDowntime[c] += run.downtime[c];
+                outages += run.outages[c];
+                switchovers += run.switchovers[c];
+            }
+            availabilities[r] = numConnections > 0 && horizon > 0 ? 1.0 - downtime / (numConnections * horizon) : 1.0;
+            events += run.events;
+        }
+
+        double mean = Arrays.stream(availabilities).average().orElse(1.0);
+        double variance = replications > 1
+                ? Arrays.stream(availabilities).map(a -> (a - mean) * (a - mean)).sum() / (replications - 1) : 0.0;
+        Map<String, Double> connectionAvailability = new TreeMap<>();
+        for(int c = 0; c < numConnections; c++){
+            connectionAvailability.put(model.connectionIds[c],
+                    horizon > 0 ? 1.0 - connectionDowntime[c] / (replications * horizon) : 1.0);
+        }
+        double connectionYears = numConnections * years * replications;
+
+        double duration = (System.nanoTime() - startTime) / 1e9;
+        log.info("Simulated " + replications + " x " + years + " years (" + events + " events) for request "
+                + request.getId() + " in " + duration + " seconds");
+        return AvailabilitySimulationResult.builder()
+                .requestId(request.getId())
+                .seed(seed)
+                .years(years)
+                .replications(replications)
+                .numConnections(numConnections)
+                .numFailureElements(model.numElements)
+                .availability(mean)
+                .minAvailability(Arrays.stream(availabilities).min().orElse(1.0))
+                .maxAvailability(Arrays.stream(availabilities).max().orElse(1.0))
+                .availabilityHalfWidth(Z_95 * Math.sqrt(variance / replications))
+                .downtimeMinutesPerYear(connectionYears > 0 ? (1.0 - mean) * HOURS_PER_YEAR * 60 : 0.0)
+                .outagesPerYear(connectionYears > 0 ? outages / connectionYears : 0.0)
+                .switchoversPerYear(connectionYears > 0 ? switchovers / connectionYears : 0.0)
+                .connectionAvailability(connectionAvailability)
+                .numEvents(events)
+                .eventsPerSecond(duration > 0 ? events / duration : 0.0)
+                .runningTimeSeconds(duration)
+                .build();
+    }
+
+    /**
+     * The request reduced to indices, shared read-only by the replications. Paths are numbered so each connection's
+     * paths are contiguous and cheapest first, and each element lists the paths it lies on.
+     */
+    private static class Model {
+        private final int numElements;
+        private final int numConnections;
+        private final String[] connectionIds;
+        // Failures per hour while up, per element
+        private final double[] failureRates;
+        // Connection c owns paths connectionPaths[c] to connectionPaths[c + 1] - 1
+        private final int[] connectionPaths;
+        private final int[] pathConnection;
+        // Element e lies on paths elementPaths[elementPathStart[e]] to elementPaths[elementPathStart[e + 1] - 1]
+        private final int[] elementPathStart;
+        private final int[] elementPaths;
+
+        private Model(Request request, double failuresPerYear){
+            Failures failures = request.getDetails().getFailures();
+            List<Failure> elements = failures != null && failures.getFailureSet() != null
+                    ? failures.getFailureSet().stream()
+                        .filter(f -> f.getProbability() != null && f.getProbability() > 0)
+                        .sorted(Comparator.comparing(AvailabilitySimulationService::failureId))
+                        .collect(Collectors.toList())
+                    : new ArrayList<>();
+            numElements = elements.size();
+            failureRates = new double[numElements];
+            for(int e = 0; e < numElements; e++){
+                failureRates[e] = elements.get(e).getProbability() * failuresPerYear / HOURS_PER_YEAR;
+            }
+
+            // Same grouping as PathMappingService.getPathsPerSrc, in source order so replications line up
+            Map<String, Set<Path>> pathsPerSrc = new TreeMap<>();
+            Map<SourceDestPair, Map<String, Path>> chosenPaths = request.getDetails().getChosenPaths();
+            if(chosenPaths != null){
+                for(Map.Entry<SourceDestPair, Map<String, Path>> entry : chosenPaths.entrySet()){
+                    for(Path path : entry.getValue().values()){
+                        if(!path.getNodes().isEmpty()){
+                            pathsPerSrc.computeIfAbsent(entry.getKey().getSrc().getId(), s -> new HashSet<>()).add(path);
+                        }
+                    }
+                }
+            }
+            numConnections = pathsPerSrc.size();
+            connectionIds = pathsPerSrc.keySet().toArray(new String[0]);
+            connectionPaths = new int[numConnections + 1];
+            List<Path> paths = new ArrayList<>();
+            for(int c = 0; c < numConnections; c++){
+                pathsPerSrc.get(connectionIds[c]).stream()
+                        .sorted(Comparator.comparing(Path::getTotalWeight)
+                                .thenComparing(Path::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                        .forEach(paths::add);
+                connectionPaths[c + 1] = paths.size();
+            }
+            pathConnection = new int[paths.size()];
+            for(int c = 0; c < numConnections; c++){
+                Arrays.fill(pathConnection, connectionPaths[c], connectionPaths[c + 1], c);
+            }
+
+            // Same check as Path.containsFailures
+            List<List<Integer>> onPaths = new ArrayList<>();
+            int total = 0;
+            for(Failure failure : elements){
+                List<Integer> elementOnPaths = new ArrayList<>();
+                for(int p = 0; p < paths.size(); p++){
+                    Path path = paths.get(p);
+                    boolean onPath = failure.getNode() != null
+                            ? path.getNodeIds().contains(failure.getNode().getId())
+                            : path.getLinkIds().contains(failure.getLink().getId())
+                                || path.getLinkIds().contains(failure.getLink().reverse().getId());
+                    if(onPath){
+                        elementOnPaths.add(p);
+                    }
+                }
+                onPaths.add(elementOnPaths);
+                total += elementOnPaths.size();
+            }
+            elementPathStart = new int[numElements + 1];
+            elementPaths = new int[total];
+            for(int e = 0, k = 0; e < numElements; e++){
+                for(int p : onPaths.get(e)){
+                    elementPaths[k++] = p;
+                }
+                elementPathStart[e + 1] = k;
+            }
+        }
+    }
+
+    /**
+     * One run over the horizon. All state lives in arrays sized by the model, allocated once up front.
+     */
+    private static class Replication {
+        private final Model model;
+        private final SplittableRandom rng;
+        private final EventQueue queue;
+        private final boolean[] elementDown;
+        // Failed elements on each path
+        private final int[] pathFailures;
+        // Path each connection is using, -1 while it's down
+        private final int[] activePath;
+        private final double[] downSince;
+
+        private final double[] downtime;
+        private final long[] outages;
+        private final long[] switchovers;
+        private long events;
+
+        private Replication(Model model, long seed){
+            this.model = model;
+            rng = new SplittableRandom(seed);
+            queue = new EventQueue(model.numElements);
+            elementDown = new boolean[model.numElements];
+            pathFailures = new int[model.pathConnection.length];
+            activePath = new int[model.numConnections];
+            downSince = new double[model.numConnections];
+            downtime = new double[model.numConnections];
+            outages = new long[model.numConnections];
+            switchovers = new long[model.numConnections];
+            for(int c = 0; c < model.numConnections; c++){
+                activePath[c] = model.connectionPaths[c];
+            }
+        }
+
+        private Replication run(double horizon, double meanRepairHours){
+            for(int e = 0; e < model.numElements; e++){
+                queue.schedule(e, exponential(1.0 / model.failureRates[e]));
+            }
+            while(!queue.isEmpty() && queue.peekTime() <= horizon){
+                int e = queue.peek();
+                double time = queue.peekTime();
+                events++;
+                if(elementDown[e]){
+                    elementDown[e] = false;
+                    queue.schedule(e, time + exponential(1.0 / model.failureRates[e]));
+                    update(e, -1, time);
+                } else{
+                    elementDown[e] = true;
+                    queue.schedule(e, time + exponential(meanRepairHours));
+                    update(e, 1, time);
+                }
+            }
+            for(int c = 0; c < model.numConnections; c++){
+                if(activePath[c] < 0){
+                    downtime[c] += horizon - downSince[c];
+                }
+            }
+            return this;
+        }
+
+        private void update(int element, int change, double time){
+            for(int k = model.elementPathStart[element]; k < model.elementPathStart[element + 1]; k++){
+                int p = model.elementPaths[k];
+                int before = pathFailures[p];
+                pathFailures[p] = before + change;
+                // Only a path going from intact to severed or back can change what its connection uses
+                if(before == 0 || before + change == 0){
+                    reroute(model.pathConnection[p], time);
+                }
+            }
+        }
+
+        private void reroute(int connection, double time){
+            int best = -1;
+            for(int p = model.connectionPaths[connection]; p < model.connectionPaths[connection + 1]; p++){
+                if(pathFailures[p] == 0){
+                    best = p;
+                    break;
+                }
+            }
+            int current = activePath[connection];
+            if(best == current){
+                return;
+            }
+            if(current < 0){
+                downtime[connection] += time - downSince[connection];
+            } else if(best < 0){
+                outages[connection]++;
+                downSince[connection] = time;
+            } else{
+                switchovers[connection]++;
+            }
+            activePath[connection] = best;
+        }
+
+        private double exponential(double mean){
+            return -mean * Math.log(1.0 - rng.nextDouble());
+        }
+    }
+
+    private static String failureId(Failure failure){
+        return failure.getNode() != null ? failure.getNode().getId() : failure.getLink().getId();
+    }
+}
@@ -0,0 +1,203 @@
+package netlab.analysis.services;
+
+import netlab.analysis.analyzed.CachingResult;
+import netlab.topology.elements.*;
+
+import java.util.*;
+
+/**
+ * Read-only view of a request's paths and caching locations, built once per request so each failure group can be
+ * evaluated without recomputing the paths per source, and from several threads at once.
+ * Nodes and links are replaced by indices, and the first node holding content on each path is found up front for
+ * every caching type, since it doesn't depend on which failures occur.
+ */
+public class CachingPlan {
+
+    // Indices of the values produced for each caching type by evaluate()
+    public static final int AVG_HOP_BEFORE = 0;
+    public static final int AVG_HOP_AFTER = 1;
+    public static final int REACH_ON_PRIMARY = 2;
+    public static final int REACH_ON_BACKUP = 3;
+    public static final int REACH_ONLY_BACKUP = 4;
+    public static final int NUM_VALUES = 5;
+
+    private final Map<String, Integer> nodeIndex = new HashMap<>();
+    private final Map<String, Integer> linkIndex = new HashMap<>();
+
+    // Per path: the node indices in order, and the link from node k to node k+1
+    private final int[][] pathNodes;
+    private final int[][] pathLinks;
+    // Per source: the primary path, and every other path from that source
+    private final int[] primaryPaths;
+    private final int[][] backupPaths;
+    // [type][path]: position of the first node (other than the source) holding content, or the path length if none
+    private final int[][] firstHit;
+    private final double[] averageHopBefore;
+
+    CachingPlan(List<CachingResult> cachingResults, Map<Node, Set<Path>> pathsPerSrc,
+                Map<Node, Path> primaryPathPerSrc, Set<Node> destinations){
+        List<Path> paths = new ArrayList<>();
+        List<Node> pathSources = new ArrayList<>();
+        List<Node> sources = new ArrayList<>(pathsPerSrc.keySet());
+        primaryPaths = new int[sources.size()];
+        backupPaths = new int[sources.size()][];
+        for(int s = 0; s < sources.size(); s++){
+            Node src = sources.get(s);
+            Path primary = primaryPathPerSrc.get(src);
+            primaryPaths[s] = paths.size();
+            paths.add(primary);
+            pathSources.add(src);
+            List<Path> backups = new ArrayList<>(pathsPerSrc.get(src));
+            backups.remove(primary);
+            backupPaths[s] = new int[backups.size()];
+            for(int b = 0; b < backups.size(); b++){
+                backupPaths[s][b] = paths.size();
+                paths.add(backups.get(b));
+                pathSources.add(src);
+            }
+        }
+
+        pathNodes = new int[paths.size()][];
+        pathLinks = new int[paths.size()][];
+        for(int p = 0; p < paths.size(); p++){
+            List<Node> nodes = paths.get(p).getNodes();
+            List<Link> links = paths.get(p).getLinks();
+            pathNodes[p] = new int[nodes.size()];
+            for(int k = 0; k < nodes.size(); k++){
+                pathNodes[p][k] = nodeIndex.computeIfAbsent(nodes.get(k).getId(), id -> nodeIndex.size());
+            }
+            pathLinks[p] = new int[links.size()];
+            for(int k = 0; k < links.size(); k++){
+                pathLinks[p][k] = linkIndex.computeIfAbsent(links.get(k).getId(), id -> linkIndex.size());
+            }
+        }
+
+        boolean[] isDest = new boolean[nodeIndex.size()];
+        for(Node dest : destinations){
+            Integer index = nodeIndex.get(dest.getId());
+            if(index != null){
+                isDest[index] = true;
+            }
+        }
+
+        firstHit = new int[cachingResults.size()][paths.size()];
+        averageHopBefore = new double[cachingResults.size()];
+        for(int t = 0; t < cachingResults.size(); t++){
+            boolean[] hasContent = isDest.clone();
+            for(Node cache : cachingResults.get(t).getCachingLocations()){
+                Integer index = nodeIndex.get(cache.getId());
+                if(index != null){
+                    hasContent[index] = true;
+                }
+            }
+            for(int p = 0; p < paths.size(); p++){
+                int src = nodeIndex.getOrDefault(pathSources.get(p).getId(), -1);
+                int[] nodes = pathNodes[p];
+                int hit = 0;
+                while(hit < nodes.length && (nodes[hit] == src || !hasContent[nodes[hit]])){
+                    hit++;
+                }
+                firstHit[t][p] = hit;
+            }
+            // The hop count before failure only depends on the primary paths
+            double sum = 0.0;
+            int count = 0;
+            for(int primary : primaryPaths){
+                if(firstHit[t][primary] > 0){
+                    sum += firstHit[t][primary];
+                    count++;
+                }
+            }
+            averageHopBefore[t] = count > 0 ? sum / count : 0.0;
+        }
+    }
+
+    public int getNumTypes(){
+        return firstHit.length;
+    }
+
+    /**
+     * Content accessibility after the given failures, for each caching type.
+     * @param failures - The failures that occur together.
+     * @return [type][value], with values indexed by AVG_HOP_BEFORE, AVG_HOP_AFTER, etc.
+     */
+    public double[][] evaluate(Collection<Failure> failures){
+        boolean[] failedNodes = new boolean[nodeIndex.size()];
+        boolean[] failedLinks = new boolean[linkIndex.size()];
+        for(Failure failure : failures){
+            if(failure.getNode() != null){
+                markFailed(failedNodes, nodeIndex, failure.getNode().getId());
+            } else{
+                markFailed(failedLinks, linkIndex, failure.getLink().getId());
+                markFailed(failedLinks, linkIndex, failure.getLink().reverse().getId());
+            }
+        }
+
+        // Number of nodes on each path that can still be reached from its source
+        int[] reachable = new int[pathNodes.length];
+        for(int p = 0; p < pathNodes.length; p++){
+            reachable[p] = countReachable(pathNodes[p], pathLinks[p], failedNodes, failedLinks);
+        }
+
+        int numSources = primaryPaths.length;
+        double divisor = numSources > 0 ? numSources : 1.0;
+        double[][] values = new double[firstHit.length][NUM_VALUES];
+        for(int t = 0; t < firstHit.length; t++){
+            int[] hits = firstHit[t];
+            double hopSum = 0.0;
+            int hopCount = 0;
+            int reachOnPrimary = 0;
+            int reachOnBackup = 0;
+            int reachOnlyBackup = 0;
+            for(int s = 0; s < numSources; s++){
+                int primary = primaryPaths[s];
+                boolean primaryHit = hits[primary] < reachable[primary];
+                int hopCountAfter = primaryHit ? hits[primary] : Integer.MAX_VALUE;
+                boolean backupHit = false;
+                for(int backup : backupPaths[s]){
+                    if(hits[backup] < reachable[backup]){
+                        backupHit = true;
+                        hopCountAfter = Math.min(hopCountAfter, hits[backup]);
+                    }
+                }
+                if(primaryHit){
+                    reachOnPrimary++;
+                }
+                if(backupHit){
+                    reachOnBackup++;
+                    if(!primaryHit){
+                        reachOnlyBackup++;
+                    }
+                }
+                if(hopCountAfter > 0 && hopCountAfter < Integer.MAX_VALUE){
+                    hopSum += hopCountAfter;
+                    hopCount++;
+                }
+            }
+            values[t][AVG_HOP_BEFORE] = averageHopBefore[t];
+            values[t][AVG_HOP_AFTER] = hopCount > 0 ? hopSum / hopCount : 0.0;
+            values[t][REACH_ON_PRIMARY] = reachOnPrimary / divisor;
+            values[t][REACH_ON_BACKUP] = reachOnBackup / divisor;
+            values[t][REACH_ONLY_BACKUP] = reachOnlyBackup / divisor;
+        }
+        return values;
+    }
+
+    // Same as PathMappingService.getReachableNodes: walk from the source until a failed link, or a link touching a
+    // failed node. If the very first link is lost, nothing is reachable (not even the source).
+    private int countReachable(int[] nodes, int[] links, boolean[] failedNodes, boolean[] failedLinks){
+        for(int k = 0; k < links.length; k++){
+            if(failedLinks[links[k]] || failedNodes[nodes[k]] || failedNodes[nodes[k + 1]]){
+                return k == 0 ? 0 : k + 1;
+            }
+        }
+        return links.length == 0 ? 0 : nodes.length;
+    }
+
+    private void markFailed(boolean[] failed, Map<String, Integer> index, String id){
+        Integer i = index.get(id);
+        if(i != null){
+            failed[i] = true;
+        }
+    }
+}
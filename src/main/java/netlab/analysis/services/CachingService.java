@@ -9,11 +9,15 @@ import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @Slf4j
 public class CachingService {
 
+    // Below this many failure groups, evaluating them in parallel costs more than it saves
+    private static final int PARALLEL_GROUP_THRESHOLD = 8;
+
     private PathMappingService pathMappingService;
 
     @Autowired
@@ -175,136 +179,44 @@ public class CachingService {
     }
 
 
-    public void evaluateContentAccessibility(List<CachingResult> cachingResults,
-                                             Map<SourceDestPair, Map<String, Path>> chosenPaths,
-                                             Collection<Failure> chosenFailures, Set<Node> dests, boolean additive) {
-        Map<Node, Set<Path>> pathsPerSrc = pathMappingService.getPathsPerSrc(chosenPaths);
-        Map<Node, Path> primaryPathPerSrc = pathMappingService.getPrimaryPathPerSrc(pathsPerSrc);
-        for (CachingResult cachingResult : cachingResults) {
-            evaluateCachingResult(cachingResult, pathsPerSrc, primaryPathPerSrc, chosenFailures, dests, additive);
-        }
-
+    /**
+     * Build the read-only plan used to evaluate content accessibility for every failure group.
+     * Must be called after buildCacheMaps, so the caching locations are known.
+     */
+    public CachingPlan buildEvaluationPlan(List<CachingResult> cachingResults, Map<Node, Set<Path>> pathsPerSrc,
+                                           Map<Node, Path> primaryPathPerSrc, Set<Node> dests){
+        return new CachingPlan(cachingResults, pathsPerSrc, primaryPathPerSrc, dests);
     }
 
+    /**
+     * Add the content accessibility after each failure group to the caching results.
+     * Groups are evaluated in parallel, then summed in order so the totals don't depend on scheduling.
+     */
+    public void evaluateContentAccessibility(CachingPlan plan, List<CachingResult> cachingResults,
+                                             List<List<Failure>> failureGroups) {
+        double[][][] valuesPerGroup = new double[failureGroups.size()][][];
+        IntStream groupIndices = IntStream.range(0, failureGroups.size());
+        if(failureGroups.size() >= PARALLEL_GROUP_THRESHOLD){
+            groupIndices = groupIndices.parallel();
+        }
+        groupIndices.forEach(g -> valuesPerGroup[g] = plan.evaluate(failureGroups.get(g)));
 
-    private void evaluateCachingResult(CachingResult cachingResult, Map<Node, Set<Path>> pathsPerSrc,
-                                      Map<Node, Path> primaryPathPerSrc, Collection<Failure> chosenFailures, Set<Node> dests,
-                                       boolean additive){
-        Set<Node> cachingLocations = cachingResult.getCachingLocations();
-
-        Map<Node, Integer> hopCountBefore= new HashMap<>();
-        Map<Node, Integer> hopCountAfter = new HashMap<>();
-        Set<Node> reachOnPrimaryAfter= new HashSet<>();
-        Set<Node> reachOnBackupAfter = new HashSet<>();
-        Set<Node> onlyReachOnBackupAfter = new HashSet<>();
-        // Check for content accesibility
-        for(Node src : pathsPerSrc.keySet()){
-            Integer hopCountToContentBefore = 0;
-            Integer hopCountToContentAfter = 0;
-            // Examine the primary path first
-            Path primary = primaryPathPerSrc.get(src);
-            Set<Path> allPaths = pathsPerSrc.get(src);
-            allPaths.remove(primary);
-            // First, get the hop count to content before failure
-            for(Node node : primary.getNodes()){
-                if(checkIfHit(node, cachingLocations, src, dests)){
-                    break;
-                }
-                hopCountToContentBefore++;
-            }
-
-            // Next, see if we can reach the content on the primary path
-            List<Node> reachableNodes = pathMappingService.getReachableNodes(primary, chosenFailures);
-            boolean primaryHit = false;
-            for(Node node : reachableNodes){
-                primaryHit = checkIfHit(node, cachingLocations, src, dests);
-                if(primaryHit){
-                    break;
+        double[][] totals = new double[plan.getNumTypes()][CachingPlan.NUM_VALUES];
+        for(double[][] groupValues : valuesPerGroup){
+            for(int t = 0; t < totals.length; t++){
+                for(int v = 0; v < CachingPlan.NUM_VALUES; v++){
+                    totals[t][v] += groupValues[t][v];
                 }
-                hopCountToContentAfter++;
-            }
-            // Check if you were able to still reach the content on the primary path after failure
-            if(primaryHit){
-                reachOnPrimaryAfter.add(src);
-            }
-            else {
-                // If not, you can at best only reach it on the backup path(s)
-                // You weren't able to get it on the primary path, so reset the after failure hop count
-                // For the hop count, keep the minimum hop count that was successful
-                hopCountToContentAfter = Integer.MAX_VALUE;
             }
-            boolean backupHit = false;
-            for(Path backupPath : allPaths){
-                List<Node> reachableBackupNodes = pathMappingService.getReachableNodes(backupPath, chosenFailures);
-                int tempHopCount = 0;
-                boolean pathHit = false;
-                for(Node node : reachableBackupNodes){
-                    if(checkIfHit(node, cachingLocations, src, dests)){
-                        pathHit = true;
-                        break;
-                    }
-                    tempHopCount++;
-                }
-                // If you've hit content on this path, you've hit content on at least one backup
-                if(pathHit){
-                    backupHit = true;
-                    // If you get to this content more quickly than before, track that
-                    if(hopCountToContentAfter > tempHopCount){
-                        hopCountToContentAfter = tempHopCount;
-                    }
-                }
-            }
-            // Use the backup hit and hop counts to determine if content is reachable after failure!
-            if(backupHit){
-                reachOnBackupAfter.add(src);
-                if(!primaryHit){
-                    onlyReachOnBackupAfter.add(src);
-                }
-            }
-            hopCountBefore.put(src, hopCountToContentBefore);
-            hopCountAfter.put(src, hopCountToContentAfter);
         }
-
-        Set<Node> srcsThatReachContentBefore = hopCountBefore.keySet().stream()
-                .filter(h -> hopCountBefore.get(h) > 0 && hopCountBefore.get(h)  < Integer.MAX_VALUE)
-                .collect(Collectors.toSet());
-        Double averageHopBefore = calculateAverage(hopCountBefore, srcsThatReachContentBefore);
-        Set<Node> srcsThatReachContentAfter = hopCountAfter.keySet().stream()
-                .filter(h -> hopCountAfter.get(h) > 0 && hopCountAfter.get(h)  < Integer.MAX_VALUE)
-                .collect(Collectors.toSet());
-        Double averageHopAfter = calculateAverage(hopCountAfter, srcsThatReachContentAfter);
-
-        Double divisor = pathsPerSrc.keySet().size() > 0 ? pathsPerSrc.keySet().size() : 1.0;
-        Double avgReachOnPrimary = 1.0 * reachOnPrimaryAfter.size() / divisor;
-        Double avgReachOnBackup = 1.0 * reachOnBackupAfter.size() / divisor;
-        Double avgReachOnlyBackup = 1.0 * onlyReachOnBackupAfter.size() / divisor;
-
-        if(!additive) {
-            cachingResult.setAvgHopCountBefore(averageHopBefore);
-            cachingResult.setAvgHopCountAfter(averageHopAfter);
-            cachingResult.setReachOnPrimary(avgReachOnPrimary);
-            cachingResult.setReachOnBackup(avgReachOnBackup);
-            cachingResult.setReachOnlyBackup(avgReachOnlyBackup);
-        } else{
-            cachingResult.setAvgHopCountBefore(cachingResult.getAvgHopCountBefore() + averageHopBefore);
-            cachingResult.setAvgHopCountAfter(cachingResult.getAvgHopCountAfter() + averageHopAfter);
-            cachingResult.setReachOnPrimary(cachingResult.getReachOnPrimary() + avgReachOnPrimary);
-            cachingResult.setReachOnBackup(cachingResult.getReachOnBackup() + avgReachOnBackup);
-            cachingResult.setReachOnlyBackup(cachingResult.getReachOnlyBackup() + avgReachOnlyBackup);
-        }
-    }
-
-    private Double calculateAverage(Map<Node, Integer> valueMap, Set<Node> validKeys) {
-        double sum = 0.0;
-        for(Node key : validKeys){
-            Integer value = valueMap.get(key);
-            sum += value;
+        for(int t = 0; t < totals.length; t++){
+            CachingResult cachingResult = cachingResults.get(t);
+            cachingResult.setAvgHopCountBefore(cachingResult.getAvgHopCountBefore() + totals[t][CachingPlan.AVG_HOP_BEFORE]);
+            cachingResult.setAvgHopCountAfter(cachingResult.getAvgHopCountAfter() + totals[t][CachingPlan.AVG_HOP_AFTER]);
+            cachingResult.setReachOnPrimary(cachingResult.getReachOnPrimary() + totals[t][CachingPlan.REACH_ON_PRIMARY]);
+            cachingResult.setReachOnBackup(cachingResult.getReachOnBackup() + totals[t][CachingPlan.REACH_ON_BACKUP]);
+            cachingResult.setReachOnlyBackup(cachingResult.getReachOnlyBackup() + totals[t][CachingPlan.REACH_ONLY_BACKUP]);
         }
-        return validKeys.size() > 0 ? sum / validKeys.size() : 0.0;
-    }
-
-    private boolean checkIfHit(Node node, Set<Node> cachingLocations, Node src, Set<Node> dests) {
-        return !node.equals(src) && (cachingLocations.contains(node) || dests.contains(node));
     }
 
     public void averageContentAccessibility(List<CachingResult> cachingResults, int size) {
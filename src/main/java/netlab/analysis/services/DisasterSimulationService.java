@@ -0,0 +1,333 @@
+package netlab.analysis.services;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.analysis.analyzed.DisasterSample;
+import netlab.analysis.analyzed.DisasterSimulationParameters;
+import netlab.analysis.analyzed.DisasterSimulationResult;
+import netlab.analysis.analyzed.SurvivabilityDistribution;
+import netlab.analysis.enums.RadiusDistribution;
+import netlab.metrics.services.MetricsService;
+import netlab.submission.enums.FailureClass;
+import netlab.submission.request.FailureArea;
+import netlab.submission.request.Request;
+import netlab.submission.services.FailureAreaIndex;
+import netlab.submission.services.FailureAreaService;
+import netlab.topology.elements.*;
+import netlab.topology.services.TopologyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Monte-Carlo evaluation of a routed request against random geographic disasters.
+ * Each sample draws a center and radius, finds the failures through the FailureAreaService, and records how many pairs
+ * and paths survive. Samples are evaluated in parallel and folded straight into histograms, so nothing per-sample is
+ * kept apart from the worst k. Every sample has its own random stream derived from the seed and its index, so the
+ * results don't depend on how the samples are split across threads.
+ */
+@Service
+@Slf4j
+public class DisasterSimulationService {
+
+    private static final double[] QUANTILES = {0.01, 0.05, 0.25, 0.5, 0.75, 0.95};
+    private static final double KM_PER_DEGREE = 111.0;
+
+    private FailureAreaService failureAreaService;
+    private TopologyService topologyService;
+    private MetricsService metricsService;
+
+    @Autowired
+    public DisasterSimulationService(FailureAreaService failureAreaService, TopologyService topologyService,
+                                     MetricsService metricsService){
+        this.failureAreaService = failureAreaService;
+        this.topologyService = topologyService;
+        this.metricsService = metricsService;
+    }
+
+    public DisasterSimulationResult simulate(Request request, DisasterSimulationParameters params){
+        Topology topology = topologyService.getTopologyById(request.getTopologyId());
+        return metricsService.time("analysis.disasters", () -> simulate(request, topology, params));
+    }
+
+    public DisasterSimulationResult simulate(Request request, Topology topology, DisasterSimulationParameters params){
+        long startTime = System.nanoTime();
+        int numSamples = params.getNumSamples() != null ? params.getNumSamples() : 1000;
+        long seed = params.getSeed() != null ? params.getSeed() : 1L;
+        int worstK = params.getWorstK() != null ? params.getWorstK() : 10;
+        FailureClass failureClass = params.getFailureClass() != null
+                ? FailureClass.get(params.getFailureClass()).orElse(FailureClass.Both)
+                : request.getFailureClass() != null ? request.getFailureClass() : FailureClass.Both;
+
+        Sampler sampler = new Sampler(params, topology);
+        RoutedPaths routedPaths = new RoutedPaths(request.getDetails().getChosenPaths());
+        FailureAreaIndex index = failureAreaService.buildIndex(topology.getNodes(), topology.getLinks());
+
+        Accumulator total = IntStream.range(0, numSamples).parallel().collect(
+                () -> new Accumulator(routedPaths, worstK),
+                (acc, i) -> acc.add(evaluateSample(i, seed, sampler, index, failureClass, routedPaths)),
+                Accumulator::merge);
+
+        double duration = (System.nanoTime() - startTime) / 1e9;
+        log.info("Simulated " + numSamples + " disasters for request " + request.getId() + " in " + duration + " seconds");
+        return DisasterSimulationResult.builder()
+                .requestId(request.getId())
+                .seed(seed)
+                .numSamples(numSamples)
+                .numSamplesWithFailures(total.samplesWithFailures)
+                .pairSurvivability(total.distribution(total.pairHistogram, routedPaths.numPairs))
+                .pathSurvivability(total.distribution(total.pathHistogram, routedPaths.numPaths))
+                .worstSamples(total.worst())
+                .runningTimeSeconds(duration)
+                .build();
+    }
+
+    private DisasterSample evaluateSample(int sampleIndex, long seed, Sampler sampler, FailureAreaIndex index,
+                                          FailureClass failureClass, RoutedPaths routedPaths){
+        SplittableRandom rng = new SplittableRandom(seed + sampleIndex * 0x9E3779B97F4A7C15L);
+        FailureArea area = sampler.sample(rng);
+        Set<Failure> failures = failureAreaService.determineFailuresBasedOnArea(Collections.singletonList(area), index, failureClass);
+
+        // Elements fail with their weight. Draw in id order so the outcome doesn't depend on set ordering.
+        List<Failure> candidates = new ArrayList<>(failures);
+        candidates.sort(Comparator.comparing(Failure::getId));
+        Set<String> failedIds = new HashSet<>();
+        int numFailures = 0;
+        for(Failure failure : candidates){
+            if(failure.getProbability() >= 1.0 || rng.nextDouble() < failure.getProbability()){
+                numFailures++;
+                if(failure.getNode() != null){
+                    failedIds.add(failure.getNode().getId());
+                } else{
+                    failedIds.add(failure.getLink().getId());
+                    failedIds.add(failure.getLink().reverse().getId());
+                }
+            }
+        }
+
+        int survivingPairs = 0;
+        int survivingPaths = 0;
+        for(List<Path> pairPaths : routedPaths.pathsPerPair){
+            boolean pairSurvives = false;
+            for(Path path : pairPaths){
+                if(!severed(path, failedIds)){
+                    survivingPaths++;
+                    pairSurvives = true;
+                }
+            }
+            if(pairSurvives){
+                survivingPairs++;
+            }
+        }
+        return DisasterSample.builder()
+                .index(sampleIndex)
+                .latitude(area.getCenter().getLatitude())
+                .longitude(area.getCenter().getLongitude())
+                .radius(area.getRadius())
+                .numFailures(numFailures)
+                .pairSurvivability(routedPaths.numPairs > 0 ? 1.0 * survivingPairs / routedPaths.numPairs : 1.0)
+                .pathSurvivability(routedPaths.numPaths > 0 ? 1.0 * survivingPaths / routedPaths.numPaths : 1.0)
+                .build();
+    }
+
+    // Same check as Path.containsFailures
+    private boolean severed(Path path, Set<String> failedIds){
+        if(failedIds.isEmpty()){
+            return false;
+        }
+        for(String id : path.getLinkIds()){
+            if(failedIds.contains(id)){
+                return true;
+            }
+        }
+        for(String id : path.getNodeIds()){
+            if(failedIds.contains(id)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The request's paths, grouped by pair. Pairs without paths are left out, since they can't lose anything.
+     */
+    private static class RoutedPaths {
+        private final List<List<Path>> pathsPerPair = new ArrayList<>();
+        private final int numPairs;
+        private final int numPaths;
+
+        private RoutedPaths(Map<SourceDestPair, Map<String, Path>> chosenPaths){
+            int paths = 0;
+            if(chosenPaths != null){
+                for(Map<String, Path> pairPaths : chosenPaths.values()){
+                    List<Path> nonEmpty = new ArrayList<>();
+                    for(Path path : pairPaths.values()){
+                        if(!path.getNodes().isEmpty()){
+                            nonEmpty.add(path);
+                        }
+                    }
+                    if(!nonEmpty.isEmpty()){
+                        pathsPerPair.add(nonEmpty);
+                        paths += nonEmpty.size();
+                    }
+                }
+            }
+            numPairs = pathsPerPair.size();
+            numPaths = paths;
+        }
+    }
+
+    private static class Sampler {
+        private final RadiusDistribution distribution;
+        private final double minRadius;
+        private final double maxRadius;
+        private final double meanRadius;
+        private final double minSinLat;
+        private final double maxSinLat;
+        private final double minLon;
+        private final double maxLon;
+        private final boolean mustFail;
+
+        private Sampler(DisasterSimulationParameters params, Topology topology){
+            distribution = params.getRadiusDistribution() != null
+                    ? RadiusDistribution.get(params.getRadiusDistribution()).orElse(RadiusDistribution.Uniform)
+                    : RadiusDistribution.Uniform;
+            minRadius = params.getMinRadius() != null ? params.getMinRadius() : 50.0;
+            maxRadius = Math.max(minRadius, params.getMaxRadius() != null ? params.getMaxRadius() : 1000.0);
+            meanRadius = params.getMeanRadius() != null ? params.getMeanRadius() : (maxRadius - minRadius) / 4;
+            mustFail = params.getMustFail() != null && params.getMustFail();
+
+            double pad = maxRadius / KM_PER_DEGREE;
+            DoubleSummaryStatistics lats = topology.getNodes().stream().mapToDouble(n -> n.getPoint().getLatitude()).summaryStatistics();
+            DoubleSummaryStatistics lons = topology.getNodes().stream().mapToDouble(n -> n.getPoint().getLongitude()).summaryStatistics();
+            double minLat = params.getMinLatitude() != null ? params.getMinLatitude() : Math.max(-90, lats.getMin() - pad);
+            double maxLat = params.getMaxLatitude() != null ? params.getMaxLatitude() : Math.min(90, lats.getMax() + pad);
+            minLon = params.getMinLongitude() != null ? params.getMinLongitude() : Math.max(-180, lons.getMin() - pad);
+            maxLon = params.getMaxLongitude() != null ? params.getMaxLongitude() : Math.min(180, lons.getMax() + pad);
+            // Uniform over the surface, not over degrees of latitude
+            minSinLat = Math.sin(Math.toRadians(minLat));
+            maxSinLat = Math.sin(Math.toRadians(maxLat));
+        }
+
+        private FailureArea sample(SplittableRandom rng){
+            double lat = Math.toDegrees(Math.asin(minSinLat + rng.nextDouble() * (maxSinLat - minSinLat)));
+            double lon = minLon + rng.nextDouble() * (maxLon - minLon);
+            double radius;
+            switch(distribution){
+                case Exponential:
+                    radius = Math.min(maxRadius, minRadius - meanRadius * Math.log(1.0 - rng.nextDouble()));
+                    break;
+                default:
+                    radius = minRadius + rng.nextDouble() * (maxRadius - minRadius);
+            }
+            return new FailureArea(lat, lon, (int) Math.round(radius), mustFail);
+        }
+    }
+
+    /**
+     * Streaming summary of the samples. Survivability is always a count over a fixed total, so the histograms are
+     * exact and quantiles don't need the samples themselves.
+     */
+    private static class Accumulator {
+        private final long[] pairHistogram;
+        private final long[] pathHistogram;
+        private final int worstK;
+        // Best of the worst at the head, so it can be swapped out
+        private final PriorityQueue<DisasterSample> worst;
+        private int samplesWithFailures = 0;
+
+        private static final Comparator<DisasterSample> DAMAGE = Comparator
+                .comparingDouble(DisasterSample::getPairSurvivability)
+                .thenComparingDouble(DisasterSample::getPathSurvivability)
+                .thenComparingInt(DisasterSample::getIndex);
+
+        private Accumulator(RoutedPaths routedPaths, int worstK){
+            pairHistogram = new long[routedPaths.numPairs + 1];
+            pathHistogram = new long[routedPaths.numPaths + 1];
+            this.worstK = worstK;
+            worst = new PriorityQueue<>(DAMAGE.reversed());
+        }
+
+        private void add(DisasterSample sample){
+            pairHistogram[(int) Math.round(sample.getPairSurvivability() * (pairHistogram.length - 1))]++;
+            pathHistogram[(int) Math.round(sample.getPathSurvivability() * (pathHistogram.length - 1))]++;
+            if(sample.getNumFailures() > 0){
+                samplesWithFailures++;
+            }
+            offer(sample);
+        }
+
+        private void offer(DisasterSample sample){
+            if(worstK <= 0){
+                return;
+            }
+            if(worst.size() < worstK){
+                worst.add(sample);
+            } else if(DAMAGE.compare(sample, worst.peek()) < 0){
+                worst.poll();
+                worst.add(sample);
+            }
+        }
+
+        private void merge(Accumulator other){
+            for(int i = 0; i < pairHistogram.length; i++){
+                pairHistogram[i] += other.pairHistogram[i];
+            }
+            for(int i = 0; i < pathHistogram.length; i++){
+                pathHistogram[i] += other.pathHistogram[i];
+            }
+            samplesWithFailures += other.samplesWithFailures;
+            for(DisasterSample sample : other.worst){
+                offer(sample);
+            }
+        }
+
+        private List<DisasterSample> worst(){
+            List<DisasterSample> samples = new ArrayList<>(worst);
+            samples.sort(DAMAGE);
+            return samples;
+        }
+
+        private SurvivabilityDistribution distribution(long[] histogram, int total){
+            if(total == 0){
+                // Nothing was routed, so nothing can be lost
+                Map<Double, Double> quantiles = new TreeMap<>();
+                for(double q : QUANTILES){
+                    quantiles.put(q, 1.0);
+                }
+                return SurvivabilityDistribution.builder().mean(1.0).min(1.0).max(1.0).quantiles(quantiles).build();
+            }
+            long count = Arrays.stream(histogram).sum();
+            int divisor = total;
+            double sum = 0.0;
+            int min = -1;
+            int max = -1;
+            for(int k = 0; k < histogram.length; k++){
+                if(histogram[k] > 0){
+                    sum += (double) k * histogram[k];
+                    min = min < 0 ? k : min;
+                    max = k;
+                }
+            }
+            Map<Double, Double> quantiles = new TreeMap<>();
+            for(double q : QUANTILES){
+                long rank = Math.max(1, (long) Math.ceil(q * count));
+                long seen = 0;
+                for(int k = 0; k < histogram.length; k++){
+                    seen += histogram[k];
+                    if(seen >= rank){
+                        quantiles.put(q, 1.0 * k / divisor);
+                        break;
+                    }
+                }
+            }
+            return SurvivabilityDistribution.builder()
+                    .mean(count > 0 ? sum / count / divisor : 0.0)
+                    .min(min >= 0 ? 1.0 * min / divisor : 0.0)
+                    .max(max >= 0 ? 1.0 * max / divisor : 0.0)
+                    .quantiles(quantiles)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package netlab.analysis.services;
+
+import java.util.Arrays;
+
+/**
+ * Future event list for discrete-event simulation: an indexed binary min-heap of event times over a fixed pool of
+ * event slots. A slot is an int, and whatever the event carries is kept by the caller in arrays indexed by slot, so
+ * scheduling, rescheduling and cancelling never allocate. Rescheduling a slot moves it in place.
+ * Equal times are ordered by slot, so runs are reproducible.
+ */
+public class EventQueue {
+
+    // Per slot: the event time, and where the slot sits in the heap (-1 if not scheduled)
+    private final double[] times;
+    private final int[] positions;
+    private final int[] heap;
+    private int size;
+
+    public EventQueue(int capacity){
+        times = new double[capacity];
+        positions = new int[capacity];
+        heap = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    public int capacity(){
+        return heap.length;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    public boolean isScheduled(int slot){
+        return positions[slot] >= 0;
+    }
+
+    public double time(int slot){
+        return times[slot];
+    }
+
+    /**
+     * Schedule the slot at the given time, moving it if it's already scheduled.
+     */
+    public void schedule(int slot, double time){
+        int position = positions[slot];
+        if(position < 0){
+            times[slot] = time;
+            position = size++;
+            heap[position] = slot;
+            positions[slot] = position;
+            siftUp(position);
+            return;
+        }
+        double previous = times[slot];
+        times[slot] = time;
+        if(time < previous){
+            siftUp(position);
+        } else{
+            siftDown(position);
+        }
+    }
+
+    public void cancel(int slot){
+        int position = positions[slot];
+        if(position < 0){
+            return;
+        }
+        positions[slot] = -1;
+        int last = heap[--size];
+        if(position == size){
+            return;
+        }
+        heap[position] = last;
+        positions[last] = position;
+        siftDown(position);
+        siftUp(positions[last]);
+    }
+
+    /**
+     * @return The slot of the earliest event, or -1 if nothing is scheduled.
+     */
+    public int peek(){
+        return size > 0 ? heap[0] : -1;
+    }
+
+    public double peekTime(){
+        return size > 0 ? times[heap[0]] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Remove the earliest event.
+     * @return Its slot, or -1 if nothing is scheduled.
+     */
+    public int poll(){
+        if(size == 0){
+            return -1;
+        }
+        int slot = heap[0];
+        cancel(slot);
+        return slot;
+    }
+
+    private boolean before(int a, int b){
+        return times[a] < times[b] || (times[a] == times[b] && a < b);
+    }
+
+    private void siftUp(int position){
+        int slot = heap[position];
+        while(position > 0){
+            int parent = (position - 1) >>> 1;
+            int parentSlot = heap[parent];
+            if(!before(slot, parentSlot)){
+                break;
+            }
+            heap[position] = parentSlot;
+            positions[parentSlot] = position;
+            position = parent;
+        }
+        heap[position] = slot;
+        positions[slot] = position;
+    }
+
+    private void siftDown(int position){
+        int slot = heap[position];
+        int half = size >>> 1;
+        while(position < half){
+            int child = 2 * position + 1;
+            int childSlot = heap[child];
+            int right = child + 1;
+            if(right < size && before(heap[right], childSlot)){
+                child = right;
+                childSlot = heap[child];
+            }
+            if(!before(childSlot, slot)){
+                break;
+            }
+            heap[position] = childSlot;
+            positions[childSlot] = position;
+            position = child;
+        }
+        heap[position] = slot;
+        positions[slot] = position;
+    }
+}
@@ -7,11 +7,27 @@ import netlab.analysis.analyzed.FailureDescription;
 import netlab.analysis.analyzed.RoutingDescription;
 import netlab.submission.enums.*;
 import netlab.submission.request.SimulationParameters;
+import netlab.submission.simulate.Network;
+import netlab.submission.simulate.RoutingParam;
+import netlab.submission.simulate.SimRequest;
+import netlab.submission.simulate.Survivability;
+import netlab.topology.elements.Link;
+import netlab.topology.elements.Node;
 import netlab.topology.elements.Topology;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 import static org.apache.coyote.http11.Constants.a;
 
@@ -40,6 +56,17 @@ public class HashingService {
                 params.getNumThreads());
     }
 
+    /**
+     * Key for the parts of a request that don't depend on the algorithm: the selected sources and destinations,
+     * failure set, and failure groups. Must be computed before generation, which overwrites the failure set size.
+     */
+    public String hashGenerationInputs(SimulationParameters params) {
+        return hash(params.getSeed(), params.getTopologyId(), params.getNumSources(), params.getNumDestinations(),
+                params.getSourceSubsetDestType(), params.getProblemClass(), params.getFailureSetSize(),
+                params.getFailureClass(), params.getFailureProb(), params.getFailureScenario(),
+                params.getSourceFailureType(), params.getDestFailureType(), params.getNumFailureEvents());
+    }
+
 
     /*
         private String topologyId;
@@ -67,5 +94,97 @@ public class HashingService {
         return hashString.split("_");
     }
 
+    /**
+     * Content hash of a network. Node order is kept, since it determines the coordinates assigned during conversion.
+     * Links are order and direction independent, as conversion always adds both directions.
+     */
+    public String hashNetwork(Network network){
+        return digest(canonicalNetwork(network));
+    }
+
+    /**
+     * Content hash of a topology's nodes and weighted links. Used to tell apart "generated" topologies, which all
+     * share the same ID.
+     */
+    public String hashTopology(Topology topology){
+        StringBuilder builder = new StringBuilder();
+        topology.getNodes().stream().map(Node::getId).sorted().forEach(n -> builder.append(n).append(","));
+        builder.append("|");
+        topology.getLinks().stream()
+                .sorted(Comparator.comparing(Link::getId))
+                .forEach(l -> builder.append(l.getId()).append(":").append(l.getWeight()).append(","));
+        return digest(builder.toString());
+    }
+
+    /**
+     * Content hash of a simulate request. Routing params, destinations, and failures are treated as unordered,
+     * matching how they are combined when the request is generated.
+     */
+    public String hashSimRequest(SimRequest simRequest){
+        StringBuilder builder = new StringBuilder(canonicalNetwork(simRequest.getNetwork()));
+        builder.append("|");
+        List<String> routing = new ArrayList<>();
+        for(RoutingParam rp : simRequest.getRoutingParams()){
+            String dests = new TreeSet<>(rp.getDestinations()).stream().collect(Collectors.joining(","));
+            routing.add(rp.getSource() + ">" + dests + ":" + rp.getNeededD());
+        }
+        routing.stream().sorted().forEach(r -> builder.append(r).append(";"));
+        Survivability survivability = simRequest.getSurvivability();
+        builder.append("|");
+        if(survivability != null) {
+            if(survivability.getFailures() != null) {
+                new TreeSet<>(survivability.getFailures()).forEach(f -> builder.append(f).append(","));
+            }
+            builder.append("|").append(survivability.getFailureScenario())
+                    .append("|").append(survivability.getNumFailureEvents());
+        }
+        return digest(builder.toString());
+    }
+
+    private String canonicalNetwork(Network network){
+        StringBuilder builder = new StringBuilder();
+        for(String node : network.getNodes()){
+            builder.append(node).append(",");
+        }
+        builder.append("|");
+        Set<String> links = new TreeSet<>();
+        for(String link : network.getLinks()){
+            String[] components = link.replace(" ", "").split("-");
+            if(components.length == 2 && components[0].compareTo(components[1]) > 0){
+                links.add(components[1] + "-" + components[0]);
+            } else {
+                links.add(link.replace(" ", ""));
+            }
+        }
+        links.forEach(l -> builder.append(l).append(","));
+        return builder.toString();
+    }
+
+    /**
+     * Content hash of a file, e.g. the source file a topology is built from.
+     */
+    public String hashFile(Path file) throws IOException {
+        return digest(Files.readAllBytes(file));
+    }
+
+    private String digest(String canonical){
+        return digest(canonical.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String digest(byte[] bytes){
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hashBytes = md.digest(bytes);
+            StringBuilder hex = new StringBuilder();
+            for(byte b : hashBytes){
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
 
 }
@@ -0,0 +1,223 @@
+package netlab.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.analysis.analyzed.Analysis;
+import netlab.analysis.analyzed.AnalysisParameters;
+import netlab.analysis.services.AnalysisService;
+import netlab.analysis.services.CachingService;
+import netlab.analysis.services.HashingService;
+import netlab.metrics.services.MetricsService;
+import netlab.processing.ProcessingService;
+import netlab.processing.admission.AdmissionService;
+import netlab.processing.ampl.AmplService;
+import netlab.processing.ampl.AmplSessionPool;
+import netlab.processing.ampl.AmplWarmStartService;
+import netlab.processing.cycles.CollapsedRingService;
+import netlab.processing.cycles.HamiltonianCycleService;
+import netlab.processing.disjointpaths.BhandariService;
+import netlab.processing.disjointpaths.FlexBhandariService;
+import netlab.processing.groupcast.CycleForTwoService;
+import netlab.processing.groupcast.MemberForwardingService;
+import netlab.processing.groupcast.SurvivableHubBasedService;
+import netlab.processing.ilp.FlowTranslationService;
+import netlab.processing.ilp.IlpService;
+import netlab.processing.ilp.JavaIlpService;
+import netlab.processing.overlappingtrees.OverlappingTreeService;
+import netlab.processing.pathmapping.GraphConversionService;
+import netlab.processing.pathmapping.PathMappingService;
+import netlab.processing.portfolio.PortfolioService;
+import netlab.processing.shortestPaths.*;
+import netlab.processing.tabu.TabuSearchService;
+import netlab.storage.aws.config.AwsConfig;
+import netlab.storage.aws.dynamo.DynamoInterface;
+import netlab.storage.aws.s3.S3Interface;
+import netlab.storage.services.StorageService;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import netlab.submission.services.*;
+import netlab.topology.services.*;
+import netlab.visualization.PrintingService;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Generation, routing, analysis and local storage wired together by hand, for short command line jobs that don't
+ * need the web server, the AWS clients, or the time it takes to start a Spring context. Services are built with the
+ * same constructors Spring uses, and configured from EngineProperties with the same keys and defaults.
+ * Results are only stored locally; runs asking for AWS are stored locally instead.
+ */
+@Slf4j
+public class Engine implements AutoCloseable {
+
+    private final MetricsService metricsService;
+    private final TopologyService topologyService;
+    private final GenerationService generationService;
+    private final ProcessingService processingService;
+    private final AnalysisService analysisService;
+    private final StorageService storageService;
+    private final SubmissionService submissionService;
+    private final AdmissionService admissionService;
+    private final MassRunService massRunService;
+    private final AmplSessionPool amplSessionPool;
+    private final PortfolioService portfolioService;
+
+    public Engine(EngineProperties properties){
+        metricsService = new MetricsService(properties.getBoolean("metrics_enabled", true),
+                properties.getBoolean("metrics_allocation_enabled", true),
+                properties.getLong("metrics_dump_interval_seconds", 0));
+        metricsService.startDumping();
+        HashingService hashingService = new HashingService();
+
+        // Shortest paths and topologies
+        TopologyAdjustmentService topologyAdjustmentService = new TopologyAdjustmentService();
+        PathMappingService pathMappingService = new PathMappingService();
+        GraphConversionService graphConversionService = new GraphConversionService();
+        DijkstraService dijkstraService = new DijkstraService(graphConversionService);
+        BellmanFordService bellmanFordService = new BellmanFordService(graphConversionService);
+        AStarService aStarService = new AStarService(properties.getInt("alt_num_landmarks", 8),
+                properties.get("alt_landmark_strategy", "avoid"), properties.getInt("alt_cache_size", 16));
+        MinimumCostPathService minimumCostPathService = new MinimumCostPathService(dijkstraService, aStarService,
+                topologyAdjustmentService, pathMappingService, properties.get("shortest_path_backend", "dijkstra"));
+        FailureAreaService failureAreaService = new FailureAreaService();
+        topologyService = new TopologyService(minimumCostPathService, topologyAdjustmentService, failureAreaService,
+                hashingService, metricsService, new SyntheticTopologyService(),
+                new TopologySnapshotService(properties.getBoolean("topology_snapshots_enabled", true)),
+                properties.get("topology_dir", "config/topologies"),
+                properties.getInt("topology_cache_size", 64),
+                properties.getInt("synthetic_topology_cache_size", 4),
+                properties.getInt("synthetic_path_cost_max_nodes", 1000));
+
+        // Local storage only, an unconfigured AwsConfig means no AWS clients are built
+        AwsConfig awsConfig = new AwsConfig();
+        storageService = new StorageService(new S3Interface(awsConfig), new DynamoInterface(awsConfig), metricsService);
+
+        // Routing
+        BhandariService bhandariService = new BhandariService(bellmanFordService, topologyAdjustmentService, pathMappingService);
+        FlexBhandariService flexBhandariService = new FlexBhandariService(bhandariService, bellmanFordService,
+                topologyAdjustmentService, pathMappingService);
+        YensService yensService = new YensService(minimumCostPathService, topologyAdjustmentService, pathMappingService);
+        MinimumRiskPathService minimumRiskPathService = new MinimumRiskPathService(minimumCostPathService,
+                topologyAdjustmentService, pathMappingService);
+        TabuSearchService tabuSearchService = new TabuSearchService(new TopologyMetricsService(yensService,
+                bhandariService, storageService, hashingService, properties.getInt("topology_cache_size", 64)));
+        FlowTranslationService flowTranslationService = new FlowTranslationService();
+        amplSessionPool = new AmplSessionPool(properties.get("ampl_backend", "native"), properties.getInt("ampl_pool_size", 2));
+        AmplService amplService = new AmplService(amplSessionPool,
+                new AmplWarmStartService(flexBhandariService, tabuSearchService), flowTranslationService);
+        IlpService ilpService = new IlpService(amplService, new JavaIlpService(flowTranslationService),
+                properties.get("ilp_backend", "ampl"), properties.getLong("ilp_java_max_variables", 2000));
+        CollapsedRingService collapsedRingService = new CollapsedRingService(minimumCostPathService, pathMappingService,
+                topologyAdjustmentService);
+        PrintingService printingService = new PrintingService();
+        processingService = new ProcessingService(topologyService, printingService, ilpService, flexBhandariService,
+                minimumCostPathService, bhandariService,
+                new OverlappingTreeService(minimumCostPathService, pathMappingService, topologyAdjustmentService),
+                new HamiltonianCycleService(topologyAdjustmentService, bhandariService, pathMappingService, graphConversionService),
+                new MemberForwardingService(minimumCostPathService, pathMappingService, topologyAdjustmentService),
+                collapsedRingService,
+                new CycleForTwoService(minimumCostPathService, topologyAdjustmentService, collapsedRingService),
+                minimumRiskPathService, yensService, tabuSearchService, pathMappingService,
+                new SurvivableHubBasedService(minimumRiskPathService, pathMappingService, topologyAdjustmentService, bhandariService),
+                metricsService, new TopologyContractionService());
+
+        // Generation
+        EnumGenerationService enumGenerationService = new EnumGenerationService();
+        SelectionService selectionService = new SelectionService(topologyService);
+        generationService = new GenerationService(topologyService,
+                new DefaultValueService(new RoutingParamAssignmentService(enumGenerationService, selectionService),
+                        enumGenerationService, hashingService),
+                enumGenerationService,
+                new FailureGenerationService(selectionService, enumGenerationService, topologyService, failureAreaService),
+                selectionService, hashingService, metricsService,
+                new GenerationCacheService(hashingService, properties.getInt("generation_cache_size", 16),
+                        properties.get("generation_cache_dir", "")));
+
+        // Analysis and the pipelines that tie everything together
+        analysisService = new AnalysisService(pathMappingService, new CachingService(pathMappingService), metricsService);
+        portfolioService = new PortfolioService(processingService, topologyService, hashingService, metricsService);
+        submissionService = new SubmissionService(generationService, processingService, storageService, printingService,
+                portfolioService);
+        admissionService = new AdmissionService(properties.getBoolean("admission_enabled", true),
+                properties.getInt("admission_default_limit", 0), properties.get("admission_limits", ""),
+                properties.getInt("admission_queue_size", 32), properties.getLong("admission_max_wait_ms", 10000),
+                properties.getBoolean("admission_adaptive", false), properties.getInt("admission_adaptive_max_limit", 0));
+        massRunService = new MassRunService(generationService, submissionService, portfolioService, analysisService, storageService,
+                admissionService, properties.getInt("mass_run_routing_threads", 0),
+                properties.getInt("mass_run_analysis_threads", 2), properties.getInt("mass_run_persistence_threads", 4),
+                properties.getInt("mass_run_queue_capacity", 8), properties.get("mass_run_journal_dir", "results/journal"));
+    }
+
+    /**
+     * Generate, route, and store a simulation run.
+     * @return The ID of the request set.
+     */
+    public String submit(SimulationParameters params){
+        return submissionService.submitRequest(localOnly(params));
+    }
+
+    /**
+     * Analyze a stored request set, and store the analysis next to it.
+     * @return The analysis, or null if the request set isn't stored or wasn't completed.
+     */
+    public Analysis analyze(AnalysisParameters params){
+        Request request = storageService.retrieveRequestSet(params.getRequestId(), false);
+        if(request == null || !request.isCompleted()){
+            log.info("Request " + params.getRequestId() + " not found or not completed! Aborting...");
+            return null;
+        }
+        Analysis analysis = admissionService.admit("analyze", request.getAlgorithm(), () -> analysisService.analyzeRequest(request));
+        if(!storageService.storeAnalyzedSet(analysis, false)){
+            log.info("Analysis storage FAILED!");
+        }
+        return analysis;
+    }
+
+    /**
+     * Route, analyze, and store a list of simulation runs, picking up from the run's journal if there is one.
+     * @return The IDs of the request sets that completed.
+     */
+    public List<String> massRun(String runId, List<SimulationParameters> paramsList) throws IOException {
+        paramsList.forEach(this::localOnly);
+        return massRunService.run(runId, paramsList);
+    }
+
+    private SimulationParameters localOnly(SimulationParameters params){
+        if(Boolean.TRUE.equals(params.getUseAws())){
+            log.warn("The engine doesn't connect to AWS, storing " + params.getRequestId() + " locally");
+            params.setUseAws(false);
+        }
+        return params;
+    }
+
+    public MetricsService getMetricsService(){
+        return metricsService;
+    }
+
+    public TopologyService getTopologyService(){
+        return topologyService;
+    }
+
+    public GenerationService getGenerationService(){
+        return generationService;
+    }
+
+    public ProcessingService getProcessingService(){
+        return processingService;
+    }
+
+    public AnalysisService getAnalysisService(){
+        return analysisService;
+    }
+
+    public StorageService getStorageService(){
+        return storageService;
+    }
+
+    @Override
+    public void close(){
+        amplSessionPool.shutdown();
+        portfolioService.shutdown();
+        metricsService.stopDumping();
+    }
+}
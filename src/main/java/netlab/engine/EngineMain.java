@@ -0,0 +1,81 @@
+package netlab.engine;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import netlab.analysis.analyzed.Analysis;
+import netlab.analysis.analyzed.AnalysisParameters;
+import netlab.submission.request.SimulationParameters;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Entry point for single command line jobs without Spring. Takes the same --sim, --analyze and --massRun options as
+ * SurvivabilitySimApplication, any other --key=value argument overrides config/application.properties.
+ * This is the main class of the native image built by the "native" profile.
+ */
+@Slf4j
+public class EngineMain {
+
+    public static void main(String[] args) {
+        long startTime = System.nanoTime();
+        SimulationParameters simParams = null;
+        AnalysisParameters analysisParams = null;
+        List<SimulationParameters> simParamList = null;
+        String massRunId = null;
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
+        try {
+            for (String arg : args) {
+                String[] splitArg = arg.split("=", 2);
+                String option = splitArg[0];
+                String value = splitArg.length > 1 ? splitArg[1] : "";
+                if (option.equals("--sim")) {
+                    simParams = mapper.readValue(value, SimulationParameters.class);
+                }
+                if (option.equals("--analyze")) {
+                    analysisParams = mapper.readValue(value, AnalysisParameters.class);
+                }
+                if (option.equals("--massRun")) {
+                    massRunId = value;
+                    String fileName = "scripts/input/" + massRunId + "_mass.txt";
+                    String json = new String(Files.readAllBytes(Paths.get(fileName))).replace("\n", "").replace("\r", "");
+                    simParamList = mapper.readValue(json, new TypeReference<List<SimulationParameters>>() {});
+                }
+            }
+        } catch (IOException e) {
+            log.error("Could not read arguments: " + e.getMessage());
+            System.exit(1);
+        }
+        if(simParams == null && analysisParams == null && simParamList == null){
+            log.info("Usage: --sim={JSON representation of SimulationParameters} " +
+                    "--analyze={requestId='id'} --massRun={id of scripts/input/<id>_mass.txt} [--<property>=<value>]");
+            System.exit(1);
+        }
+
+        int status = 0;
+        try(Engine engine = new Engine(EngineProperties.load(Paths.get("config", "application.properties"), args))){
+            log.info("Engine ready in " + (System.nanoTime() - startTime) / 1000000 + " ms");
+            if(simParams != null){
+                String requestId = engine.submit(simParams);
+                log.info("Details ID: " + requestId);
+            }
+            if(analysisParams != null){
+                Analysis analysis = engine.analyze(analysisParams);
+                status = analysis != null ? 0 : 1;
+            }
+            if(simParamList != null){
+                List<String> requestIds = engine.massRun(massRunId, simParamList);
+                log.info("Completed " + requestIds.size() + " of " + simParamList.size() + " request sets");
+            }
+        } catch (IOException e) {
+            log.error("Could not open journal for " + massRunId, e);
+            status = 1;
+        }
+        System.exit(status);
+    }
+}
@@ -0,0 +1,70 @@
+package netlab.engine;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Configuration for an Engine, read the same way Spring reads it for the full application: config/application.properties,
+ * overridden by any --key=value arguments. Every lookup takes the same default as the matching @Value on the service.
+ */
+@Slf4j
+public class EngineProperties {
+
+    private final Properties properties = new Properties();
+
+    public EngineProperties(){
+    }
+
+    /**
+     * @param file Properties file to read, skipped if it doesn't exist.
+     * @param args Command line arguments. Those of the form --key=value override the file.
+     */
+    public static EngineProperties load(Path file, String[] args){
+        EngineProperties engineProperties = new EngineProperties();
+        if(Files.exists(file)){
+            try(Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)){
+                engineProperties.properties.load(reader);
+            } catch (IOException e) {
+                log.warn("Could not read " + file + ", using defaults: " + e.getMessage());
+            }
+        }
+        for(String arg : args){
+            if(arg.startsWith("--") && arg.contains("=")){
+                String[] splitArg = arg.substring(2).split("=", 2);
+                engineProperties.set(splitArg[0], splitArg[1]);
+            }
+        }
+        return engineProperties;
+    }
+
+    public EngineProperties set(String key, String value){
+        properties.setProperty(key, value);
+        return this;
+    }
+
+    public String get(String key, String defaultValue){
+        String value = properties.getProperty(key);
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    public int getInt(String key, int defaultValue){
+        String value = get(key, null);
+        return value != null && !value.isEmpty() ? Integer.parseInt(value) : defaultValue;
+    }
+
+    public long getLong(String key, long defaultValue){
+        String value = get(key, null);
+        return value != null && !value.isEmpty() ? Long.parseLong(value) : defaultValue;
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue){
+        String value = get(key, null);
+        return value != null && !value.isEmpty() ? Boolean.parseBoolean(value) : defaultValue;
+    }
+}
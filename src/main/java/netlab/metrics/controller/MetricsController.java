@@ -0,0 +1,34 @@
+package netlab.metrics.controller;
+
+import netlab.metrics.elements.MetricsSnapshot;
+import netlab.metrics.services.MetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+@Controller
+public class MetricsController {
+
+    @Autowired
+    public MetricsController(MetricsService metricsService){
+        this.metricsService = metricsService;
+    }
+
+    private MetricsService metricsService;
+
+    @RequestMapping(value = "/metrics", method = RequestMethod.GET)
+    @ResponseBody
+    public MetricsSnapshot getMetrics(){
+        return metricsService.snapshot();
+    }
+
+    @RequestMapping(value = "/metrics/reset", method = RequestMethod.POST)
+    @ResponseBody
+    public MetricsSnapshot resetMetrics(){
+        MetricsSnapshot snapshot = metricsService.snapshot();
+        metricsService.reset();
+        return snapshot;
+    }
+}
@@ -0,0 +1,22 @@
+package netlab.metrics.elements;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricsSnapshot {
+
+    private Long timestampMillis;
+    private Double uptimeSeconds;
+    private Boolean enabled;
+    private List<TimerSnapshot> timers;
+    private Map<String, Long> counters;
+}
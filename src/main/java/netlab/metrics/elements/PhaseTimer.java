@@ -0,0 +1,90 @@
+package netlab.metrics.elements;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe accumulator for the durations (and allocated bytes) of a single phase. Durations are kept in a
+ * histogram with power-of-two microsecond buckets, which bounds memory while still giving percentiles that are
+ * accurate to within a factor of two.
+ */
+public class PhaseTimer {
+
+    private static final int NUM_BUCKETS = 40;
+
+    private final String name;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+
+    public PhaseTimer(String name){
+        this.name = name;
+    }
+
+    public void record(long durationNanos, long bytesAllocated){
+        count.increment();
+        totalNanos.add(durationNanos);
+        maxNanos.accumulate(durationNanos);
+        if(bytesAllocated > 0){
+            allocatedBytes.add(bytesAllocated);
+        }
+        buckets.incrementAndGet(bucketFor(durationNanos));
+    }
+
+    private int bucketFor(long durationNanos){
+        long micros = durationNanos / 1000;
+        int bucket = micros <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, NUM_BUCKETS - 1);
+    }
+
+    // Upper bound of a bucket, in milliseconds
+    private double bucketUpperMillis(int bucket){
+        return (1L << bucket) / 1000.0;
+    }
+
+    private double percentileMillis(long[] counts, long total, double percentile){
+        if(total == 0){
+            return 0.0;
+        }
+        long threshold = (long) Math.ceil(percentile * total);
+        long cumulative = 0;
+        for(int i = 0; i < counts.length; i++){
+            cumulative += counts[i];
+            if(cumulative >= threshold){
+                return Math.min(bucketUpperMillis(i), maxNanos.get() / 1e6);
+            }
+        }
+        return maxNanos.get() / 1e6;
+    }
+
+    public TimerSnapshot snapshot(){
+        long[] counts = new long[NUM_BUCKETS];
+        long histogramTotal = 0;
+        for(int i = 0; i < NUM_BUCKETS; i++){
+            counts[i] = buckets.get(i);
+            histogramTotal += counts[i];
+        }
+        long n = count.sum();
+        long total = totalNanos.sum();
+        long bytes = allocatedBytes.sum();
+        return TimerSnapshot.builder()
+                .name(name)
+                .count(n)
+                .totalSeconds(total / 1e9)
+                .meanMillis(n > 0 ? total / 1e6 / n : 0.0)
+                .maxMillis(maxNanos.get() / 1e6)
+                .p50Millis(percentileMillis(counts, histogramTotal, 0.50))
+                .p90Millis(percentileMillis(counts, histogramTotal, 0.90))
+                .p99Millis(percentileMillis(counts, histogramTotal, 0.99))
+                .allocatedBytes(bytes)
+                .allocatedBytesPerCall(n > 0 ? bytes / n : 0L)
+                .build();
+    }
+
+    public String getName(){
+        return name;
+    }
+}
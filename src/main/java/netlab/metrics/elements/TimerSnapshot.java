@@ -0,0 +1,26 @@
+package netlab.metrics.elements;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimerSnapshot {
+
+    private String name;
+    private Long count;
+    private Double totalSeconds;
+    private Double meanMillis;
+    private Double maxMillis;
+    // Percentiles are upper bounds of power-of-two histogram buckets
+    private Double p50Millis;
+    private Double p90Millis;
+    private Double p99Millis;
+    // Bytes allocated by the calling thread during the phase. Work handed off to other threads is not included.
+    private Long allocatedBytes;
+    private Long allocatedBytesPerCall;
+}
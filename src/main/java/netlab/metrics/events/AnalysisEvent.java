@@ -0,0 +1,26 @@
+package netlab.metrics.events;
+
+import jdk.jfr.*;
+
+/**
+ * One request set analyzed by AnalysisService.
+ */
+@Name("netlab.Analysis")
+@Label("Analysis")
+@Category({"Netlab", "Analysis"})
+@Description("Analysis of a routed request set against its failure groups")
+@StackTrace(false)
+public class AnalysisEvent extends Event {
+
+    @Label("Request ID")
+    public String requestId;
+
+    @Label("Algorithm")
+    public String algorithm;
+
+    @Label("Paths")
+    public int pathCount;
+
+    @Label("Failure Groups")
+    public int failureGroupCount;
+}
@@ -0,0 +1,29 @@
+package netlab.metrics.events;
+
+import jdk.jfr.*;
+
+/**
+ * One request set generated from simulation parameters by GenerationService.
+ */
+@Name("netlab.Generation")
+@Label("Generation")
+@Category({"Netlab", "Generation"})
+@Description("Generating the sources, destinations, failures and connection requirements of a request set")
+@StackTrace(false)
+public class GenerationEvent extends Event {
+
+    @Label("Request ID")
+    public String requestId;
+
+    @Label("Topology")
+    public String topologyId;
+
+    @Label("Seed")
+    public long seed;
+
+    @Label("Pairs")
+    public int pairCount;
+
+    @Label("Failure Groups")
+    public int failureGroupCount;
+}
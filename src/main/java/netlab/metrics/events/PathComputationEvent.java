@@ -0,0 +1,32 @@
+package netlab.metrics.events;
+
+import jdk.jfr.*;
+
+/**
+ * One call to BhandariService's disjoint path search or YensService's k shortest paths.
+ */
+@Name("netlab.PathComputation")
+@Label("Path Computation")
+@Category({"Netlab", "Routing"})
+@Description("Disjoint or k shortest paths between one source and destination")
+@StackTrace(false)
+public class PathComputationEvent extends Event {
+
+    @Label("Algorithm")
+    public String algorithm;
+
+    @Label("Topology")
+    public String topologyId;
+
+    @Label("Source")
+    public String source;
+
+    @Label("Destination")
+    public String destination;
+
+    @Label("Paths Requested")
+    public int pathsRequested;
+
+    @Label("Paths Found")
+    public int pathsFound;
+}
@@ -0,0 +1,117 @@
+package netlab.metrics.events;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Offline summary of the netlab events in a flight recording: one latency table row per phase, split by algorithm
+ * (routing, path computation and analysis) or operation (storage). Run with:
+ * java -cp target/classes netlab.metrics.events.RecordingSummary results/recordings/{run}.jfr
+ */
+public class RecordingSummary {
+
+    private static final String PREFIX = "netlab.";
+
+    public static void main(String[] args) throws IOException {
+        if(args.length != 1){
+            System.out.println("Usage: RecordingSummary <recording.jfr>");
+            System.exit(1);
+        }
+        System.out.print(format(summarize(RecordingFile.readAllEvents(Paths.get(args[0])))));
+    }
+
+    public static List<PhaseSummary> summarize(List<RecordedEvent> events){
+        Map<String, PhaseSummary> phases = new TreeMap<>();
+        for(RecordedEvent event : events){
+            String name = event.getEventType().getName();
+            if(!name.startsWith(PREFIX)){
+                continue;
+            }
+            String phase = name.substring(PREFIX.length());
+            String split = event.hasField("algorithm") ? event.getString("algorithm")
+                    : event.hasField("operation") ? event.getString("operation") : null;
+            if(split != null){
+                phase += "." + split;
+            }
+            long bytes = event.hasField("bytes") ? event.getLong("bytes") : 0;
+            phases.computeIfAbsent(phase, PhaseSummary::new).add(event.getDuration().toNanos(), bytes);
+        }
+        return new ArrayList<>(phases.values());
+    }
+
+    public static String format(List<PhaseSummary> phases){
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-32s %8s %10s %10s %10s %10s %10s %10s %12s%n",
+                "Phase", "Count", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "Max ms", "Total s", "Bytes"));
+        for(PhaseSummary phase : phases){
+            builder.append(String.format("%-32s %8d %10.3f %10.3f %10.3f %10.3f %10.3f %10.3f %12d%n",
+                    phase.getName(), phase.getCount(), phase.getMeanMillis(), phase.getPercentileMillis(50),
+                    phase.getPercentileMillis(90), phase.getPercentileMillis(99), phase.getPercentileMillis(100),
+                    phase.getTotalNanos() / 1e9, phase.getBytes()));
+        }
+        return builder.toString();
+    }
+
+    public static class PhaseSummary {
+
+        private final String name;
+        private long[] durations = new long[16];
+        private int count;
+        private long totalNanos;
+        private long bytes;
+        private boolean sorted;
+
+        PhaseSummary(String name){
+            this.name = name;
+        }
+
+        void add(long durationNanos, long eventBytes){
+            if(count == durations.length){
+                durations = Arrays.copyOf(durations, count * 2);
+            }
+            durations[count++] = durationNanos;
+            totalNanos += durationNanos;
+            bytes += eventBytes;
+            sorted = false;
+        }
+
+        public String getName(){
+            return name;
+        }
+
+        public int getCount(){
+            return count;
+        }
+
+        public long getTotalNanos(){
+            return totalNanos;
+        }
+
+        public long getBytes(){
+            return bytes;
+        }
+
+        public double getMeanMillis(){
+            return count > 0 ? totalNanos / 1e6 / count : 0.0;
+        }
+
+        /**
+         * @param percentile Between 0 and 100, nearest rank.
+         */
+        public double getPercentileMillis(double percentile){
+            if(count == 0){
+                return 0.0;
+            }
+            if(!sorted){
+                Arrays.sort(durations, 0, count);
+                sorted = true;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * count);
+            return durations[Math.max(0, Math.min(count, rank) - 1)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package netlab.metrics.events;
+
+import jdk.jfr.*;
+
+/**
+ * One request set routed by ProcessingService.
+ */
+@Name("netlab.Routing")
+@Label("Routing")
+@Category({"Netlab", "Routing"})
+@Description("Routing a request set on an already loaded topology, from contracting it (if requested) to mapping the chosen paths")
+@StackTrace(false)
+public class RoutingEvent extends Event {
+
+    @Label("Request ID")
+    public String requestId;
+
+    @Label("Algorithm")
+    public String algorithm;
+
+    @Label("Routing Type")
+    public String routingType;
+
+    @Label("Pairs")
+    public int pairCount;
+
+    @Label("Failure Groups")
+    public int failureGroupCount;
+
+    @Label("Feasible")
+    public boolean feasible;
+}
@@ -0,0 +1,24 @@
+package netlab.metrics.events;
+
+import jdk.jfr.*;
+
+/**
+ * One object read from or written to local storage by StorageService.
+ */
+@Name("netlab.Storage")
+@Label("Storage")
+@Category({"Netlab", "Storage"})
+@Description("Reading or writing a serialized request set, analysis or topology metrics file")
+@StackTrace(false)
+public class StorageEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("File")
+    public String file;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
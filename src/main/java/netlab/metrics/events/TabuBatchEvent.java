@@ -0,0 +1,29 @@
+package netlab.metrics.events;
+
+import jdk.jfr.*;
+
+/**
+ * A batch of Tabu search iterations, ending at a restart from the best solution or at the end of the search.
+ */
+@Name("netlab.TabuBatch")
+@Label("Tabu Batch")
+@Category({"Netlab", "Routing"})
+@Description("Tabu search iterations between restarts from the best solution")
+@StackTrace(false)
+public class TabuBatchEvent extends Event {
+
+    @Label("First Iteration")
+    public int firstIteration;
+
+    @Label("Iterations")
+    public int iterations;
+
+    @Label("Improvements")
+    public int improvements;
+
+    @Label("Best Cost")
+    public double bestCost;
+
+    @Label("Best Fitness")
+    public double bestFitness;
+}
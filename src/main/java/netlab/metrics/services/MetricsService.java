@@ -0,0 +1,219 @@
+package netlab.metrics.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import netlab.metrics.elements.MetricsSnapshot;
+import netlab.metrics.elements.PhaseTimer;
+import netlab.metrics.elements.TimerSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Timers and counters for each phase of the simulation pipeline. Phases are named with dot-separated prefixes,
+ * e.g. "generation.failureSets", "routing.tabu", "storage.writeLocal". When disabled, starting a timer returns a
+ * shared no-op sample, so instrumented code pays only for a boolean check.
+ */
+@Service
+@Slf4j
+public class MetricsService {
+
+    private static final Sample NO_OP = new Sample(null, null, 0, 0);
+
+    private final boolean enabled;
+    private final boolean allocationEnabled;
+    private final long dumpIntervalSeconds;
+    private final com.sun.management.ThreadMXBean allocationBean;
+    private final long startTimeMillis;
+
+    private final Map<String, PhaseTimer> timers;
+    private final Map<String, LongAdder> counters;
+    private final ObjectMapper mapper;
+
+    private ScheduledExecutorService dumpExecutor;
+    private Path dumpFile;
+
+    @Autowired
+    public MetricsService(@Value("${metrics_enabled:true}") boolean enabled,
+                          @Value("${metrics_allocation_enabled:true}") boolean allocationEnabled,
+                          @Value("${metrics_dump_interval_seconds:0}") long dumpIntervalSeconds){
+        this.enabled = enabled;
+        this.dumpIntervalSeconds = dumpIntervalSeconds;
+        this.allocationBean = allocationEnabled ? findAllocationBean() : null;
+        this.allocationEnabled = allocationBean != null;
+        this.startTimeMillis = System.currentTimeMillis();
+        this.timers = new ConcurrentHashMap<>();
+        this.counters = new ConcurrentHashMap<>();
+        this.mapper = new ObjectMapper();
+    }
+
+    private com.sun.management.ThreadMXBean findAllocationBean(){
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(bean instanceof com.sun.management.ThreadMXBean){
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if(sunBean.isThreadAllocatedMemorySupported()){
+                if(!sunBean.isThreadAllocatedMemoryEnabled()){
+                    sunBean.setThreadAllocatedMemoryEnabled(true);
+                }
+                return sunBean;
+            }
+        }
+        log.info("Per-thread allocation measurement is not supported by this JVM, allocation metrics disabled");
+        return null;
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    /**
+     * Start timing a phase. Intended for try-with-resources:
+     * try(MetricsService.Sample sample = metricsService.start("storage.writeLocal")){ ... }
+     */
+    public Sample start(String phase){
+        if(!enabled){
+            return NO_OP;
+        }
+        long allocatedAtStart = allocationEnabled ? currentThreadAllocatedBytes() : 0;
+        return new Sample(this, timers.computeIfAbsent(phase, PhaseTimer::new), System.nanoTime(), allocatedAtStart);
+    }
+
+    public <T> T time(String phase, Supplier<T> work){
+        if(!enabled){
+            return work.get();
+        }
+        try(Sample sample = start(phase)){
+            return work.get();
+        }
+    }
+
+    public void run(String phase, Runnable work){
+        if(!enabled){
+            work.run();
+            return;
+        }
+        try(Sample sample = start(phase)){
+            work.run();
+        }
+    }
+
+    public void increment(String counter){
+        increment(counter, 1);
+    }
+
+    public void increment(String counter, long delta){
+        if(!enabled){
+            return;
+        }
+        counters.computeIfAbsent(counter, c -> new LongAdder()).add(delta);
+    }
+
+    private long currentThreadAllocatedBytes(){
+        return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public MetricsSnapshot snapshot(){
+        List<TimerSnapshot> timerSnapshots = timers.values().stream()
+                .map(PhaseTimer::snapshot)
+                .sorted(Comparator.comparing(TimerSnapshot::getName))
+                .collect(Collectors.toList());
+        Map<String, Long> counterValues = new TreeMap<>();
+        counters.forEach((name, adder) -> counterValues.put(name, adder.sum()));
+        long now = System.currentTimeMillis();
+        return MetricsSnapshot.builder()
+                .timestampMillis(now)
+                .uptimeSeconds((now - startTimeMillis) / 1000.0)
+                .enabled(enabled)
+                .timers(timerSnapshots)
+                .counters(counterValues)
+                .build();
+    }
+
+    public void reset(){
+        timers.clear();
+        counters.clear();
+    }
+
+    @PostConstruct
+    public void startDumping(){
+        if(!enabled || dumpIntervalSeconds <= 0){
+            return;
+        }
+        dumpFile = Paths.get(System.getProperty("user.dir"), "results", "metrics", "metrics_" + startTimeMillis + ".jsonl");
+        dumpExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumpExecutor.scheduleAtFixedRate(this::dump, dumpIntervalSeconds, dumpIntervalSeconds, TimeUnit.SECONDS);
+        log.info("Dumping metrics every " + dumpIntervalSeconds + " seconds to " + dumpFile);
+    }
+
+    /**
+     * Append the current snapshot as one JSON line to this run's metrics file.
+     */
+    public void dump(){
+        if(dumpFile == null){
+            return;
+        }
+        try {
+            Files.createDirectories(dumpFile.getParent());
+            String line = mapper.writeValueAsString(snapshot()) + System.lineSeparator();
+            Files.write(dumpFile, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("Could not write metrics to " + dumpFile + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stopDumping(){
+        if(dumpExecutor != null){
+            dumpExecutor.shutdownNow();
+            dump();
+        }
+    }
+
+    public static class Sample implements AutoCloseable {
+
+        private final PhaseTimer timer;
+        private final long startNanos;
+        private final long allocatedAtStart;
+        private final MetricsService owner;
+
+        private Sample(MetricsService owner, PhaseTimer timer, long startNanos, long allocatedAtStart){
+            this.owner = owner;
+            this.timer = timer;
+            this.startNanos = startNanos;
+            this.allocatedAtStart = allocatedAtStart;
+        }
+
+        @Override
+        public void close(){
+            if(timer == null){
+                return;
+            }
+            long duration = System.nanoTime() - startNanos;
+            long allocated = owner.allocationEnabled ? owner.currentThreadAllocatedBytes() - allocatedAtStart : 0;
+            timer.record(duration, allocated);
+        }
+    }
+}
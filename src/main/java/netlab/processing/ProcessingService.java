@@ -1,7 +1,9 @@
 package netlab.processing;
 
 import lombok.extern.slf4j.Slf4j;
-import netlab.processing.ampl.AmplService;
+import netlab.metrics.events.RoutingEvent;
+import netlab.metrics.services.MetricsService;
+import netlab.processing.ilp.IlpService;
 import netlab.processing.cycles.CollapsedRingService;
 import netlab.processing.groupcast.CycleForTwoService;
 import netlab.processing.cycles.HamiltonianCycleService;
@@ -18,9 +20,11 @@ import netlab.processing.tabu.TabuSearchService;
 import netlab.submission.request.Details;
 import netlab.submission.request.Request;
 import netlab.submission.simulate.Network;
+import netlab.topology.elements.ContractedTopology;
 import netlab.topology.elements.Path;
 import netlab.topology.elements.SourceDestPair;
 import netlab.topology.elements.Topology;
+import netlab.topology.services.TopologyContractionService;
 import netlab.topology.services.TopologyService;
 import netlab.visualization.PrintingService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,7 +38,7 @@ import java.util.stream.Collectors;
 public class ProcessingService {
 
 
-    private AmplService amplService;
+    private IlpService ilpService;
 
     private FlexBhandariService flexBhandariService;
 
@@ -66,19 +70,24 @@ public class ProcessingService {
 
     private SurvivableHubBasedService survivableHubBasedService;
 
+    private MetricsService metricsService;
+
+    private TopologyContractionService topologyContractionService;
+
     @Autowired
     public ProcessingService(TopologyService topologyService, PrintingService printingService,
-                             AmplService amplService, FlexBhandariService flexBhandariService,
+                             IlpService ilpService, FlexBhandariService flexBhandariService,
                              MinimumCostPathService minimumCostPathService, BhandariService bhandariService,
                              OverlappingTreeService overlappingTreeService, HamiltonianCycleService hamiltonianCycleService,
                              MemberForwardingService memberForwardingService,
                              CollapsedRingService collapsedRingService, CycleForTwoService cycleForTwoService,
                              MinimumRiskPathService minimumRiskPathService, YensService yensService,
                              TabuSearchService tabuSearchService, PathMappingService pathMappingService,
-                             SurvivableHubBasedService survivableHubBasedService) {
+                             SurvivableHubBasedService survivableHubBasedService, MetricsService metricsService,
+                             TopologyContractionService topologyContractionService) {
         this.topoService = topologyService;
         this.printingService = printingService;
-        this.amplService = amplService;
+        this.ilpService = ilpService;
         this.flexBhandariService = flexBhandariService;
         this.minimumCostPathService = minimumCostPathService;
         this.bhandariService = bhandariService;
@@ -92,6 +101,8 @@ public class ProcessingService {
         this.tabuSearchService = tabuSearchService;
         this.pathMappingService = pathMappingService;
         this.survivableHubBasedService = survivableHubBasedService;
+        this.metricsService = metricsService;
+        this.topologyContractionService = topologyContractionService;
     }
 
     public Request processRequest(Request request) {
@@ -99,19 +110,59 @@ public class ProcessingService {
     }
 
     public Request processRequest(Request request, Network network){
-        Topology topo;
-        if(request.getTopologyId().equals("generated") && network != null){
-            topo = topoService.convert(network);
-        } else{
-            topo = topoService.getTopologyById(request.getTopologyId());
-        }
+        Topology topo = request.getTopologyId().equals("generated") && network != null
+                ? topoService.convert(network)
+                : topoService.getTopologyById(request.getTopologyId());
         if(topo == null){
             return null;
         }
+        return processRequestOnTopology(request, topo);
+    }
+
+    /**
+     * Route the request on the given topology instead of the one named by the request, e.g. a view of it with some
+     * links removed.
+     */
+    public Request processRequestOnTopology(Request request, Topology topo){
+        RoutingEvent event = new RoutingEvent();
+        event.begin();
+        // Route on the contracted topology if requested, then map the paths back onto the original links
+        ContractedTopology contracted = request.isContractTopology()
+                ? metricsService.time("routing.contraction", () -> topologyContractionService.contract(topo, request))
+                : null;
+        Topology routingTopo = contracted != null ? contracted.getTopology() : topo;
+        Details details = metricsService.time("routing." + request.getAlgorithm().getCode(), () -> solve(request, routingTopo));
+        if(details.getIsFeasible() == null || !details.getIsFeasible()){
+            metricsService.increment("routing.infeasible." + request.getAlgorithm().getCode());
+        }
+        if(contracted != null){
+            details.setChosenPaths(contracted.expand(details.getChosenPaths()));
+        }
+        details.setChosenPaths(pathMappingService.filterEmptyPaths(details.getChosenPaths()));
+        request.setDetails(details);
+        event.end();
+        if(event.shouldCommit()){
+            event.requestId = request.getId();
+            event.algorithm = request.getAlgorithm().getCode();
+            event.routingType = request.getRoutingType() != null ? request.getRoutingType().name() : null;
+            event.pairCount = details.getPairs() != null ? details.getPairs().size() : 0;
+            event.failureGroupCount = countFailureGroups(details);
+            event.feasible = details.getIsFeasible() != null && details.getIsFeasible();
+            event.commit();
+        }
+        return request;
+    }
+
+    private int countFailureGroups(Details details){
+        return details.getFailures() != null && details.getFailures().getFailureGroups() != null
+                ? details.getFailures().getFailureGroups().size() : 0;
+    }
+
+    private Details solve(Request request, Topology topo){
         Details details = request.getDetails();
         switch(request.getAlgorithm()){
             case ILP:
-                details = amplService.solve(request, topo);
+                details = ilpService.solve(request, topo);
                 break;
             case FlexBhandari:
                 details = flexBhandariService.solve(request, topo);
@@ -150,11 +201,6 @@ public class ProcessingService {
                 details = survivableHubBasedService.solve(request, topo);
                 break;
         }
-        details.setChosenPaths(pathMappingService.filterEmptyPaths(details.getChosenPaths()));
-        request.setDetails(details);
-        return request;
+        return details;
     }
-
-
 }
-
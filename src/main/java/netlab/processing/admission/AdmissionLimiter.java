@@ -0,0 +1,166 @@
+package netlab.processing.admission;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit for a single endpoint/algorithm combination. Requests beyond the limit wait in a bounded FIFO
+ * queue until a slot frees up or their deadline passes. When adaptive, the limit follows a gradient of the long-term
+ * over the most recent latency: it grows while latency stays near its long-term average and shrinks when latency
+ * rises, which is the signal that the work is queueing on the CPU rather than being served.
+ */
+public class AdmissionLimiter {
+
+    // Gradient parameters, following the usual "gradient2" formulation
+    private static final double LATENCY_TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_WINDOW = 100;
+
+    private final String key;
+    private final int maxQueueDepth;
+    private final boolean adaptive;
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotAvailable = lock.newCondition();
+
+    // All guarded by lock
+    private double estimatedLimit;
+    private int limit;
+    private int inFlight;
+    private int waiting;
+    private long admitted;
+    private long rejectedQueueFull;
+    private long rejectedDeadline;
+    private double longLatencyNanos;
+    private double avgLatencyNanos;
+    private long minLatencyNanos = Long.MAX_VALUE;
+
+    public AdmissionLimiter(String key, int limit, int maxQueueDepth, boolean adaptive, int maxLimit){
+        this.key = key;
+        this.limit = Math.max(1, limit);
+        this.estimatedLimit = this.limit;
+        this.maxQueueDepth = Math.max(0, maxQueueDepth);
+        this.adaptive = adaptive;
+        this.minLimit = 1;
+        this.maxLimit = Math.max(this.limit, maxLimit);
+    }
+
+    /**
+     * Wait for a slot.
+     * @param maxWaitNanos How long the caller is willing to wait in the queue.
+     * @return The time the slot was acquired, to be passed back to release.
+     * @throws AdmissionRejectedException If the queue is full, the deadline passes, or the thread is interrupted.
+     */
+    public long acquire(long maxWaitNanos){
+        lock.lock();
+        try {
+            // Do not let new arrivals barge ahead of requests that are already waiting
+            if (waiting == 0 && inFlight < limit) {
+                return admit();
+            }
+            if (waiting >= maxQueueDepth) {
+                rejectedQueueFull++;
+                throw new AdmissionRejectedException("Too many queued requests for " + key);
+            }
+            waiting++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= limit) {
+                    if (remaining <= 0) {
+                        rejectedDeadline++;
+                        throw new AdmissionRejectedException("Timed out waiting for capacity for " + key);
+                    }
+                    remaining = slotAvailable.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejectedDeadline++;
+                throw new AdmissionRejectedException("Interrupted while waiting for capacity for " + key);
+            } finally {
+                waiting--;
+            }
+            return admit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long admit(){
+        inFlight++;
+        admitted++;
+        return System.nanoTime();
+    }
+
+    /**
+     * Free the slot taken by acquire.
+     * @param acquiredAtNanos The value returned by acquire.
+     * @param succeeded Whether the work completed normally. Only successful latencies feed the adaptive limit.
+     */
+    public void release(long acquiredAtNanos, boolean succeeded){
+        long latency = System.nanoTime() - acquiredAtNanos;
+        lock.lock();
+        try {
+            int previousLimit = limit;
+            if (succeeded) {
+                recordLatency(latency);
+            }
+            inFlight--;
+            if (limit > previousLimit) {
+                slotAvailable.signalAll();
+            } else {
+                slotAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordLatency(long latency){
+        avgLatencyNanos = avgLatencyNanos == 0 ? latency : avgLatencyNanos * 0.9 + latency * 0.1;
+        minLatencyNanos = Math.min(minLatencyNanos, latency);
+        if(!adaptive){
+            return;
+        }
+        longLatencyNanos = longLatencyNanos == 0 ? latency
+                : longLatencyNanos * (LONG_WINDOW - 1) / LONG_WINDOW + (double) latency / LONG_WINDOW;
+        // Recover quickly after a sustained load spike, rather than waiting for the long average to catch up
+        if (longLatencyNanos > 2.0 * latency) {
+            longLatencyNanos *= 0.95;
+        }
+        // Only adjust when the limit is actually being used, otherwise latency says nothing about capacity
+        if (inFlight < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, LATENCY_TOLERANCE * longLatencyNanos / latency));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    public AdmissionStats getStats(){
+        lock.lock();
+        try {
+            return AdmissionStats.builder()
+                    .key(key)
+                    .limit(limit)
+                    .inFlight(inFlight)
+                    .queueDepth(waiting)
+                    .maxQueueDepth(maxQueueDepth)
+                    .admitted(admitted)
+                    .rejectedQueueFull(rejectedQueueFull)
+                    .rejectedDeadline(rejectedDeadline)
+                    .avgLatencyMillis(avgLatencyNanos / 1e6)
+                    .minLatencyMillis(minLatencyNanos == Long.MAX_VALUE ? 0.0 : minLatencyNanos / 1e6)
+                    .build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getKey(){
+        return key;
+    }
+}
@@ -0,0 +1,16 @@
+package netlab.processing.admission;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a request cannot be admitted, either because the wait queue for its endpoint/algorithm is full or
+ * because it waited past its deadline. Surfaces to HTTP clients as 429 Too Many Requests.
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class AdmissionRejectedException extends RuntimeException {
+
+    public AdmissionRejectedException(String message){
+        super(message);
+    }
+}
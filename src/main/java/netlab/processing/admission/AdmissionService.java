@@ -0,0 +1,119 @@
+package netlab.processing.admission;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.submission.enums.Algorithm;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Admission control for the synchronous endpoints. Each endpoint/algorithm combination gets its own limiter, so a
+ * burst of slow ILP or Tabu requests only queues behind itself and cannot starve the fast heuristics.
+ *
+ * Limits are configured as "endpoint.algorithm:limit" entries, where either part may be "*". The most specific
+ * match wins (endpoint.algorithm, then endpoint.*, then *.algorithm), falling back to the default limit.
+ */
+@Service
+@Slf4j
+public class AdmissionService {
+
+    private boolean enabled;
+    private int defaultLimit;
+    private int maxQueueDepth;
+    private long maxWaitNanos;
+    private boolean adaptive;
+    private int adaptiveMaxLimit;
+    private Map<String, Integer> configuredLimits;
+
+    private Map<String, AdmissionLimiter> limiters;
+
+    @Autowired
+    public AdmissionService(@Value("${admission_enabled:true}") boolean enabled,
+                            @Value("${admission_default_limit:0}") int defaultLimit,
+                            @Value("${admission_limits:}") String limits,
+                            @Value("${admission_queue_size:32}") int maxQueueDepth,
+                            @Value("${admission_max_wait_ms:10000}") long maxWaitMillis,
+                            @Value("${admission_adaptive:false}") boolean adaptive,
+                            @Value("${admission_adaptive_max_limit:0}") int adaptiveMaxLimit){
+        this.enabled = enabled;
+        this.defaultLimit = defaultLimit > 0 ? defaultLimit : Runtime.getRuntime().availableProcessors();
+        this.maxQueueDepth = maxQueueDepth;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.adaptive = adaptive;
+        this.adaptiveMaxLimit = adaptiveMaxLimit > 0 ? adaptiveMaxLimit : 4 * this.defaultLimit;
+        this.configuredLimits = parseLimits(limits);
+        this.limiters = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Run work once the limiter for this endpoint and algorithm admits it.
+     * @throws AdmissionRejectedException If the request could not be admitted.
+     */
+    public <T> T admit(String endpoint, Algorithm algorithm, Supplier<T> work){
+        if(!enabled){
+            return work.get();
+        }
+        AdmissionLimiter limiter = getLimiter(endpoint, algorithm);
+        long acquiredAt;
+        try {
+            acquiredAt = limiter.acquire(maxWaitNanos);
+        } catch (AdmissionRejectedException e) {
+            log.warn("Rejected request: " + e.getMessage());
+            throw e;
+        }
+        boolean succeeded = false;
+        try {
+            T result = work.get();
+            succeeded = true;
+            return result;
+        } finally {
+            limiter.release(acquiredAt, succeeded);
+        }
+    }
+
+    public List<AdmissionStats> getStats(){
+        return limiters.values().stream()
+                .map(AdmissionLimiter::getStats)
+                .sorted(Comparator.comparing(AdmissionStats::getKey))
+                .collect(Collectors.toList());
+    }
+
+    private AdmissionLimiter getLimiter(String endpoint, Algorithm algorithm){
+        String alg = algorithm != null ? algorithm.getCode() : "*";
+        String key = endpoint + "." + alg;
+        return limiters.computeIfAbsent(key,
+                k -> new AdmissionLimiter(k, resolveLimit(endpoint, alg), maxQueueDepth, adaptive, adaptiveMaxLimit));
+    }
+
+    private int resolveLimit(String endpoint, String algorithm){
+        List<String> candidates = Arrays.asList(endpoint + "." + algorithm, endpoint + ".*", "*." + algorithm);
+        for(String candidate : candidates){
+            if(configuredLimits.containsKey(candidate)){
+                return configuredLimits.get(candidate);
+            }
+        }
+        return defaultLimit;
+    }
+
+    private Map<String, Integer> parseLimits(String limits){
+        Map<String, Integer> limitMap = new HashMap<>();
+        if(limits == null || limits.trim().isEmpty()){
+            return limitMap;
+        }
+        for(String entry : limits.split(",")){
+            String[] splitEntry = entry.trim().split(":");
+            if(splitEntry.length != 2 || !splitEntry[0].contains(".")){
+                log.warn("Ignoring malformed admission limit: " + entry);
+                continue;
+            }
+            limitMap.put(splitEntry[0].trim().toLowerCase(), Math.max(1, Integer.parseInt(splitEntry[1].trim())));
+        }
+        return limitMap;
+    }
+}
@@ -0,0 +1,24 @@
+package netlab.processing.admission;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdmissionStats {
+
+    private String key;
+    private Integer limit;
+    private Integer inFlight;
+    private Integer queueDepth;
+    private Integer maxQueueDepth;
+    private Long admitted;
+    private Long rejectedQueueFull;
+    private Long rejectedDeadline;
+    private Double avgLatencyMillis;
+    private Double minLatencyMillis;
+}
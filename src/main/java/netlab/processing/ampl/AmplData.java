@@ -0,0 +1,74 @@
+package netlab.processing.ampl;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The data section for an AMPL model, held in memory so it can be loaded through the API instead of a .dat file.
+ * Entries are loaded in the order they were added, so sets and counts must be added before anything indexed over them.
+ */
+public class AmplData {
+
+    public enum EntryType {
+        Set,
+        SetInstance,
+        Param,
+        IndexedParam
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Entry {
+        private EntryType type;
+        private String name;
+        // Index of a set instance, e.g. {1} for FG[1]. Empty for everything else.
+        private Object[] index;
+        // Members of a set, or the indices of an indexed parameter
+        private List<Object[]> tuples;
+        // Values of a parameter, one per index for indexed parameters
+        private List<Object> values;
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    public static Object[] tuple(Object... values){
+        return values;
+    }
+
+    public AmplData addSet(String name, List<Object[]> members){
+        entries.add(new Entry(EntryType.Set, name, new Object[0], members, Collections.emptyList()));
+        return this;
+    }
+
+    public AmplData addSetInstance(String name, Object[] index, List<Object[]> members){
+        entries.add(new Entry(EntryType.SetInstance, name, index, members, Collections.emptyList()));
+        return this;
+    }
+
+    public AmplData addParam(String name, Object value){
+        entries.add(new Entry(EntryType.Param, name, new Object[0], Collections.emptyList(), Collections.singletonList(value)));
+        return this;
+    }
+
+    public AmplData addParamValues(String name, List<Object[]> indices, List<Object> values){
+        if(indices.size() != values.size()){
+            throw new IllegalArgumentException("Parameter " + name + " has " + indices.size() + " indices but "
+                    + values.size() + " values");
+        }
+        entries.add(new Entry(EntryType.IndexedParam, name, new Object[0], indices, values));
+        return this;
+    }
+
+    public List<Entry> getEntries(){
+        return entries;
+    }
+
+    public Optional<Entry> getEntry(String name){
+        return entries.stream().filter(e -> e.getName().equals(name)).findFirst();
+    }
+}
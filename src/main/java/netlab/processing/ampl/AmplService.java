@@ -1,37 +1,62 @@
 package netlab.processing.ampl;
 
 
-import com.ampl.*;
-import com.fasterxml.jackson.databind.deser.impl.CreatorCandidate;
 import lombok.extern.slf4j.Slf4j;
-import netlab.submission.enums.Objective;
+import netlab.processing.ilp.FlowTranslationService;
+import netlab.processing.ilp.IlpSolver;
 import netlab.submission.enums.ProblemClass;
 import netlab.submission.enums.RoutingType;
 import netlab.submission.request.Details;
 import netlab.submission.request.Request;
 import netlab.topology.elements.*;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.nio.file.FileAlreadyExistsException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.*;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static netlab.processing.ampl.AmplData.tuple;
+
 @Slf4j
 @Service
-public class AmplService {
+public class AmplService implements IlpSolver {
 
     private String modelDirectory = "linear-programs/models";
 
+    private AmplSessionPool sessionPool;
+
+    private AmplWarmStartService warmStartService;
+
+    private FlowTranslationService flowTranslationService;
+
+    @Autowired
+    public AmplService(AmplSessionPool sessionPool, AmplWarmStartService warmStartService,
+                       FlowTranslationService flowTranslationService){
+        this.sessionPool = sessionPool;
+        this.warmStartService = warmStartService;
+        this.flowTranslationService = flowTranslationService;
+    }
+
+    @Override
     public Details solve(Request request, Topology topology){
         Map<SourceDestPair, Map<String, Path>> paths = new HashMap<>();
-        Environment env = new Environment(System.getProperty("user.dir") + "/linear-programs/ampl/");
-        AMPL ampl = new AMPL(env);
         Details details = request.getDetails();
-        if(!ampl.isRunning()){
+        Optional<WarmStart> warmStart = warmStartService.findWarmStart(request, topology, IlpSolver.computeIMax(details));
+        double warmStartDuration = warmStart.map(WarmStart::getRunningTimeSeconds).orElse(0.0);
+        AmplSession session;
+        try {
+            session = sessionPool.borrow(selectModel(request.getRoutingType()));
+        } catch (IOException e) {
+            e.printStackTrace();
+            details.setChosenPaths(new HashMap<>());
+            details.setIsFeasible(false);
+            details.setRunningTimeSeconds(0.0);
+            return details;
+        }
+        if(!session.isRunning()){
+            sessionPool.release(session, false);
             details.setChosenPaths(new HashMap<>());
             details.setIsFeasible(false);
             details.setRunningTimeSeconds(0.0);
@@ -39,21 +64,22 @@ public class AmplService {
             return details;
         }
         double duration = 0.0;
+        boolean healthy = true;
         try {
-            ampl = assignValues(request, topology, ampl);
+            assignValues(request, topology, session, warmStart.orElse(null), warmStartDuration);
             long startTime = System.nanoTime();
-            ampl.solve();
+            session.solve();
             long endTime = System.nanoTime();
             duration = (endTime - startTime)/1e9;
             log.info("Solution took: " + duration + " seconds");
-            com.ampl.Objective obj = ampl.getObjective(request.getObjective().getCode());
-            String result = obj.result();
-            String message = obj.message();
-            DataFrame flows = ampl.getData("L");
+            String objective = request.getObjective().getCode();
+            String result = session.getObjectiveResult(objective);
+            String message = session.getObjectiveMessage(objective);
 
             if(result.toLowerCase().contains("solved") || message.toLowerCase().contains("objective")){
                 details.setIsFeasible(true);
-                paths = translateFlowsIntoPaths(flows, details.getPairs(), topology);
+                paths = flowTranslationService.translateFlowsIntoPaths(session.getIndexRows("L", 5), details.getPairs(), topology);
+                recordSolverStats(session, objective, details);
             }
             else{
                 paths = details.getPairs().stream().collect(Collectors.toMap(p -> p, p -> new HashMap<>()));
@@ -61,120 +87,116 @@ public class AmplService {
             if(result.contains("limit")){
                 request.setTimedOut(true);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+        } catch (RuntimeException e) {
+            // Don't hand a session in an unknown state to the next request
+            healthy = false;
+            log.error("AMPL solve failed for request " + request.getId() + ": " + e.getMessage());
+            paths = details.getPairs().stream().collect(Collectors.toMap(p -> p, p -> new HashMap<>()));
         }
         finally{
-            ampl.close();
+            sessionPool.release(session, healthy);
         }
         details.setChosenPaths(paths);
-        details.setRunningTimeSeconds(duration);
+        details.setRunningTimeSeconds(duration + warmStartDuration);
         return details;
     }
 
-    private AMPL assignValues(Request request, Topology topology, AMPL ampl) throws IOException{
-        /*if(problemClass.equals(ProblemClass.Flex)){
-            ampl.read(modelDirectory + "/flex.mod");
-        }
-        if(problemClass.equals(ProblemClass.Endpoint)){
-            ampl.read(modelDirectory + "/endpoint.mod");
-        }
-        if(problemClass.equals(ProblemClass.Flow)){
-            ampl.read(modelDirectory + "/flow.mod");
-        }
-        if(problemClass.equals(ProblemClass.EndpointSharedF)){
-            ampl.read(modelDirectory + "/endpointSharedF.mod");
-        }
-        if(problemClass.equals(ProblemClass.FlowSharedF)){
-            ampl.read(modelDirectory + "/flowSharedF.mod");
+    // The bound is only available from solvers that return the bestbound suffix (Gurobi with bestbound=1)
+    private void recordSolverStats(AmplSession session, String objective, Details details){
+        try {
+            Double incumbent = session.getValue(objective);
+            Double bound = session.getValue(objective + ".bestbound");
+            details.setIncumbentObjective(incumbent);
+            details.setBestBound(bound);
+            if(incumbent != null && bound != null){
+                details.setMipGap(Math.abs(incumbent - bound) / Math.max(Math.abs(incumbent), 1e-10));
+            }
+        } catch (RuntimeException e) {
+            log.debug("Could not read objective bound: " + e.getMessage());
         }
-        if(problemClass.equals(ProblemClass.Combined)){
-            ampl.read(modelDirectory + "/combined.mod");
-        }*/
-        switch(request.getRoutingType()){
+    }
+
+    public String selectModel(RoutingType routingType){
+        switch(routingType){
             case Unicast:
-                ampl.read(modelDirectory + "/unicast.mod");
-                break;
+                return modelDirectory + "/unicast.mod";
             case Anycast:
             case Multicast:
             case Manycast:
-                ampl.read(modelDirectory + "/manycast.mod");
-                break;
+                return modelDirectory + "/manycast.mod";
             case ManyToOne:
-                ampl.read(modelDirectory + "/manyToOne.mod");
-                break;
+                return modelDirectory + "/manyToOne.mod";
             default:
-                ampl.read(modelDirectory + "/combined.mod");
+                return modelDirectory + "/combined.mod";
         }
+    }
 
-        ampl.eval("objective " + request.getObjective().getCode()  + ";");
-        ampl.setIntOption("omit_zero_rows", 1);
-        ampl.setOption("solver", "gurobi");
-        ampl.eval("option gurobi_options \'threads " + request.getNumThreads() + "\';");
-        //ampl.eval("option gurobi_options $gurobi_options\'timelim " + request.getCutoffTimeSeconds() + "\';");
+    private void assignValues(Request request, Topology topology, AmplSession session, WarmStart warmStart,
+                              double warmStartDuration){
+        // Options outlive a reset, but the objective and solver limits differ between requests, so they're set for every solve
+        session.eval("objective " + request.getObjective().getCode()  + ";");
+        session.setIntOption("omit_zero_rows", 1);
+        session.setOption("solver", "gurobi");
+        session.eval("option gurobi_options \'" + createGurobiOptions(request, warmStart != null, warmStartDuration) + "\';");
 
-        List<String> dataLines = createDataLines(request, topology);
-        java.nio.file.Path file = Paths.get(request.getId() + ".dat");
-        try {
-            // Create the empty file with default permissions, etc.
-            Files.deleteIfExists(file);
-            Files.createFile(file);
-        } catch (FileAlreadyExistsException x) {
-            System.err.format("file named %s" +
-                    " already exists%n", file);
-        } catch (IOException x) {
-            // Some other sort of failure, such as permissions.
-            System.err.format("createFile error: %s%n", x);
+        session.loadData(createData(request, topology));
+        if(warmStart != null){
+            session.setInitialValues("L", warmStart.getLinkFlows(), 1);
+            session.setInitialValues("C", warmStart.getConnections(), 1);
         }
-        Files.write(file, dataLines);
-        ampl.readData(request.getId() + ".dat");
 
-        Files.delete(file);
-
-        //ampl.setIntOption("times", 1);
-        //ampl.setIntOption("gentimes", 1);
-        //ampl.setIntOption("show_stats", 1);
+        //session.setIntOption("times", 1);
+        //session.setIntOption("gentimes", 1);
+        //session.setIntOption("show_stats", 1);
+    }
 
-        return ampl;
+    // The cutoff covers the whole request, so time spent on the warm start comes out of the solver's limit
+    public String createGurobiOptions(Request request, boolean useMipStart, double warmStartDuration){
+        String options = "threads " + request.getNumThreads();
+        if(request.getCutoffTimeSeconds() != null && request.getCutoffTimeSeconds() > 0){
+            long timeLimit = Math.max(1, (long) Math.ceil(request.getCutoffTimeSeconds() - warmStartDuration));
+            options += " timelim " + timeLimit;
+        }
+        options += " bestbound 1";
+        if(useMipStart){
+            options += " mipstart 1";
+        }
+        return options;
     }
 
-    private List<String> createDataLines(Request request, Topology topology) {
+    public AmplData createData(Request request, Topology topology) {
         Details details = request.getDetails();
         ProblemClass problemClass = request.getProblemClass();
         boolean ignoreF = request.isIgnoreFailures();
-        List<String> dataLines = new ArrayList<>();
+        AmplData data = new AmplData();
         // Topology
-        dataLines.addAll(createTopologyLines(topology));
+        addTopology(data, topology);
 
         RoutingType routingType = request.getRoutingType();
 
         switch(routingType){
             case Unicast:
-                dataLines.add(createSingleNodeParamLine(details.getSources(), "s"));
-                dataLines.add(createSingleNodeParamLine(details.getDestinations(), "d"));
+                addSingleNodeParam(data, details.getSources(), "s");
+                addSingleNodeParam(data, details.getDestinations(), "d");
                 break;
             case Anycast:
             case Multicast:
             case Manycast:
-                dataLines.add(createSingleNodeParamLine(details.getSources(), "s"));
+                addSingleNodeParam(data, details.getSources(), "s");
                 break;
             case ManyToOne:
-                dataLines.add(createSingleNodeParamLine(details.getDestinations(), "d"));
+                addSingleNodeParam(data, details.getDestinations(), "d");
                 break;
         }
 
-        dataLines.add(createNodeSetLine(details.getSources(), "S"));
-        dataLines.add(createNodeSetLine(details.getDestinations(), "D"));
+        addNodeSet(data, details.getSources(), "S");
+        addNodeSet(data, details.getDestinations(), "D");
 
         // I_max
-        Integer minFailures = Math.min(details.getNumFailureEvents().getTotalNumFailureEvents(), details.getFailures().getFailureSetSize());
-        int iMaxNum = Math.max(1, details.getConnections().getNumConnections()) * (minFailures + 1);
-        String iMax = String.format("param I_max := %d;", iMaxNum);
-        dataLines.add(iMax);
+        data.addParam("I_max", IlpSolver.computeIMax(details));
 
         // C_total
-        String cTotal = "param c_total := " + details.getConnections().getNumConnections() + ";";
-        dataLines.add(cTotal);
+        data.addParam("c_total", details.getConnections().getNumConnections());
 
         // Reach min/max src/dest if not doing Unicast
         switch(routingType){
@@ -183,83 +205,74 @@ public class AmplService {
             case Anycast:
             case Multicast:
             case Manycast:
-                dataLines.add("param useMinD := " + details.getConnections().getUseMinD() + ";");
-                dataLines.add("param useMaxD := " + details.getDestinations().size()/*details.getConnections().getUseMaxD()*/ + ";");
+                data.addParam("useMinD", details.getConnections().getUseMinD());
+                data.addParam("useMaxD", details.getDestinations().size()/*details.getConnections().getUseMaxD()*/);
                 break;
             case ManyToOne:
-                dataLines.add("param useMinS := " + details.getConnections().getUseMinS() + ";");
-                dataLines.add("param useMaxS := " + details.getSources().size() + ";");
+                data.addParam("useMinS", details.getConnections().getUseMinS());
+                data.addParam("useMaxS", details.getSources().size());
                 break;
             default:
-                dataLines.add("param useMinS := " + details.getConnections().getUseMinS() + ";");
-                dataLines.add("param useMaxS := " + details.getSources().size() + ";");
-                dataLines.add("param useMinD := " + details.getConnections().getUseMinD() + ";");
-                dataLines.add("param useMaxD := " + details.getDestinations().size() + ";");
+                data.addParam("useMinS", details.getConnections().getUseMinS());
+                data.addParam("useMaxS", details.getSources().size());
+                data.addParam("useMinD", details.getConnections().getUseMinD());
+                data.addParam("useMaxD", details.getDestinations().size());
         }
 
         // Traffic Combination
-        String combineSourceTraffic = "param combineSourceTraffic := ";
-        String combineDestTraffic = "param combineDestTraffic := ";
+        int combineSourceTraffic = 0;
+        int combineDestTraffic = 0;
         switch(request.getTrafficCombinationType()){
             case None:
-                combineSourceTraffic += "0;";
-                combineDestTraffic += "0;";
                 break;
             case Source:
-                combineSourceTraffic += "1;";
-                combineDestTraffic += "0;";
+                combineSourceTraffic = 1;
                 break;
             case Destination:
-                combineSourceTraffic += "0;";
-                combineDestTraffic += "1;";
+                combineDestTraffic = 1;
                 break;
             case Both:
-                combineSourceTraffic += "1;";
-                combineDestTraffic += "1;";
+                combineSourceTraffic = 1;
+                combineDestTraffic = 1;
                 break;
         }
-        dataLines.add(combineSourceTraffic);
-        dataLines.add(combineDestTraffic);
+        data.addParam("combineSourceTraffic", combineSourceTraffic);
+        data.addParam("combineDestTraffic", combineDestTraffic);
 
         // Flex/Endpoint/Flow level params
         if(problemClass.equals(ProblemClass.Flex)){
-            dataLines.addAll(createFlexParamsLines(details, ignoreF));
+            addFlexParams(data, details, ignoreF);
         }
         if(problemClass.equals(ProblemClass.Endpoint) || problemClass.equals(ProblemClass.EndpointSharedF)){
-            dataLines.addAll(createEndpointParamsLines(details, problemClass, ignoreF));
+            addEndpointParams(data, details, problemClass, ignoreF);
         }
         if(problemClass.equals(ProblemClass.Flow) || problemClass.equals(ProblemClass.FlowSharedF)){
-            dataLines.addAll(createPairParamsLines(details, problemClass, ignoreF));
+            addPairParams(data, details, problemClass, ignoreF);
         }
         if(problemClass.equals(ProblemClass.Combined)){
-            dataLines.addAll(createCombinedParamsLines(details, problemClass, routingType, ignoreF));
+            addCombinedParams(data, details, problemClass, routingType, ignoreF);
         }
 
-        return dataLines;
+        return data;
     }
 
 
-    private List<String> createFlexParamsLines(Details details, boolean ignoreFailures){
-        List<String> flexLines = new ArrayList<>();
+    private void addFlexParams(AmplData data, Details details, boolean ignoreFailures){
         List<List<Failure>> failureGroups = ignoreFailures ? Collections.singletonList(new ArrayList<>()) : details.getFailures().getFailureGroups();
         if(failureGroups.isEmpty()){
-            failureGroups.add(new ArrayList<>());
+            failureGroups = Collections.singletonList(new ArrayList<>());
         }
-        String numGroups = "param NumGroups := " + failureGroups.size() + ";";
-        flexLines.add(numGroups);
-        flexLines.addAll(createFailureGroupLines(failureGroups, ProblemClass.Flex, null, null, false));
+        data.addParam("NumGroups", failureGroups.size());
+        addFailureGroups(data, failureGroups, ProblemClass.Flex, null, null, false);
         int nfe = Math.min(details.getNumFailureEvents().getTotalNumFailureEvents(), details.getFailures().getFailureSet().size());
         if(!ignoreFailures) {
-            String nfeString = "param nfe := " + nfe + ";";
-            flexLines.add(nfeString);
-            flexLines.add(createFailureSetLine(details.getFailures().getFailureSet()));
+            data.addParam("nfe", nfe);
+            data.addSet("F", createFailureTuples(details.getFailures().getFailureSet()));
         }
-        return flexLines;
     }
 
 
-    private List<String> createEndpointParamsLines(Details details, ProblemClass problemClass, boolean ignoreFailures){
-        List<String> endpointLines = new ArrayList<>();
+    private void addEndpointParams(AmplData data, Details details, ProblemClass problemClass, boolean ignoreFailures){
         Map<Node, Integer> srcMinMap = details.getConnections().getSrcMinConnectionsMap();
         Map<Node, Integer> srcMaxMap = details.getConnections().getSrcMaxConnectionsMap();
         Map<Node, Integer> dstMinMap = details.getConnections().getDstMinConnectionsMap();
@@ -273,336 +286,165 @@ public class AmplService {
         Set<Node> destinations = details.getDestinations();
 
         boolean printFailsGroupPerMember = problemClass.equals(ProblemClass.Endpoint);
-        endpointLines.addAll(createParamsForMemberGroup(sources, srcMinMap, srcMaxMap, srcFailGroupsMap, true, printFailsGroupPerMember, ignoreFailures));
-        endpointLines.addAll(createParamsForMemberGroup(destinations, dstMinMap, dstMaxMap, dstFailGroupsMap, false, printFailsGroupPerMember, ignoreFailures));
-        // If you're solving the EndpointSharedF problem, just print one FG set and one NumGroups param
+        addParamsForMemberGroup(data, sources, srcMinMap, srcMaxMap, srcFailGroupsMap, true, printFailsGroupPerMember, ignoreFailures);
+        addParamsForMemberGroup(data, destinations, dstMinMap, dstMaxMap, dstFailGroupsMap, false, printFailsGroupPerMember, ignoreFailures);
+        // If you're solving the EndpointSharedF problem, just load one FG set and one NumGroups param
         if(problemClass.equals(ProblemClass.EndpointSharedF)){
-            String numGroups = "param NumGroups := " + requestFailureGroups.size() + ";";
-            List<String> fgLines = createFailureGroupLines(requestFailureGroups, ProblemClass.EndpointSharedF, null, null, false);
-            endpointLines.add(numGroups);
-            endpointLines.addAll(fgLines);
+            data.addParam("NumGroups", requestFailureGroups.size());
+            addFailureGroups(data, requestFailureGroups, ProblemClass.EndpointSharedF, null, null, false);
         }
-        return endpointLines;
     }
 
-    private Collection<? extends String> createParamsForMemberGroup(Set<Node> members, Map<Node, Integer> memberMinMap,
-                                                                    Map<Node, Integer> memberMaxMap,
-                                                                    Map<Node, List<List<Failure>>> memberFailGroupsMap,
-                                                                    boolean areSources, boolean printFailsGroupPerMember,
-                                                                    Boolean ignoreFailures) {
-        List<String> memberLines = new ArrayList<>();
-        String cMin = "param c_min_" + (areSources ? "s" : "d") + " := ";
-        String cMax = "param c_max_" + (areSources ? "s" : "d") + " := ";
-        String numGroups = "param NumGroups_" + (areSources ? "s" : "d") + " := ";
-        List<String> fgLines = new ArrayList<>();
+    private void addParamsForMemberGroup(AmplData data, Set<Node> members, Map<Node, Integer> memberMinMap,
+                                         Map<Node, Integer> memberMaxMap,
+                                         Map<Node, List<List<Failure>>> memberFailGroupsMap,
+                                         boolean areSources, boolean printFailsGroupPerMember,
+                                         Boolean ignoreFailures) {
+        String suffix = areSources ? "s" : "d";
+        List<Object[]> memberIndices = new ArrayList<>();
+        List<Object> mins = new ArrayList<>();
+        List<Object> maxes = new ArrayList<>();
+        List<Object> numGroups = new ArrayList<>();
+        Map<Node, List<List<Failure>>> groupsPerMember = new LinkedHashMap<>();
         for(Node member : members){
-            Integer min = memberMinMap.get(member);
-            Integer max = memberMaxMap.get(member);
-            cMin += " '" + member.getId() + "' " + min;
-            cMax += " '" + member.getId() + "' " + max;
+            memberIndices.add(tuple(member.getId()));
+            mins.add(memberMinMap.get(member));
+            maxes.add(memberMaxMap.get(member));
             if(printFailsGroupPerMember) {
                 List<List<Failure>> failureGroups = ignoreFailures ? Collections.singletonList(new ArrayList<>())
                         : memberFailGroupsMap.getOrDefault(member, new ArrayList<>());
                 if(failureGroups.isEmpty()){
-                    failureGroups.add(new ArrayList<>());
-                }               numGroups += " '" + member.getId() + "' " + failureGroups.size();
-                fgLines.addAll(createFailureGroupLines(failureGroups, ProblemClass.Endpoint, null, member, areSources));
+                    failureGroups = Collections.singletonList(new ArrayList<>());
+                }
+                numGroups.add(failureGroups.size());
+                groupsPerMember.put(member, failureGroups);
             }
         }
-        cMin += ";";
-        cMax += ";";
-        numGroups += ";";
-        memberLines.add(cMin);
-        memberLines.add(cMax);
+        data.addParamValues("c_min_" + suffix, memberIndices, mins);
+        data.addParamValues("c_max_" + suffix, memberIndices, maxes);
         // Only add NumGroups param and FG[member, i] if you're solving the regular Endpoint problem
         if(printFailsGroupPerMember) {
-            memberLines.add(numGroups);
-            memberLines.addAll(fgLines);
+            data.addParamValues("NumGroups_" + suffix, memberIndices, numGroups);
+            for(Node member : groupsPerMember.keySet()){
+                addFailureGroups(data, groupsPerMember.get(member), ProblemClass.Endpoint, null, member, areSources);
+            }
         }
-        return memberLines;
     }
 
-    private List<String> createPairParamsLines(Details details, ProblemClass problemClass, boolean ignoreFailures){
-        List<String> pairLines = new ArrayList<>();
-        String cMin = "param c_min_sd := ";
-        String cMax = "param c_max_sd := ";
-        String numGroups = "param NumGroups := ";
+    private void addPairParams(AmplData data, Details details, ProblemClass problemClass, boolean ignoreFailures){
         Map<SourceDestPair, Integer> pairMinMap = details.getConnections().getPairMinConnectionsMap();
         Map<SourceDestPair, Integer> pairMaxMap = details.getConnections().getPairMaxConnectionsMap();
         Map<SourceDestPair, List<List<Failure>>> pairFailGroupsMap = details.getFailures().getPairFailureGroupsMap();
-        List<String> fgLines = new ArrayList<>();
+        List<Object[]> pairIndices = new ArrayList<>();
+        List<Object> mins = new ArrayList<>();
+        List<Object> maxes = new ArrayList<>();
+        List<Object> numGroups = new ArrayList<>();
+        Map<SourceDestPair, List<List<Failure>>> groupsPerPair = new LinkedHashMap<>();
+        List<List<Failure>> requestFailureGroups = new ArrayList<>();
         if(problemClass.equals(ProblemClass.FlowSharedF)){
-            List<List<Failure>> requestFailureGroups = ignoreFailures ? Collections.singletonList(new ArrayList<>())
+            requestFailureGroups = ignoreFailures ? Collections.singletonList(new ArrayList<>())
                     : details.getFailures().getFailureGroups();
             if(requestFailureGroups.isEmpty()){
-                requestFailureGroups.add(new ArrayList<>());
+                requestFailureGroups = Collections.singletonList(new ArrayList<>());
             }
-            numGroups += requestFailureGroups.size();
-            fgLines = createFailureGroupLines(requestFailureGroups, ProblemClass.FlowSharedF, null, null, false);
         }
         for(SourceDestPair pair : pairMinMap.keySet()){
             if(!pair.getSrc().equals(pair.getDst())) {
-                Integer min = pairMinMap.get(pair);
-                Integer max = pairMaxMap.get(pair);
                 List<List<Failure>> failureGroups = ignoreFailures ? Collections.singletonList(new ArrayList<>())
                         : pairFailGroupsMap.getOrDefault(pair, new ArrayList<>());
                 if(failureGroups.isEmpty()){
-                    failureGroups.add(new ArrayList<>());
+                    failureGroups = Collections.singletonList(new ArrayList<>());
                 }
-                cMin += " '" + pair.getSrc().getId() + "' '" + pair.getDst().getId() + "' " + min;
-                cMax += " '" + pair.getSrc().getId() + "' '" + pair.getDst().getId() + "' " + max;
+                pairIndices.add(tuple(pair.getSrc().getId(), pair.getDst().getId()));
+                mins.add(pairMinMap.get(pair));
+                maxes.add(pairMaxMap.get(pair));
                 if(problemClass.equals(ProblemClass.Flow)) {
-                    numGroups += " '" + pair.getSrc().getId() + "' '" + pair.getDst().getId() + "' " + failureGroups.size();
-                    fgLines.addAll(createFailureGroupLines(failureGroups, ProblemClass.Flow, pair, null, false));
+                    numGroups.add(failureGroups.size());
+                    groupsPerPair.put(pair, failureGroups);
                 }
             }
         }
-        cMin += ";";
-        cMax += ";";
-        numGroups += ";";
-        pairLines.add(cMin);
-        pairLines.add(cMax);
-        if(problemClass.equals(ProblemClass.FlowSharedF) || problemClass.equals(ProblemClass.Flow)) {
-            pairLines.add(numGroups);
-            pairLines.addAll(fgLines);
+        data.addParamValues("c_min_sd", pairIndices, mins);
+        data.addParamValues("c_max_sd", pairIndices, maxes);
+        if(problemClass.equals(ProblemClass.FlowSharedF)){
+            data.addParam("NumGroups", requestFailureGroups.size());
+            addFailureGroups(data, requestFailureGroups, ProblemClass.FlowSharedF, null, null, false);
+        }
+        if(problemClass.equals(ProblemClass.Flow)) {
+            data.addParamValues("NumGroups", pairIndices, numGroups);
+            for(SourceDestPair pair : groupsPerPair.keySet()){
+                addFailureGroups(data, groupsPerPair.get(pair), ProblemClass.Flow, pair, null, false);
+            }
         }
-        return pairLines;
     }
 
     /**
-     * Create print lines for Combined model - takes C and F/FG params for Flex, adds in cMin and cMax params for both
+     * Add data for Combined model - takes C and F/FG params for Flex, adds in cMin and cMax params for both
      * endpoint and flow models.
+     * @param data
      * @param details
      * @param problemClass
-     * @return
      */
-    private List<String> createCombinedParamsLines(Details details, ProblemClass problemClass, RoutingType routingType, boolean ignoreFailures) {
-        List<String> lines = createFlexParamsLines(details, ignoreFailures);
+    private void addCombinedParams(AmplData data, Details details, ProblemClass problemClass, RoutingType routingType, boolean ignoreFailures) {
+        addFlexParams(data, details, ignoreFailures);
         boolean combinedRouting = routingType.equals(RoutingType.ManyToMany) || routingType.equals(RoutingType.Broadcast) || routingType.equals(RoutingType.Default);
         if(combinedRouting) {
-            lines.addAll(createEndpointParamsLines(details, problemClass, ignoreFailures));
-            lines.addAll(createPairParamsLines(details, problemClass, ignoreFailures));
+            addEndpointParams(data, details, problemClass, ignoreFailures);
+            addPairParams(data, details, problemClass, ignoreFailures);
         }
-        return lines;
     }
 
-    private List<String> createFailureGroupLines(List<List<Failure>> failureGroups, ProblemClass problemClass, SourceDestPair pair, Node node, Boolean isSource) {
-        List<String> fgLines = new ArrayList<>();
+    private void addFailureGroups(AmplData data, List<List<Failure>> failureGroups, ProblemClass problemClass, SourceDestPair pair, Node node, Boolean isSource) {
         for (int groupIndex = 0; groupIndex < failureGroups.size(); groupIndex++) {
-            String fg = "";
-            if(problemClass.equals(ProblemClass.Flex) || problemClass.equals(ProblemClass.EndpointSharedF) || problemClass.equals(ProblemClass.FlowSharedF)){
-                fg = "set FG[" + (groupIndex + 1) + "] :=";
-            }
+            String name = "FG";
+            Object[] index = tuple(groupIndex + 1);
             if(problemClass.equals(ProblemClass.Endpoint)){
-                if(isSource){
-                    fg = "set FG_s['" + node.getId() + "'," + (groupIndex+1) + "] :=";
-                }
-                else{
-                    fg = "set FG_d['" + node.getId() + "'," + (groupIndex+1) + "] :=";
-                }
+                name = isSource ? "FG_s" : "FG_d";
+                index = tuple(node.getId(), groupIndex + 1);
             }
             if(problemClass.equals(ProblemClass.Flow)){
-                fg = "set FG['" + pair.getSrc().getId() + "','" + pair.getDst().getId() + "'," + (groupIndex + 1) + "] :=";
+                index = tuple(pair.getSrc().getId(), pair.getDst().getId(), groupIndex + 1);
             }
-            List<Failure> group = failureGroups.get(groupIndex);
-            for (Failure fail : group) {
-                String failString = createFailureString(fail);
-                fg += " " + failString;
-            }
-            fg += ";";
-            fgLines.add(fg);
+            data.addSetInstance(name, index, createFailureTuples(failureGroups.get(groupIndex)));
         }
-        return fgLines;
-    }
-
-    private String createFailureString(Failure fail){
-        return fail.getLink() != null ? "('" + fail.getLink().getOrigin().getId() + "','" + fail.getLink().getTarget().getId() + "')"
-                : "('" + fail.getNode().getId() + "','" + fail.getNode().getId() + "')";
     }
 
-    private String createFailureSetLine(Set<Failure> failureSet) {
-        String set = "set F := ";
-        int count = 0;
-        for(Failure fail : failureSet){
-            String failString = createFailureString(fail);
-            set += failString;
-            if(count < failureSet.size()-1) {
-                set += ", ";
-            }
-            count++;
-        }
-        set += ";";
-        return set;
+    private Object[] createFailureTuple(Failure fail){
+        return fail.getLink() != null ? tuple(fail.getLink().getOrigin().getId(), fail.getLink().getTarget().getId())
+                : tuple(fail.getNode().getId(), fail.getNode().getId());
     }
 
-    private String createSingleNodeParamLine(Collection<Node> nodes, String paramName){
-        return "param " + paramName + " := '" + nodes.iterator().next().getId() +"';";
+    private List<Object[]> createFailureTuples(Collection<Failure> failures){
+        return failures.stream().map(this::createFailureTuple).collect(Collectors.toList());
     }
 
-    private String createNodeSetLine(Collection<Node> nodes, String setName){
-        String set = "set " + setName + " := ";
-        for(Node node : nodes){
-            set += " '" + node.getId() + "'";
-        }
-        set += ";";
-        return set;
+    private void addSingleNodeParam(AmplData data, Collection<Node> nodes, String paramName){
+        data.addParam(paramName, nodes.iterator().next().getId());
     }
 
-    private List<String> createTopologyLines(Topology topology){
-        List<String> topoLines = new ArrayList<>();
-        topoLines.add(createNodeSetLine(topology.getNodes(), "V"));
-        topoLines.addAll(createEdgeLines(topology, new ArrayList<>(topology.getNodes())));
-        return topoLines;
+    private void addNodeSet(AmplData data, Collection<Node> nodes, String setName){
+        data.addSet(setName, nodes.stream().map(n -> tuple(n.getId())).collect(Collectors.toList()));
     }
 
-    private List<String> createEdgeLines(Topology topology, List<Node> nodes){
-        List<String> topoLines = new ArrayList<>();
-        String a = "param A: ";
-        String weight = "param Weight: ";
-        Map<Node, Set<Link>> nodeLinkMap = topology.getNodeLinkMap();
-        String linkIndex = nodes.stream().map(n -> "'" + n.getId() + "'").reduce(" ", (n1, n2) -> n1 + " " + n2);
-        a += linkIndex + " :=";
-        weight += linkIndex + " :=";
-        for(Node node : nodes){
-            String linkLine = " '" + node.getId() + "'";
-            String weightLine = " '" + node.getId() + "'";
-            Set<Link> linksForNode = nodeLinkMap.get(node);
-            Map<Node, Link> linkExists = new HashMap<>();
-            for(Link link : linksForNode){
-                linkExists.put(link.getTarget(), link);
-            }
-            for(Node otherNode : nodes){
-                if(linkExists.containsKey(otherNode)){
-                    Link connectingLink = linkExists.get(otherNode);
-                    linkLine += " 1";
-                    weightLine += " " + connectingLink.getWeight();
-                }
-                else{
-                    linkLine += " 0";
-                    weightLine += " 0";
-                }
-            }
-            a += linkLine;
-            weight += weightLine;
-        }
-        a += ";";
-        weight += ";";
-        topoLines.add(a);
-        topoLines.add(weight);
-        return topoLines;
+    private void addTopology(AmplData data, Topology topology){
+        addNodeSet(data, topology.getNodes(), "V");
+        addEdges(data, topology);
     }
 
-
-    // AMPL output -> Java translation
-
-    private Map<SourceDestPair,Map<String,Path>> translateFlowsIntoPaths(DataFrame linkFlows, Set<SourceDestPair> pairs, Topology topo) {
-        Map<SourceDestPair, Map<String, Path>> pathMap = pairs.stream()
-                .collect(Collectors.toMap(p -> p, p -> new HashMap<>()));
-        Map<String, Link> linkIdMap = topo.getLinkIdMap();
-        Map<String, Node> nodeIdMap = topo.getNodeIdMap();
-        String[] sources = linkFlows.getColumnAsStrings("index0");
-        String[] destinations = linkFlows.getColumnAsStrings("index1");
-        double[] pathIds = linkFlows.getColumnAsDoubles("index2");
-        String[] origins = linkFlows.getColumnAsStrings("index3");
-        String[] targets = linkFlows.getColumnAsStrings("index4");
-        if(sources == null || destinations == null || pathIds == null || origins == null || targets == null){
-            return pathMap;
-        }
-        for(int index = 0; index < sources.length; index++){
-            String src = sources[index];
-            String dst = destinations[index];
-            String pathId = Double.toString(pathIds[index]);
-            String origin = origins[index];
-            String target = targets[index];
-
-            SourceDestPair thisPair = SourceDestPair.builder()
-                    .src(nodeIdMap.get(src))
-                    .dst(nodeIdMap.get(dst))
-                    .build();
-            Link link = linkIdMap.get(origin + "-" + target);
-            Map<String, Path> pairMap = pathMap.get(thisPair);
-            // Path already exists, add to it
-            if(pairMap.containsKey(pathId)){
-                Path thisPath = pairMap.get(pathId);
-                thisPath.appendLink(link);
-            }
-            // New path
-            else{
-                List<Link> links = new ArrayList<>();
-                links.add(link);
-                Path newPath = new Path(links);
-                pairMap.put(pathId, newPath);
-            }
-        }
-        //printPaths(pathMap);
-        pathMap = sortPaths(pathMap);
-        //System.out.println("-----------------------------");
-        //printPaths(pathMap);
-        return pathMap;
-    }
-
-    private Map<SourceDestPair, Map<String, Path>> sortPaths(Map<SourceDestPair, Map<String, Path>> pathMap) {
-        for(SourceDestPair pair : pathMap.keySet()){
-            Map<String, Path> mapForPair = pathMap.get(pair);
-            for(Path path : mapForPair.values()){
-                sortPath(path, pair);
-            }
-        }
-        return pathMap;
-    }
-
-    private void sortPath(Path path, SourceDestPair pair) {
-        List<Link> links = path.getLinks();
-
-        List<Link> sortedLinks = new ArrayList<>();
-        List<Node> sortedNodes = new ArrayList<>();
-        Set<String> linkIds = new HashSet<>();
-        Set<String> nodeIds = new HashSet<>();
-
-        Map<Node, Link> outgoingLinks = new HashMap<>();
-        for(Link link : links){
-            outgoingLinks.put(link.getOrigin(), link);
-        }
-        Link currLink = outgoingLinks.get(pair.getSrc());
-        sortedNodes.add(currLink.getOrigin());
-        nodeIds.add(currLink.getOrigin().getId());
-
-        // While the next node has an outgoing link
-        while(outgoingLinks.containsKey(currLink.getTarget())){
-            sortedLinks.add(currLink);
-            linkIds.add(currLink.getId());
-
-            currLink = outgoingLinks.get(currLink.getTarget());
-
-            sortedNodes.add(currLink.getOrigin());
-            nodeIds.add(currLink.getOrigin().getId());
-
-        }
-        sortedLinks.add(currLink);
-        linkIds.add(currLink.getId());
-        sortedNodes.add(currLink.getTarget());
-        nodeIds.add(currLink.getTarget().getId());
-
-        path.setLinks(sortedLinks);
-        path.setLinkIds(linkIds);
-        path.setNodes(sortedNodes);
-        path.setNodeIds(nodeIds);
-    }
-
-    private void printPaths(Map<SourceDestPair, Map<String, Path>> pairPathMap){
-        for(SourceDestPair pair : pairPathMap.keySet()){
-            System.out.println("Pair: (" + pair.getSrc().getId() + ", " + pair.getDst().getId() + ")");
-            System.out.println("---");
-            Map<String, Path> pathMap = pairPathMap.get(pair);
-            for(String pathId : pathMap.keySet()){
-                String pathString = pathId + ": ";
-                for(Link link : pathMap.get(pathId).getLinks()){
-                    pathString += "(" + link.getOrigin().getId() + ", " + link.getTarget().getId() + ") ";
-                }
-                System.out.println(pathString);
+    // A and Weight default to 0 in the models, so only existing links need to be loaded
+    private void addEdges(AmplData data, Topology topology){
+        List<Object[]> linkIndices = new ArrayList<>();
+        List<Object> a = new ArrayList<>();
+        List<Object> weight = new ArrayList<>();
+        for(Node node : topology.getNodes()){
+            for(Link link : topology.getNodeLinkMap().get(node)){
+                linkIndices.add(tuple(node.getId(), link.getTarget().getId()));
+                a.add(1);
+                weight.add(link.getWeight());
             }
-            System.out.println("~~~~~~~");
         }
+        data.addParamValues("A", linkIndices, a);
+        data.addParamValues("Weight", linkIndices, weight);
     }
 
 
@@ -0,0 +1,53 @@
+package netlab.processing.ampl;
+
+import java.util.List;
+
+/**
+ * A running AMPL process with a model already read in. Sessions are borrowed from the AmplSessionPool for a single
+ * solve, and have their data reset before they are handed to the next request.
+ */
+public interface AmplSession {
+
+    String getModelFile();
+
+    boolean isRunning();
+
+    void setOption(String name, String value);
+
+    void setIntOption(String name, int value);
+
+    void eval(String statement);
+
+    void loadData(AmplData data);
+
+    /**
+     * Set the starting value of a variable at each of the given indices. Solvers that accept a MIP start (e.g. Gurobi
+     * with mipstart) use these as the initial incumbent.
+     */
+    void setInitialValues(String variable, List<Object[]> indices, double value);
+
+    void solve();
+
+    String getObjectiveResult(String objective);
+
+    String getObjectiveMessage(String objective);
+
+    /**
+     * Evaluate a scalar expression, e.g. an objective or one of its suffixes.
+     * @return The value, or null if it is not numeric.
+     */
+    Double getValue(String expression);
+
+    /**
+     * Get the index columns of every row of an entity's data, e.g. the (s, d, i, u, v) of each flow variable.
+     * With omit_zero_rows set, only rows with a non-zero value are returned.
+     */
+    List<Object[]> getIndexRows(String entity, int numIndices);
+
+    /**
+     * Clear the data loaded for the last solve, keeping the model.
+     */
+    void reset();
+
+    void close();
+}
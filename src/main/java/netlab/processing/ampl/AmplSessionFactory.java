@@ -0,0 +1,9 @@
+package netlab.processing.ampl;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface AmplSessionFactory {
+
+    AmplSession create(String modelFile) throws IOException;
+}
@@ -0,0 +1,127 @@
+package netlab.processing.ampl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps AMPL sessions warm between solves, so each request doesn't pay for starting AMPL and parsing its model.
+ * Idle sessions are kept per model file, and have their data reset when they are returned.
+ */
+@Slf4j
+@Service
+public class AmplSessionPool {
+
+    private final AmplSessionFactory factory;
+    private final int maxIdlePerModel;
+
+    private final Map<String, Deque<AmplSession>> idleSessions = new HashMap<>();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
+    @Autowired
+    public AmplSessionPool(@Value("${ampl_backend:native}") String backend,
+                           @Value("${ampl_pool_size:2}") int maxIdlePerModel){
+        this(makeFactory(backend), maxIdlePerModel);
+    }
+
+    public AmplSessionPool(AmplSessionFactory factory, int maxIdlePerModel){
+        this.factory = factory;
+        this.maxIdlePerModel = Math.max(0, maxIdlePerModel);
+    }
+
+    private static AmplSessionFactory makeFactory(String backend){
+        if(backend.equalsIgnoreCase("fake")){
+            log.info("Using the fake AMPL backend, linear programs will not be solved.");
+            return FakeAmplSession::new;
+        }
+        String amplDirectory = System.getProperty("user.dir") + "/linear-programs/ampl/";
+        return modelFile -> new NativeAmplSession(amplDirectory, modelFile);
+    }
+
+    /**
+     * Get a session with the model already read in, reusing an idle one if possible.
+     * @param modelFile - Path to the .mod file.
+     * @return A session for the model. It may not be running if AMPL could not be started.
+     * @throws IOException if the model could not be read.
+     */
+    public AmplSession borrow(String modelFile) throws IOException {
+        synchronized (idleSessions){
+            Deque<AmplSession> idle = idleSessions.get(modelFile);
+            while(idle != null && !idle.isEmpty()){
+                AmplSession session = idle.pop();
+                if(session.isRunning()){
+                    reused.incrementAndGet();
+                    return session;
+                }
+                session.close();
+            }
+        }
+        created.incrementAndGet();
+        return factory.create(modelFile);
+    }
+
+    /**
+     * Return a session after a solve. Healthy sessions have their data reset and are kept for the next request, unless
+     * there are already enough idle sessions for the model.
+     * @param session - The borrowed session.
+     * @param healthy - False if the solve failed and the session's state can't be trusted.
+     */
+    public void release(AmplSession session, boolean healthy){
+        if(healthy && session.isRunning() && maxIdlePerModel > 0){
+            try{
+                session.reset();
+            } catch(RuntimeException e){
+                log.warn("Could not reset AMPL session for " + session.getModelFile() + ": " + e.getMessage());
+                healthy = false;
+            }
+            if(healthy){
+                synchronized (idleSessions){
+                    Deque<AmplSession> idle = idleSessions.computeIfAbsent(session.getModelFile(), m -> new ArrayDeque<>());
+                    if(idle.size() < maxIdlePerModel){
+                        idle.push(session);
+                        return;
+                    }
+                }
+            }
+        }
+        session.close();
+    }
+
+    public int getIdleCount(String modelFile){
+        synchronized (idleSessions){
+            Deque<AmplSession> idle = idleSessions.get(modelFile);
+            return idle == null ? 0 : idle.size();
+        }
+    }
+
+    public long getCreatedCount(){
+        return created.get();
+    }
+
+    public long getReusedCount(){
+        return reused.get();
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        synchronized (idleSessions){
+            for(Deque<AmplSession> idle : idleSessions.values()){
+                for(AmplSession session : idle){
+                    session.close();
+                }
+            }
+            idleSessions.clear();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package netlab.processing.ampl;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.processing.disjointpaths.FlexBhandariService;
+import netlab.processing.tabu.TabuSearchService;
+import netlab.submission.enums.RoutingType;
+import netlab.submission.request.Details;
+import netlab.submission.request.Request;
+import netlab.topology.elements.Link;
+import netlab.topology.elements.Path;
+import netlab.topology.elements.SourceDestPair;
+import netlab.topology.elements.Topology;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static netlab.processing.ampl.AmplData.tuple;
+
+@Slf4j
+@Service
+public class AmplWarmStartService {
+
+    private FlexBhandariService flexBhandariService;
+
+    private TabuSearchService tabuSearchService;
+
+    @Autowired
+    public AmplWarmStartService(FlexBhandariService flexBhandariService, TabuSearchService tabuSearchService){
+        this.flexBhandariService = flexBhandariService;
+        this.tabuSearchService = tabuSearchService;
+    }
+
+    /**
+     * Run the request's warm start heuristic, and translate its paths into starting values for the ILP.
+     * The request's details are left as they were.
+     * @param request - The request being solved with the ILP.
+     * @param topology - The topology for the request.
+     * @param iMax - Number of connection indices in the model. Paths beyond this for a pair are not used.
+     * @return The warm start, or empty if none was requested or the heuristic found no feasible solution.
+     */
+    public Optional<WarmStart> findWarmStart(Request request, Topology topology, int iMax){
+        if(request.getWarmStart() == null){
+            return Optional.empty();
+        }
+        Details details = request.getDetails();
+        Map<SourceDestPair, Map<String, Path>> previousPaths = details.getChosenPaths();
+        Boolean previousFeasible = details.getIsFeasible();
+        double previousTime = details.getRunningTimeSeconds();
+
+        Details heuristic;
+        switch(request.getWarmStart()){
+            case FlexBhandari:
+                heuristic = flexBhandariService.solve(request, topology);
+                break;
+            case Tabu:
+                heuristic = tabuSearchService.solve(request, topology);
+                break;
+            default:
+                return Optional.empty();
+        }
+        Map<SourceDestPair, Map<String, Path>> paths = heuristic.getChosenPaths();
+        boolean feasible = heuristic.getIsFeasible() != null && heuristic.getIsFeasible();
+        double duration = heuristic.getRunningTimeSeconds();
+
+        details.setChosenPaths(previousPaths);
+        details.setIsFeasible(previousFeasible);
+        details.setRunningTimeSeconds(previousTime);
+
+        if(!feasible || paths == null){
+            log.info("Warm start with " + request.getWarmStart().getCode() + " found no feasible solution, solving cold.");
+            return Optional.empty();
+        }
+        WarmStart warmStart = createWarmStart(paths, request.getRoutingType(), iMax);
+        warmStart.setAlgorithm(request.getWarmStart());
+        warmStart.setRunningTimeSeconds(duration);
+        log.info("Warm start with " + request.getWarmStart().getCode() + " took " + duration + " seconds, "
+                + warmStart.getConnections().size() + " connections.");
+        return Optional.of(warmStart);
+    }
+
+    public WarmStart createWarmStart(Map<SourceDestPair, Map<String, Path>> paths, RoutingType routingType, int iMax){
+        List<Object[]> linkFlows = new ArrayList<>();
+        List<Object[]> connections = new ArrayList<>();
+        List<SourceDestPair> pairs = paths.keySet().stream()
+                .sorted(Comparator.comparing((SourceDestPair p) -> p.getSrc().getId()).thenComparing(p -> p.getDst().getId()))
+                .collect(Collectors.toList());
+        for(SourceDestPair pair : pairs){
+            String src = pair.getSrc().getId();
+            String dst = pair.getDst().getId();
+            Map<String, Path> pathMap = paths.get(pair);
+            List<String> pathIds = pathMap.keySet().stream().sorted().collect(Collectors.toList());
+            int connectionIndex = 1;
+            for(String pathId : pathIds){
+                Path path = pathMap.get(pathId);
+                if(path.getLinks() == null || path.getLinks().isEmpty()){
+                    continue;
+                }
+                if(connectionIndex > iMax){
+                    break;
+                }
+                for(Link link : path.getLinks()){
+                    linkFlows.add(tuple(src, dst, connectionIndex, link.getOrigin().getId(), link.getTarget().getId()));
+                }
+                connections.add(createConnectionIndex(routingType, src, dst, connectionIndex));
+                connectionIndex++;
+            }
+        }
+        return WarmStart.builder()
+                .linkFlows(linkFlows)
+                .connections(connections)
+                .build();
+    }
+
+    // C is indexed differently in each model, see AmplService.selectModel
+    private Object[] createConnectionIndex(RoutingType routingType, String src, String dst, int connectionIndex){
+        switch(routingType){
+            case Unicast:
+                return tuple(connectionIndex);
+            case Anycast:
+            case Multicast:
+            case Manycast:
+                return tuple(dst, connectionIndex);
+            case ManyToOne:
+                return tuple(src, connectionIndex);
+            default:
+                return tuple(src, dst, connectionIndex);
+        }
+    }
+}
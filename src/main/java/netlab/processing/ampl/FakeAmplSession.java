@@ -0,0 +1,107 @@
+package netlab.processing.ampl;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Session that records what it was given instead of running AMPL. Selected with ampl_backend=fake, so the pool and
+ * the data built by AmplService can be tested without an AMPL installation or license.
+ */
+@Getter
+@Setter
+public class FakeAmplSession implements AmplSession {
+
+    private final String modelFile;
+    private boolean running = true;
+    private boolean closed = false;
+
+    private Map<String, String> options = new HashMap<>();
+    private List<String> evaluated = new ArrayList<>();
+    private AmplData lastData;
+    private Map<String, List<Object[]>> initialValues = new HashMap<>();
+
+    private int solveCount = 0;
+    private int resetCount = 0;
+
+    private String objectiveResult = "solved";
+    private String objectiveMessage = "";
+    private Map<String, List<Object[]>> indexRows = new HashMap<>();
+    private Map<String, Double> values = new HashMap<>();
+
+    public FakeAmplSession(String modelFile){
+        this.modelFile = modelFile;
+    }
+
+    @Override
+    public boolean isRunning(){
+        return running && !closed;
+    }
+
+    @Override
+    public void setOption(String name, String value){
+        options.put(name, value);
+    }
+
+    @Override
+    public void setIntOption(String name, int value){
+        options.put(name, String.valueOf(value));
+    }
+
+    @Override
+    public void eval(String statement){
+        evaluated.add(statement);
+    }
+
+    @Override
+    public void loadData(AmplData data){
+        lastData = data;
+    }
+
+    @Override
+    public void setInitialValues(String variable, List<Object[]> indices, double value){
+        initialValues.computeIfAbsent(variable, v -> new ArrayList<>()).addAll(indices);
+    }
+
+    @Override
+    public void solve(){
+        solveCount++;
+    }
+
+    @Override
+    public String getObjectiveResult(String objective){
+        return objectiveResult;
+    }
+
+    @Override
+    public String getObjectiveMessage(String objective){
+        return objectiveMessage;
+    }
+
+    @Override
+    public Double getValue(String expression){
+        return values.get(expression);
+    }
+
+    @Override
+    public List<Object[]> getIndexRows(String entity, int numIndices){
+        return indexRows.getOrDefault(entity, new ArrayList<>());
+    }
+
+    @Override
+    public void reset(){
+        // Like reset data, only the data goes, the options stay set
+        resetCount++;
+        lastData = null;
+        initialValues.clear();
+    }
+
+    @Override
+    public void close(){
+        closed = true;
+    }
+}
@@ -0,0 +1,188 @@
+package netlab.processing.ampl;
+
+import com.ampl.AMPL;
+import com.ampl.DataFrame;
+import com.ampl.Environment;
+import com.ampl.Tuple;
+import com.ampl.Variable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Session backed by a real AMPL process, started from the AMPL installation in linear-programs/ampl.
+ */
+public class NativeAmplSession implements AmplSession {
+
+    private final String modelFile;
+    private final AMPL ampl;
+
+    public NativeAmplSession(String amplDirectory, String modelFile) throws IOException {
+        this.modelFile = modelFile;
+        this.ampl = new AMPL(new Environment(amplDirectory));
+        if(ampl.isRunning()){
+            ampl.read(modelFile);
+        }
+    }
+
+    @Override
+    public String getModelFile(){
+        return modelFile;
+    }
+
+    @Override
+    public boolean isRunning(){
+        return ampl.isRunning();
+    }
+
+    @Override
+    public void setOption(String name, String value){
+        ampl.setOption(name, value);
+    }
+
+    @Override
+    public void setIntOption(String name, int value){
+        ampl.setIntOption(name, value);
+    }
+
+    @Override
+    public void eval(String statement){
+        ampl.eval(statement);
+    }
+
+    @Override
+    public void loadData(AmplData data){
+        for(AmplData.Entry entry : data.getEntries()){
+            switch(entry.getType()){
+                case Set:
+                    ampl.getSet(entry.getName()).setValues(toTuples(entry.getTuples()));
+                    break;
+                case SetInstance:
+                    ampl.getSet(entry.getName()).get(entry.getIndex()).setValues(toTuples(entry.getTuples()));
+                    break;
+                case Param:
+                    ampl.getParameter(entry.getName()).set(toAmplValue(entry.getValues().get(0)));
+                    break;
+                case IndexedParam:
+                    if(!entry.getTuples().isEmpty()){
+                        ampl.setData(toDataFrame(entry));
+                    }
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public void setInitialValues(String variable, List<Object[]> indices, double value){
+        Variable var = ampl.getVariable(variable);
+        for(Object[] index : indices){
+            var.get(toAmplValues(index)).setValue(value);
+        }
+    }
+
+    private Tuple[] toTuples(List<Object[]> members){
+        Tuple[] tuples = new Tuple[members.size()];
+        for(int i = 0; i < members.size(); i++){
+            tuples[i] = new Tuple(toAmplValues(members.get(i)));
+        }
+        return tuples;
+    }
+
+    // One index column per component of the first index, then a column named after the parameter for the values
+    private DataFrame toDataFrame(AmplData.Entry entry){
+        int numIndices = entry.getTuples().get(0).length;
+        String[] headers = new String[numIndices + 1];
+        for(int i = 0; i < numIndices; i++){
+            headers[i] = "index" + i;
+        }
+        headers[numIndices] = entry.getName();
+        DataFrame df = new DataFrame(numIndices, headers);
+        for(int row = 0; row < entry.getTuples().size(); row++){
+            Object[] rowValues = new Object[numIndices + 1];
+            Object[] index = toAmplValues(entry.getTuples().get(row));
+            System.arraycopy(index, 0, rowValues, 0, numIndices);
+            rowValues[numIndices] = toAmplValue(entry.getValues().get(row));
+            df.addRow(rowValues);
+        }
+        return df;
+    }
+
+    // The API only accepts doubles and strings
+    private Object toAmplValue(Object value){
+        return value instanceof Number ? (Object) ((Number) value).doubleValue() : String.valueOf(value);
+    }
+
+    private Object[] toAmplValues(Object[] values){
+        Object[] converted = new Object[values.length];
+        for(int i = 0; i < values.length; i++){
+            converted[i] = toAmplValue(values[i]);
+        }
+        return converted;
+    }
+
+    @Override
+    public void solve(){
+        ampl.solve();
+    }
+
+    @Override
+    public String getObjectiveResult(String objective){
+        return ampl.getObjective(objective).result();
+    }
+
+    @Override
+    public String getObjectiveMessage(String objective){
+        return ampl.getObjective(objective).message();
+    }
+
+    @Override
+    public Double getValue(String expression){
+        Object value = ampl.getValue(expression);
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+
+    @Override
+    public List<Object[]> getIndexRows(String entity, int numIndices){
+        DataFrame df = ampl.getData(entity);
+        Object[][] columns = new Object[numIndices][];
+        for(int i = 0; i < numIndices; i++){
+            columns[i] = getColumn(df, "index" + i);
+            if(columns[i] == null){
+                return new ArrayList<>();
+            }
+        }
+        List<Object[]> rows = new ArrayList<>();
+        for(int row = 0; row < columns[0].length; row++){
+            Object[] rowValues = new Object[numIndices];
+            for(int i = 0; i < numIndices; i++){
+                rowValues[i] = columns[i][row];
+            }
+            rows.add(rowValues);
+        }
+        return rows;
+    }
+
+    // Index columns are either all strings (node ids) or all numbers (path indices), so the first value decides
+    private Object[] getColumn(DataFrame df, String header){
+        Object[] values = df.getColumn(header);
+        if(values == null || values.length == 0 || !(values[0] instanceof Number)){
+            return values;
+        }
+        Object[] column = new Object[values.length];
+        for(int i = 0; i < values.length; i++){
+            column[i] = ((Number) values[i]).doubleValue();
+        }
+        return column;
+    }
+
+    @Override
+    public void reset(){
+        ampl.eval("reset data;");
+    }
+
+    @Override
+    public void close(){
+        ampl.close();
+    }
+}
@@ -0,0 +1,29 @@
+package netlab.processing.ampl;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import netlab.submission.enums.Algorithm;
+
+import java.util.List;
+
+/**
+ * Initial solution for the ILP, built from the paths chosen by a heuristic.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WarmStart {
+
+    private Algorithm algorithm;
+
+    // Indices (s, d, i, u, v) of the link flow variables L used by the heuristic's paths
+    private List<Object[]> linkFlows;
+
+    // Indices of the connection variables C, which depend on the model
+    private List<Object[]> connections;
+
+    private double runningTimeSeconds;
+}
@@ -0,0 +1,28 @@
+package netlab.processing.controller;
+
+import netlab.processing.admission.AdmissionService;
+import netlab.processing.admission.AdmissionStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+
+@Controller
+public class AdmissionController {
+
+    @Autowired
+    public AdmissionController(AdmissionService admissionService){
+        this.admissionService = admissionService;
+    }
+
+    private AdmissionService admissionService;
+
+    @RequestMapping(value = "/admission/stats", method = RequestMethod.GET)
+    @ResponseBody
+    public List<AdmissionStats> getStats(){
+        return admissionService.getStats();
+    }
+}
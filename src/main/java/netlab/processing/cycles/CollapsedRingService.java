@@ -52,11 +52,11 @@ public class CollapsedRingService {
 
         Map<SourceDestPair, Map<String, Path>> chosenPathsMap = new HashMap<>();
 
-        Map<SourceDestPair, Double> minimumCostPathMap = topo.getMinimumPathCostMap();
+        PathCostMatrix pathCosts = topo.getPathCosts();
 
 
         List<Node> sortedDests = dests.stream()
-                .sorted(Comparator.comparing(d -> minimumCostPathMap.get(new SourceDestPair(src, d))))
+                .sorted(Comparator.comparing(d -> pathCosts.getCost(src, d)))
                 .collect(Collectors.toList());
 
         List<Path> forwardAndReverse = findCollapsedRing(src, sortedDests, topo);
@@ -1,6 +1,7 @@
 package netlab.processing.disjointpaths;
 
 import lombok.extern.slf4j.Slf4j;
+import netlab.metrics.events.PathComputationEvent;
 import netlab.processing.pathmapping.PathMappingService;
 import netlab.processing.shortestPaths.BellmanFordService;
 import netlab.submission.enums.FailureClass;
@@ -171,7 +172,20 @@ public class BhandariService {
             return new ArrayList<>();
 
         // Bhandari's algorithm
-        return computePaths(topo, source, dest, numC, nfe, nodesCanFail, failures, defaultBehavior);
+        PathComputationEvent event = new PathComputationEvent();
+        event.begin();
+        List<List<Link>> paths = computePaths(topo, source, dest, numC, nfe, nodesCanFail, failures, defaultBehavior);
+        event.end();
+        if(event.shouldCommit()){
+            event.algorithm = "bhandari";
+            event.topologyId = topo.getId();
+            event.source = source.getId();
+            event.destination = dest.getId();
+            event.pathsRequested = numC + nfe;
+            event.pathsFound = paths.size();
+            event.commit();
+        }
+        return paths;
     }
 
     private List<List<Link>> computePaths(Topology topo, Node source, Node dest, Integer numPaths, Integer nfe,
@@ -269,7 +283,7 @@ public class BhandariService {
                             .origin(new Node(l.getOrigin().getId().replace("-outgoing", ""), l.getOrigin().getPoint()))
                             .target(new Node(l.getTarget().getId().replace("-incoming", ""), l.getTarget().getPoint()))
                             .weight(l.getWeight())
-                            .points(l.getPoints())
+                            .geometry(l.getGeometry())
                             .build()
             ).collect(Collectors.toList());
             modifiedPaths.add(newPath);
@@ -294,7 +308,7 @@ public class BhandariService {
                     .origin(new Node(l.getOrigin().getId() + "-outgoing", l.getOrigin().getPoint()))
                     .target(new Node(l.getTarget().getId() + "-incoming", l.getTarget().getPoint()))
                     .weight(l.getWeight())
-                    .points(l.getPoints())
+                    .geometry(l.getGeometry())
                     .build();
             modifiedLinks.add(newLink);
         }
@@ -328,7 +342,7 @@ public class BhandariService {
                         .origin(internalLink.getTarget())
                         .target(internalLink.getOrigin())
                         .weight(internalLink.getWeight())
-                        .points(internalLink.getPoints())
+                        .geometry(internalLink.getGeometry())
                         .build();
                 failureLinks.add(inverse);
             }
@@ -61,7 +61,7 @@ public class CycleForTwoService {
 
         Set<Node> sources = details.getSources();
         Set<Node> dests = details.getDestinations();
-        Map<SourceDestPair, Double> pathCostMap = topo.getMinimumPathCostMap();
+        PathCostMatrix pathCosts = topo.getPathCosts();
 
         // Get all of the members
         Set<Node> members = new HashSet<>(sources);
@@ -72,7 +72,7 @@ public class CycleForTwoService {
 
         List<Node> sortedDests = members.stream()
                 .filter(d -> !d.equals(src))
-                .sorted(Comparator.comparing(d -> pathCostMap.get(new SourceDestPair(src, d))))
+                .sorted(Comparator.comparing(d -> pathCosts.getCost(src, d)))
                 .collect(Collectors.toList());
 
         // Get the two main paths that make up the cycle
@@ -8,6 +8,7 @@ import netlab.submission.request.Details;
 import netlab.submission.request.Request;
 import netlab.topology.elements.Node;
 import netlab.topology.elements.Path;
+import netlab.topology.elements.PathCostMatrix;
 import netlab.topology.elements.SourceDestPair;
 import netlab.topology.elements.Topology;
 import netlab.topology.services.TopologyAdjustmentService;
@@ -54,13 +55,13 @@ public class MemberForwardingService {
         Set<Node> dests = details.getDestinations();
         Set<Node> options = new HashSet<>(topo.getNodes());
         options.removeAll(dests);
-        Map<SourceDestPair, Double> pathCostMap = topo.getMinimumPathCostMap();
+        PathCostMatrix pathCosts = topo.getPathCosts();
 
         Map<Node, List<Double>> distanceToEachNode = new HashMap<>();
         Map<Node, Map<Node, Double>> costFromNodeToDst = new HashMap<>();
         // Get the costs of each src to each other node
         for(Node src : sources){
-            Map<Node, Double> mapToOtherNodes = createDistanceMap(src, options, pathCostMap);
+            Map<Node, Double> mapToOtherNodes = createDistanceMap(src, options, pathCosts);
             for(Node node : mapToOtherNodes.keySet()){
                 distanceToEachNode.putIfAbsent(node, new ArrayList<>());
                 distanceToEachNode.get(node).add(mapToOtherNodes.get(node));
@@ -68,7 +69,7 @@ public class MemberForwardingService {
         }
         // Get the costs of each node to each dst
         for(Node node : options){
-            Map<Node, Double> mapToDests = createDistanceMap(node, dests, pathCostMap);
+            Map<Node, Double> mapToDests = createDistanceMap(node, dests, pathCosts);
             costFromNodeToDst.put(node, mapToDests);
         }
         // Pick the src bestS that minimizes the maximum distance any src would have to travel
@@ -230,14 +231,13 @@ public class MemberForwardingService {
         return details;
     }
 
-    public Map<Node, Double> createDistanceMap(Node src, Set<Node> otherNodes, Map<SourceDestPair, Double> pathCostMap){
+    public Map<Node, Double> createDistanceMap(Node src, Set<Node> otherNodes, PathCostMatrix pathCosts){
         Map<Node, Double> distanceMap = new HashMap<>();
         for(Node otherNode : otherNodes){
             String otherId = otherNode.getId();
             if(!src.getId().equals(otherId)){
-                SourceDestPair pair = new SourceDestPair(src, otherNode);
-                if(pathCostMap.containsKey(pair)){
-                    Double distance = pathCostMap.get(pair);
+                Double distance = pathCosts.getCost(src, otherNode);
+                if(distance != null){
                     distanceMap.put(otherNode, distance);
                 }
             }
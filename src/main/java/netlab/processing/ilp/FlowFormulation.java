@@ -0,0 +1,490 @@
+package netlab.processing.ilp;
+
+import netlab.processing.ilp.mip.MipModel;
+import netlab.processing.ilp.mip.MipModel.Expression;
+import netlab.processing.ilp.mip.MipModel.Sense;
+import netlab.submission.enums.Objective;
+import netlab.submission.enums.ProblemClass;
+import netlab.submission.enums.RoutingType;
+import netlab.submission.enums.TrafficCombinationType;
+import netlab.submission.request.Connections;
+import netlab.submission.request.Details;
+import netlab.submission.request.Request;
+import netlab.topology.elements.*;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The flow formulation of manycast.mod and combined.mod, built directly from a request's details so it can be solved
+ * without AMPL. Variables and constraints follow the models, with a few changes to keep the model small:
+ *  - Flow variables only exist for links in the topology, and not for links into the source or out of the destination.
+ *  - Indicator variables (FG_Conn, connSurvivesToD, ...) only get the side of their definition that can bind, since
+ *    the minimum and reachability constraints are harder to satisfy when they're larger. A maximum is easier to meet
+ *    when FG_Conn is larger, so FG_Conn gets both sides for the connections a maximum applies to.
+ *  - Connection indices are ordered (C[s,d,i] >= C[s,d,i+1]) to cut symmetric branches.
+ *  - Maximums are only added where they can bind, i.e. below the member's number of connection indices. Like the
+ *    models, that's c_max_sd for combined routing (c_total if not given) and one
+ *    connection per destination for manycast. The source and destination maximums are commented out in combined.mod,
+ *    so they're left out here too.
+ */
+public class FlowFormulation {
+
+    private final MipModel model = new MipModel();
+    private final List<SourceDestPair> pairs;
+    private final int iMax;
+    // C[pair][i]
+    private final int[][] connectionVars;
+    // L[pair][i] for each link
+    private final List<List<Map<Link, Integer>>> flowVars = new ArrayList<>();
+    // FG_Conn[pair][i][g] and FG_Conn_include_endpoints[pair][i][g], -1 if the group can't touch the connection
+    private int[][][] groupConnVars;
+    private int[][][] groupConnInclVars;
+
+    private FlowFormulation(List<SourceDestPair> pairs, int iMax){
+        this.pairs = pairs;
+        this.iMax = iMax;
+        this.connectionVars = new int[pairs.size()][iMax];
+    }
+
+    public static boolean supports(Request request){
+        RoutingType routingType = request.getRoutingType();
+        ProblemClass problemClass = request.getProblemClass();
+        boolean supportedRouting = isManycast(routingType) || isCombinedRouting(routingType);
+        boolean supportedClass = problemClass.equals(ProblemClass.Flex) || problemClass.equals(ProblemClass.Combined);
+        return supportedRouting && supportedClass;
+    }
+
+    /**
+     * Rough number of variables in the model, used to decide which backend should solve a request.
+     */
+    public static long estimateVariables(Details details, Topology topology, boolean ignoreFailures){
+        long numPairs = details.getPairs().stream().filter(p -> !p.getSrc().equals(p.getDst())).count();
+        long numGroups = ignoreFailures ? 1 : Math.max(1, details.getFailures().getFailureGroups().size());
+        return numPairs * IlpSolver.computeIMax(details) * (topology.getLinks().size() + 1 + 2 * numGroups);
+    }
+
+    public static FlowFormulation build(Request request, Topology topology){
+        Details details = request.getDetails();
+        List<SourceDestPair> pairs = details.getPairs().stream()
+                .filter(p -> !p.getSrc().equals(p.getDst()))
+                .sorted(Comparator.comparing((SourceDestPair p) -> p.getSrc().getId()).thenComparing(p -> p.getDst().getId()))
+                .collect(Collectors.toList());
+        FlowFormulation formulation = new FlowFormulation(pairs, IlpSolver.computeIMax(details));
+        formulation.buildModel(request, topology);
+        return formulation;
+    }
+
+    public MipModel getModel(){
+        return model;
+    }
+
+    /**
+     * Get the index (s, d, i, u, v) of every link flow that is used in a solution, in the same form as the rows read
+     * back from AMPL.
+     */
+    public List<Object[]> getFlowRows(double[] values){
+        List<Object[]> rows = new ArrayList<>();
+        for(int p = 0; p < pairs.size(); p++){
+            SourceDestPair pair = pairs.get(p);
+            for(int i = 0; i < iMax; i++){
+                for(Map.Entry<Link, Integer> flow : flowVars.get(p).get(i).entrySet()){
+                    if(values[flow.getValue()] > 0.5){
+                        Link link = flow.getKey();
+                        rows.add(new Object[]{pair.getSrc().getId(), pair.getDst().getId(), (double) (i + 1),
+                                link.getOrigin().getId(), link.getTarget().getId()});
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static boolean isManycast(RoutingType routingType){
+        return routingType.equals(RoutingType.Anycast) || routingType.equals(RoutingType.Multicast)
+                || routingType.equals(RoutingType.Manycast);
+    }
+
+    private static boolean isCombinedRouting(RoutingType routingType){
+        return routingType.equals(RoutingType.ManyToMany) || routingType.equals(RoutingType.Broadcast)
+                || routingType.equals(RoutingType.Default);
+    }
+
+    private void buildModel(Request request, Topology topology){
+        Details details = request.getDetails();
+        Connections connections = details.getConnections();
+        boolean ignoreFailures = request.isIgnoreFailures();
+        boolean manycast = isManycast(request.getRoutingType());
+
+        List<List<Failure>> failureGroups = ignoreFailures || details.getFailures().getFailureGroups().isEmpty()
+                ? Collections.singletonList(new ArrayList<>())
+                : details.getFailures().getFailureGroups();
+        Set<Failure> failureSet = ignoreFailures ? new HashSet<>() : details.getFailures().getFailureSet();
+        int nfe = ignoreFailures ? 0 : Math.min(details.getNumFailureEvents().getTotalNumFailureEvents(), failureSet.size());
+
+        Integer numConnections = connections.getNumConnections();
+        // maxNumConnectionsNeeded (per pair) in combined.mod, maxNumConnectionsNeededDest in manycast.mod
+        Map<Object, Integer> maximums = new LinkedHashMap<>();
+        Function<SourceDestPair, ?> maxOwner = manycast ? SourceDestPair::getDst : p -> p;
+        Map<SourceDestPair, Integer> pairMaximums = request.getProblemClass().equals(ProblemClass.Combined)
+                ? connections.getPairMaxConnectionsMap() : null;
+        for(SourceDestPair pair : pairs){
+            Integer maximum = manycast ? Integer.valueOf(1)
+                    : pairMaximums != null && pairMaximums.get(pair) != null ? pairMaximums.get(pair) : numConnections;
+            // Each destination has one pair in manycast, so every owner here has iMax connection indices
+            if(maximum < iMax){
+                maximums.put(maxOwner.apply(pair), maximum);
+            }
+        }
+        boolean[] exactGroupConns = new boolean[pairs.size()];
+        for(int p = 0; p < pairs.size(); p++){
+            exactGroupConns[p] = maximums.containsKey(maxOwner.apply(pairs.get(p)));
+        }
+
+        addFlowVariables(request.getObjective(), topology);
+        addTrafficCombination(request.getObjective(), manycast ? request.getTrafficCombinationType() : TrafficCombinationType.None);
+        addGroupVariables(failureGroups, exactGroupConns);
+
+        int numGroups = failureGroups.size();
+        // totalConnectionsNeeded
+        for(int g = 0; g < numGroups; g++){
+            Expression total = new Expression();
+            for(int p = 0; p < pairs.size(); p++){
+                for(int i = 0; i < iMax; i++){
+                    total.add(connectionVars[p][i]);
+                    addIfPresent(total, groupConnVars[p][i][g], -1.0);
+                }
+            }
+            model.addConstraint(total, Sense.GreaterEqual, numConnections);
+        }
+
+        // Per pair/source/destination minimums are only loaded for the combined routing types
+        if(!manycast && request.getProblemClass().equals(ProblemClass.Combined)){
+            addMinimumConnections(connections.getPairMinConnectionsMap(), p -> p, numGroups);
+            addMinimumConnections(connections.getSrcMinConnectionsMap(), SourceDestPair::getSrc, numGroups);
+            addMinimumConnections(connections.getDstMinConnectionsMap(), SourceDestPair::getDst, numGroups);
+        }
+        addMaximumConnections(maximums, maxOwner, numGroups);
+
+        Set<Node> failedNodes = failureSet.stream().map(Failure::getNode).filter(Objects::nonNull).collect(Collectors.toSet());
+        addReachability("connSurvivesToD", details.getDestinations(), SourceDestPair::getDst, connections.getUseMinD(), failedNodes, nfe, numGroups);
+        // manycast.mod has no source reachability constraints
+        if(!manycast){
+            addReachability("connSurvivesFromS", details.getSources(), SourceDestPair::getSrc, connections.getUseMinS(), failedNodes, nfe, numGroups);
+        }
+    }
+
+    private void addFlowVariables(Objective objective, Topology topology){
+        Map<Node, List<Link>> incoming = new HashMap<>();
+        Map<Node, List<Link>> outgoing = new HashMap<>();
+        for(Link link : topology.getLinks()){
+            incoming.computeIfAbsent(link.getTarget(), n -> new ArrayList<>()).add(link);
+            outgoing.computeIfAbsent(link.getOrigin(), n -> new ArrayList<>()).add(link);
+        }
+        List<Link> links = topology.getLinks().stream().sorted(Comparator.comparing(Link::getId)).collect(Collectors.toList());
+        List<Node> nodes = topology.getNodes().stream().sorted(Comparator.comparing(Node::getId)).collect(Collectors.toList());
+
+        for(int p = 0; p < pairs.size(); p++){
+            SourceDestPair pair = pairs.get(p);
+            Node src = pair.getSrc();
+            Node dst = pair.getDst();
+            String prefix = src.getId() + "," + dst.getId() + ",";
+            List<Map<Link, Integer>> pairFlows = new ArrayList<>();
+            for(int i = 0; i < iMax; i++){
+                int c = model.addBinary("C[" + prefix + (i + 1) + "]", objective.equals(Objective.Connections) ? 1.0 : 0.0);
+                connectionVars[p][i] = c;
+                Map<Link, Integer> flows = new LinkedHashMap<>();
+                for(Link link : links){
+                    // noFlowIntoSource, and flow out of the destination can't balance with at most one flow in
+                    if(link.getTarget().equals(src) || link.getOrigin().equals(dst)){
+                        continue;
+                    }
+                    double cost = objective.equals(Objective.TotalCost) ? link.getWeight()
+                            : objective.equals(Objective.LinksUsed) ? 1.0 : 0.0;
+                    flows.put(link, model.addBinary("L[" + prefix + (i + 1) + "," + link.getId() + "]", cost));
+                }
+                pairFlows.add(flows);
+
+                for(Node node : nodes){
+                    Expression in = new Expression();
+                    Expression out = new Expression();
+                    for(Link link : incoming.getOrDefault(node, Collections.emptyList())){
+                        addIfPresent(in, flows.getOrDefault(link, -1), 1.0);
+                    }
+                    for(Link link : outgoing.getOrDefault(node, Collections.emptyList())){
+                        addIfPresent(out, flows.getOrDefault(link, -1), 1.0);
+                    }
+                    if(node.equals(src)){
+                        // sourceFlow
+                        model.addConstraint(out.add(c, -1.0), Sense.Equal, 0.0);
+                    } else if(node.equals(dst)){
+                        // destinationFlow
+                        model.addConstraint(in.add(c, -1.0), Sense.Equal, 0.0);
+                    } else{
+                        // intermediateFlow
+                        Expression balance = new Expression();
+                        for(Link link : incoming.getOrDefault(node, Collections.emptyList())){
+                            addIfPresent(balance, flows.getOrDefault(link, -1), 1.0);
+                        }
+                        for(Link link : outgoing.getOrDefault(node, Collections.emptyList())){
+                            addIfPresent(balance, flows.getOrDefault(link, -1), -1.0);
+                        }
+                        model.addConstraint(balance, Sense.Equal, 0.0);
+                        // oneFlowFromNodeInConn and flowOnlyInConnection
+                        model.addConstraint(out.add(c, -1.0), Sense.LessEqual, 0.0);
+                    }
+                }
+                if(i > 0){
+                    model.addConstraint(new Expression().add(c).add(connectionVars[p][i - 1], -1.0), Sense.LessEqual, 0.0);
+                }
+            }
+            flowVars.add(pairFlows);
+        }
+    }
+
+    // Costs are moved from each connection's flows onto one variable per shared link (L_s, L_d or L_sd)
+    private void addTrafficCombination(Objective objective, TrafficCombinationType combinationType){
+        if(combinationType.equals(TrafficCombinationType.None) || objective.equals(Objective.Connections)){
+            return;
+        }
+        Map<String, Integer> sharedVars = new HashMap<>();
+        for(int p = 0; p < pairs.size(); p++){
+            SourceDestPair pair = pairs.get(p);
+            String owner;
+            switch(combinationType){
+                case Destination:
+                    owner = pair.getDst().getId();
+                    break;
+                default:
+                    owner = pair.getSrc().getId();
+            }
+            for(int i = 0; i < iMax; i++){
+                for(Map.Entry<Link, Integer> flow : flowVars.get(p).get(i).entrySet()){
+                    Link link = flow.getKey();
+                    String key = owner + "," + link.getId();
+                    int shared = sharedVars.computeIfAbsent(key, k -> model.addBinary("L_shared[" + k + "]",
+                            objective.equals(Objective.TotalCost) ? link.getWeight() : 1.0));
+                    model.setCost(flow.getValue(), 0.0);
+                    model.addConstraint(new Expression().add(flow.getValue()).add(shared, -1.0), Sense.LessEqual, 0.0);
+                }
+            }
+        }
+    }
+
+    private void addGroupVariables(List<List<Failure>> failureGroups, boolean[] exactGroupConns){
+        int numGroups = failureGroups.size();
+        groupConnVars = new int[pairs.size()][iMax][numGroups];
+        groupConnInclVars = new int[pairs.size()][iMax][numGroups];
+        for(int g = 0; g < numGroups; g++){
+            Set<String> groupLinks = new HashSet<>();
+            Set<Node> groupNodes = new HashSet<>();
+            for(Failure failure : failureGroups.get(g)){
+                if(failure.getLink() != null){
+                    groupLinks.add(failure.getLink().getOrigin().getId() + "-" + failure.getLink().getTarget().getId());
+                    groupLinks.add(failure.getLink().getTarget().getId() + "-" + failure.getLink().getOrigin().getId());
+                } else if(failure.getNode() != null){
+                    groupNodes.add(failure.getNode());
+                }
+            }
+            for(int p = 0; p < pairs.size(); p++){
+                SourceDestPair pair = pairs.get(p);
+                for(int i = 0; i < iMax; i++){
+                    // Flows that break connection i if group g fails: a failed link, or a failed node along the way
+                    List<Integer> hits = new ArrayList<>();
+                    for(Map.Entry<Link, Integer> flow : flowVars.get(p).get(i).entrySet()){
+                        Link link = flow.getKey();
+                        boolean linkFails = groupLinks.contains(link.getOrigin().getId() + "-" + link.getTarget().getId());
+                        Node target = link.getTarget();
+                        boolean nodeFails = groupNodes.contains(target) && !target.equals(pair.getSrc()) && !target.equals(pair.getDst());
+                        if(linkFails || nodeFails){
+                            hits.add(flow.getValue());
+                        }
+                    }
+                    String name = "[" + pair.getSrc().getId() + "," + pair.getDst().getId() + "," + (i + 1) + "," + (g + 1) + "]";
+                    int groupConn = -1;
+                    if(!hits.isEmpty()){
+                        groupConn = model.addBinary("FG_Conn" + name, 0.0);
+                        for(Integer hit : hits){
+                            model.addConstraint(new Expression().add(hit).add(groupConn, -1.0), Sense.LessEqual, 0.0);
+                        }
+                        if(exactGroupConns[p]){
+                            // groupCausesConnectionToFail_1, a maximum is easier to meet when FG_Conn is larger
+                            model.addConstraint(new Expression().add(groupConn).addAll(hits, -1.0), Sense.LessEqual, 0.0);
+                        }
+                    }
+                    groupConnVars[p][i][g] = groupConn;
+                    // Including the endpoints only adds the destination - the source is never counted
+                    int groupConnIncl = groupConn;
+                    if(groupNodes.contains(pair.getDst())){
+                        groupConnIncl = model.addBinary("FG_Conn_include_endpoints" + name, 0.0);
+                        model.addConstraint(new Expression().add(connectionVars[p][i]).add(groupConnIncl, -1.0), Sense.LessEqual, 0.0);
+                        if(groupConn >= 0){
+                            model.addConstraint(new Expression().add(groupConn).add(groupConnIncl, -1.0), Sense.LessEqual, 0.0);
+                        }
+                    }
+                    groupConnInclVars[p][i][g] = groupConnIncl;
+                }
+            }
+        }
+    }
+
+    // minNumConnectionsNeeded (per pair), minNumConnectionsNeededSource and minNumConnectionsNeededDest
+    private <T> void addMinimumConnections(Map<T, Integer> minimums, Function<SourceDestPair, ?> owner, int numGroups){
+        if(minimums == null){
+            return;
+        }
+        for(Map.Entry<T, Integer> minimum : minimums.entrySet()){
+            if(minimum.getValue() == null || minimum.getValue() <= 0){
+                continue;
+            }
+            for(int g = 0; g < numGroups; g++){
+                Expression count = new Expression();
+                for(int p = 0; p < pairs.size(); p++){
+                    if(!owner.apply(pairs.get(p)).equals(minimum.getKey())){
+                        continue;
+                    }
+                    for(int i = 0; i < iMax; i++){
+                        count.add(connectionVars[p][i]);
+                        addIfPresent(count, groupConnVars[p][i][g], -1.0);
+                    }
+                }
+                if(count.isEmpty()){
+                    // No pairs for this member, so the minimum can't be met
+                    model.addConstraint(new Expression().add(model.addVariable("unmet", 0.0, 0.0, 0.0, false)), Sense.GreaterEqual, minimum.getValue());
+                } else{
+                    model.addConstraint(count, Sense.GreaterEqual, minimum.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Maximum connections per member. If group g breaks some of a member's connections (FG_Conn_sd[g] = 1), at most
+     * max plus the number broken may be kept; if no group breaks any (FG_Conn_sd_any = 0), at most max may be kept.
+     * The indicators are exact, so the implications are written with the member's number of connections as big M.
+     */
+    private void addMaximumConnections(Map<Object, Integer> maximums, Function<SourceDestPair, ?> owner, int numGroups){
+        for(Map.Entry<Object, Integer> maximum : maximums.entrySet()){
+            List<Integer> conns = new ArrayList<>();
+            List<List<Integer>> broken = new ArrayList<>();
+            for(int g = 0; g < numGroups; g++){
+                broken.add(new ArrayList<>());
+            }
+            String name = null;
+            for(int p = 0; p < pairs.size(); p++){
+                SourceDestPair pair = pairs.get(p);
+                if(!owner.apply(pair).equals(maximum.getKey())){
+                    continue;
+                }
+                if(name == null){
+                    name = pair.getSrc().getId() + "," + pair.getDst().getId();
+                }
+                for(int i = 0; i < iMax; i++){
+                    conns.add(connectionVars[p][i]);
+                    for(int g = 0; g < numGroups; g++){
+                        if(groupConnVars[p][i][g] >= 0){
+                            broken.get(g).add(groupConnVars[p][i][g]);
+                        }
+                    }
+                }
+            }
+            int bigM = conns.size();
+            List<Integer> anyBroken = new ArrayList<>();
+            for(int g = 0; g < numGroups; g++){
+                if(broken.get(g).isEmpty()){
+                    continue;
+                }
+                // atLeastOneConnFailsForSD_1 and _2
+                int groupBreaks = model.addBinary("FG_Conn_sd[" + name + "," + (g + 1) + "]", 0.0);
+                model.addConstraint(new Expression().add(groupBreaks).addAll(broken.get(g), -1.0), Sense.LessEqual, 0.0);
+                model.addConstraint(new Expression().add(groupBreaks, bigM).addAll(broken.get(g), -1.0), Sense.GreaterEqual, 0.0);
+                // maxNumConnectionsNeededFails
+                model.addConstraint(new Expression().addAll(conns, 1.0).addAll(broken.get(g), -1.0).add(groupBreaks, bigM),
+                        Sense.LessEqual, maximum.getValue() + bigM);
+                anyBroken.add(groupBreaks);
+            }
+            if(anyBroken.isEmpty()){
+                model.addConstraint(new Expression().addAll(conns, 1.0), Sense.LessEqual, maximum.getValue());
+                continue;
+            }
+            // atLeastOneConnFailsForSDAny_1 and _2, then maxNumConnectionsNeededNoFails
+            int anyBreaks = model.addBinary("FG_Conn_sd_any[" + name + "]", 0.0);
+            model.addConstraint(new Expression().add(anyBreaks).addAll(anyBroken, -1.0), Sense.LessEqual, 0.0);
+            for(Integer groupBreaks : anyBroken){
+                model.addConstraint(new Expression().add(anyBreaks).add(groupBreaks, -1.0), Sense.GreaterEqual, 0.0);
+            }
+            model.addConstraint(new Expression().addAll(conns, 1.0).add(anyBreaks, -bigM), Sense.LessEqual, maximum.getValue());
+        }
+    }
+
+    /**
+     * Reachability for sources or destinations. If fewer members are required than exist (dRequired < card(D)), after
+     * any group fails at least useMin members must still have a connection. Otherwise every member must be connected,
+     * and if every member is required they must all keep a connection through every group's failure.
+     */
+    private void addReachability(String survivesName, Set<Node> members, Function<SourceDestPair, Node> owner,
+                                 Integer useMin, Set<Node> failedNodes, int nfe, int numGroups){
+        int minimum = useMin != null ? useMin : 0;
+        long membersInF = members.stream().filter(failedNodes::contains).count();
+        long required = Math.min(membersInF, nfe) + minimum;
+        boolean lessThanAll = required < members.size();
+        if(lessThanAll && minimum <= 0){
+            return;
+        }
+        List<Node> sortedMembers = members.stream().sorted(Comparator.comparing(Node::getId)).collect(Collectors.toList());
+        for(int g = 0; g < numGroups; g++){
+            Expression survivors = new Expression();
+            for(Node member : sortedMembers){
+                Expression survivingConns = new Expression();
+                for(int p = 0; p < pairs.size(); p++){
+                    if(!owner.apply(pairs.get(p)).equals(member)){
+                        continue;
+                    }
+                    for(int i = 0; i < iMax; i++){
+                        survivingConns.add(connectionVars[p][i]);
+                        addIfPresent(survivingConns, lessThanAll ? groupConnInclVars[p][i][g] : groupConnVars[p][i][g], -1.0);
+                    }
+                }
+                if(lessThanAll){
+                    // connSurvives <= Num_Conn - failed connections
+                    int survives = model.addBinary(survivesName + "[" + member.getId() + "," + (g + 1) + "]", 0.0);
+                    survivingConns.add(survives, -1.0);
+                    model.addConstraint(survivingConns, Sense.GreaterEqual, 0.0);
+                    survivors.add(survives);
+                } else if(minimum >= members.size()){
+                    model.addConstraint(survivingConns, Sense.GreaterEqual, 1.0);
+                }
+            }
+            if(lessThanAll){
+                if(survivors.isEmpty()){
+                    survivors.add(model.addVariable("unmet", 0.0, 0.0, 0.0, false));
+                }
+                model.addConstraint(survivors, Sense.GreaterEqual, minimum);
+            }
+        }
+        if(!lessThanAll){
+            // Every member has at least one connection (destConnected = card(D))
+            for(Node member : sortedMembers){
+                Expression memberConns = new Expression();
+                for(int p = 0; p < pairs.size(); p++){
+                    if(owner.apply(pairs.get(p)).equals(member)){
+                        for(int i = 0; i < iMax; i++){
+                            memberConns.add(connectionVars[p][i]);
+                        }
+                    }
+                }
+                if(memberConns.isEmpty()){
+                    memberConns.add(model.addVariable("unmet", 0.0, 0.0, 0.0, false));
+                }
+                model.addConstraint(memberConns, Sense.GreaterEqual, 1.0);
+            }
+        }
+    }
+
+    private void addIfPresent(Expression expression, int variable, double coefficient){
+        if(variable >= 0){
+            expression.add(variable, coefficient);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package netlab.processing.ilp;
+
+import netlab.topology.elements.*;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Turns the link flow variables of an ILP solution back into paths. Each row is the index (s, d, i, u, v) of a flow
+ * variable that was set, and the links with the same (s, d, i) make up one path.
+ */
+@Service
+public class FlowTranslationService {
+
+    public Map<SourceDestPair,Map<String,Path>> translateFlowsIntoPaths(List<Object[]> linkFlows, Set<SourceDestPair> pairs, Topology topo) {
+        Map<SourceDestPair, Map<String, Path>> pathMap = pairs.stream()
+                .collect(Collectors.toMap(p -> p, p -> new HashMap<>()));
+        Map<String, Link> linkIdMap = topo.getLinkIdMap();
+        Map<String, Node> nodeIdMap = topo.getNodeIdMap();
+        for(Object[] row : linkFlows){
+            String src = String.valueOf(row[0]);
+            String dst = String.valueOf(row[1]);
+            String pathId = Double.toString(Double.parseDouble(String.valueOf(row[2])));
+            String origin = String.valueOf(row[3]);
+            String target = String.valueOf(row[4]);
+
+            SourceDestPair thisPair = SourceDestPair.builder()
+                    .src(nodeIdMap.get(src))
+                    .dst(nodeIdMap.get(dst))
+                    .build();
+            Link link = linkIdMap.get(origin + "-" + target);
+            Map<String, Path> pairMap = pathMap.get(thisPair);
+            // Path already exists, add to it
+            if(pairMap.containsKey(pathId)){
+                Path thisPath = pairMap.get(pathId);
+                thisPath.appendLink(link);
+            }
+            // New path
+            else{
+                List<Link> links = new ArrayList<>();
+                links.add(link);
+                Path newPath = new Path(links);
+                pairMap.put(pathId, newPath);
+            }
+        }
+        //printPaths(pathMap);
+        pathMap = sortPaths(pathMap);
+        //System.out.println("-----------------------------");
+        //printPaths(pathMap);
+        return pathMap;
+    }
+
+    private Map<SourceDestPair, Map<String, Path>> sortPaths(Map<SourceDestPair, Map<String, Path>> pathMap) {
+        for(SourceDestPair pair : pathMap.keySet()){
+            Map<String, Path> mapForPair = pathMap.get(pair);
+            for(Path path : mapForPair.values()){
+                sortPath(path, pair);
+            }
+        }
+        return pathMap;
+    }
+
+    private void sortPath(Path path, SourceDestPair pair) {
+        List<Link> links = path.getLinks();
+
+        List<Link> sortedLinks = new ArrayList<>();
+        List<Node> sortedNodes = new ArrayList<>();
+        Set<String> linkIds = new HashSet<>();
+        Set<String> nodeIds = new HashSet<>();
+
+        Map<Node, Link> outgoingLinks = new HashMap<>();
+        for(Link link : links){
+            outgoingLinks.put(link.getOrigin(), link);
+        }
+        Link currLink = outgoingLinks.get(pair.getSrc());
+        sortedNodes.add(currLink.getOrigin());
+        nodeIds.add(currLink.getOrigin().getId());
+
+        // While the next node has an outgoing link
+        while(outgoingLinks.containsKey(currLink.getTarget())){
+            sortedLinks.add(currLink);
+            linkIds.add(currLink.getId());
+
+            currLink = outgoingLinks.get(currLink.getTarget());
+
+            sortedNodes.add(currLink.getOrigin());
+            nodeIds.add(currLink.getOrigin().getId());
+
+        }
+        sortedLinks.add(currLink);
+        linkIds.add(currLink.getId());
+        sortedNodes.add(currLink.getTarget());
+        nodeIds.add(currLink.getTarget().getId());
+
+        path.setLinks(sortedLinks);
+        path.setLinkIds(linkIds);
+        path.setNodes(sortedNodes);
+        path.setNodeIds(nodeIds);
+    }
+
+    private void printPaths(Map<SourceDestPair, Map<String, Path>> pairPathMap){
+        for(SourceDestPair pair : pairPathMap.keySet()){
+            System.out.println("Pair: (" + pair.getSrc().getId() + ", " + pair.getDst().getId() + ")");
+            System.out.println("---");
+            Map<String, Path> pathMap = pairPathMap.get(pair);
+            for(String pathId : pathMap.keySet()){
+                String pathString = pathId + ": ";
+                for(Link link : pathMap.get(pathId).getLinks()){
+                    pathString += "(" + link.getOrigin().getId() + ", " + link.getTarget().getId() + ") ";
+                }
+                System.out.println(pathString);
+            }
+            System.out.println("~~~~~~~");
+        }
+    }
+}
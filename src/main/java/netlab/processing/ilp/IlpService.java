@@ -0,0 +1,59 @@
+package netlab.processing.ilp;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.processing.ampl.AmplService;
+import netlab.submission.request.Details;
+import netlab.submission.request.Request;
+import netlab.topology.elements.Topology;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Picks the backend for ILP requests.
+ * ilp_backend=ampl (the default) always uses AMPL, ilp_backend=java uses the built-in solver whenever it supports the
+ * request, and ilp_backend=auto only uses the built-in solver for supported requests with at most
+ * ilp_java_max_variables variables, leaving larger instances to AMPL.
+ */
+@Slf4j
+@Service
+public class IlpService implements IlpSolver {
+
+    private AmplService amplService;
+
+    private JavaIlpService javaIlpService;
+
+    private String backend;
+
+    private long javaMaxVariables;
+
+    @Autowired
+    public IlpService(AmplService amplService, JavaIlpService javaIlpService,
+                      @Value("${ilp_backend:ampl}") String backend,
+                      @Value("${ilp_java_max_variables:2000}") long javaMaxVariables){
+        this.amplService = amplService;
+        this.javaIlpService = javaIlpService;
+        this.backend = backend;
+        this.javaMaxVariables = javaMaxVariables;
+    }
+
+    @Override
+    public Details solve(Request request, Topology topology){
+        return selectSolver(request, topology).solve(request, topology);
+    }
+
+    public IlpSolver selectSolver(Request request, Topology topology){
+        if(backend.equalsIgnoreCase("ampl") || !FlowFormulation.supports(request)){
+            return amplService;
+        }
+        if(backend.equalsIgnoreCase("java")){
+            return javaIlpService;
+        }
+        long numVariables = FlowFormulation.estimateVariables(request.getDetails(), topology, request.isIgnoreFailures());
+        if(numVariables <= javaMaxVariables){
+            log.info("Solving request " + request.getId() + " with the Java ILP solver (~" + numVariables + " variables)");
+            return javaIlpService;
+        }
+        return amplService;
+    }
+}
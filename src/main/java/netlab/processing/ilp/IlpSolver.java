@@ -0,0 +1,22 @@
+package netlab.processing.ilp;
+
+import netlab.submission.request.Details;
+import netlab.submission.request.Request;
+import netlab.topology.elements.Topology;
+
+/**
+ * A backend that can solve a request with the ILP formulation (Algorithm.ILP).
+ */
+public interface IlpSolver {
+
+    Details solve(Request request, Topology topology);
+
+    /**
+     * Number of connection indices (I_max) needed for the request's details, enough for every connection to be
+     * replaced after the worst case number of failures.
+     */
+    static int computeIMax(Details details){
+        Integer minFailures = Math.min(details.getNumFailureEvents().getTotalNumFailureEvents(), details.getFailures().getFailureSetSize());
+        return Math.max(1, details.getConnections().getNumConnections()) * (minFailures + 1);
+    }
+}
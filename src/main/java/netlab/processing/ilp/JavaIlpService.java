@@ -0,0 +1,68 @@
+package netlab.processing.ilp;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.processing.ilp.mip.BranchAndBound;
+import netlab.processing.ilp.mip.MipResult;
+import netlab.submission.request.Details;
+import netlab.submission.request.Request;
+import netlab.topology.elements.Path;
+import netlab.topology.elements.SourceDestPair;
+import netlab.topology.elements.Topology;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Solves the ILP formulation with the built-in branch and bound, so small instances don't need AMPL or a solver
+ * license. Only the manycast and combined models are supported (see FlowFormulation.supports).
+ */
+@Slf4j
+@Service
+public class JavaIlpService implements IlpSolver {
+
+    private FlowTranslationService flowTranslationService;
+
+    @Autowired
+    public JavaIlpService(FlowTranslationService flowTranslationService){
+        this.flowTranslationService = flowTranslationService;
+    }
+
+    @Override
+    public Details solve(Request request, Topology topology){
+        Details details = request.getDetails();
+        long startTime = System.nanoTime();
+        FlowFormulation formulation = FlowFormulation.build(request, topology);
+        log.info("Java ILP model: " + formulation.getModel().getNumVariables() + " variables, "
+                + formulation.getModel().getNumConstraints() + " constraints");
+
+        int numThreads = Math.max(1, Math.min(request.getNumThreads() != null ? request.getNumThreads() : 1,
+                Runtime.getRuntime().availableProcessors()));
+        double timeLimit = request.getCutoffTimeSeconds() != null ? request.getCutoffTimeSeconds() : 0;
+        BranchAndBound branchAndBound = new BranchAndBound(formulation.getModel(), numThreads, timeLimit,
+                (objective, values) -> log.info("New incumbent for request " + request.getId() + ": " + objective));
+        MipResult result = branchAndBound.solve();
+        double duration = (System.nanoTime() - startTime) / 1e9;
+        log.info("Solution took: " + duration + " seconds, " + result.getNodesExplored() + " nodes, status " + result.getStatus());
+
+        Map<SourceDestPair, Map<String, Path>> paths;
+        if(result.hasSolution()){
+            details.setIsFeasible(true);
+            paths = flowTranslationService.translateFlowsIntoPaths(formulation.getFlowRows(result.getValues()), details.getPairs(), topology);
+            details.setIncumbentObjective(result.getObjective());
+            details.setBestBound(result.getBestBound());
+            details.setMipGap(result.getGap());
+        } else{
+            details.setIsFeasible(false);
+            paths = details.getPairs().stream().collect(Collectors.toMap(p -> p, p -> new HashMap<>()));
+        }
+        if(result.isTimedOut()){
+            request.setTimedOut(true);
+        }
+        details.setChosenPaths(paths);
+        details.setRunningTimeSeconds(duration);
+        return details;
+    }
+}
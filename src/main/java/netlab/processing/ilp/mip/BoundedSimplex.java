@@ -0,0 +1,353 @@
+package netlab.processing.ilp.mip;
+
+/**
+ * Dense two-phase primal simplex with bounded variables. Non-basic variables sit at either their lower or upper bound,
+ * so the 0/1 bounds of binary variables (and the bounds fixed by branching) don't need their own rows.
+ * Variables are shifted so every lower bound is 0, and each row gets a slack and, if the slack can't start in the
+ * basis, an artificial variable for phase one.
+ * Each solve works on its own tableau, so one model can be solved from several threads at once.
+ */
+public class BoundedSimplex {
+
+    private static final double PIVOT_TOLERANCE = 1e-9;
+    private static final double COST_TOLERANCE = 1e-9;
+    private static final double FEASIBILITY_TOLERANCE = 1e-7;
+    // Switch to Bland's rule after this many pivots in a row that don't move the solution, to avoid cycling
+    private static final int DEGENERATE_PIVOT_LIMIT = 50;
+
+    private final MipModel model;
+    private final double[] lower;
+    private final long deadlineNanos;
+
+    private int numRows;
+    private int numCols;
+    private int numStructural;
+    private int firstArtificial;
+
+    private double[][] tableau;
+    private double[] values;
+    private double[] reducedCosts;
+    private double[] upper;
+    private int[] basis;
+    private boolean[] isBasic;
+    private boolean[] atUpper;
+
+    private BoundedSimplex(MipModel model, double[] lower, long deadlineNanos){
+        this.model = model;
+        this.lower = lower;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Solve the LP relaxation of the model with the given variable bounds.
+     * @param model - The model to solve. Integrality is ignored.
+     * @param lower - Lower bound for each variable. Must be finite.
+     * @param upper - Upper bound for each variable.
+     * @param deadlineNanos - System.nanoTime() after which to give up with status Stopped.
+     * @return The result, with values for every model variable if optimal.
+     */
+    public static LpResult solve(MipModel model, double[] lower, double[] upper, long deadlineNanos){
+        return new BoundedSimplex(model, lower, deadlineNanos).run(upper);
+    }
+
+    private LpResult run(double[] modelUpper){
+        numStructural = model.getNumVariables();
+        numRows = model.getNumConstraints();
+        for(int j = 0; j < numStructural; j++){
+            if(modelUpper[j] < lower[j] - FEASIBILITY_TOLERANCE){
+                return new LpResult(LpResult.Status.Infeasible, Double.NaN, null);
+            }
+        }
+
+        // Shift each row's rhs by the lower bounds, and flip rows so every rhs is non-negative
+        double[] rhs = new double[numRows];
+        double[] rowSign = new double[numRows];
+        double[] slackCoefficient = new double[numRows];
+        int numSlacks = 0;
+        int numArtificials = 0;
+        for(int r = 0; r < numRows; r++){
+            double b = model.getRowRhs(r);
+            int[] indices = model.getRowIndices(r);
+            double[] coefficients = model.getRowCoefficients(r);
+            for(int k = 0; k < indices.length; k++){
+                b -= coefficients[k] * lower[indices[k]];
+            }
+            MipModel.Sense sense = model.getRowSense(r);
+            double slack = sense == MipModel.Sense.LessEqual ? 1.0 : sense == MipModel.Sense.GreaterEqual ? -1.0 : 0.0;
+            if(slack != 0.0){
+                numSlacks++;
+            }
+            rowSign[r] = b < 0 ? -1.0 : 1.0;
+            rhs[r] = Math.abs(b);
+            slackCoefficient[r] = slack * rowSign[r];
+            if(slackCoefficient[r] <= 0.0){
+                numArtificials++;
+            }
+        }
+
+        firstArtificial = numStructural + numSlacks;
+        numCols = firstArtificial + numArtificials;
+        tableau = new double[numRows][numCols];
+        values = new double[numRows];
+        upper = new double[numCols];
+        basis = new int[numRows];
+        isBasic = new boolean[numCols];
+        atUpper = new boolean[numCols];
+
+        for(int j = 0; j < numCols; j++){
+            upper[j] = j < numStructural ? modelUpper[j] - lower[j] : MipModel.INFINITY;
+        }
+        int slackCol = numStructural;
+        int artificialCol = firstArtificial;
+        for(int r = 0; r < numRows; r++){
+            int[] indices = model.getRowIndices(r);
+            double[] coefficients = model.getRowCoefficients(r);
+            for(int k = 0; k < indices.length; k++){
+                tableau[r][indices[k]] += rowSign[r] * coefficients[k];
+            }
+            int basic;
+            if(slackCoefficient[r] != 0.0){
+                tableau[r][slackCol] = slackCoefficient[r];
+                basic = slackCol;
+                slackCol++;
+            } else{
+                basic = -1;
+            }
+            if(slackCoefficient[r] <= 0.0){
+                tableau[r][artificialCol] = 1.0;
+                basic = artificialCol;
+                artificialCol++;
+            }
+            basis[r] = basic;
+            isBasic[basic] = true;
+            values[r] = rhs[r];
+        }
+
+        // Phase one - minimize the sum of the artificials
+        if(numArtificials > 0){
+            double[] phaseOneCosts = new double[numCols];
+            for(int j = firstArtificial; j < numCols; j++){
+                phaseOneCosts[j] = 1.0;
+            }
+            LpResult.Status status = iterate(phaseOneCosts);
+            if(status == LpResult.Status.Stopped){
+                return new LpResult(status, Double.NaN, null);
+            }
+            double infeasibility = 0.0;
+            for(int r = 0; r < numRows; r++){
+                if(basis[r] >= firstArtificial){
+                    infeasibility += values[r];
+                }
+            }
+            if(infeasibility > FEASIBILITY_TOLERANCE){
+                return new LpResult(LpResult.Status.Infeasible, Double.NaN, null);
+            }
+            removeArtificialsFromBasis();
+            for(int j = firstArtificial; j < numCols; j++){
+                upper[j] = 0.0;
+            }
+        }
+
+        // Phase two - the model's objective
+        double[] costs = new double[numCols];
+        System.arraycopy(model.getCosts(), 0, costs, 0, numStructural);
+        LpResult.Status status = iterate(costs);
+        if(status != LpResult.Status.Optimal){
+            return new LpResult(status, Double.NaN, null);
+        }
+
+        double[] solution = new double[numStructural];
+        for(int j = 0; j < numStructural; j++){
+            solution[j] = lower[j] + (atUpper[j] ? upper[j] : 0.0);
+        }
+        for(int r = 0; r < numRows; r++){
+            if(basis[r] < numStructural){
+                solution[basis[r]] = lower[basis[r]] + values[r];
+            }
+        }
+        return new LpResult(LpResult.Status.Optimal, model.evaluateObjective(solution), solution);
+    }
+
+    private LpResult.Status iterate(double[] costs){
+        computeReducedCosts(costs);
+        long maxIterations = 50L * (numRows + numCols) + 1000;
+        int degeneratePivots = 0;
+        for(long iteration = 0; iteration < maxIterations; iteration++){
+            if((iteration & 63) == 0 && System.nanoTime() > deadlineNanos){
+                return LpResult.Status.Stopped;
+            }
+            boolean bland = degeneratePivots > DEGENERATE_PIVOT_LIMIT;
+            int entering = chooseEntering(bland);
+            if(entering < 0){
+                return LpResult.Status.Optimal;
+            }
+            double direction = atUpper[entering] ? -1.0 : 1.0;
+
+            // Ratio test - how far can the entering variable move before it or a basic variable hits a bound
+            double step = upper[entering];
+            int leavingRow = -1;
+            boolean leavesAtUpper = false;
+            double bestPivot = 0.0;
+            for(int r = 0; r < numRows; r++){
+                double alpha = tableau[r][entering] * direction;
+                double limit;
+                boolean toUpper;
+                if(alpha > PIVOT_TOLERANCE){
+                    limit = values[r] / alpha;
+                    toUpper = false;
+                } else if(alpha < -PIVOT_TOLERANCE && upper[basis[r]] < MipModel.INFINITY){
+                    limit = (upper[basis[r]] - values[r]) / -alpha;
+                    toUpper = true;
+                } else{
+                    continue;
+                }
+                limit = Math.max(limit, 0.0);
+                boolean better = limit < step - PIVOT_TOLERANCE;
+                boolean tied = !better && limit <= step + PIVOT_TOLERANCE && leavingRow >= 0;
+                if(tied){
+                    better = bland ? basis[r] < basis[leavingRow] : Math.abs(alpha) > bestPivot;
+                }
+                if(better){
+                    step = limit;
+                    leavingRow = r;
+                    leavesAtUpper = toUpper;
+                    bestPivot = Math.abs(alpha);
+                }
+            }
+            if(leavingRow < 0 && step == MipModel.INFINITY){
+                return LpResult.Status.Unbounded;
+            }
+            degeneratePivots = step < PIVOT_TOLERANCE ? degeneratePivots + 1 : 0;
+
+            for(int r = 0; r < numRows; r++){
+                double alpha = tableau[r][entering];
+                if(alpha != 0.0){
+                    values[r] -= alpha * direction * step;
+                }
+            }
+            if(leavingRow < 0){
+                // The entering variable moves to its other bound without changing the basis
+                atUpper[entering] = !atUpper[entering];
+                continue;
+            }
+            double enteringValue = (atUpper[entering] ? upper[entering] : 0.0) + direction * step;
+            int leaving = basis[leavingRow];
+            pivot(leavingRow, entering);
+            basis[leavingRow] = entering;
+            isBasic[entering] = true;
+            atUpper[entering] = false;
+            values[leavingRow] = enteringValue;
+            isBasic[leaving] = false;
+            atUpper[leaving] = leavesAtUpper;
+            clampValues();
+        }
+        return LpResult.Status.Stopped;
+    }
+
+    private int chooseEntering(boolean bland){
+        int entering = -1;
+        double best = COST_TOLERANCE;
+        for(int j = 0; j < numCols; j++){
+            if(isBasic[j] || upper[j] < PIVOT_TOLERANCE){
+                continue;
+            }
+            double improvement = atUpper[j] ? reducedCosts[j] : -reducedCosts[j];
+            if(improvement > best){
+                entering = j;
+                if(bland){
+                    return entering;
+                }
+                best = improvement;
+            }
+        }
+        return entering;
+    }
+
+    private void computeReducedCosts(double[] costs){
+        reducedCosts = costs.clone();
+        for(int r = 0; r < numRows; r++){
+            double basicCost = costs[basis[r]];
+            if(basicCost == 0.0){
+                continue;
+            }
+            double[] row = tableau[r];
+            for(int j = 0; j < numCols; j++){
+                if(row[j] != 0.0){
+                    reducedCosts[j] -= basicCost * row[j];
+                }
+            }
+        }
+    }
+
+    private void pivot(int pivotRow, int pivotCol){
+        double[] row = tableau[pivotRow];
+        double pivotValue = row[pivotCol];
+        int[] nonZero = new int[numCols];
+        int numNonZero = 0;
+        for(int j = 0; j < numCols; j++){
+            if(row[j] != 0.0){
+                row[j] /= pivotValue;
+                nonZero[numNonZero++] = j;
+            }
+        }
+        for(int r = 0; r < numRows; r++){
+            if(r == pivotRow){
+                continue;
+            }
+            double factor = tableau[r][pivotCol];
+            if(factor == 0.0){
+                continue;
+            }
+            double[] other = tableau[r];
+            for(int k = 0; k < numNonZero; k++){
+                int j = nonZero[k];
+                other[j] -= factor * row[j];
+            }
+            other[pivotCol] = 0.0;
+        }
+        double factor = reducedCosts[pivotCol];
+        if(factor != 0.0){
+            for(int k = 0; k < numNonZero; k++){
+                int j = nonZero[k];
+                reducedCosts[j] -= factor * row[j];
+            }
+            reducedCosts[pivotCol] = 0.0;
+        }
+    }
+
+    // Artificials left in the basis at zero are swapped for any real column in their row. If there isn't one, the row
+    // is redundant and the artificial stays, fixed at zero.
+    private void removeArtificialsFromBasis(){
+        for(int r = 0; r < numRows; r++){
+            if(basis[r] < firstArtificial){
+                continue;
+            }
+            for(int j = 0; j < firstArtificial; j++){
+                if(!isBasic[j] && Math.abs(tableau[r][j]) > 1e-7){
+                    int artificial = basis[r];
+                    double enteringValue = atUpper[j] ? upper[j] : 0.0;
+                    pivot(r, j);
+                    basis[r] = j;
+                    isBasic[j] = true;
+                    atUpper[j] = false;
+                    values[r] = enteringValue;
+                    isBasic[artificial] = false;
+                    atUpper[artificial] = false;
+                    break;
+                }
+            }
+        }
+    }
+
+    private void clampValues(){
+        for(int r = 0; r < numRows; r++){
+            if(values[r] < 0.0 && values[r] > -FEASIBILITY_TOLERANCE){
+                values[r] = 0.0;
+            }
+            double ub = upper[basis[r]];
+            if(values[r] > ub && values[r] < ub + FEASIBILITY_TOLERANCE){
+                values[r] = ub;
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package netlab.processing.ilp.mip;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Best-first branch and bound over the LP relaxation, with nodes explored by a pool of worker threads.
+ * Nodes are ordered by their parent's LP bound, with deeper nodes first on ties so the search dives for an incumbent.
+ * Each node carries its own copy of the variable bounds, and its LP is solved from scratch.
+ */
+public class BranchAndBound {
+
+    @FunctionalInterface
+    public interface IncumbentCallback {
+        void onIncumbent(double objective, double[] values);
+    }
+
+    private static final double INTEGER_TOLERANCE = 1e-6;
+    private static final double PRUNE_TOLERANCE = 1e-6;
+
+    private static class Node {
+        private final double[] lower;
+        private final double[] upper;
+        private final double bound;
+        private final int depth;
+
+        private Node(double[] lower, double[] upper, double bound, int depth){
+            this.lower = lower;
+            this.upper = upper;
+            this.bound = bound;
+            this.depth = depth;
+        }
+    }
+
+    private final MipModel model;
+    private final int numThreads;
+    private final long timeLimitNanos;
+    private final IncumbentCallback callback;
+
+    private final PriorityQueue<Node> queue = new PriorityQueue<>(
+            Comparator.comparingDouble((Node n) -> n.bound).thenComparing(n -> -n.depth));
+    private final Object lock = new Object();
+    private int activeWorkers = 0;
+    private boolean stopped = false;
+    private long deadlineNanos;
+    // Bounds of nodes that were being solved when the time limit was hit
+    private final List<Double> abandonedBounds = new ArrayList<>();
+    // Bounds of nodes whose LP hit the simplex iteration limit, the search carries on without them
+    private final List<Double> unsolvedBounds = new ArrayList<>();
+
+    private double incumbentObjective = Double.POSITIVE_INFINITY;
+    private double[] incumbent = null;
+    private final AtomicLong nodesExplored = new AtomicLong();
+
+    /**
+     * @param model - The model to solve.
+     * @param numThreads - Number of nodes to solve at once.
+     * @param timeLimitSeconds - Stop with the best solution found so far after this long. Zero or less for no limit.
+     * @param callback - Called each time a better solution is found, may be null.
+     */
+    public BranchAndBound(MipModel model, int numThreads, double timeLimitSeconds, IncumbentCallback callback){
+        this.model = model;
+        this.numThreads = Math.max(1, numThreads);
+        this.timeLimitNanos = timeLimitSeconds > 0 ? (long) (timeLimitSeconds * 1e9) : Long.MAX_VALUE / 4;
+        this.callback = callback;
+    }
+
+    /**
+     * Start the search from a known solution, so nodes that can't beat it are pruned straight away.
+     */
+    public void setIncumbent(double objective, double[] values){
+        synchronized (lock){
+            if(objective < incumbentObjective){
+                incumbentObjective = objective;
+                incumbent = values.clone();
+            }
+        }
+    }
+
+    public MipResult solve(){
+        deadlineNanos = System.nanoTime() + timeLimitNanos;
+        queue.add(new Node(model.getLowerBounds(), model.getUpperBounds(), Double.NEGATIVE_INFINITY, 0));
+
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        List<Future<?>> workers = new ArrayList<>();
+        for(int t = 0; t < numThreads; t++){
+            workers.add(executor.submit(this::work));
+        }
+        try {
+            for(Future<?> worker : workers){
+                worker.get();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Branch and bound worker failed", e);
+        } finally {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (lock){
+            double bestBound = incumbentObjective;
+            for(Node node : queue){
+                bestBound = Math.min(bestBound, node.bound);
+            }
+            for(Double bound : abandonedBounds){
+                bestBound = Math.min(bestBound, bound);
+            }
+            boolean proven = true;
+            for(Double bound : unsolvedBounds){
+                bestBound = Math.min(bestBound, bound);
+                proven &= bound >= incumbentObjective - PRUNE_TOLERANCE;
+            }
+            // Unsolved nodes that could still hold a better solution leave the result unproven, but not timed out
+            boolean finished = !stopped && proven;
+            MipResult.Status status;
+            if(incumbent == null){
+                status = finished ? MipResult.Status.Infeasible : MipResult.Status.NoSolution;
+            } else{
+                status = finished ? MipResult.Status.Optimal : MipResult.Status.Feasible;
+            }
+            return new MipResult(status, incumbentObjective, bestBound, incumbent, nodesExplored.get(), stopped);
+        }
+    }
+
+    private void work(){
+        while(true){
+            Node node;
+            synchronized (lock){
+                while(queue.isEmpty() && activeWorkers > 0 && !stopped){
+                    try {
+                        lock.wait(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        stopped = true;
+                    }
+                    checkDeadline();
+                }
+                checkDeadline();
+                if(stopped || queue.isEmpty()){
+                    lock.notifyAll();
+                    return;
+                }
+                node = queue.poll();
+                activeWorkers++;
+            }
+            try {
+                explore(node);
+            } finally {
+                synchronized (lock){
+                    activeWorkers--;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void checkDeadline(){
+        if(System.nanoTime() > deadlineNanos){
+            stopped = true;
+        }
+    }
+
+    private void explore(Node node){
+        if(node.bound >= getIncumbentObjective() - PRUNE_TOLERANCE){
+            return;
+        }
+        nodesExplored.incrementAndGet();
+        LpResult lp = BoundedSimplex.solve(model, node.lower, node.upper, deadlineNanos);
+        if(lp.getStatus() == LpResult.Status.Stopped){
+            synchronized (lock){
+                if(System.nanoTime() > deadlineNanos){
+                    stopped = true;
+                    abandonedBounds.add(node.bound);
+                } else{
+                    unsolvedBounds.add(node.bound);
+                }
+            }
+            return;
+        }
+        if(lp.getStatus() != LpResult.Status.Optimal || lp.getObjective() >= getIncumbentObjective() - PRUNE_TOLERANCE){
+            return;
+        }
+
+        double[] values = lp.getValues();
+        int branchVariable = -1;
+        double mostFractional = INTEGER_TOLERANCE;
+        for(int j = 0; j < values.length; j++){
+            if(!model.isInteger(j)){
+                continue;
+            }
+            double fraction = Math.abs(values[j] - Math.rint(values[j]));
+            if(fraction > mostFractional){
+                mostFractional = fraction;
+                branchVariable = j;
+            }
+        }
+
+        if(branchVariable < 0){
+            for(int j = 0; j < values.length; j++){
+                if(model.isInteger(j)){
+                    values[j] = Math.rint(values[j]);
+                }
+            }
+            updateIncumbent(model.evaluateObjective(values), values);
+            return;
+        }
+
+        double value = values[branchVariable];
+        double[] downUpper = node.upper.clone();
+        downUpper[branchVariable] = Math.floor(value);
+        double[] upLower = node.lower.clone();
+        upLower[branchVariable] = Math.ceil(value);
+        synchronized (lock){
+            queue.add(new Node(node.lower, downUpper, lp.getObjective(), node.depth + 1));
+            queue.add(new Node(upLower, node.upper, lp.getObjective(), node.depth + 1));
+            lock.notifyAll();
+        }
+    }
+
+    private double getIncumbentObjective(){
+        synchronized (lock){
+            return incumbentObjective;
+        }
+    }
+
+    private void updateIncumbent(double objective, double[] values){
+        boolean improved = false;
+        synchronized (lock){
+            if(objective < incumbentObjective - PRUNE_TOLERANCE){
+                incumbentObjective = objective;
+                incumbent = values;
+                improved = true;
+            }
+        }
+        if(improved && callback != null){
+            callback.onIncumbent(objective, values.clone());
+        }
+    }
+}
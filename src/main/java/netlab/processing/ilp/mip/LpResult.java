@@ -0,0 +1,33 @@
+package netlab.processing.ilp.mip;
+
+public class LpResult {
+
+    public enum Status {
+        Optimal,
+        Infeasible,
+        Unbounded,
+        Stopped
+    }
+
+    private final Status status;
+    private final double objective;
+    private final double[] values;
+
+    public LpResult(Status status, double objective, double[] values){
+        this.status = status;
+        this.objective = objective;
+        this.values = values;
+    }
+
+    public Status getStatus(){
+        return status;
+    }
+
+    public double getObjective(){
+        return objective;
+    }
+
+    public double[] getValues(){
+        return values;
+    }
+}
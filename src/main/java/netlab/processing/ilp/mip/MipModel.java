@@ -0,0 +1,155 @@
+package netlab.processing.ilp.mip;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A mixed integer program in the form: minimize cost * x, subject to rows of (coefficients * x) sense rhs, with
+ * lower <= x <= upper. Rows are stored sparsely, variables are referred to by the index returned when they're added.
+ */
+public class MipModel {
+
+    public enum Sense {
+        LessEqual,
+        Equal,
+        GreaterEqual
+    }
+
+    public static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<Double> lower = new ArrayList<>();
+    private final List<Double> upper = new ArrayList<>();
+    private final List<Double> cost = new ArrayList<>();
+    private final List<Boolean> integer = new ArrayList<>();
+
+    private final List<int[]> rowIndices = new ArrayList<>();
+    private final List<double[]> rowCoefficients = new ArrayList<>();
+    private final List<Sense> rowSenses = new ArrayList<>();
+    private final List<Double> rowRhs = new ArrayList<>();
+
+    public int addVariable(String name, double lowerBound, double upperBound, double objectiveCost, boolean isInteger){
+        names.add(name);
+        lower.add(lowerBound);
+        upper.add(upperBound);
+        cost.add(objectiveCost);
+        integer.add(isInteger);
+        return names.size() - 1;
+    }
+
+    public int addBinary(String name, double objectiveCost){
+        return addVariable(name, 0.0, 1.0, objectiveCost, true);
+    }
+
+    public void setCost(int variable, double objectiveCost){
+        cost.set(variable, objectiveCost);
+    }
+
+    public void addConstraint(Expression expression, Sense sense, double rhs){
+        if(expression.isEmpty()){
+            return;
+        }
+        int[] indices = new int[expression.terms.size()];
+        double[] coefficients = new double[expression.terms.size()];
+        int pos = 0;
+        for(Map.Entry<Integer, Double> term : expression.terms.entrySet()){
+            indices[pos] = term.getKey();
+            coefficients[pos] = term.getValue();
+            pos++;
+        }
+        rowIndices.add(indices);
+        rowCoefficients.add(coefficients);
+        rowSenses.add(sense);
+        rowRhs.add(rhs);
+    }
+
+    public int getNumVariables(){
+        return names.size();
+    }
+
+    public int getNumConstraints(){
+        return rowIndices.size();
+    }
+
+    public String getName(int variable){
+        return names.get(variable);
+    }
+
+    public double[] getLowerBounds(){
+        return toArray(lower);
+    }
+
+    public double[] getUpperBounds(){
+        return toArray(upper);
+    }
+
+    public double[] getCosts(){
+        return toArray(cost);
+    }
+
+    public boolean isInteger(int variable){
+        return integer.get(variable);
+    }
+
+    public int[] getRowIndices(int row){
+        return rowIndices.get(row);
+    }
+
+    public double[] getRowCoefficients(int row){
+        return rowCoefficients.get(row);
+    }
+
+    public Sense getRowSense(int row){
+        return rowSenses.get(row);
+    }
+
+    public double getRowRhs(int row){
+        return rowRhs.get(row);
+    }
+
+    public double evaluateObjective(double[] values){
+        double total = 0.0;
+        for(int j = 0; j < values.length; j++){
+            total += cost.get(j) * values[j];
+        }
+        return total;
+    }
+
+    private double[] toArray(List<Double> values){
+        double[] array = new double[values.size()];
+        for(int i = 0; i < array.length; i++){
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * A linear combination of variables. Adding the same variable twice sums the coefficients.
+     */
+    public static class Expression {
+
+        private final Map<Integer, Double> terms = new LinkedHashMap<>();
+
+        public Expression add(int variable, double coefficient){
+            terms.merge(variable, coefficient, Double::sum);
+            return this;
+        }
+
+        public Expression add(int variable){
+            return add(variable, 1.0);
+        }
+
+        public Expression addAll(Iterable<Integer> variables, double coefficient){
+            for(Integer variable : variables){
+                add(variable, coefficient);
+            }
+            return this;
+        }
+
+        public boolean isEmpty(){
+            return terms.isEmpty();
+        }
+    }
+}
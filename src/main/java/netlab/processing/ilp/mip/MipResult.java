@@ -0,0 +1,64 @@
+package netlab.processing.ilp.mip;
+
+public class MipResult {
+
+    public enum Status {
+        // Search finished, the incumbent is optimal
+        Optimal,
+        // Stopped at the time limit, or left nodes it couldn't solve, with an incumbent
+        Feasible,
+        // Search finished without finding a solution
+        Infeasible,
+        // Stopped at the time limit, or left nodes it couldn't solve, without finding a solution
+        NoSolution
+    }
+
+    private final Status status;
+    private final double objective;
+    private final double bestBound;
+    private final double[] values;
+    private final long nodesExplored;
+    private final boolean timedOut;
+
+    public MipResult(Status status, double objective, double bestBound, double[] values, long nodesExplored,
+                     boolean timedOut){
+        this.status = status;
+        this.objective = objective;
+        this.bestBound = bestBound;
+        this.values = values;
+        this.nodesExplored = nodesExplored;
+        this.timedOut = timedOut;
+    }
+
+    public Status getStatus(){
+        return status;
+    }
+
+    public boolean hasSolution(){
+        return status == Status.Optimal || status == Status.Feasible;
+    }
+
+    public double getObjective(){
+        return objective;
+    }
+
+    public double getBestBound(){
+        return bestBound;
+    }
+
+    public double getGap(){
+        return Math.abs(objective - bestBound) / Math.max(Math.abs(objective), 1e-10);
+    }
+
+    public double[] getValues(){
+        return values;
+    }
+
+    public long getNodesExplored(){
+        return nodesExplored;
+    }
+
+    public boolean isTimedOut(){
+        return timedOut;
+    }
+}
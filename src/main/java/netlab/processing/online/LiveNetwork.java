@@ -0,0 +1,214 @@
+package netlab.processing.online;
+
+import netlab.topology.elements.IndexedTopology;
+import netlab.topology.elements.Link;
+import netlab.topology.elements.Path;
+import netlab.topology.elements.Topology;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Capacity and usage of a topology that requests are admitted onto and released from over time. A link and its
+ * reverse share one capacity (a span), and usage is kept per span in primitive arrays, numbered through the
+ * topology's IndexedTopology. An admitted request holds its demand on every span used by any of its paths.
+ * Requests are routed on an overlay of the topology without the links that can't carry their demand. Overlays are
+ * kept per demand and only rebuilt when a link crosses that demand, so most admissions reuse the last one.
+ * Not thread-safe, OnlineRoutingService locks the network while it's being updated.
+ */
+public class LiveNetwork {
+
+    private final Topology topology;
+    private final IndexedTopology index;
+    // Per link, its span
+    private final int[] spans;
+    // Per span
+    private final int[] capacity;
+    private final int[] used;
+    private final int linkCapacity;
+    private final long totalCapacity;
+    private long totalUsed;
+
+    // Request ID -> the spans it holds and its demand
+    private final Map<String, Allocation> allocations = new HashMap<>();
+    // Demand -> the topology without the links that can't carry it
+    private final Map<Integer, Topology> overlays = new HashMap<>();
+
+    private long arrivals;
+    private long admitted;
+    private long blocked;
+    private long departures;
+    private long overlayBuilds;
+
+    public LiveNetwork(Topology topology, int linkCapacity){
+        this.topology = topology;
+        index = new IndexedTopology(topology);
+        int numLinks = index.getNumLinks();
+        spans = new int[numLinks];
+        int numSpans = 0;
+        for(int l = 0; l < numLinks; l++){
+            int reverse = index.indexOfLink(index.getReverseLinkId(l));
+            // Links come in ID order, so the reverse has its span already if it comes first
+            spans[l] = reverse >= 0 && reverse < l ? spans[reverse] : numSpans++;
+        }
+        capacity = new int[numSpans];
+        used = new int[numSpans];
+        Arrays.fill(capacity, linkCapacity);
+        this.linkCapacity = linkCapacity;
+        totalCapacity = (long) numSpans * linkCapacity;
+    }
+
+    public Topology getTopology(){
+        return topology;
+    }
+
+    public int getLinkCapacity(){
+        return linkCapacity;
+    }
+
+    public int getNumSpans(){
+        return capacity.length;
+    }
+
+    /**
+     * @return The unused capacity on the link with this ID (shared with its reverse), or -1 if there is no such link.
+     */
+    public int getResidual(String linkId){
+        int link = index.indexOfLink(linkId);
+        return link >= 0 ? capacity[spans[link]] - used[spans[link]] : -1;
+    }
+
+    public double getUtilization(){
+        return totalCapacity > 0 ? 1.0 * totalUsed / totalCapacity : 0.0;
+    }
+
+    public boolean isActive(String requestId){
+        return allocations.containsKey(requestId);
+    }
+
+    public int getNumActive(){
+        return allocations.size();
+    }
+
+    public long getArrivals(){
+        return arrivals;
+    }
+
+    public long getAdmitted(){
+        return admitted;
+    }
+
+    public long getBlocked(){
+        return blocked;
+    }
+
+    public long getDepartures(){
+        return departures;
+    }
+
+    public long getOverlayBuilds(){
+        return overlayBuilds;
+    }
+
+    /**
+     * @return The topology without the links that have less than the demand left, built with the given function from
+     * the remaining links if there isn't one for this demand already.
+     */
+    Topology overlay(int demand, Function<Set<Link>, Topology> builder){
+        Topology overlay = overlays.get(demand);
+        if(overlay == null){
+            Set<Link> links = new HashSet<>();
+            for(int l = 0; l < spans.length; l++){
+                if(capacity[spans[l]] - used[spans[l]] >= demand){
+                    links.add(index.getLink(l));
+                }
+            }
+            overlay = builder.apply(links);
+            overlays.put(demand, overlay);
+            overlayBuilds++;
+        }
+        return overlay;
+    }
+
+    /**
+     * @return The distinct spans used by the paths, or null if a path uses a link that isn't in the topology.
+     */
+    int[] spansOf(Collection<Path> paths){
+        BitSet seen = new BitSet(capacity.length);
+        for(Path path : paths){
+            for(Link link : path.getLinks()){
+                int l = index.indexOfLink(link.getId());
+                if(l < 0){
+                    return null;
+                }
+                seen.set(spans[l]);
+            }
+        }
+        return seen.stream().toArray();
+    }
+
+    boolean fits(int[] requestSpans, int demand){
+        for(int span : requestSpans){
+            if(capacity[span] - used[span] < demand){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void arrive(){
+        arrivals++;
+    }
+
+    void block(){
+        blocked++;
+    }
+
+    void allocate(String requestId, int[] requestSpans, int demand){
+        for(int span : requestSpans){
+            change(span, demand);
+        }
+        allocations.put(requestId, new Allocation(requestSpans, demand));
+        admitted++;
+    }
+
+    boolean release(String requestId){
+        Allocation allocation = allocations.remove(requestId);
+        if(allocation == null){
+            return false;
+        }
+        for(int span : allocation.spans){
+            change(span, -allocation.demand);
+        }
+        departures++;
+        return true;
+    }
+
+    private void change(int span, int amount){
+        int before = capacity[span] - used[span];
+        used[span] += amount;
+        totalUsed += amount;
+        int after = before - amount;
+        if(overlays.isEmpty()){
+            return;
+        }
+        // Drop the overlays for any demand the link could carry before but not after, or the other way around
+        Iterator<Integer> demands = overlays.keySet().iterator();
+        while(demands.hasNext()){
+            int demand = demands.next();
+            if((before >= demand) != (after >= demand)){
+                demands.remove();
+            }
+        }
+    }
+
+    private static class Allocation {
+        private final int[] spans;
+        private final int demand;
+
+        private Allocation(int[] spans, int demand){
+            this.spans = spans;
+            this.demand = demand;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package netlab.processing.online;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import netlab.submission.request.Request;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineArrival {
+
+    private Request request;
+
+    // Hours since the start of the trace
+    private double arrivalTime;
+    private double holdingTime;
+
+    // Capacity units held on every link the request's paths use
+    private int demand;
+}
@@ -0,0 +1,212 @@
+package netlab.processing.online;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.analysis.services.EventQueue;
+import netlab.metrics.services.MetricsService;
+import netlab.processing.ProcessingService;
+import netlab.submission.request.Details;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import netlab.submission.services.GenerationService;
+import netlab.topology.elements.Path;
+import netlab.topology.elements.PathCostMatrix;
+import netlab.topology.elements.SourceDestPair;
+import netlab.topology.elements.Topology;
+import netlab.topology.services.TopologyAdjustmentService;
+import netlab.topology.services.TopologyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Online routing: requests arrive and depart over time on a shared LiveNetwork whose links have capacity. Each
+ * arrival is routed with its own algorithm through the ProcessingService, on an overlay of the network without the
+ * links that can't carry its demand, and admitted only if it's feasible there. Departures give the capacity back.
+ * Each overlay gets its own path costs, so algorithms that pick members by cost (member forwarding, cycle for two,
+ * collapsed ring) only consider the links the request can use.
+ */
+@Service
+@Slf4j
+public class OnlineRoutingService {
+
+    private ProcessingService processingService;
+    private GenerationService generationService;
+    private TopologyService topologyService;
+    private TopologyAdjustmentService topologyAdjustmentService;
+    private MetricsService metricsService;
+    private int defaultLinkCapacity;
+
+    @Autowired
+    public OnlineRoutingService(ProcessingService processingService, GenerationService generationService,
+                                TopologyService topologyService, TopologyAdjustmentService topologyAdjustmentService,
+                                MetricsService metricsService,
+                                @Value("${online_link_capacity:10}") int defaultLinkCapacity){
+        this.processingService = processingService;
+        this.generationService = generationService;
+        this.topologyService = topologyService;
+        this.topologyAdjustmentService = topologyAdjustmentService;
+        this.metricsService = metricsService;
+        this.defaultLinkCapacity = defaultLinkCapacity;
+    }
+
+    public LiveNetwork open(String topologyId){
+        return open(topologyId, defaultLinkCapacity);
+    }
+
+    public LiveNetwork open(String topologyId, int linkCapacity){
+        return new LiveNetwork(topologyService.getTopologyById(topologyId), linkCapacity);
+    }
+
+    /**
+     * Route the request on the links that can carry its demand, and hold the demand on every link its paths use.
+     * The request's details are replaced with the routing either way.
+     * @return True if the request was admitted, false if it was blocked.
+     */
+    public boolean admit(LiveNetwork network, Request request, int demand){
+        synchronized(network){
+            if(network.isActive(request.getId())){
+                log.warn("Request " + request.getId() + " is already active");
+                return false;
+            }
+            network.arrive();
+            Topology overlay = network.overlay(demand, links -> topologyService.populatePathCosts(
+                    topologyAdjustmentService.createTopologyWithLinkSubset(network.getTopology(), links)));
+            Request routed;
+            try {
+                routed = metricsService.time("online.admit", () -> processingService.processRequestOnTopology(request, overlay));
+            } catch (RuntimeException e) {
+                if(!hasUnreachablePair(request.getDetails(), overlay)){
+                    log.warn("Routing " + request.getId() + " failed on the overlay", e);
+                    throw e;
+                }
+                // Links missing from the overlay left a member unreachable, which some algorithms don't expect
+                log.debug("Routing " + request.getId() + " failed on the overlay: " + e);
+                routed = null;
+            }
+            int[] spans = routed != null ? network.spansOf(paths(routed.getDetails())) : null;
+            if(spans == null || spans.length == 0 || !isFeasible(routed.getDetails()) || !network.fits(spans, demand)){
+                network.block();
+                return false;
+            }
+            network.allocate(request.getId(), spans, demand);
+            return true;
+        }
+    }
+
+    /**
+     * @return True if the request was active and its capacity was released.
+     */
+    public boolean release(LiveNetwork network, String requestId){
+        synchronized(network){
+            return network.release(requestId);
+        }
+    }
+
+    /**
+     * Poisson arrivals with exponential holding times, each a request generated from the template with its own seed.
+     * @param arrivalRate Arrivals per hour.
+     * @param meanHoldingTime In hours.
+     */
+    public List<OnlineArrival> generateTrace(SimulationParameters template, int numArrivals, double arrivalRate,
+                                             double meanHoldingTime, int demand, long seed){
+        SplittableRandom rng = new SplittableRandom(seed);
+        List<OnlineArrival> trace = new ArrayList<>();
+        double time = 0.0;
+        for(int i = 0; i < numArrivals; i++){
+            time += -Math.log(1.0 - rng.nextDouble()) / arrivalRate;
+            SimulationParameters params = template.clone();
+            params.setSeed(seed + i);
+            params.setUseAws(false);
+            trace.add(OnlineArrival.builder()
+                    .request(generationService.generateFromSimParams(params))
+                    .arrivalTime(time)
+                    .holdingTime(-Math.log(1.0 - rng.nextDouble()) * meanHoldingTime)
+                    .demand(demand)
+                    .build());
+        }
+        return trace;
+    }
+
+    /**
+     * Play the trace on the network in arrival order, releasing each admitted request when its holding time is up.
+     * Everything still active at the end of the trace is released.
+     */
+    public OnlineTraceResult replay(LiveNetwork network, List<OnlineArrival> trace){
+        long startTime = System.nanoTime();
+        List<OnlineArrival> arrivals = trace.stream()
+                .sorted(Comparator.comparingDouble(OnlineArrival::getArrivalTime))
+                .collect(Collectors.toList());
+        // Departure of the request admitted at arrival i is slot i
+        EventQueue departures = new EventQueue(arrivals.size());
+        long admitted = 0;
+        long blocked = 0;
+        long overlayBuilds = network.getOverlayBuilds();
+        long admissionNanos = 0;
+        double utilization = 0.0;
+        double holdingTime = 0.0;
+        for(int i = 0; i < arrivals.size(); i++){
+            OnlineArrival arrival = arrivals.get(i);
+            while(!departures.isEmpty() && departures.peekTime() <= arrival.getArrivalTime()){
+                release(network, arrivals.get(departures.poll()).getRequest().getId());
+            }
+            utilization += network.getUtilization();
+            holdingTime += arrival.getHoldingTime();
+            long admissionStart = System.nanoTime();
+            boolean accepted = admit(network, arrival.getRequest(), arrival.getDemand());
+            admissionNanos += System.nanoTime() - admissionStart;
+            if(accepted){
+                admitted++;
+                departures.schedule(i, arrival.getArrivalTime() + arrival.getHoldingTime());
+            } else{
+                blocked++;
+            }
+        }
+        while(!departures.isEmpty()){
+            release(network, arrivals.get(departures.poll()).getRequest().getId());
+        }
+
+        int numArrivals = arrivals.size();
+        double span = numArrivals > 0 ? arrivals.get(numArrivals - 1).getArrivalTime() : 0.0;
+        OnlineTraceResult result = OnlineTraceResult.builder()
+                .topologyId(network.getTopology().getId())
+                .linkCapacity(network.getLinkCapacity())
+                .arrivals(numArrivals)
+                .admitted(admitted)
+                .blocked(blocked)
+                .blockingProbability(numArrivals > 0 ? 1.0 * blocked / numArrivals : 0.0)
+                .offeredLoad(span > 0 ? holdingTime / span : 0.0)
+                .meanUtilization(numArrivals > 0 ? utilization / numArrivals : 0.0)
+                .admissionsPerSecond(admissionNanos > 0 ? numArrivals / (admissionNanos / 1e9) : 0.0)
+                .overlayBuilds(network.getOverlayBuilds() - overlayBuilds)
+                .runningTimeSeconds((System.nanoTime() - startTime) / 1e9)
+                .build();
+        log.info("Replayed " + numArrivals + " arrivals on " + result.getTopologyId() + ": blocking probability "
+                + result.getBlockingProbability() + ", " + result.getAdmissionsPerSecond() + " admissions per second");
+        return result;
+    }
+
+    private List<Path> paths(Details details){
+        List<Path> paths = new ArrayList<>();
+        if(details.getChosenPaths() != null){
+            details.getChosenPaths().values().forEach(pairPaths -> paths.addAll(pairPaths.values()));
+        }
+        return paths;
+    }
+
+    private boolean hasUnreachablePair(Details details, Topology overlay){
+        PathCostMatrix pathCosts = overlay.getPathCosts();
+        for(SourceDestPair pair : details.getPairs()){
+            if(!pair.getSrc().equals(pair.getDst()) && pathCosts.getCost(pair.getSrc(), pair.getDst()) == null){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isFeasible(Details details){
+        return details.getIsFeasible() != null && details.getIsFeasible();
+    }
+}
@@ -0,0 +1,34 @@
+package netlab.processing.online;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineTraceResult implements Serializable {
+
+    private String topologyId;
+    private int linkCapacity;
+
+    private long arrivals;
+    private long admitted;
+    private long blocked;
+    private double blockingProbability;
+
+    // Mean holding time times the arrival rate, in Erlangs
+    private double offeredLoad;
+    // Share of link capacity in use, averaged over arrivals
+    private double meanUtilization;
+
+    // Arrivals decided per second of routing and allocation
+    private double admissionsPerSecond;
+    // Overlays rebuilt because a link crossed a request's demand
+    private long overlayBuilds;
+    private double runningTimeSeconds;
+}
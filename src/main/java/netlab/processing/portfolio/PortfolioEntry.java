@@ -0,0 +1,40 @@
+package netlab.processing.portfolio;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import netlab.submission.enums.Algorithm;
+import netlab.submission.request.Request;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioEntry {
+
+    public enum Status {
+        // Finished within its budget
+        Completed,
+        // Returned its best solution when its budget ran out, or was cancelled past the budget with nothing
+        TimedOut,
+        // Cancelled because another algorithm's result can't be beaten
+        Dominated,
+        // Threw an exception
+        Failed
+    }
+
+    private Algorithm algorithm;
+    // The ID the request set would have if this algorithm had been submitted on its own
+    private String requestId;
+    private Status status;
+    private Boolean feasible;
+    // Value of the request's objective for this algorithm's paths, null if it has none
+    private Double objectiveValue;
+    private double runningTimeSeconds;
+
+    // The routed request, null if the algorithm didn't return one
+    @JsonIgnore
+    private Request request;
+}
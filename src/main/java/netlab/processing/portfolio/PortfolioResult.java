@@ -0,0 +1,33 @@
+package netlab.processing.portfolio;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import netlab.submission.enums.Algorithm;
+import netlab.submission.enums.Objective;
+import netlab.submission.enums.PortfolioMode;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioResult {
+
+    private String requestId;
+    private PortfolioMode mode;
+    private Objective objective;
+
+    // Lowest objective value among the feasible results, null if none were feasible
+    private Algorithm bestAlgorithm;
+    private String bestRequestId;
+    private Double bestObjectiveValue;
+    // Highest bound proven by an ILP run, null if there was none
+    private Double lowerBound;
+
+    // One per algorithm, in the order they were given
+    private List<PortfolioEntry> entries;
+    private double runningTimeSeconds;
+}
@@ -0,0 +1,364 @@
+package netlab.processing.portfolio;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.analysis.services.HashingService;
+import netlab.metrics.services.MetricsService;
+import netlab.processing.ProcessingService;
+import netlab.submission.enums.*;
+import netlab.submission.request.Details;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import netlab.topology.elements.Link;
+import netlab.topology.elements.Path;
+import netlab.topology.elements.SourceDestPair;
+import netlab.topology.elements.Topology;
+import netlab.topology.services.TopologyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Races several algorithms on one generated request. Every algorithm routes its own copy of the request on the same
+ * topology; the sources, destinations, failures and connection requirements are shared and only read, and each copy
+ * gets an empty Details for its own paths. Routing goes through ProcessingService, so every algorithm's timing and
+ * routing event is recorded under its own name, just as if it had been submitted on its own.
+ * Each algorithm has a time budget, passed on as its cutoff time so the ILP stops itself and keeps its incumbent.
+ * An algorithm still running a few seconds past its budget is cancelled.
+ * In Best mode, the race stops as soon as the best feasible result is no worse than the bound proven by an ILP run,
+ * since nothing still running can beat it. Cancelling interrupts the losers; solvers that don't check for interrupts
+ * run to the end in the background and their result is dropped.
+ */
+@Service
+@Slf4j
+public class PortfolioService {
+
+    // Time past its budget that an algorithm gets to return its own timed out result
+    private static final long GRACE_SECONDS = 5;
+    private static final double EPSILON = 1e-6;
+
+    private ProcessingService processingService;
+    private TopologyService topologyService;
+    private HashingService hashingService;
+    private MetricsService metricsService;
+    private ExecutorService executor;
+
+    @Autowired
+    public PortfolioService(ProcessingService processingService, TopologyService topologyService,
+                            HashingService hashingService, MetricsService metricsService){
+        this.processingService = processingService;
+        this.topologyService = topologyService;
+        this.hashingService = hashingService;
+        this.metricsService = metricsService;
+        AtomicInteger count = new AtomicInteger(0);
+        // Unbounded, so a loser that ignores its interrupt can't hold up the next race
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "portfolio-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Race the algorithms, mode and budgets given by the parameters' portfolio options on a request generated from
+     * them. Each algorithm's request ID is the one it would get if it had been submitted on its own.
+     */
+    public PortfolioResult run(Request request, SimulationParameters params){
+        Map<Algorithm, String> requestIds = requestIds(params);
+        PortfolioMode mode = params.getPortfolioMode() != null
+                ? PortfolioMode.get(params.getPortfolioMode()).orElse(PortfolioMode.All) : PortfolioMode.All;
+        return run(request, new ArrayList<>(requestIds.keySet()), requestIds, parseBudgets(params.getPortfolioBudgets()), mode);
+    }
+
+    /**
+     * @return The request ID of each algorithm in the parameters' portfolio, in portfolio order.
+     */
+    public Map<Algorithm, String> requestIds(SimulationParameters params){
+        Map<Algorithm, String> requestIds = new LinkedHashMap<>();
+        // An ID given with the parameters is kept as a prefix, otherwise the ID is hashed with each algorithm
+        boolean derivedId = hashingService.createRequestId(params).equals(params.getRequestId());
+        for(Algorithm algorithm : parseAlgorithms(params.getPortfolio())){
+            SimulationParameters algorithmParams = params.clone();
+            algorithmParams.setAlgorithm(algorithm.getCode());
+            requestIds.put(algorithm, derivedId ? hashingService.createRequestId(algorithmParams)
+                    : params.getRequestId() + "_" + algorithm.getCode());
+        }
+        return requestIds;
+    }
+
+    /**
+     * @param requestIds ID of each algorithm's copy of the request.
+     * @param budgets Seconds per algorithm. Algorithms without one get the request's cutoff time, or no limit.
+     */
+    public PortfolioResult run(Request request, List<Algorithm> algorithms, Map<Algorithm, String> requestIds,
+                               Map<Algorithm, Integer> budgets, PortfolioMode mode){
+        long startTime = System.nanoTime();
+        Topology topo = topologyService.getTopologyById(request.getTopologyId());
+        int numAlgorithms = algorithms.size();
+        CompletionService<Request> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<Request>, Integer> indices = new HashMap<>();
+        List<Future<Request>> futures = new ArrayList<>();
+        long[] deadlines = new long[numAlgorithms];
+        PortfolioEntry[] entries = new PortfolioEntry[numAlgorithms];
+        for(int i = 0; i < numAlgorithms; i++){
+            Algorithm algorithm = algorithms.get(i);
+            Integer budget = budgets.containsKey(algorithm) ? budgets.get(algorithm) : request.getCutoffTimeSeconds();
+            Request copy = copyFor(request, algorithm, requestIds.getOrDefault(algorithm, request.getId()), budget);
+            Future<Request> future = completion.submit(() -> processingService.processRequestOnTopology(copy, topo));
+            futures.add(future);
+            indices.put(future, i);
+            deadlines[i] = budget != null && budget > 0
+                    ? startTime + TimeUnit.SECONDS.toNanos(budget + GRACE_SECONDS) : Long.MAX_VALUE;
+        }
+
+        int remaining = numAlgorithms;
+        int best = -1;
+        Double lowerBound = null;
+        try {
+            while(remaining > 0){
+                long now = System.nanoTime();
+                long nextDeadline = Long.MAX_VALUE;
+                for(int i = 0; i < numAlgorithms; i++){
+                    if(entries[i] != null){
+                        continue;
+                    }
+                    if(deadlines[i] <= now){
+                        futures.get(i).cancel(true);
+                        entries[i] = unfinished(algorithms.get(i), requestIds, PortfolioEntry.Status.TimedOut, startTime);
+                        metricsService.increment("portfolio.timedout." + algorithms.get(i).getCode());
+                        remaining--;
+                    } else{
+                        nextDeadline = Math.min(nextDeadline, deadlines[i]);
+                    }
+                }
+                if(remaining == 0){
+                    break;
+                }
+                if(mode == PortfolioMode.Best && best >= 0 && lowerBound != null
+                        && entries[best].getObjectiveValue() <= lowerBound + EPSILON){
+                    break;
+                }
+                Future<Request> done = nextDeadline == Long.MAX_VALUE ? completion.take()
+                        : completion.poll(nextDeadline - now, TimeUnit.NANOSECONDS);
+                if(done == null || done.isCancelled()){
+                    continue;
+                }
+                int i = indices.get(done);
+                if(entries[i] != null){
+                    continue;
+                }
+                remaining--;
+                entries[i] = finished(algorithms.get(i), requestIds, done, startTime);
+                PortfolioEntry entry = entries[i];
+                if(entry.getObjectiveValue() != null && (best < 0
+                        || entry.getObjectiveValue() < entries[best].getObjectiveValue())){
+                    best = i;
+                }
+                Double bound = provenBound(entry);
+                if(bound != null && !bound.isNaN()){
+                    lowerBound = lowerBound != null ? Math.max(lowerBound, bound) : bound;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Portfolio for " + request.getId() + " interrupted, cancelling the remaining algorithms");
+        }
+        for(int i = 0; i < numAlgorithms; i++){
+            if(entries[i] == null){
+                futures.get(i).cancel(true);
+                entries[i] = unfinished(algorithms.get(i), requestIds, PortfolioEntry.Status.Dominated, startTime);
+                metricsService.increment("portfolio.dominated." + algorithms.get(i).getCode());
+            }
+        }
+
+        double duration = (System.nanoTime() - startTime) / 1e9;
+        PortfolioResult result = PortfolioResult.builder()
+                .requestId(request.getId())
+                .mode(mode)
+                .objective(request.getObjective())
+                .bestAlgorithm(best >= 0 ? entries[best].getAlgorithm() : null)
+                .bestRequestId(best >= 0 ? entries[best].getRequestId() : null)
+                .bestObjectiveValue(best >= 0 ? entries[best].getObjectiveValue() : null)
+                .lowerBound(lowerBound)
+                .entries(Arrays.asList(entries))
+                .runningTimeSeconds(duration)
+                .build();
+        log.info("Portfolio for " + request.getId() + " finished in " + duration + " seconds, best: "
+                + (best >= 0 ? entries[best].getAlgorithm().getCode() + " (" + entries[best].getObjectiveValue() + ")" : "none"));
+        return result;
+    }
+
+    /**
+     * The request's objective for the routed paths, counted as in the ILP: link weights (TotalCost), links
+     * (LinksUsed) or paths (Connections). For manycast requests combining traffic, a link shared by paths of the
+     * same source (or destination) is only counted once.
+     * @return The value, or null if the request isn't feasible.
+     */
+    public Double objectiveValue(Request request){
+        Details details = request.getDetails();
+        if(details == null || details.getIsFeasible() == null || !details.getIsFeasible() || details.getChosenPaths() == null){
+            return null;
+        }
+        Objective objective = request.getObjective() != null ? request.getObjective() : Objective.TotalCost;
+        TrafficCombinationType combinationType = request.getTrafficCombinationType() != null
+                ? request.getTrafficCombinationType() : TrafficCombinationType.None;
+        RoutingType routingType = request.getRoutingType();
+        boolean manycast = routingType == RoutingType.Anycast || routingType == RoutingType.Multicast
+                || routingType == RoutingType.Manycast;
+        boolean combine = manycast && combinationType != TrafficCombinationType.None;
+
+        double value = 0.0;
+        Set<String> counted = new HashSet<>();
+        for(Map.Entry<SourceDestPair, Map<String, Path>> pairPaths : details.getChosenPaths().entrySet()){
+            String owner = combinationType == TrafficCombinationType.Destination
+                    ? pairPaths.getKey().getDst().getId() : pairPaths.getKey().getSrc().getId();
+            for(Path path : pairPaths.getValue().values()){
+                if(path.getLinks().isEmpty()){
+                    continue;
+                }
+                if(objective == Objective.Connections){
+                    value++;
+                    continue;
+                }
+                for(Link link : path.getLinks()){
+                    if(combine && !counted.add(owner + "," + link.getId())){
+                        continue;
+                    }
+                    value += objective == Objective.TotalCost ? link.getWeight() : 1.0;
+                }
+            }
+        }
+        return value;
+    }
+
+    private PortfolioEntry finished(Algorithm algorithm, Map<Algorithm, String> requestIds, Future<Request> done,
+                                    long startTime){
+        try {
+            Request routed = done.get();
+            Details details = routed.getDetails();
+            boolean timedOut = routed.getTimedOut() != null && routed.getTimedOut();
+            return PortfolioEntry.builder()
+                    .algorithm(algorithm)
+                    .requestId(requestIds.get(algorithm))
+                    .status(timedOut ? PortfolioEntry.Status.TimedOut : PortfolioEntry.Status.Completed)
+                    .feasible(details.getIsFeasible() != null && details.getIsFeasible())
+                    .objectiveValue(objectiveValue(routed))
+                    .runningTimeSeconds((System.nanoTime() - startTime) / 1e9)
+                    .request(routed)
+                    .build();
+        } catch (InterruptedException | ExecutionException e) {
+            log.warn(algorithm.getCode() + " failed in the portfolio for " + requestIds.get(algorithm) + ": " + e.getMessage());
+            metricsService.increment("portfolio.failed." + algorithm.getCode());
+            return unfinished(algorithm, requestIds, PortfolioEntry.Status.Failed, startTime);
+        }
+    }
+
+    private PortfolioEntry unfinished(Algorithm algorithm, Map<Algorithm, String> requestIds,
+                                      PortfolioEntry.Status status, long startTime){
+        return PortfolioEntry.builder()
+                .algorithm(algorithm)
+                .requestId(requestIds.get(algorithm))
+                .status(status)
+                .feasible(false)
+                .runningTimeSeconds((System.nanoTime() - startTime) / 1e9)
+                .build();
+    }
+
+    // An ILP run proves the best bound its solver reports, or failing that its own value if it finished in time
+    private Double provenBound(PortfolioEntry entry){
+        if(entry.getAlgorithm() != Algorithm.ILP || entry.getRequest() == null){
+            return null;
+        }
+        Double bestBound = entry.getRequest().getDetails().getBestBound();
+        if(bestBound != null){
+            return bestBound;
+        }
+        return entry.getStatus() == PortfolioEntry.Status.Completed ? entry.getObjectiveValue() : null;
+    }
+
+    // Shares everything the algorithms only read, and gives each its own Details to write its paths into
+    private Request copyFor(Request request, Algorithm algorithm, String id, Integer cutoffTimeSeconds){
+        Details details = request.getDetails();
+        Details algorithmDetails = Details.builder()
+                .sources(details.getSources())
+                .destinations(details.getDestinations())
+                .failures(details.getFailures())
+                .numFailureEvents(details.getNumFailureEvents())
+                .connections(details.getConnections())
+                .pairs(details.getPairs())
+                .build();
+        return Request.builder()
+                .details(algorithmDetails)
+                .id(id)
+                .seed(request.getSeed())
+                .completed(false)
+                .topologyId(request.getTopologyId())
+                .failureClass(request.getFailureClass())
+                .failureScenario(request.getFailureScenario())
+                .algorithm(algorithm)
+                .problemClass(request.getProblemClass())
+                .objective(request.getObjective())
+                .trafficCombinationType(request.getTrafficCombinationType())
+                .routingType(request.getRoutingType())
+                .sourceSubsetDestType(request.getSourceSubsetDestType())
+                .sourceFailureType(request.getSourceFailureType())
+                .destFailureType(request.getDestFailureType())
+                .useAws(request.isUseAws())
+                .ignoreFailures(request.isIgnoreFailures())
+                .numThreads(request.getNumThreads())
+                .cutoffTimeSeconds(cutoffTimeSeconds)
+                .warmStart(request.getWarmStart())
+                .contractTopology(request.isContractTopology())
+                .timedOut(false)
+                .build();
+    }
+
+    private List<Algorithm> parseAlgorithms(String portfolio){
+        List<Algorithm> algorithms = new ArrayList<>();
+        if(portfolio == null){
+            return algorithms;
+        }
+        for(String code : portfolio.split(",")){
+            Optional<Algorithm> algorithm = code.trim().isEmpty() ? Optional.empty() : Algorithm.get(code.trim());
+            if(algorithm.isPresent() && !algorithms.contains(algorithm.get())){
+                algorithms.add(algorithm.get());
+            } else if(!algorithm.isPresent()){
+                log.warn("Ignoring unknown portfolio algorithm: " + code);
+            }
+        }
+        return algorithms;
+    }
+
+    private Map<Algorithm, Integer> parseBudgets(String budgets){
+        Map<Algorithm, Integer> budgetMap = new EnumMap<>(Algorithm.class);
+        if(budgets == null || budgets.trim().isEmpty()){
+            return budgetMap;
+        }
+        for(String entry : budgets.split(",")){
+            String[] splitEntry = entry.trim().split(":");
+            if(splitEntry.length != 2){
+                log.warn("Ignoring malformed portfolio budget: " + entry);
+                continue;
+            }
+            Optional<Algorithm> algorithm = Algorithm.get(splitEntry[0].trim());
+            if(!algorithm.isPresent()){
+                log.warn("Ignoring budget for unknown algorithm: " + splitEntry[0]);
+                continue;
+            }
+            try {
+                budgetMap.put(algorithm.get(), Math.max(1, Integer.parseInt(splitEntry[1].trim())));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed portfolio budget: " + entry);
+            }
+        }
+        return budgetMap;
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdownNow();
+    }
+}
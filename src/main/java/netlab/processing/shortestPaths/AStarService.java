@@ -1,54 +1,148 @@
 package netlab.processing.shortestPaths;
 
 import lombok.extern.slf4j.Slf4j;
-import netlab.processing.pathmapping.GraphConversionService;
+import netlab.storage.cache.LruCache;
 import netlab.topology.elements.Link;
 import netlab.topology.elements.Node;
 import netlab.topology.elements.SourceDestPair;
 import netlab.topology.elements.Topology;
-import org.jgrapht.GraphPath;
-import org.jgrapht.alg.shortestpath.ALTAdmissibleHeuristic;
-import org.jgrapht.alg.shortestpath.AStarShortestPath;
-import org.jgrapht.alg.shortestpath.BellmanFordShortestPath;
-import org.jgrapht.graph.DefaultWeightedEdge;
-import org.jgrapht.graph.DirectedWeightedMultigraph;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.*;
 
+/**
+ * A* shortest paths using ALT (landmark) lower bounds. Landmark distances are computed once per topology ID and
+ * cached, then reused for every query on that topology or on any overlay of it that only removes elements or raises
+ * weights. Queries on an overlay the cached index can't bound (e.g. one with weights lowered to zero) run with a zero
+ * heuristic instead, which is plain Dijkstra. If such an overlay covers the indexed topology, the index is rebuilt from
+ * it, so the cached index converges on the least restrictive topology seen for each ID.
+ */
 @Slf4j
 @Service
 public class AStarService {
 
-    GraphConversionService graphConversionService;
+    private int numLandmarks;
+    private String landmarkStrategy;
+    private LruCache<String, LandmarkIndex> landmarkCache;
 
     @Autowired
-    public AStarService(GraphConversionService graphConversionService){
-        this.graphConversionService = graphConversionService;
+    public AStarService(@Value("${alt_num_landmarks:8}") int numLandmarks,
+                        @Value("${alt_landmark_strategy:avoid}") String landmarkStrategy,
+                        @Value("${alt_cache_size:16}") int cacheSize){
+        this.numLandmarks = numLandmarks;
+        this.landmarkStrategy = landmarkStrategy;
+        this.landmarkCache = new LruCache<>(cacheSize, 0);
     }
 
     public List<Link> shortestPath(Topology topo, Node source, Node dest){
-        Map<DefaultWeightedEdge, Link> edgeToLinkMap = new HashMap<>();
-        DirectedWeightedMultigraph<Node, DefaultWeightedEdge> graph = graphConversionService.convertToGraph(topo, edgeToLinkMap);
-        ALTAdmissibleHeuristic<Node, DefaultWeightedEdge> heuristic = new ALTAdmissibleHeuristic<>(graph, topo.getNodes());
-        AStarShortestPath<Node, DefaultWeightedEdge> shortestPath = new AStarShortestPath<>(graph,heuristic);
-        GraphPath<Node,DefaultWeightedEdge> graphPath = shortestPath.getPath(source, dest);
-        return graphConversionService.convertToLinks(graphPath, edgeToLinkMap);
+        return shortestPath(topo, source, dest, getIndex(topo));
     }
 
     public Map<SourceDestPair, List<Link>> allShortestPaths(Topology topo) {
-        Map<DefaultWeightedEdge, Link> edgeToLinkMap = new HashMap<>();
+        LandmarkIndex index = getIndex(topo);
+        Map<SourceDestPair, List<Link>> shortestPathMap = new HashMap<>();
+        for(Node src : topo.getNodes()){
+            for(Node dst : topo.getNodes()){
+                if(src != dst){
+                    List<Link> path = shortestPath(topo, src, dst, index);
+                    if(!path.isEmpty()){
+                        shortestPathMap.put(new SourceDestPair(src, dst), path);
+                    }
+                }
+            }
+        }
+        return shortestPathMap;
+    }
+
+    public LandmarkIndex getIndex(Topology topo){
+        if(numLandmarks <= 0 || !landmarkCache.isEnabled() || topo.getId() == null){
+            return null;
+        }
+        LandmarkIndex index = landmarkCache.get(topo.getId());
+        if(index != null && index.isValidFor(topo)){
+            return index;
+        }
+        if(index == null || index.isCoveredBy(topo)){
+            LandmarkIndex built = new LandmarkIndex(topo, numLandmarks, landmarkStrategy);
+            log.debug("Built " + built.getNumLandmarks() + " landmarks for " + topo.getId() + ": " + built.getLandmarkIds());
+            landmarkCache.put(topo.getId(), built);
+            return built;
+        }
+        return null;
+    }
+
+    private List<Link> shortestPath(Topology topo, Node source, Node dest, LandmarkIndex index){
+        Map<String, Node> nodeIdMap = topo.getNodeIdMap();
+        if(source == null || dest == null || source.getId().equals(dest.getId())
+                || !nodeIdMap.containsKey(source.getId()) || !nodeIdMap.containsKey(dest.getId())){
+            return new ArrayList<>();
+        }
+        int target = index != null ? index.indexOf(dest) : -1;
+
+        Map<String, Double> distance = new HashMap<>();
+        Map<String, Link> prevLink = new HashMap<>();
+        Set<String> closed = new HashSet<>();
+        PriorityQueue<QueueEntry> queue = new PriorityQueue<>();
+        long sequence = 0;
+        distance.put(source.getId(), 0.0);
+        queue.add(new QueueEntry(nodeIdMap.get(source.getId()), 0.0, sequence++));
+        while(!queue.isEmpty()){
+            QueueEntry entry = queue.poll();
+            Node node = entry.node;
+            if(!closed.add(node.getId())){
+                continue;
+            }
+            if(node.getId().equals(dest.getId())){
+                return buildPath(prevLink, source, node);
+            }
+            double nodeDistance = distance.get(node.getId());
+            for(Link link : topo.getNodeOrderedLinkMap().getOrDefault(node, Collections.emptyList())){
+                Node next = nodeIdMap.get(link.getTarget().getId());
+                // Overlays can keep links to nodes they removed
+                if(next == null || closed.contains(next.getId())){
+                    continue;
+                }
+                double candidate = nodeDistance + link.getWeight();
+                Double current = distance.get(next.getId());
+                if(current == null || candidate < current){
+                    distance.put(next.getId(), candidate);
+                    prevLink.put(next.getId(), link);
+                    double bound = target >= 0 ? index.lowerBound(index.indexOf(next), target) : 0.0;
+                    queue.add(new QueueEntry(next, candidate + bound, sequence++));
+                }
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    private List<Link> buildPath(Map<String, Link> prevLink, Node source, Node dest){
+        LinkedList<Link> path = new LinkedList<>();
+        String current = dest.getId();
+        while(!current.equals(source.getId())){
+            Link link = prevLink.get(current);
+            path.addFirst(link);
+            current = link.getOrigin().getId();
+        }
+        return new ArrayList<>(path);
+    }
 
-        DirectedWeightedMultigraph<Node, DefaultWeightedEdge> graph = graphConversionService.convertToGraph(topo, edgeToLinkMap);
-        ALTAdmissibleHeuristic<Node, DefaultWeightedEdge> heuristic = new ALTAdmissibleHeuristic<>(graph, topo.getNodes());
-        AStarShortestPath<Node, DefaultWeightedEdge> allPaths = new AStarShortestPath<>(graph,heuristic);
+    private static class QueueEntry implements Comparable<QueueEntry> {
+        private final Node node;
+        private final double estimate;
+        private final long sequence;
 
-        return graphConversionService.allPathsConversion(allPaths, topo, edgeToLinkMap);
+        QueueEntry(Node node, double estimate, long sequence){
+            this.node = node;
+            this.estimate = estimate;
+            this.sequence = sequence;
+        }
 
+        @Override
+        public int compareTo(QueueEntry other) {
+            int byEstimate = Double.compare(estimate, other.estimate);
+            return byEstimate != 0 ? byEstimate : Long.compare(sequence, other.sequence);
+        }
     }
 }
@@ -0,0 +1,365 @@
+package netlab.processing.shortestPaths;
+
+import netlab.topology.elements.Link;
+import netlab.topology.elements.Node;
+import netlab.topology.elements.Topology;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * Landmark distances for ALT (A*, landmarks, triangle inequality) searches over one topology. For every landmark L,
+ * the distance from L to each node and from each node to L is computed once, which gives the lower bound
+ * d(v, t) >= max(d(v, L) - d(t, L), d(L, t) - d(L, v)) for any pair of nodes.
+ * The bound still holds on any overlay of the topology that only removes nodes or links, or raises link weights (such
+ * as the "weights raised to max" topologies used by Yen's and Bhandari's algorithms), since distances can only grow.
+ * dominates() checks that before the index is used for a query, and isValidFor() remembers which topologies it has
+ * already accepted so repeated queries on the same one don't pay for the check again.
+ */
+public class LandmarkIndex {
+
+    // Distances past this come from links with weights raised to max, and are too imprecise to subtract
+    private static final double MAX_DISTANCE = 1e12;
+    // Yen's and Bhandari's algorithms query a handful of overlays at a time, so a few recent ones are enough
+    private static final int MAX_VALIDATED = 16;
+
+    private final Topology source;
+    private final String[] nodeIds;
+    private final Map<String, Integer> nodeIndex;
+    private final Map<String, Double> linkWeights;
+
+    private final int[] landmarks;
+    // [landmark][node]
+    private final double[][] fromLandmark;
+    private final double[][] toLandmark;
+
+    // Most recently accepted first
+    private final Deque<Validated> validated = new ArrayDeque<>();
+
+    public LandmarkIndex(Topology topo, int numLandmarks, String strategy){
+        this.source = topo;
+        List<Node> nodes = new ArrayList<>(topo.getNodes());
+        nodes.sort(Comparator.comparing(Node::getId));
+        int n = nodes.size();
+        nodeIds = new String[n];
+        nodeIndex = new HashMap<>();
+        for(int i = 0; i < n; i++){
+            nodeIds[i] = nodes.get(i).getId();
+            nodeIndex.put(nodeIds[i], i);
+        }
+
+        // Forward and backward adjacency in CSR form
+        linkWeights = new HashMap<>();
+        List<Link> links = new ArrayList<>();
+        for(Link link : topo.getLinks()){
+            if(nodeIndex.containsKey(link.getOrigin().getId()) && nodeIndex.containsKey(link.getTarget().getId())){
+                links.add(link);
+                linkWeights.put(link.getId(), link.getWeight());
+            }
+        }
+        int[] outStart = new int[n + 1];
+        int[] inStart = new int[n + 1];
+        for(Link link : links){
+            outStart[nodeIndex.get(link.getOrigin().getId()) + 1]++;
+            inStart[nodeIndex.get(link.getTarget().getId()) + 1]++;
+        }
+        for(int i = 0; i < n; i++){
+            outStart[i + 1] += outStart[i];
+            inStart[i + 1] += inStart[i];
+        }
+        int[] outTarget = new int[links.size()];
+        double[] outWeight = new double[links.size()];
+        int[] inOrigin = new int[links.size()];
+        double[] inWeight = new double[links.size()];
+        int[] nextOut = Arrays.copyOf(outStart, n);
+        int[] nextIn = Arrays.copyOf(inStart, n);
+        for(Link link : links){
+            int u = nodeIndex.get(link.getOrigin().getId());
+            int v = nodeIndex.get(link.getTarget().getId());
+            outTarget[nextOut[u]] = v;
+            outWeight[nextOut[u]++] = link.getWeight();
+            inOrigin[nextIn[v]] = u;
+            inWeight[nextIn[v]++] = link.getWeight();
+        }
+
+        int k = Math.min(Math.max(0, numLandmarks), n);
+        landmarks = new int[k];
+        fromLandmark = new double[k][];
+        toLandmark = new double[k][];
+        boolean avoid = "avoid".equalsIgnoreCase(strategy);
+        for(int l = 0; l < k; l++){
+            int landmark = -1;
+            if(avoid && l > 0){
+                landmark = selectAvoid(l, outStart, outTarget, outWeight);
+            }
+            if(landmark < 0){
+                landmark = selectFarthest(l, outStart, outTarget, outWeight, inStart, inOrigin, inWeight);
+            }
+            landmarks[l] = landmark;
+            fromLandmark[l] = dijkstra(landmark, outStart, outTarget, outWeight, null);
+            toLandmark[l] = dijkstra(landmark, inStart, inOrigin, inWeight, null);
+        }
+    }
+
+    public Topology getSource(){
+        return source;
+    }
+
+    public int getNumLandmarks(){
+        return landmarks.length;
+    }
+
+    public List<String> getLandmarkIds(){
+        List<String> ids = new ArrayList<>();
+        for(int landmark : landmarks){
+            ids.add(nodeIds[landmark]);
+        }
+        return ids;
+    }
+
+    public int indexOf(Node node){
+        Integer i = nodeIndex.get(node.getId());
+        return i != null ? i : -1;
+    }
+
+    public int getNumNodes(){
+        return nodeIds.length;
+    }
+
+    /**
+     * Whether the bounds from this index are valid on a topology: every node and link must be in the indexed
+     * topology, and no link may be cheaper than it was there.
+     */
+    public boolean dominates(Topology topo){
+        for(Node node : topo.getNodes()){
+            if(!nodeIndex.containsKey(node.getId())){
+                return false;
+            }
+        }
+        for(Link link : topo.getLinks()){
+            Double weight = linkWeights.get(link.getId());
+            if(weight == null || link.getWeight() < weight){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * dominates(), checked once per topology instance. A topology is checked again if its nodes or links have been
+     * replaced since it was accepted. Link weights changed in place aren't noticed, which is fine as long as they're
+     * only restored from the topology they were copied from (as TopologyAdjustmentService.readjustLinkWeights does).
+     */
+    public boolean isValidFor(Topology topo){
+        synchronized(validated){
+            for(Validated entry : validated){
+                if(entry.matches(topo)){
+                    return true;
+                }
+            }
+        }
+        if(!dominates(topo)){
+            return false;
+        }
+        synchronized(validated){
+            validated.removeIf(Validated::isCleared);
+            if(validated.size() >= MAX_VALIDATED){
+                validated.removeLast();
+            }
+            validated.addFirst(new Validated(topo));
+        }
+        return true;
+    }
+
+    /**
+     * Whether a topology has every node and link of this index, at the same or a lower weight, so an index built from
+     * it would be valid everywhere this one is.
+     */
+    public boolean isCoveredBy(Topology topo){
+        if(!topo.getNodeIdMap().keySet().containsAll(nodeIndex.keySet())){
+            return false;
+        }
+        Map<String, Link> links = topo.getLinkIdMap();
+        for(Map.Entry<String, Double> entry : linkWeights.entrySet()){
+            Link link = links.get(entry.getKey());
+            if(link == null || link.getWeight() > entry.getValue()){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lower bound on the distance from node v to node t, both given by index.
+     */
+    public double lowerBound(int v, int t){
+        double bound = 0.0;
+        for(int l = 0; l < landmarks.length; l++){
+            double[] to = toLandmark[l];
+            double[] from = fromLandmark[l];
+            // Terms with an unreachable landmark give no information (and would be inf - inf)
+            if(to[v] < MAX_DISTANCE && to[t] < MAX_DISTANCE){
+                bound = Math.max(bound, to[v] - to[t]);
+            }
+            if(from[t] < MAX_DISTANCE && from[v] < MAX_DISTANCE){
+                bound = Math.max(bound, from[t] - from[v]);
+            }
+        }
+        return bound;
+    }
+
+    // The node farthest (by round-trip distance) from the landmarks chosen so far. The first landmark is the node
+    // farthest from the first node by ID.
+    private int selectFarthest(int chosen, int[] outStart, int[] outTarget, double[] outWeight,
+                               int[] inStart, int[] inOrigin, double[] inWeight){
+        int n = nodeIds.length;
+        double[] closest = new double[n];
+        boolean[] excluded = new boolean[n];
+        if(chosen == 0){
+            double[] from = dijkstra(0, outStart, outTarget, outWeight, null);
+            double[] to = dijkstra(0, inStart, inOrigin, inWeight, null);
+            for(int v = 0; v < n; v++){
+                closest[v] = from[v] + to[v];
+            }
+        } else{
+            Arrays.fill(closest, Double.POSITIVE_INFINITY);
+            for(int l = 0; l < chosen; l++){
+                excluded[landmarks[l]] = true;
+                for(int v = 0; v < n; v++){
+                    closest[v] = Math.min(closest[v], fromLandmark[l][v] + toLandmark[l][v]);
+                }
+            }
+        }
+        int best = -1;
+        for(int v = 0; v < n; v++){
+            if(!excluded[v] && (best < 0 || closest[v] > closest[best])){
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    // Goldberg and Werneck's "avoid": grow a shortest path tree from a root, weigh each node by how badly the current
+    // landmarks bound its distance from the root, and descend into the heaviest subtree that has no landmark yet.
+    private int selectAvoid(int chosen, int[] outStart, int[] outTarget, double[] outWeight){
+        int n = nodeIds.length;
+        // Root: a deterministic pseudo-random node
+        int root = (int) Math.floorMod(0x9E3779B97F4A7C15L * (chosen + 1), (long) n);
+        int[] parent = new int[n];
+        double[] dist = dijkstra(root, outStart, outTarget, outWeight, parent);
+
+        boolean[] isLandmark = new boolean[n];
+        for(int l = 0; l < chosen; l++){
+            isLandmark[landmarks[l]] = true;
+        }
+        Integer[] order = new Integer[n];
+        for(int v = 0; v < n; v++){
+            order[v] = v;
+        }
+        // Children before parents
+        Arrays.sort(order, (a, b) -> Double.compare(dist[b], dist[a]));
+        double[] size = new double[n];
+        boolean[] hasLandmark = new boolean[n];
+        for(int v : order){
+            if(dist[v] == Double.POSITIVE_INFINITY){
+                continue;
+            }
+            double gap = dist[v] - boundFromChosen(root, v, chosen);
+            size[v] += Math.max(0.0, gap);
+            hasLandmark[v] |= isLandmark[v];
+            int p = parent[v];
+            if(p >= 0){
+                hasLandmark[p] |= hasLandmark[v];
+                size[p] += size[v];
+            }
+        }
+        int best = -1;
+        for(int v = 0; v < n; v++){
+            if(!hasLandmark[v] && dist[v] < Double.POSITIVE_INFINITY && size[v] > 0 && (best < 0 || size[v] > size[best])){
+                best = v;
+            }
+        }
+        if(best < 0){
+            return -1;
+        }
+        // Descend to a leaf through the heaviest children
+        int current = best;
+        while(true){
+            int next = -1;
+            for(int v = 0; v < n; v++){
+                if(parent[v] == current && !hasLandmark[v] && (next < 0 || size[v] > size[next])){
+                    next = v;
+                }
+            }
+            if(next < 0){
+                return current;
+            }
+            current = next;
+        }
+    }
+
+    private double boundFromChosen(int v, int t, int chosen){
+        double bound = 0.0;
+        for(int l = 0; l < chosen; l++){
+            if(toLandmark[l][v] < MAX_DISTANCE && toLandmark[l][t] < MAX_DISTANCE){
+                bound = Math.max(bound, toLandmark[l][v] - toLandmark[l][t]);
+            }
+            if(fromLandmark[l][t] < MAX_DISTANCE && fromLandmark[l][v] < MAX_DISTANCE){
+                bound = Math.max(bound, fromLandmark[l][t] - fromLandmark[l][v]);
+            }
+        }
+        return bound;
+    }
+
+    private double[] dijkstra(int from, int[] start, int[] adjacent, double[] weight, int[] parent){
+        int n = nodeIds.length;
+        double[] dist = new double[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        if(parent != null){
+            Arrays.fill(parent, -1);
+        }
+        boolean[] settled = new boolean[n];
+        PriorityQueue<double[]> queue = new PriorityQueue<>(Comparator.comparingDouble(e -> e[0]));
+        dist[from] = 0.0;
+        queue.add(new double[]{0.0, from});
+        while(!queue.isEmpty()){
+            int u = (int) queue.poll()[1];
+            if(settled[u]){
+                continue;
+            }
+            settled[u] = true;
+            for(int e = start[u]; e < start[u + 1]; e++){
+                int v = adjacent[e];
+                double candidate = dist[u] + weight[e];
+                if(candidate < dist[v]){
+                    dist[v] = candidate;
+                    if(parent != null){
+                        parent[v] = u;
+                    }
+                    queue.add(new double[]{candidate, v});
+                }
+            }
+        }
+        return dist;
+    }
+
+    private static class Validated {
+        private final WeakReference<Topology> topology;
+        private final WeakReference<Set<Node>> nodes;
+        private final WeakReference<Set<Link>> links;
+
+        private Validated(Topology topo){
+            topology = new WeakReference<>(topo);
+            nodes = new WeakReference<>(topo.getNodes());
+            links = new WeakReference<>(topo.getLinks());
+        }
+
+        private boolean matches(Topology topo){
+            return topology.get() == topo && nodes.get() == topo.getNodes() && links.get() == topo.getLinks();
+        }
+
+        private boolean isCleared(){
+            return topology.get() == null;
+        }
+    }
+}
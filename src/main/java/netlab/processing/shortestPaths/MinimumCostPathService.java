@@ -11,6 +11,7 @@ import netlab.topology.elements.*;
 import netlab.topology.services.TopologyAdjustmentService;
 import netlab.topology.services.TopologyService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -21,15 +22,23 @@ import java.util.stream.Collectors;
 public class MinimumCostPathService {
 
     private DijkstraService dijkstraService;
+    private AStarService aStarService;
     private TopologyAdjustmentService topologyAdjustmentService;
     private PathMappingService pathMappingService;
 
+    // shortest_path_backend=alt routes point-to-point queries through landmark A*, dijkstra (the default) through JGraphT
+    private boolean useAlt;
+
     @Autowired
-    public MinimumCostPathService(DijkstraService dijkstraService, TopologyAdjustmentService topologyAdjustmentService,
-                                  PathMappingService pathMappingService){
+    public MinimumCostPathService(DijkstraService dijkstraService, AStarService aStarService,
+                                  TopologyAdjustmentService topologyAdjustmentService,
+                                  PathMappingService pathMappingService,
+                                  @Value("${shortest_path_backend:dijkstra}") String backend){
         this.dijkstraService = dijkstraService;
+        this.aStarService = aStarService;
         this.topologyAdjustmentService = topologyAdjustmentService;
         this.pathMappingService = pathMappingService;
+        this.useAlt = "alt".equalsIgnoreCase(backend);
     }
 
     public Details solve(Request request, Topology topo){
@@ -87,11 +96,11 @@ public class MinimumCostPathService {
     }
 
     public Path findShortestPath(Node src, Node dst, Topology topo){
-        return pathMappingService.convertToPath(dijkstraService.shortestPath(topo, src, dst), topo.getLinkIdMap());
+        return pathMappingService.convertToPath(findShortestPathLinks(src, dst, topo), topo.getLinkIdMap());
     }
 
     public List<Link> findShortestPathLinks(Node src, Node dst, Topology topo){
-        return dijkstraService.shortestPath(topo, src, dst);
+        return useAlt ? aStarService.shortestPath(topo, src, dst) : dijkstraService.shortestPath(topo, src, dst);
     }
 
     public Path findShortestPath(SourceDestPair pair, Topology topo, Map<Node, Set<Path>> srcPathsMap,
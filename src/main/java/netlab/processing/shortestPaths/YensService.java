@@ -1,6 +1,7 @@
 package netlab.processing.shortestPaths;
 
 import lombok.extern.slf4j.Slf4j;
+import netlab.metrics.events.PathComputationEvent;
 import netlab.processing.pathmapping.PathMappingService;
 import netlab.submission.enums.FailureClass;
 import netlab.submission.enums.RoutingType;
@@ -86,6 +87,23 @@ public class YensService {
     }
 
     public List<Path> computeKPaths(Topology topology, Node src, Node dst, int K) {
+        PathComputationEvent event = new PathComputationEvent();
+        event.begin();
+        List<Path> paths = findKPaths(topology, src, dst, K);
+        event.end();
+        if(event.shouldCommit()){
+            event.algorithm = "yens";
+            event.topologyId = topology.getId();
+            event.source = src.getId();
+            event.destination = dst.getId();
+            event.pathsRequested = K;
+            event.pathsFound = paths != null ? paths.size() : 0;
+            event.commit();
+        }
+        return paths;
+    }
+
+    private List<Path> findKPaths(Topology topology, Node src, Node dst, int K) {
         // Determine the shortest path from the source to the sink.
         //A[0] = Dijkstra(Graph, source, sink);
         List<Path> paths = new ArrayList<>();
@@ -2,6 +2,7 @@ package netlab.processing.tabu;
 
 
 import lombok.extern.slf4j.Slf4j;
+import netlab.metrics.events.TabuBatchEvent;
 import netlab.submission.enums.FailureClass;
 import netlab.submission.enums.TrafficCombinationType;
 import netlab.submission.request.*;
@@ -104,6 +105,8 @@ public class TabuSearchService {
                 sources, destinations, usedPairsForInjection, usedSourcesForInjection);
 
         Solution previousSolution = currentSolution.copy();
+        TabuBatchEvent batch = startBatch(0);
+        int batchImprovements = 0;
         while(iterationsWithoutImprovement < noImprovement){
             boolean changed = false;
 
@@ -136,6 +139,7 @@ public class TabuSearchService {
             if (isBetter(currentSolution, bestSolution, fitnessThreshold)) {
                 bestSolution = currentSolution;
                 changed = true;
+                batchImprovements++;
             }
             iterationsWithoutImprovement = changed ? 0 : iterationsWithoutImprovement + 1;
             totalIterations++;
@@ -144,6 +148,9 @@ public class TabuSearchService {
             updatePathBeenInBestMap(pathBeenInBestMap, bestSolution);
             // If you've gone long enough, restart from the best paths
             if(totalIterations % restartFromBest == 0){
+                commitBatch(batch, totalIterations, batchImprovements, bestSolution);
+                batch = startBatch(totalIterations);
+                batchImprovements = 0;
                 previousSolution = currentSolution.copy();
                 currentSolution = restartFromBestSubset(pathBeenInBestMap, topologyMetrics.getPathIdMap(), failureIds, nfe,
                         connectReqs, disconnPathIds, pathSetFitnessMap, pathSetCostMap, sources, destinations);
@@ -158,11 +165,32 @@ public class TabuSearchService {
             }
         }
 
+        if(totalIterations > batch.firstIteration){
+            commitBatch(batch, totalIterations, batchImprovements, bestSolution);
+        }
         //log.info("Total iterations: " + totalIterations);
         return bestSolution;
     }
 
-    private Solution restartFromBestSubset(Map<String, Integer> pathBeenInBestMap, Map<String, Path> pathIdMap,
+    private TabuBatchEvent startBatch(int firstIteration){
+        TabuBatchEvent batch = new TabuBatchEvent();
+        batch.firstIteration = firstIteration;
+        batch.begin();
+        return batch;
+    }
+
+    private void commitBatch(TabuBatchEvent batch, int totalIterations, int improvements, Solution bestSolution){
+        batch.end();
+        if(batch.shouldCommit()){
+            batch.iterations = totalIterations - batch.firstIteration;
+            batch.improvements = improvements;
+            batch.bestCost = bestSolution.getCost();
+            batch.bestFitness = bestSolution.getFitness();
+            batch.commit();
+        }
+    }
+
+    private Solution restartFromBestSubset(Map<String, Integer> pathBeenInBestMap, Map<String, CompactPath> pathIdMap,
                                            Set<String> failureIds, Integer nfe, Connections connectionReqs,
                                            Set<String> disconnPaths, Map<Set<String>, Double> pathSetFitnessMap,
                                            Map<Set<String>, Double> pathSetCostMap, Set<String> sources, Set<String> destinations) {
@@ -242,7 +270,7 @@ public class TabuSearchService {
                                          Set<String> sources, Set<String> destinations, Set<SourceDestPair> usedPairsForInjection,
                                          Set<Node> usedSourcesForInjection) {
         Set<String> pathIds = new HashSet<>(currentSolution.getPathIds());
-        Map<String, Path> pathIdMap = topologyMetrics.getPathIdMap();
+        Map<String, CompactPath> pathIdMap = topologyMetrics.getPathIdMap();
         for(SourceDestPair pair : pairs){
             Set<String> pairPathIds = new HashSet<>();
             if (failureClass.equals(FailureClass.Both) || failureClass.equals(FailureClass.Node)) {
@@ -343,7 +371,7 @@ public class TabuSearchService {
                                                       Set<String> tabu) {
 
         Map<SourceDestPair, List<String>> kShortestPaths = topologyMetrics.getMinCostPaths();
-        Map<String, Path> pathIdMap = topologyMetrics.getPathIdMap();
+        Map<String, CompactPath> pathIdMap = topologyMetrics.getPathIdMap();
         Set<String> currentPathIds = currentSolution.getPathIds();
 
         List<Solution> candidates = new ArrayList<>();
@@ -383,7 +411,7 @@ public class TabuSearchService {
         return candidates;
     }
 
-    private Solution createAddCandidate(Set<String> currentPathIds, String pathId, Map<String, Path> pathIdMap,
+    private Solution createAddCandidate(Set<String> currentPathIds, String pathId, Map<String, CompactPath> pathIdMap,
                                          Set<String> failureIds, Integer nfe, Connections connectionReqs, Set<String> disconnPaths,
                                          Map<Set<String>, Double> pathSetFitnessMap, Map<Set<String>, Double> pathSetCostMap,
                                          Set<String> sources, Set<String> destinations) {
@@ -393,7 +421,7 @@ public class TabuSearchService {
     }
 
     private Solution createSwapCandidate(List<String> currentAllowedToRemove, Random random, Set<String> currentPathIds,
-                                         String pathId, Map<String, Path> pathIdMap, Set<String> failureIds, Integer nfe,
+                                         String pathId, Map<String, CompactPath> pathIdMap, Set<String> failureIds, Integer nfe,
                                          Connections connectionReqs, Set<String> disconnPaths,
                                          Map<Set<String>, Double> pathSetFitnessMap, Map<Set<String>, Double> pathSetCostMap,
                                          Set<String> sources, Set<String> destinations) {
@@ -404,7 +432,7 @@ public class TabuSearchService {
     }
 
     private Solution createRemoveCandidate(Set<String> currentPathIds, List<String> currentAllowedToRemove, Random random,
-                                           Map<String, Path> pathIdMap, Set<String> failureIds, Integer nfe,
+                                           Map<String, CompactPath> pathIdMap, Set<String> failureIds, Integer nfe,
                                            Connections connectionReqs, Set<String> disconnPaths,
                                            Map<Set<String>, Double> pathSetFitnessMap, Map<Set<String>, Double> pathSetCostMap,
                                            Set<String> sources, Set<String> destinations) {
@@ -414,7 +442,7 @@ public class TabuSearchService {
                 disconnPaths, pathSetFitnessMap, pathSetCostMap, sources, destinations);
     }
 
-    private Solution createCandidateUpdateMaps(Set<String> candidatePathIds, Map<String, Path> pathIdMap, Set<String> failureIds,
+    private Solution createCandidateUpdateMaps(Set<String> candidatePathIds, Map<String, CompactPath> pathIdMap, Set<String> failureIds,
                                                Integer nfe, Connections connectionReqs, Set<String> disconnPaths,
                                                Map<Set<String>, Double> pathSetFitnessMap, Map<Set<String>, Double> pathSetCostMap,
                                                Set<String> sources, Set<String> destinations){
@@ -444,7 +472,7 @@ public class TabuSearchService {
         return candidates.subList(lowerBound, upperBound);
     }
 
-    private Solution makeCandidate(Set<String> candidatePathIds, Map<String, Path> pathIdMap, Set<String> failureIds,
+    private Solution makeCandidate(Set<String> candidatePathIds, Map<String, CompactPath> pathIdMap, Set<String> failureIds,
                                    Integer nfe, Connections connectionReqs, Set<String> disconnPaths,
                                    Map<Set<String>, Double> pathSetFitnessMap, Map<Set<String>, Double> pathSetCostMap,
                                    Set<String> sources, Set<String> destinations){
@@ -484,10 +512,10 @@ public class TabuSearchService {
         return pathIds;
     }
 
-    private void makePathMaps(Set<String> candidatePathIds, Map<String, Path> pathIdMap, Map<SourceDestPair, Set<String>> pairPathMap,
+    private void makePathMaps(Set<String> candidatePathIds, Map<String, CompactPath> pathIdMap, Map<SourceDestPair, Set<String>> pairPathMap,
                               Map<Node, Set<String>> srcPathMap, Map<Node, Set<String>> dstPathMap) {
         for(String pathId : candidatePathIds){
-            Path path = pathIdMap.get(pathId);
+            CompactPath path = pathIdMap.get(pathId);
             SourceDestPair pair = getPairFromPath(path);
             pairPathMap.putIfAbsent(pair, new HashSet<>());
             pairPathMap.get(pair).add(pathId);
@@ -496,17 +524,17 @@ public class TabuSearchService {
         }
     }
 
-    private double getFitness(Set<String> candidatePathIds, Map<String, Path> pathIdMap, Set<String> failureIds, Integer nfe,
+    private double getFitness(Set<String> candidatePathIds, Map<String, CompactPath> pathIdMap, Set<String> failureIds, Integer nfe,
                               Connections connectionReqs, Set<String> disconnIds, Map<SourceDestPair, Set<String>> pairPathMap,
                               Map<Node, Set<String>> srcPathMap, Map<Node, Set<String>> dstPathMap,
                               Set<String> sources, Set<String> destinations){
-        Set<Path> paths = candidatePathIds.stream().map(pathIdMap::get).collect(Collectors.toSet());
+        Set<CompactPath> paths = candidatePathIds.stream().map(pathIdMap::get).collect(Collectors.toSet());
         Integer useMinS = connectionReqs.getUseMinS();
         Integer useMinD = connectionReqs.getUseMinD();
         Map<Node, Integer> minCsMap = connectionReqs.getSrcMinConnectionsMap();
         Map<Node, Integer> minCdMap = connectionReqs.getDstMinConnectionsMap();
         Map<SourceDestPair, Integer> minCsdMap = connectionReqs.getPairMinConnectionsMap();
-        for(Path path : paths){
+        for(CompactPath path : paths){
             if(!disconnIds.contains(path.getId())) {
                 if (path.containsFailureIds(failureIds)) {
                     disconnIds.add(path.getId());
@@ -520,7 +548,7 @@ public class TabuSearchService {
     }
 
     private Double calculateFitness(Map<SourceDestPair, Set<String>> pairPathMap, Map<Node, Set<String>> srcPathMap,
-                                    Map<Node, Set<String>> dstPathMap, Map<String, Path> pathIdMap,
+                                    Map<Node, Set<String>> dstPathMap, Map<String, CompactPath> pathIdMap,
                                     Set<String> failuresIds, Integer nfe, Set<String> disconnIds,
                                     Map<Node, Integer> minCsMap, Map<Node, Integer> minCdMap,
                                     Map<SourceDestPair, Integer> minCsdMap, Integer useMinS, Integer useMinD,
@@ -597,7 +625,7 @@ public class TabuSearchService {
                                 Map<SourceDestPair, Set<String>> protectedCPerPair, Map<Node, Set<String>> fgDisjointCPerSrc,
                                 Map<Node, Set<String>> fgDisjointCPerDst, Map<SourceDestPair, Set<String>> fgDisjointCPerPair,
                                 Map<SourceDestPair, Set<String>> pairPathMap, Map<Node, Set<String>> pathsPerSrc, Map<Node, Set<String>> pathsPerDst,
-                                Map<String, Path> pathIdMap,
+                                Map<String, CompactPath> pathIdMap,
                                 Set<String> fails, Set<String> disconnIds, Set<String> sources, Set<String> dests) {
 
         boolean ignoreSrcFailForDsts = sources.size() == 1 && fails.contains(sources.iterator().next());
@@ -627,7 +655,7 @@ public class TabuSearchService {
             for(String pathId : pathIds){
                 if(disconnIds.contains(pathId)){
                     // Compare this new path to the current roster of FG-disjoint paths
-                    Path current = pathIdMap.get(pathId);
+                    CompactPath current = pathIdMap.get(pathId);
                     // FOR NOW: Do not include src or dst when considering viability
                     Set<String> fgInCurrent = fails.stream()
                             //.filter(f -> !src.getId().equals(f) && !dst.getId().equals(f))
@@ -673,11 +701,11 @@ public class TabuSearchService {
         }
     }
 
-    private Set<String> evaluateFGDisjointPaths(Set<String> fgDisjointPaths, Path current, Set<String> fgInCurrent,
-                                                Map<String, Path> pathIdMap) {
+    private Set<String> evaluateFGDisjointPaths(Set<String> fgDisjointPaths, CompactPath current, Set<String> fgInCurrent,
+                                                Map<String, CompactPath> pathIdMap) {
         boolean notShared = true;
         for(String disjointId : fgDisjointPaths){
-            Path disjointPath = pathIdMap.get(disjointId);
+            CompactPath disjointPath = pathIdMap.get(disjointId);
             if(disjointPath.containsFailureIds(fgInCurrent)){
                 notShared = false;
                 break;
@@ -689,23 +717,23 @@ public class TabuSearchService {
         return fgDisjointPaths;
     }
 
-    private Double getCost(Set<String> candidatePathIds, Map<String, Path> pathIdMap) {
+    private Double getCost(Set<String> candidatePathIds, Map<String, CompactPath> pathIdMap) {
         Double totalCost = 0.0;
         for(String id : candidatePathIds){
-            Path path = pathIdMap.get(id);
+            CompactPath path = pathIdMap.get(id);
             totalCost +=  path.getTotalWeight();
         }
         return totalCost;
     }
 
     private Map<SourceDestPair,Map<String,Path>> convertToMap(Solution bestSolution,
-                                                              Map<String, Path> pathIdMap) {
+                                                              Map<String, CompactPath> pathIdMap) {
         Map<SourceDestPair,Map<String,Path>> outputMap = new HashMap<>();
         for(String id : bestSolution.getPathIds()){
-            Path path = pathIdMap.get(id);
+            CompactPath path = pathIdMap.get(id);
             SourceDestPair pair = getPairFromPath(path);
             outputMap.putIfAbsent(pair, new HashMap<>());
-            outputMap.get(pair).put(path.getId(), path);
+            outputMap.get(pair).put(path.getId(), path.toPath());
         }
         return outputMap;
     }
@@ -736,10 +764,8 @@ public class TabuSearchService {
     }
 
 
-    private SourceDestPair getPairFromPath(Path path) {
-        Node src = path.getNodes().get(0);
-        Node dst = path.getNodes().get(path.getNodes().size()-1);
-        return new SourceDestPair(src, dst);
+    private SourceDestPair getPairFromPath(CompactPath path) {
+        return new SourceDestPair(path.getSource(), path.getDestination());
     }
 
 }
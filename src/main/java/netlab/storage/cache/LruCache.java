@@ -0,0 +1,131 @@
+package netlab.storage.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A thread-safe, size-bounded, least-recently-used cache. Entries can optionally expire a fixed time after they were
+ * inserted. A max size of zero disables the cache (nothing is stored, every lookup misses).
+ */
+public class LruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxSize Maximum number of entries. Least recently used entries are evicted first.
+     * @param ttlSeconds Seconds an entry stays valid after insertion. Zero or less means entries never expire.
+     */
+    public LruCache(int maxSize, long ttlSeconds){
+        this.maxSize = Math.max(0, maxSize);
+        this.ttlNanos = ttlSeconds > 0 ? ttlSeconds * 1_000_000_000L : 0;
+        this.map = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > LruCache.this.maxSize;
+            }
+        };
+    }
+
+    public boolean isEnabled(){
+        return maxSize > 0;
+    }
+
+    public V get(K key){
+        if(!isEnabled()){
+            return null;
+        }
+        synchronized (map) {
+            Entry<V> entry = map.get(key);
+            if (entry != null && isExpired(entry)) {
+                map.remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        }
+    }
+
+    public void put(K key, V value){
+        if(!isEnabled() || value == null){
+            return;
+        }
+        synchronized (map) {
+            map.put(key, new Entry<>(value, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Get the value for a key, computing and storing it if it is missing. The computation runs outside of the
+     * cache's lock, so concurrent misses on the same key may both compute; the first value stored wins.
+     * Null values are returned but not cached.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction){
+        V value = get(key);
+        if(value != null){
+            return value;
+        }
+        V computed = mappingFunction.apply(key);
+        if(computed == null || !isEnabled()){
+            return computed;
+        }
+        synchronized (map) {
+            Entry<V> existing = map.get(key);
+            if(existing != null && !isExpired(existing)){
+                return existing.value;
+            }
+            map.put(key, new Entry<>(computed, System.nanoTime()));
+        }
+        return computed;
+    }
+
+    public void invalidate(K key){
+        synchronized (map) {
+            map.remove(key);
+        }
+    }
+
+    public void clear(){
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    public int size(){
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public long getHits(){
+        return hits.get();
+    }
+
+    public long getMisses(){
+        return misses.get();
+    }
+
+    private boolean isExpired(Entry<V> entry){
+        return ttlNanos > 0 && System.nanoTime() - entry.insertedAt > ttlNanos;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long insertedAt;
+
+        private Entry(V value, long insertedAt){
+            this.value = value;
+            this.insertedAt = insertedAt;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package netlab.storage.services;
 
 import lombok.extern.slf4j.Slf4j;
 import netlab.analysis.analyzed.Analysis;
+import netlab.metrics.events.StorageEvent;
+import netlab.metrics.services.MetricsService;
 import netlab.storage.aws.dynamo.DynamoInterface;
 import netlab.storage.aws.s3.S3Interface;
 import netlab.submission.request.Request;
@@ -24,18 +26,20 @@ public class StorageService {
 
     private S3Interface s3Interface;
     private DynamoInterface dynamoInterface;
+    private MetricsService metricsService;
 
     @Autowired
-    public StorageService(S3Interface s3Interface, DynamoInterface dynamoInterface) {
+    public StorageService(S3Interface s3Interface, DynamoInterface dynamoInterface, MetricsService metricsService) {
         this.s3Interface = s3Interface;
         this.dynamoInterface = dynamoInterface;
+        this.metricsService = metricsService;
     }
 
     public boolean storeRequestSet(Request request, boolean useAws) {
         File outputFile = createFile(request.getId(),"/results/raw/");
         if(useAws){
             writeLocal(request, outputFile);
-            return s3Interface.uploadToRaw(outputFile, request.getId());
+            return metricsService.time("storage.s3Upload", () -> s3Interface.uploadToRaw(outputFile, request.getId()));
         }
         else {
             return writeLocal(request, outputFile);
@@ -46,7 +50,8 @@ public class StorageService {
         Request rs = null;
         File f = new File(System.getProperty("user.dir") + "/results/raw/" + requestSetId);
         if(useAws){
-            f = s3Interface.downloadFromRaw(f, requestSetId);
+            File localFile = f;
+            f = metricsService.time("storage.s3Download", () -> s3Interface.downloadFromRaw(localFile, requestSetId));
         }
         if(f != null && f.exists()){
             rs = readRequestSetLocal(f);
@@ -58,7 +63,7 @@ public class StorageService {
         File outputFile = createFile(analysis.getRequestId(), "/results/analyzed/");
         if(useAws){
             writeLocal(analysis, outputFile);
-            return s3Interface.uploadToAnalyzed(outputFile, analysis.getRequestId());
+            return metricsService.time("storage.s3Upload", () -> s3Interface.uploadToAnalyzed(outputFile, analysis.getRequestId()));
         }
         else {
             return writeLocal(analysis, outputFile);
@@ -73,7 +78,8 @@ public class StorageService {
         Analysis as = null;
         File f = new File(System.getProperty("user.dir") + "/results/analyzed/" + requestSetId);
         if(useAws && !f.exists()){
-            f = s3Interface.downloadFromAnalyzed(f, requestSetId);
+            File localFile = f;
+            f = metricsService.time("storage.s3Download", () -> s3Interface.downloadFromAnalyzed(localFile, requestSetId));
         }
         if(f != null && f.exists()){
             as = readAnalyzedSetLocal(f);
@@ -171,13 +177,16 @@ public class StorageService {
 
     private Object readLocal(File file){
         Object obj = null;
-        try{
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        try(MetricsService.Sample sample = metricsService.start("storage.readLocal")){
             FileInputStream fi = new FileInputStream(file);
             ObjectInputStream oi = new ObjectInputStream(fi);
             // Read object
             obj = oi.readObject();
             oi.close();
             fi.close();
+            commitStorageEvent(event, "read", file);
 
         } catch (FileNotFoundException e) {
             System.out.println("File not found");
@@ -188,7 +197,9 @@ public class StorageService {
     }
 
     public boolean writeLocal(Object object, File outputFile){
-        try {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        try(MetricsService.Sample sample = metricsService.start("storage.writeLocal")) {
             FileOutputStream f = new FileOutputStream(outputFile);
             ObjectOutputStream o = new ObjectOutputStream(f);
 
@@ -197,6 +208,7 @@ public class StorageService {
 
             o.close();
             f.close();
+            commitStorageEvent(event, "write", outputFile);
         } catch (FileNotFoundException e) {
             System.out.println("File not found");
             return false;
@@ -207,6 +219,16 @@ public class StorageService {
         return true;
     }
 
+    private void commitStorageEvent(StorageEvent event, String operation, File file){
+        event.end();
+        if(event.shouldCommit()){
+            event.operation = operation;
+            event.file = file.getName();
+            event.bytes = file.length();
+            event.commit();
+        }
+    }
+
     public File createFile(String id, String path){
         //String fileName = nameComponents.stream().reduce("", (s1, s2) -> s1 + "_" + s2);
         //fileName = fileName.substring(1);
@@ -0,0 +1,16 @@
+package netlab.submission.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a job ID is unknown, or the job has been evicted from the history. Surfaces to HTTP clients as
+ * 404 Not Found.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class JobNotFoundException extends RuntimeException {
+
+    public JobNotFoundException(String message){
+        super(message);
+    }
+}
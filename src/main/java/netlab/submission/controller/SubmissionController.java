@@ -2,20 +2,26 @@ package netlab.submission.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import netlab.processing.ProcessingService;
+import netlab.processing.admission.AdmissionService;
 import netlab.storage.services.StorageService;
+import netlab.submission.request.Job;
 import netlab.submission.request.Request;
 import netlab.submission.request.RequestParameters;
 import netlab.submission.request.SimulationParameters;
+import netlab.submission.services.EnumGenerationService;
 import netlab.submission.services.GenerationService;
+import netlab.submission.services.JobService;
 import netlab.submission.services.SimulateService;
+import netlab.submission.services.SubmissionService;
 import netlab.submission.simulate.SimRequest;
 import netlab.submission.simulate.SimResponse;
-import netlab.visualization.PrintingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import javax.validation.Valid;
@@ -29,12 +35,17 @@ public class SubmissionController {
 
     @Autowired
     public SubmissionController(GenerationService generationService, ProcessingService processingService,
-                                StorageService storageService, PrintingService printingService, SimulateService simulateService) {
+                                StorageService storageService, SimulateService simulateService,
+                                SubmissionService submissionService, JobService jobService, AdmissionService admissionService,
+                                EnumGenerationService enumGenerationService) {
         this.generationService = generationService;
         this.processingService = processingService;
         this.storageService = storageService;
-        this.printingService = printingService;
         this.simulateService = simulateService;
+        this.submissionService = submissionService;
+        this.jobService = jobService;
+        this.admissionService = admissionService;
+        this.enumGenerationService = enumGenerationService;
     }
 
     private GenerationService generationService;
@@ -43,55 +54,30 @@ public class SubmissionController {
 
     private StorageService storageService;
 
-    private PrintingService printingService;
-
     private SimulateService simulateService;
 
+    private SubmissionService submissionService;
+
+    private JobService jobService;
+
+    private AdmissionService admissionService;
+
+    private EnumGenerationService enumGenerationService;
+
     @RequestMapping(value = "/submit_sim", method = RequestMethod.POST)
     @ResponseBody
     public String submitRequest(@RequestBody SimulationParameters simulationParameters){
-        Request request = generationService.generateFromSimParams(simulationParameters);
-        log.info("Generated request set: " + request.getId());
-        // Find solutions as long as request has successfully been generated
-        boolean useAws = simulationParameters.getUseAws();
-        if(useAws) {
-            List<SimulationParameters> matchingParams = storageService.queryForId(request.getId());
-            if (!matchingParams.isEmpty()) {
-                SimulationParameters previousRun = matchingParams.get(0);
-                log.info("Details Set ID: " + request.getId() + " is already in Dynamo DB!");
-                if (previousRun.getCompleted()) {
-                    log.info("Already completed, exiting...");
-                    return request.getId();
-                }
-                log.info("Has not been completed, rerunning now...");
-            }
-        }
-        // Store the request ID and sim params in Dynamo DB
-        if(useAws) {
-            storageService.putSimulationParameters(simulationParameters);
-            log.info("Stored params");
-        }
-
-        // Process request
-        request = processingService.processRequest(request);
-        simulationParameters.setCompleted(true);
-        simulationParameters.setTimedOut(request.getTimedOut());
-        request.setCompleted(true);
-        System.out.println(printingService.outputPaths(request));
-        log.info("Processed request set");
-
-        // Store the request set
-        storageService.storeRequestSet(request, request.isUseAws());
-        log.info("Stored request set");
-
-        // Store the request ID and sim params in Dynamo DB
-        if(useAws) {
-            storageService.putSimulationParameters(simulationParameters);
-            log.info("Updated params with ID: " + request.getId());
-        }
+        // Shares the "submit" limiters with /submit, as both route synchronously on the request thread
+        return admissionService.admit("submit", enumGenerationService.getAlgorithm(simulationParameters.getAlgorithm()),
+                () -> submissionService.submitRequest(simulationParameters));
+    }
 
-        // Return the request set ID
-        return request.getId();
+    @RequestMapping(value = "/submit_sim_async", method = RequestMethod.POST)
+    @ResponseBody
+    public Job submitRequestAsync(@RequestBody SimulationParameters simulationParameters,
+                                  @RequestParam(value = "priority", required = false) Integer priority,
+                                  @RequestParam(value = "callback", required = false) String callbackUrl){
+        return jobService.submit(simulationParameters, priority, callbackUrl);
     }
 
     @RequestMapping(value = "/submit_rerun", method = RequestMethod.POST)
@@ -106,13 +92,43 @@ public class SubmissionController {
         return ids;
     }
 
+    @RequestMapping(value = "/submit_rerun_async", method = RequestMethod.POST)
+    @ResponseBody
+    public List<Job> rerunRequestsAsync(@RequestBody List<Long> seeds,
+                                        @RequestParam(value = "priority", required = false) Integer priority,
+                                        @RequestParam(value = "callback", required = false) String callbackUrl){
+        List<Job> jobs = new ArrayList<>();
+        for(Long seed : seeds) {
+            List<SimulationParameters> matchingParams = storageService.queryForSeed(seed).parallelStream().filter(p -> !p.getCompleted()).collect(Collectors.toList());
+            jobs.addAll(jobService.submitAll(matchingParams, priority, callbackUrl));
+        }
+        return jobs;
+    }
+
+    @RequestMapping(value = "/jobs/{jobId}", method = RequestMethod.GET)
+    @ResponseBody
+    public Job getJob(@PathVariable String jobId){
+        Job job = jobService.getJob(jobId);
+        if(job == null){
+            throw new JobNotFoundException("No job with ID " + jobId);
+        }
+        return job;
+    }
+
+    @RequestMapping(value = "/jobs", method = RequestMethod.GET)
+    @ResponseBody
+    public List<Job> getJobs(){
+        return jobService.getJobs();
+    }
+
     @RequestMapping(value = "/submit", method = RequestMethod.POST)
     @ResponseBody
     public String submitRequest(@RequestBody RequestParameters requestParameters){
         Request request = generationService.generateFromRequestParams(requestParameters, null);
 
         if(request != null) {
-            request = processingService.processRequest(request);
+            Request generated = request;
+            request = admissionService.admit("submit", generated.getAlgorithm(), () -> processingService.processRequest(generated));
 
             storageService.storeRequestSet(request, request.isUseAws());
         }
@@ -125,13 +141,24 @@ public class SubmissionController {
     @Valid
     public SimResponse simulateRequest(@RequestBody SimRequest simRequest){
 
+        SimResponse cachedResponse = simulateService.getCachedResponse(simRequest);
+        if(cachedResponse != null){
+            return cachedResponse;
+        }
+
         Request request = simulateService.generateRequest(simRequest);
 
 
         if(request != null){
-            request = processingService.processRequest(request, simRequest.getNetwork());
+            Request generated = request;
+            request = admissionService.admit("simulate", generated.getAlgorithm(),
+                    () -> processingService.processRequest(generated, simRequest.getNetwork()));
         }
         // Translate request into sim response
-        return simulateService.formatResponse(request);
+        SimResponse simResponse = simulateService.formatResponse(request);
+        if(request != null) {
+            simulateService.cacheResponse(simRequest, simResponse);
+        }
+        return simResponse;
     }
 }
@@ -0,0 +1,44 @@
+package netlab.submission.enums;
+
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+public enum JobStage {
+    Queued("queued"),
+    Generating("generating"),
+    Routing("routing"),
+    Storing("storing"),
+    Completed("completed"),
+    Failed("failed"),
+    Rejected("rejected");
+
+    private String code;
+
+    JobStage(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return this.code;
+    }
+
+    private static final Map<String, JobStage> lookup = new HashMap<>();
+
+    static {
+        for (JobStage js : EnumSet.allOf(JobStage.class)) {
+            lookup.put(js.getCode(), js);
+        }
+    }
+
+    public static Optional<JobStage> get(String code) {
+        String lookupCode = code.toLowerCase();
+        if (lookup.containsKey(lookupCode)) {
+            return Optional.of(lookup.get(lookupCode));
+        } else {
+            return Optional.empty();
+        }
+    }
+}
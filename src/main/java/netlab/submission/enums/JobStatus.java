@@ -0,0 +1,46 @@
+package netlab.submission.enums;
+
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+public enum JobStatus {
+    Queued("queued"),
+    Running("running"),
+    Completed("completed"),
+    Failed("failed"),
+    Rejected("rejected");
+
+    private String code;
+
+    JobStatus(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return this.code;
+    }
+
+    public boolean isFinished(){
+        return this == Completed || this == Failed || this == Rejected;
+    }
+
+    private static final Map<String, JobStatus> lookup = new HashMap<>();
+
+    static {
+        for (JobStatus js : EnumSet.allOf(JobStatus.class)) {
+            lookup.put(js.getCode(), js);
+        }
+    }
+
+    public static Optional<JobStatus> get(String code) {
+        String lookupCode = code.toLowerCase();
+        if (lookup.containsKey(lookupCode)) {
+            return Optional.of(lookup.get(lookupCode));
+        } else {
+            return Optional.empty();
+        }
+    }
+}
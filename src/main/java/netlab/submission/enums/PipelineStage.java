@@ -0,0 +1,39 @@
+package netlab.submission.enums;
+
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+public enum PipelineStage {
+    Routed("routed"),
+    Analyzed("analyzed");
+
+    private String code;
+
+    PipelineStage(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return this.code;
+    }
+
+    private static final Map<String, PipelineStage> lookup = new HashMap<>();
+
+    static {
+        for (PipelineStage ps : EnumSet.allOf(PipelineStage.class)) {
+            lookup.put(ps.getCode(), ps);
+        }
+    }
+
+    public static Optional<PipelineStage> get(String code) {
+        String lookupCode = code.toLowerCase();
+        if (lookup.containsKey(lookupCode)) {
+            return Optional.of(lookup.get(lookupCode));
+        } else {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package netlab.submission.enums;
+
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+public enum PortfolioMode {
+    // Wait for every algorithm, for comparison studies
+    All("all"),
+    // Stop once the best feasible result can't be beaten, cancelling the rest
+    Best("best");
+
+    private String code;
+
+    PortfolioMode(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return this.code;
+    }
+
+    private static final Map<String, PortfolioMode> lookup = new HashMap<>();
+
+    static {
+        for (PortfolioMode mode : EnumSet.allOf(PortfolioMode.class)) {
+            lookup.put(mode.getCode(), mode);
+        }
+    }
+
+    public static Optional<PortfolioMode> get(String code) {
+        String lookupCode = code.toLowerCase();
+        if (lookup.containsKey(lookupCode)) {
+            return Optional.of(lookup.get(lookupCode));
+        } else {
+            return Optional.empty();
+        }
+    }
+}
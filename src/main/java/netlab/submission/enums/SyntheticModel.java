@@ -0,0 +1,42 @@
+package netlab.submission.enums;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+
+public enum SyntheticModel {
+    Waxman("waxman"),
+    BarabasiAlbert("ba"),
+    Grid("grid"),
+    Torus("torus"),
+    Geometric("geometric");
+
+    private String code;
+
+    SyntheticModel(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return this.code;
+    }
+
+    private static final Map<String, SyntheticModel> lookup = new HashMap<>();
+
+    static {
+        for (SyntheticModel sm : EnumSet.allOf(SyntheticModel.class)) {
+            lookup.put(sm.getCode(), sm);
+        }
+    }
+
+    public static Optional<SyntheticModel> get(String code) {
+        String lookupCode = code.toLowerCase();
+        if (lookup.containsKey(lookupCode)) {
+            return Optional.of(lookup.get(lookupCode));
+        } else {
+            return Optional.empty();
+        }
+    }
+}
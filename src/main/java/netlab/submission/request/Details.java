@@ -35,4 +35,11 @@ public class Details implements Serializable {
     private double runningTimeSeconds;
 
     private Boolean isFeasible;
+
+    // Only set for ILP solutions
+    private Double incumbentObjective;
+
+    private Double bestBound;
+
+    private Double mipGap;
 }
@@ -0,0 +1,144 @@
+package netlab.submission.request;
+
+import netlab.topology.elements.Failure;
+import netlab.topology.elements.Node;
+import netlab.topology.elements.SourceDestPair;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * The algorithm-independent part of a request's Details: chosen sources and destinations, failure set, and failure
+ * groups. Generated once per seed and scenario, and shared by every algorithm run on it, so all of its collections
+ * are read-only. Each request gets its own Details (and Failures / NumFailureEvents wrappers) from toDetails, where it
+ * records its own paths and results.
+ */
+public final class GeneratedScenario implements Serializable {
+
+    private final Set<Node> sources;
+    private final Set<Node> destinations;
+    private final Set<SourceDestPair> pairs;
+
+    // Sorted by ID, used to assign connection requirements deterministically
+    private final List<Node> sortedSources;
+    private final List<Node> sortedDestinations;
+    private final List<SourceDestPair> sortedPairs;
+
+    private final Failures failures;
+    private final NumFailureEvents numFailureEvents;
+
+    public GeneratedScenario(Set<Node> sources, Set<Node> destinations, Set<SourceDestPair> pairs,
+                             List<Node> sortedSources, List<Node> sortedDestinations, List<SourceDestPair> sortedPairs,
+                             Failures failures, NumFailureEvents numFailureEvents){
+        this.sources = Collections.unmodifiableSet(sources);
+        this.destinations = Collections.unmodifiableSet(destinations);
+        this.pairs = Collections.unmodifiableSet(pairs);
+        this.sortedSources = Collections.unmodifiableList(sortedSources);
+        this.sortedDestinations = Collections.unmodifiableList(sortedDestinations);
+        this.sortedPairs = Collections.unmodifiableList(sortedPairs);
+        this.failures = Failures.builder()
+                .failureSetSize(failures.getFailureSetSize())
+                .failureSet(Collections.unmodifiableSet(failures.getFailureSet()))
+                .failureGroups(readOnlyGroups(failures.getFailureGroups()))
+                .pairFailuresMap(readOnlySets(failures.getPairFailuresMap()))
+                .pairFailureGroupsMap(readOnlyGroupMap(failures.getPairFailureGroupsMap()))
+                .srcFailuresMap(readOnlySets(failures.getSrcFailuresMap()))
+                .dstFailuresMap(readOnlySets(failures.getDstFailuresMap()))
+                .srcFailureGroupsMap(readOnlyGroupMap(failures.getSrcFailureGroupsMap()))
+                .dstFailureGroupsMap(readOnlyGroupMap(failures.getDstFailureGroupsMap()))
+                .build();
+        this.numFailureEvents = NumFailureEvents.builder()
+                .totalNumFailureEvents(numFailureEvents.getTotalNumFailureEvents())
+                .pairNumFailureEvents(Collections.unmodifiableMap(numFailureEvents.getPairNumFailureEvents()))
+                .srcNumFailureEvents(Collections.unmodifiableMap(numFailureEvents.getSrcNumFailureEvents()))
+                .dstNumFailureEvents(Collections.unmodifiableMap(numFailureEvents.getDstNumFailureEvents()))
+                .build();
+    }
+
+    public Set<Node> getSources(){
+        return sources;
+    }
+
+    public Set<Node> getDestinations(){
+        return destinations;
+    }
+
+    public Set<SourceDestPair> getPairs(){
+        return pairs;
+    }
+
+    public List<Node> getSortedSources(){
+        return sortedSources;
+    }
+
+    public List<Node> getSortedDestinations(){
+        return sortedDestinations;
+    }
+
+    public List<SourceDestPair> getSortedPairs(){
+        return sortedPairs;
+    }
+
+    public int getFailureSetSize(){
+        return failures.getFailureSet().size();
+    }
+
+    /**
+     * Create Details for one request over this scenario. The shared collections are referenced, not copied.
+     * @param connections The request's connection requirements.
+     * @return New Details, with no paths chosen yet.
+     */
+    public Details toDetails(Connections connections){
+        Failures requestFailures = Failures.builder()
+                .failureSetSize(failures.getFailureSetSize())
+                .failureSet(failures.getFailureSet())
+                .failureGroups(failures.getFailureGroups())
+                .pairFailuresMap(failures.getPairFailuresMap())
+                .pairFailureGroupsMap(failures.getPairFailureGroupsMap())
+                .srcFailuresMap(failures.getSrcFailuresMap())
+                .dstFailuresMap(failures.getDstFailuresMap())
+                .srcFailureGroupsMap(failures.getSrcFailureGroupsMap())
+                .dstFailureGroupsMap(failures.getDstFailureGroupsMap())
+                .build();
+        NumFailureEvents requestNumFailureEvents = NumFailureEvents.builder()
+                .totalNumFailureEvents(numFailureEvents.getTotalNumFailureEvents())
+                .pairNumFailureEvents(numFailureEvents.getPairNumFailureEvents())
+                .srcNumFailureEvents(numFailureEvents.getSrcNumFailureEvents())
+                .dstNumFailureEvents(numFailureEvents.getDstNumFailureEvents())
+                .build();
+        return Details.builder()
+                .sources(sources)
+                .destinations(destinations)
+                .connections(connections)
+                .failures(requestFailures)
+                .numFailureEvents(requestNumFailureEvents)
+                .pairs(pairs)
+                .runningTimeSeconds(0L)
+                .isFeasible(false)
+                .build();
+    }
+
+    private static List<List<Failure>> readOnlyGroups(List<List<Failure>> groups){
+        List<List<Failure>> readOnly = new ArrayList<>(groups.size());
+        for(List<Failure> group : groups){
+            readOnly.add(Collections.unmodifiableList(group));
+        }
+        return Collections.unmodifiableList(readOnly);
+    }
+
+    private static <K> Map<K, Set<Failure>> readOnlySets(Map<K, Set<Failure>> map){
+        Map<K, Set<Failure>> readOnly = new HashMap<>();
+        for(Map.Entry<K, Set<Failure>> entry : map.entrySet()){
+            readOnly.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(readOnly);
+    }
+
+    private static <K> Map<K, List<List<Failure>>> readOnlyGroupMap(Map<K, List<List<Failure>>> map){
+        Map<K, List<List<Failure>>> readOnly = new HashMap<>();
+        for(Map.Entry<K, List<List<Failure>>> entry : map.entrySet()){
+            readOnly.put(entry.getKey(), readOnlyGroups(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(readOnly);
+    }
+}
@@ -0,0 +1,31 @@
+package netlab.submission.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import netlab.submission.enums.JobStage;
+import netlab.submission.enums.JobStatus;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Job {
+
+    private String jobId;
+    private String requestId;
+    private String algorithm;
+    private Integer priority;
+    private String callbackUrl;
+
+    // Updated by the worker thread while the job runs, read by polling clients
+    private volatile JobStatus status;
+    private volatile JobStage stage;
+    private volatile Double progress;
+    private volatile String errorMessage;
+
+    private Long submittedAtMillis;
+    private volatile Long startedAtMillis;
+    private volatile Long finishedAtMillis;
+}
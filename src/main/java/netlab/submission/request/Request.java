@@ -53,6 +53,10 @@ public class Request implements Serializable {
 
     private Integer cutoffTimeSeconds;
 
+    private Algorithm warmStart;
+
+    private boolean contractTopology;
+
     public Boolean timedOut;
 
 }
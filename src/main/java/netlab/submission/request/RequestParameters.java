@@ -63,4 +63,8 @@ public class RequestParameters {
     private Boolean ignoreFailures;
     private Integer numThreads;
 
+    private String warmStart;
+
+    private Boolean contractTopology;
+
 }
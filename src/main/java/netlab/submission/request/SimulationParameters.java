@@ -76,6 +76,21 @@ public class SimulationParameters {
     public Integer cutoffTimeSeconds;
     public Boolean timedOut;
 
+    // Heuristic used to seed the ILP with an initial solution ("none", "flexbhandari" or "tabu")
+    public String warmStart;
+
+    // Contract chains of degree-2 nodes into single links before routing
+    public Boolean contractTopology;
+
+    // Comma separated algorithms to race on the same generated request instead of running the algorithm above
+    public String portfolio;
+
+    // "all" waits for every algorithm, "best" stops once the best feasible result can't be beaten
+    public String portfolioMode;
+
+    // Seconds per algorithm, e.g. "ilp:60,tabu:10". Algorithms not listed get cutoffTimeSeconds.
+    public String portfolioBudgets;
+
     public SimulationParameters clone(){
         try{
             return (SimulationParameters) super.clone();
@@ -116,6 +131,11 @@ public class SimulationParameters {
                     .numThreads(numThreads)
                     .cutoffTimeSeconds(cutoffTimeSeconds)
                     .timedOut(timedOut)
+                    .warmStart(warmStart)
+                    .contractTopology(contractTopology)
+                    .portfolio(portfolio)
+                    .portfolioMode(portfolioMode)
+                    .portfolioBudgets(portfolioBudgets)
                     .build();
         }
     }
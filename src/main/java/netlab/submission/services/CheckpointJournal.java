@@ -0,0 +1,87 @@
+package netlab.submission.services;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.submission.enums.PipelineStage;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only record of the pipeline stages each request has finished, one "requestId stage" line per entry.
+ * Every entry is forced to disk before record() returns, so a run that is killed can be resumed from the journal alone.
+ * A partially written last line (from a kill mid-write) is ignored when the journal is replayed.
+ */
+@Slf4j
+public class CheckpointJournal implements Closeable {
+
+    private final Path file;
+    private final Map<String, Set<PipelineStage>> completed = new ConcurrentHashMap<>();
+    private final FileOutputStream out;
+
+    public CheckpointJournal(Path file) throws IOException {
+        this.file = file;
+        if(file.getParent() != null){
+            Files.createDirectories(file.getParent());
+        }
+        if(Files.exists(file)){
+            replay();
+        }
+        out = new FileOutputStream(file.toFile(), true);
+    }
+
+    public boolean isCompleted(String requestId, PipelineStage stage){
+        Set<PipelineStage> stages = completed.get(requestId);
+        return stages != null && stages.contains(stage);
+    }
+
+    /**
+     * Record that a request has finished a stage.
+     * @param requestId The ID of the request set.
+     * @param stage The stage it finished.
+     */
+    public synchronized void record(String requestId, PipelineStage stage) throws IOException {
+        byte[] line = (requestId + " " + stage.getCode() + "\n").getBytes(StandardCharsets.UTF_8);
+        out.write(line);
+        out.getFD().sync();
+        completed.computeIfAbsent(requestId, id -> EnumSet.noneOf(PipelineStage.class)).add(stage);
+    }
+
+    public Path getFile(){
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private void replay() throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        String text = new String(content, StandardCharsets.UTF_8);
+        // Anything after the last newline was never fully written
+        int end = text.lastIndexOf('\n');
+        if(end < text.length() - 1){
+            log.warn("Ignoring incomplete last entry in journal " + file);
+        }
+        int entries = 0;
+        for(String line : text.substring(0, end + 1).split("\n")){
+            String[] parts = line.trim().split(" ");
+            Optional<PipelineStage> stage = parts.length == 2 ? PipelineStage.get(parts[1]) : Optional.empty();
+            if(stage.isPresent()){
+                completed.computeIfAbsent(parts[0], id -> EnumSet.noneOf(PipelineStage.class)).add(stage.get());
+                entries++;
+            }
+        }
+        log.info("Replayed " + entries + " entries from journal " + file);
+        if(end < text.length() - 1){
+            // Drop the partial entry so new entries start on their own line
+            try(FileOutputStream truncate = new FileOutputStream(file.toFile(), true)){
+                truncate.getChannel().truncate(end + 1);
+            }
+        }
+    }
+}
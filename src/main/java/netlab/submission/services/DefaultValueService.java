@@ -173,6 +173,12 @@ public class DefaultValueService {
         if(params.getNumThreads() == null){
             params.setNumThreads(8);
         }
+        if(params.getWarmStart() == null){
+            params.setWarmStart("none");
+        }
+        if(params.getContractTopology() == null){
+            params.setContractTopology(false);
+        }
         return params;
     }
 
@@ -299,6 +305,12 @@ public class DefaultValueService {
         if(params.getNumThreads() == null){
             params.setNumThreads(8);
         }
+        if(params.getWarmStart() == null){
+            params.setWarmStart("none");
+        }
+        if(params.getContractTopology() == null){
+            params.setContractTopology(false);
+        }
 
         // Default cutoff of one hour
         if(params.getCutoffTimeSeconds() == null || params.getCutoffTimeSeconds() < 0){
@@ -12,6 +12,15 @@ public class EnumGenerationService {
         return Algorithm.get(alg.toLowerCase()).orElse(Algorithm.MinimumCostPath);
     }
 
+    public Algorithm getWarmStart(String alg){
+        Algorithm algorithm = Algorithm.get(alg.toLowerCase()).orElse(null);
+        if(algorithm != null && !algorithm.equals(Algorithm.FlexBhandari) && !algorithm.equals(Algorithm.Tabu)){
+            log.warn("Warm start is only supported with flexbhandari or tabu, ignoring " + alg);
+            return null;
+        }
+        return algorithm;
+    }
+
     public TrafficCombinationType getTrafficCombinationType(String type){
         return TrafficCombinationType.get(type.toLowerCase()).orElse(TrafficCombinationType.None);
     }
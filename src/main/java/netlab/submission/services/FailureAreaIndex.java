@@ -0,0 +1,200 @@
+package netlab.submission.services;
+
+import netlab.topology.elements.Link;
+import netlab.topology.elements.LinkGeometry;
+import netlab.topology.elements.Location;
+import netlab.topology.elements.Node;
+
+import java.util.*;
+
+/**
+ * Spatial index over a topology's nodes and link points, for finding what a failure area can reach.
+ * Points are bucketed into a uniform lat/lon grid, and their coordinates are kept in primitive arrays so candidates can
+ * be screened with a spherical distance in a tight loop. The screen is conservative (the WGS84 geodesic distance is
+ * never less than 99% of the spherical one), so every point it drops is outside the area and would have had weight 0.
+ * Only the points that pass need the exact geodesic distance.
+ */
+public class FailureAreaIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double SCREEN_MARGIN = 1.01;
+    private static final double SCREEN_SLACK_KM = 0.01;
+    private static final double CELL_DEGREES = 1.0;
+    private static final int ROWS = (int) Math.ceil(180 / CELL_DEGREES);
+    private static final int COLS = (int) Math.ceil(360 / CELL_DEGREES);
+
+    private final Node[] nodes;
+    private final Location[] nodeLocations;
+    private final Grid nodeGrid;
+
+    private final Link[] links;
+    // Points of link l are pointLocations[linkStart[l]] to pointLocations[linkStart[l+1] - 1], in the order of its
+    // LinkGeometry
+    private final int[] linkStart;
+    private final int[] pointLink;
+    private final Location[] pointLocations;
+    private final Grid pointGrid;
+
+    public FailureAreaIndex(Set<Node> nodeSet, Set<Link> linkSet){
+        nodes = nodeSet.toArray(new Node[0]);
+        nodeLocations = new Location[nodes.length];
+        for(int i = 0; i < nodes.length; i++){
+            nodeLocations[i] = nodes[i].getPoint();
+        }
+        nodeGrid = new Grid(nodeLocations);
+
+        links = linkSet.toArray(new Link[0]);
+        linkStart = new int[links.length + 1];
+        List<Location> points = new ArrayList<>();
+        for(int l = 0; l < links.length; l++){
+            linkStart[l] = points.size();
+            LinkGeometry geometry = links[l].getGeometry();
+            if(geometry != null){
+                for(int p = 0; p < geometry.size(); p++){
+                    points.add(geometry.location(p));
+                }
+            }
+        }
+        linkStart[links.length] = points.size();
+        pointLocations = points.toArray(new Location[0]);
+        pointLink = new int[pointLocations.length];
+        for(int l = 0; l < links.length; l++){
+            Arrays.fill(pointLink, linkStart[l], linkStart[l + 1], l);
+        }
+        pointGrid = new Grid(pointLocations);
+    }
+
+    public int getNumNodes(){
+        return nodes.length;
+    }
+
+    public Node getNode(int i){
+        return nodes[i];
+    }
+
+    public Location getNodeLocation(int i){
+        return nodeLocations[i];
+    }
+
+    public int getNumLinks(){
+        return links.length;
+    }
+
+    public Link getLink(int l){
+        return links[l];
+    }
+
+    public int getNumPoints(){
+        return pointLocations.length;
+    }
+
+    public Location getPointLocation(int p){
+        return pointLocations[p];
+    }
+
+    public int getPointLink(int p){
+        return pointLink[p];
+    }
+
+    /**
+     * Find the nodes that may be within radiusKm of the center.
+     * @param out - Receives the candidate node indices, must hold getNumNodes() entries.
+     * @return The number of candidates.
+     */
+    public int nodeCandidates(Location center, double radiusKm, int[] out){
+        return nodeGrid.candidates(center, radiusKm, out);
+    }
+
+    /**
+     * Find the link points that may be within radiusKm of the center, in ascending order, so the points of each link
+     * are together and in their original order.
+     * @param out - Receives the candidate point indices, must hold getNumPoints() entries.
+     * @return The number of candidates.
+     */
+    public int pointCandidates(Location center, double radiusKm, int[] out){
+        int count = pointGrid.candidates(center, radiusKm, out);
+        Arrays.sort(out, 0, count);
+        return count;
+    }
+
+    private static class Grid {
+        private final double[] latRadians;
+        private final double[] lonRadians;
+        private final double[] cosLat;
+        // Points in cell c are cellPoints[cellStart[c]] to cellPoints[cellStart[c+1] - 1]
+        private final int[] cellStart = new int[ROWS * COLS + 1];
+        private final int[] cellPoints;
+
+        private Grid(Location[] locations){
+            int n = locations.length;
+            latRadians = new double[n];
+            lonRadians = new double[n];
+            cosLat = new double[n];
+            int[] cells = new int[n];
+            for(int i = 0; i < n; i++){
+                double lat = locations[i].getLatitude();
+                double lon = locations[i].getLongitude();
+                latRadians[i] = Math.toRadians(lat);
+                lonRadians[i] = Math.toRadians(lon);
+                cosLat[i] = Math.cos(latRadians[i]);
+                cells[i] = row(lat) * COLS + col(lon);
+                cellStart[cells[i] + 1]++;
+            }
+            for(int c = 0; c < ROWS * COLS; c++){
+                cellStart[c + 1] += cellStart[c];
+            }
+            cellPoints = new int[n];
+            int[] next = Arrays.copyOf(cellStart, ROWS * COLS);
+            for(int i = 0; i < n; i++){
+                cellPoints[next[cells[i]]++] = i;
+            }
+        }
+
+        private int candidates(Location center, double radiusKm, int[] out){
+            double angle = (Math.max(radiusKm, 0.0) * SCREEN_MARGIN + SCREEN_SLACK_KM) / EARTH_RADIUS_KM;
+            double centerLat = Math.toRadians(center.getLatitude());
+            double centerLon = Math.toRadians(center.getLongitude());
+            double centerCos = Math.cos(centerLat);
+            // Haversine of the screening angle, compared against each point's haversine directly
+            double maxHav = angle >= Math.PI ? Double.POSITIVE_INFINITY : hav(angle);
+
+            // Rows and columns covering the spherical cap, padded by a cell for rounding
+            double angleDegrees = Math.toDegrees(angle);
+            int firstRow = row(center.getLatitude() - angleDegrees) - 1;
+            int lastRow = row(center.getLatitude() + angleDegrees) + 1;
+            boolean allCols = angle >= Math.PI / 2 || Math.sin(angle) >= centerCos;
+            int colSpan = allCols ? COLS : (int) Math.ceil(Math.toDegrees(Math.asin(Math.sin(angle) / centerCos)) / CELL_DEGREES) + 1;
+            int centerCol = col(center.getLongitude());
+            int firstCol = allCols || 2 * colSpan + 1 >= COLS ? 0 : centerCol - colSpan;
+            int lastCol = allCols || 2 * colSpan + 1 >= COLS ? COLS - 1 : centerCol + colSpan;
+
+            int count = 0;
+            for(int r = Math.max(0, firstRow); r <= Math.min(ROWS - 1, lastRow); r++){
+                for(int c = firstCol; c <= lastCol; c++){
+                    int cell = r * COLS + Math.floorMod(c, COLS);
+                    for(int k = cellStart[cell]; k < cellStart[cell + 1]; k++){
+                        int i = cellPoints[k];
+                        double h = hav(latRadians[i] - centerLat) + centerCos * cosLat[i] * hav(lonRadians[i] - centerLon);
+                        if(h <= maxHav){
+                            out[count++] = i;
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+
+        private static double hav(double angle){
+            double s = Math.sin(angle / 2);
+            return s * s;
+        }
+    }
+
+    private static int row(double lat){
+        return Math.max(0, Math.min(ROWS - 1, (int) Math.floor((lat + 90) / CELL_DEGREES)));
+    }
+
+    private static int col(double lon){
+        return Math.floorMod((int) Math.floor((lon + 180) / CELL_DEGREES), COLS);
+    }
+}
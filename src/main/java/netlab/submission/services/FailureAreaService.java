@@ -97,60 +97,80 @@ public class FailureAreaService {
         return determineFailuresBasedOnArea(failureAreas, nodeOptions, links, failureClass);
     }
 
+    /**
+     * Index a topology's nodes and links, so many failure areas can be evaluated against it with
+     * determineFailuresBasedOnArea.
+     */
+    public FailureAreaIndex buildIndex(Set<Node> nodes, Set<Link> links){
+        return new FailureAreaIndex(nodes, links);
+    }
+
     private Set<Failure> determineFailuresBasedOnArea(List<FailureArea> failureAreas, Set<Node> nodes,
                                                       Set<Link> links, FailureClass failureClass) {
+        return determineFailuresBasedOnArea(failureAreas, buildIndex(nodes, links), failureClass);
+    }
+
+    public Set<Failure> determineFailuresBasedOnArea(List<FailureArea> failureAreas, FailureAreaIndex index,
+                                                     FailureClass failureClass) {
         Set<Failure> failures = new HashSet<>();
         if(failureClass.equals(FailureClass.Both)){
-            failures.addAll(determineNodeFailures(failureAreas, nodes));
-            failures.addAll(determineLinkFailures(failureAreas, links));
+            failures.addAll(determineNodeFailures(failureAreas, index));
+            failures.addAll(determineLinkFailures(failureAreas, index));
         } else if(failureClass.equals(FailureClass.Node)){
-            failures.addAll(determineNodeFailures(failureAreas, nodes));
+            failures.addAll(determineNodeFailures(failureAreas, index));
         } else if(failureClass.equals(FailureClass.Link)){
-            failures.addAll(determineLinkFailures(failureAreas, links));
+            failures.addAll(determineLinkFailures(failureAreas, index));
         }
         return failures;
     }
 
-    private Set<Failure> determineNodeFailures(List<FailureArea> failureAreas, Set<Node> nodes){
+    private Set<Failure> determineNodeFailures(List<FailureArea> failureAreas, FailureAreaIndex index){
         Set<Failure> failures = new HashSet<>();
-        // Check each node
-        for(Node node : nodes){
-            Location nodePoint = node.getPoint();
-            // For now, take the maximum weight from any failure area
-            double max = 0.0;
-            for(FailureArea fa : failureAreas){
-                double distance = fa.getCenter().distanceTo(nodePoint);
+        // For now, take the maximum weight from any failure area
+        double[] max = new double[index.getNumNodes()];
+        int[] candidates = new int[index.getNumNodes()];
+        for(FailureArea fa : failureAreas){
+            // Nodes outside the area have weight 0, so only the ones the index can't rule out are checked
+            int numCandidates = index.nodeCandidates(fa.getCenter(), fa.getRadius(), candidates);
+            for(int c = 0; c < numCandidates; c++){
+                int i = candidates[c];
+                double distance = fa.getCenter().distanceTo(index.getNodeLocation(i));
                 double weight = Math.max(0.0, 1.0 - (distance)/fa.getRadius());
                 // If you're not using distance based weighting, then the weight is 1.0 (node will fail)
                 if(weight > 0.0 && fa.getMustFail()){
                     weight = 1.0;
                 }
-                if(weight > max){
-                    max = weight;
+                if(weight > max[i]){
+                    max[i] = weight;
                 }
             }
-            if(max > 0.0){
-                Failure failure = new Failure(node, null, max);
+        }
+        for(int i = 0; i < max.length; i++){
+            if(max[i] > 0.0){
+                Failure failure = new Failure(index.getNode(i), null, max[i]);
                 failures.add(failure);
             }
         }
         return failures;
     }
 
-    private Set<Failure> determineLinkFailures(List<FailureArea> failureAreas, Set<Link> links){
+    private Set<Failure> determineLinkFailures(List<FailureArea> failureAreas, FailureAreaIndex index){
         Set<Failure> failures = new HashSet<>();
-        // Check each link
-        for(Link link : links){
-            Set<Location> points = link.getPoints();
-            double max = 0.0;
-            // Check each failure area
-            for(FailureArea fa : failureAreas){
-                Location center = fa.getCenter();
-                // Get all of the distances from center to link points
+        double[] max = new double[index.getNumLinks()];
+        int[] candidates = new int[index.getNumPoints()];
+        // Check each failure area
+        for(FailureArea fa : failureAreas){
+            Location center = fa.getCenter();
+            // Points outside the area have weight 0 and leave the running probability unchanged, so only the
+            // candidate points are used. They come grouped by link, in the same order as the link's points.
+            int numCandidates = index.pointCandidates(center, fa.getRadius(), candidates);
+            int c = 0;
+            while(c < numCandidates){
+                int link = index.getPointLink(candidates[c]);
                 // Calculate the failure weights
                 double runningProb = 1.0;
-                for(Location linkPoint : points){
-                    double distance = center.distanceTo(linkPoint);
+                for(; c < numCandidates && index.getPointLink(candidates[c]) == link; c++){
+                    double distance = center.distanceTo(index.getPointLocation(candidates[c]));
                     double weight = Math.max(0.0, 1.0 - (distance)/fa.getRadius());
                     runningProb *= (1 - weight);
                 }
@@ -159,12 +179,14 @@ public class FailureAreaService {
                 if(compoundWeight > 0.0 && fa.getMustFail()){
                     compoundWeight = 1.0;
                 }
-                if(compoundWeight > max){
-                    max = compoundWeight;
+                if(compoundWeight > max[link]){
+                    max[link] = compoundWeight;
                 }
             }
-            if(max > 0.0){
-                Failure failure = new Failure(null, link, max);
+        }
+        for(int l = 0; l < max.length; l++){
+            if(max[l] > 0.0){
+                Failure failure = new Failure(null, index.getLink(l), max[l]);
                 failures.add(failure);
             }
         }
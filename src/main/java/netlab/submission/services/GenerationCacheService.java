@@ -0,0 +1,103 @@
+package netlab.submission.services;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.analysis.services.HashingService;
+import netlab.storage.cache.LruCache;
+import netlab.submission.request.GeneratedScenario;
+import netlab.submission.request.SimulationParameters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.function.Supplier;
+
+/**
+ * Memo of generated scenarios, so runs that only differ by algorithm (same seed, topology, sources/destinations and
+ * failure scenario) share one copy of the sources, destinations, failure set and failure groups instead of each
+ * generating its own. Scenarios are kept in an in-memory LRU, and can also be written to a directory so they survive
+ * between JVMs. Either level is disabled by setting its size to 0 or leaving the directory empty.
+ */
+@Service
+@Slf4j
+public class GenerationCacheService {
+
+    private HashingService hashingService;
+
+    private LruCache<String, GeneratedScenario> scenarioCache;
+
+    private Path cacheDir;
+
+    @Autowired
+    public GenerationCacheService(HashingService hashingService,
+                                  @Value("${generation_cache_size:16}") int cacheSize,
+                                  @Value("${generation_cache_dir:}") String cacheDir){
+        this.hashingService = hashingService;
+        this.scenarioCache = new LruCache<>(cacheSize, 0);
+        this.cacheDir = cacheDir != null && !cacheDir.isEmpty() ? Paths.get(System.getProperty("user.dir"), cacheDir) : null;
+    }
+
+    /**
+     * Get the scenario for these parameters, generating it if it isn't cached in memory or on disk.
+     * @param params The simulation parameters, with defaults already assigned.
+     * @param generator Generates the scenario on a miss.
+     * @return The shared scenario.
+     */
+    public GeneratedScenario getOrGenerate(SimulationParameters params, Supplier<GeneratedScenario> generator){
+        String key = hashingService.hashGenerationInputs(params);
+        return scenarioCache.computeIfAbsent(key, k -> {
+            GeneratedScenario scenario = readScenario(k);
+            if(scenario == null){
+                scenario = generator.get();
+                writeScenario(k, scenario);
+            }
+            return scenario;
+        });
+    }
+
+    public long getHits(){
+        return scenarioCache.getHits();
+    }
+
+    public long getMisses(){
+        return scenarioCache.getMisses();
+    }
+
+    public void clear(){
+        scenarioCache.clear();
+    }
+
+    private GeneratedScenario readScenario(String key){
+        if(cacheDir == null){
+            return null;
+        }
+        Path file = cacheDir.resolve(key);
+        if(!Files.exists(file)){
+            return null;
+        }
+        try(ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))){
+            return (GeneratedScenario) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            log.warn("Could not read cached scenario " + file + ", regenerating", e);
+            return null;
+        }
+    }
+
+    private void writeScenario(String key, GeneratedScenario scenario){
+        if(cacheDir == null || scenario == null){
+            return;
+        }
+        try {
+            Files.createDirectories(cacheDir);
+            // Write to a temporary file first so readers never see a partial scenario
+            Path tmp = Files.createTempFile(cacheDir, key, ".tmp");
+            try(ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))){
+                out.writeObject(scenario);
+            }
+            Files.move(tmp, cacheDir.resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write cached scenario " + key, e);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package netlab.submission.services;
 
 import lombok.extern.slf4j.Slf4j;
 import netlab.analysis.services.HashingService;
+import netlab.metrics.events.GenerationEvent;
+import netlab.metrics.services.MetricsService;
 import netlab.submission.enums.*;
 import netlab.submission.request.*;
 import netlab.submission.simulate.Network;
@@ -30,26 +32,37 @@ public class GenerationService {
 
     private HashingService hashingService;
 
+    private MetricsService metricsService;
+
+    private GenerationCacheService generationCacheService;
+
     @Autowired
     public GenerationService(TopologyService topologyService, DefaultValueService defaultValueService,
                              EnumGenerationService enumGenerationService, FailureGenerationService failureGenerationService,
-                             SelectionService selectionService, HashingService hashingService) {
+                             SelectionService selectionService, HashingService hashingService, MetricsService metricsService,
+                             GenerationCacheService generationCacheService) {
         this.topologyService = topologyService;
         this.defaultValueService = defaultValueService;
         this.enumGenerationService = enumGenerationService;
         this.failureGenerationService = failureGenerationService;
         this.selectionService = selectionService;
         this.hashingService = hashingService;
+        this.metricsService = metricsService;
+        this.generationCacheService = generationCacheService;
     }
 
     public Request generateFromSimParams(SimulationParameters params){
-
+        GenerationEvent event = new GenerationEvent();
+        event.begin();
         params = defaultValueService.assignDefaults(params);
-        Details details = createDetailsFromParameters(params);
+        Details details;
+        try(MetricsService.Sample sample = metricsService.start("generation")) {
+            details = createDetailsFromParameters(params);
+        }
         String setId = params.getRequestId() != null && !params.getRequestId().isEmpty()
                 ? params.getRequestId().toLowerCase() : hashingService.createRequestId(params);
         params.setRequestId(setId);
-        return Request.builder()
+        Request request = Request.builder()
                 .details(details)
                 .completed(params.getCompleted())
                 .id(setId)
@@ -70,13 +83,29 @@ public class GenerationService {
                 .numThreads(params.getNumThreads())
                 .cutoffTimeSeconds(params.getCutoffTimeSeconds())
                 .timedOut(params.getTimedOut())
+                .warmStart(enumGenerationService.getWarmStart(params.getWarmStart()))
+                .contractTopology(params.getContractTopology())
                 .build();
+        event.end();
+        if(event.shouldCommit()){
+            event.requestId = setId;
+            event.topologyId = params.getTopologyId();
+            event.seed = params.getSeed() != null ? params.getSeed() : 0;
+            event.pairCount = details.getPairs() != null ? details.getPairs().size() : 0;
+            event.failureGroupCount = details.getFailures() != null && details.getFailures().getFailureGroups() != null
+                    ? details.getFailures().getFailureGroups().size() : 0;
+            event.commit();
+        }
+        return request;
     }
 
 
     public Request generateFromRequestParams(RequestParameters params, Network network) {
         params = defaultValueService.assignDefaults(params);
-        Details details = createDetailsFromRequestParameters(params, network);
+        Details details;
+        try(MetricsService.Sample sample = metricsService.start("generation")) {
+            details = createDetailsFromRequestParameters(params, network);
+        }
         String requestId = UUID.randomUUID().toString();
         Random rng = new Random();
         Long seed = ((long) (rng.nextDouble() * (1000L)));
@@ -100,6 +129,8 @@ public class GenerationService {
                 .numThreads(params.getNumThreads())
                 .cutoffTimeSeconds(3600)
                 .timedOut(false)
+                .warmStart(enumGenerationService.getWarmStart(params.getWarmStart()))
+                .contractTopology(params.getContractTopology())
                 .build();
     }
 
@@ -272,12 +303,28 @@ public class GenerationService {
             return null;
         }
 
-        Random rng = new Random(params.getSeed());
-        return createDetails(params, topo, rng);
+        // Every algorithm run on the same seed and scenario gets the same sources, destinations, and failures
+        GeneratedScenario scenario = generationCacheService.getOrGenerate(params,
+                () -> generateScenario(params, topo, new Random(params.getSeed())));
+        return createDetails(params, scenario);
 
     }
 
     public Details createDetails(SimulationParameters params, Topology topo, Random rng){
+        return createDetails(params, generateScenario(params, topo, rng));
+    }
+
+    private Details createDetails(SimulationParameters params, GeneratedScenario scenario){
+        params.setFailureSetSize(scenario.getFailureSetSize());
+
+        // Determine number of connections
+        Connections connectionsCollection = assignConnections(params, scenario.getSortedPairs(),
+                scenario.getSortedSources(), scenario.getSortedDestinations());
+
+        return scenario.toDetails(connectionsCollection);
+    }
+
+    private GeneratedScenario generateScenario(SimulationParameters params, Topology topo, Random rng){
 
         Set<Node> sources = selectionService.pickSources(topo.getNodes(), params.getNumSources(), rng);
         SourceSubsetDestType sourceSubsetDestType = enumGenerationService.getSourceSubsetDestType(params.getSourceSubsetDestType());
@@ -295,27 +342,15 @@ public class GenerationService {
         List<Node> sortedDests = new ArrayList<>(destinations);
         sortedDests.sort(Comparator.comparing(Node::getId));
 
-        Failures failureCollection = failureGenerationService.assignFailureSets(params, sortedSources, sortedDests, sortedPairs, topo, rng);
-        params.setFailureSetSize(failureCollection.getFailureSet().size());
+        Failures failureCollection = metricsService.time("generation.failureSets",
+                () -> failureGenerationService.assignFailureSets(params, sortedSources, sortedDests, sortedPairs, topo, rng));
 
         // Determine number of cuts
-        NumFailureEvents numFailureEventsCollection = failureGenerationService.assignNumFails(params, sortedPairs, sortedSources, sortedDests, failureCollection, rng);
-
-
-        // Determine number of connections
-        Connections connectionsCollection = assignConnections(params, sortedPairs, sortedSources, sortedDests);
-
+        NumFailureEvents numFailureEventsCollection = metricsService.time("generation.failureGroups",
+                () -> failureGenerationService.assignNumFails(params, sortedPairs, sortedSources, sortedDests, failureCollection, rng));
 
-        return Details.builder()
-                .sources(sources)
-                .destinations(destinations)
-                .connections(connectionsCollection)
-                .failures(failureCollection)
-                .numFailureEvents(numFailureEventsCollection)
-                .pairs(pairs)
-                .runningTimeSeconds(0L)
-                .isFeasible(false)
-                .build();
+        return new GeneratedScenario(sources, destinations, pairs, sortedSources, sortedDests, sortedPairs,
+                failureCollection, numFailureEventsCollection);
     }
 
     private Connections assignConnections(SimulationParameters params, Collection<SourceDestPair> pairs, Collection<Node> sources,
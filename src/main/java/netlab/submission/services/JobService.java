@@ -0,0 +1,252 @@
+package netlab.submission.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import netlab.submission.enums.Algorithm;
+import netlab.submission.enums.JobStage;
+import netlab.submission.enums.JobStatus;
+import netlab.submission.request.Job;
+import netlab.submission.request.SimulationParameters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Runs simulation jobs in the background. Jobs wait in a bounded queue ordered by priority (then submission order),
+ * and are dispatched to a fixed pool of workers as long as the limit for the job's algorithm has not been reached.
+ */
+@Service
+@Slf4j
+public class JobService {
+
+    private SubmissionService submissionService;
+
+    private EnumGenerationService enumGenerationService;
+
+    private RestTemplate restTemplate;
+
+    private ExecutorService executor;
+
+    private int maxConcurrentJobs;
+
+    private int queueCapacity;
+
+    private int historySize;
+
+    private Map<Algorithm, Integer> algorithmLimits;
+
+    // Guarded by "this"
+    private TreeSet<QueuedJob> pending;
+    private Map<Algorithm, Integer> runningPerAlgorithm;
+    private int running;
+
+    private Map<String, Job> jobs;
+    private Deque<String> finishedJobIds;
+    private AtomicLong sequence;
+
+    @Autowired
+    public JobService(SubmissionService submissionService, EnumGenerationService enumGenerationService,
+                      @Value("${job_max_concurrent:0}") int maxConcurrentJobs,
+                      @Value("${job_queue_capacity:1000}") int queueCapacity,
+                      @Value("${job_history_size:10000}") int historySize,
+                      @Value("${job_algorithm_limits:ilp:1}") String algorithmLimits){
+        this.submissionService = submissionService;
+        this.enumGenerationService = enumGenerationService;
+        this.maxConcurrentJobs = maxConcurrentJobs > 0 ? maxConcurrentJobs : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = queueCapacity;
+        this.historySize = historySize;
+        this.algorithmLimits = parseAlgorithmLimits(algorithmLimits);
+        this.restTemplate = new RestTemplate();
+        this.executor = Executors.newFixedThreadPool(this.maxConcurrentJobs);
+        this.pending = new TreeSet<>(Comparator.comparing(QueuedJob::getPriority).reversed()
+                .thenComparing(QueuedJob::getSequence));
+        this.runningPerAlgorithm = new EnumMap<>(Algorithm.class);
+        this.running = 0;
+        this.jobs = new ConcurrentHashMap<>();
+        this.finishedJobIds = new ArrayDeque<>();
+        this.sequence = new AtomicLong(0);
+    }
+
+    /**
+     * Queue a simulation run.
+     * @param params The parameters for the run.
+     * @param priority Jobs with a higher priority are dispatched first. Defaults to 0.
+     * @param callbackUrl If provided, the finished job will be POSTed to this URL.
+     * @return The job, with status Queued, or Rejected if the queue is full.
+     */
+    public Job submit(SimulationParameters params, Integer priority, String callbackUrl){
+        Algorithm algorithm = params.getAlgorithm() != null ? enumGenerationService.getAlgorithm(params.getAlgorithm()) : Algorithm.ILP;
+        Job job = Job.builder()
+                .jobId(UUID.randomUUID().toString())
+                .requestId(params.getRequestId())
+                .algorithm(algorithm.getCode())
+                .priority(priority != null ? priority : 0)
+                .callbackUrl(callbackUrl)
+                .status(JobStatus.Queued)
+                .stage(JobStage.Queued)
+                .progress(0.0)
+                .submittedAtMillis(System.currentTimeMillis())
+                .build();
+        jobs.put(job.getJobId(), job);
+
+        boolean accepted;
+        synchronized (this) {
+            accepted = pending.size() < queueCapacity;
+            if(accepted) {
+                pending.add(new QueuedJob(job, params, algorithm, job.getPriority(), sequence.getAndIncrement()));
+            }
+        }
+        if(!accepted){
+            log.warn("Job queue is full (" + queueCapacity + " jobs), rejecting job " + job.getJobId());
+            finish(job, JobStatus.Rejected, "Job queue is full");
+            return job;
+        }
+        log.info("Queued job " + job.getJobId() + " (" + algorithm.getCode() + ", priority " + job.getPriority() + ")");
+        dispatch();
+        return job;
+    }
+
+    public List<Job> submitAll(List<SimulationParameters> paramsList, Integer priority, String callbackUrl){
+        return paramsList.stream().map(p -> submit(p, priority, callbackUrl)).collect(Collectors.toList());
+    }
+
+    public Job getJob(String jobId){
+        return jobs.get(jobId);
+    }
+
+    public List<Job> getJobs(){
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(Job::getSubmittedAtMillis))
+                .collect(Collectors.toList());
+    }
+
+    public synchronized int getQueueDepth(){
+        return pending.size();
+    }
+
+    public synchronized int getRunningCount(){
+        return running;
+    }
+
+    /**
+     * Start as many queued jobs as the global and per-algorithm limits allow. Jobs whose algorithm is at its limit
+     * are skipped over, so a backlog of ILP runs does not hold up the heuristics queued behind them.
+     */
+    private synchronized void dispatch(){
+        Iterator<QueuedJob> iterator = pending.iterator();
+        while(running < maxConcurrentJobs && iterator.hasNext()){
+            QueuedJob queuedJob = iterator.next();
+            Algorithm algorithm = queuedJob.getAlgorithm();
+            int algRunning = runningPerAlgorithm.getOrDefault(algorithm, 0);
+            if(algRunning >= algorithmLimits.getOrDefault(algorithm, maxConcurrentJobs)){
+                continue;
+            }
+            iterator.remove();
+            running++;
+            runningPerAlgorithm.put(algorithm, algRunning + 1);
+            executor.submit(() -> run(queuedJob));
+        }
+    }
+
+    private void run(QueuedJob queuedJob){
+        Job job = queuedJob.getJob();
+        job.setStartedAtMillis(System.currentTimeMillis());
+        job.setStatus(JobStatus.Running);
+        try {
+            String requestId = submissionService.submitRequest(queuedJob.getParams(), (stage, progress) -> {
+                job.setStage(stage);
+                job.setProgress(progress);
+            });
+            job.setRequestId(requestId);
+            finish(job, JobStatus.Completed, null);
+        } catch (Exception e) {
+            log.error("Job " + job.getJobId() + " failed: " + e.getMessage(), e);
+            finish(job, JobStatus.Failed, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            synchronized (this) {
+                running--;
+                runningPerAlgorithm.merge(queuedJob.getAlgorithm(), -1, Integer::sum);
+            }
+            dispatch();
+        }
+    }
+
+    private void finish(Job job, JobStatus status, String errorMessage){
+        job.setErrorMessage(errorMessage);
+        job.setFinishedAtMillis(System.currentTimeMillis());
+        job.setStage(JobStage.get(status.getCode()).orElse(job.getStage()));
+        if(status == JobStatus.Completed){
+            job.setProgress(1.0);
+        }
+        job.setStatus(status);
+        log.info("Job " + job.getJobId() + " " + status.getCode());
+        evictOldJobs(job.getJobId());
+        sendCallback(job);
+    }
+
+    private void evictOldJobs(String finishedJobId){
+        synchronized (finishedJobIds) {
+            finishedJobIds.addLast(finishedJobId);
+            while (finishedJobIds.size() > historySize) {
+                jobs.remove(finishedJobIds.removeFirst());
+            }
+        }
+    }
+
+    private void sendCallback(Job job){
+        if(job.getCallbackUrl() == null || job.getCallbackUrl().isEmpty()){
+            return;
+        }
+        try {
+            restTemplate.postForLocation(job.getCallbackUrl(), job);
+        } catch (Exception e) {
+            log.warn("Callback to " + job.getCallbackUrl() + " for job " + job.getJobId() + " failed: " + e.getMessage());
+        }
+    }
+
+    private Map<Algorithm, Integer> parseAlgorithmLimits(String limits){
+        Map<Algorithm, Integer> limitMap = new EnumMap<>(Algorithm.class);
+        if(limits == null || limits.trim().isEmpty()){
+            return limitMap;
+        }
+        for(String entry : limits.split(",")){
+            String[] splitEntry = entry.trim().split(":");
+            if(splitEntry.length != 2){
+                log.warn("Ignoring malformed algorithm limit: " + entry);
+                continue;
+            }
+            Optional<Algorithm> algorithm = Algorithm.get(splitEntry[0].trim());
+            if(algorithm.isPresent()){
+                limitMap.put(algorithm.get(), Math.max(1, Integer.parseInt(splitEntry[1].trim())));
+            } else{
+                log.warn("Ignoring limit for unknown algorithm: " + splitEntry[0]);
+            }
+        }
+        return limitMap;
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdownNow();
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class QueuedJob {
+        private Job job;
+        private SimulationParameters params;
+        private Algorithm algorithm;
+        private Integer priority;
+        private Long sequence;
+    }
+}
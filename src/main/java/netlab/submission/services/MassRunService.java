@@ -0,0 +1,301 @@
+package netlab.submission.services;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.analysis.analyzed.Analysis;
+import netlab.analysis.services.AnalysisService;
+import netlab.processing.admission.AdmissionService;
+import netlab.processing.portfolio.PortfolioEntry;
+import netlab.processing.portfolio.PortfolioResult;
+import netlab.processing.portfolio.PortfolioService;
+import netlab.storage.services.StorageService;
+import netlab.submission.enums.Algorithm;
+import netlab.submission.enums.PipelineStage;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a list of simulations through three stages - routing, analysis, and persistence - each with its own pool, so
+ * requests are routed while earlier ones are analyzed and uploaded. At most a fixed number of requests are in flight
+ * at once, which bounds the queue in front of every stage.
+ * Finished stages are recorded in a checkpoint journal named after the run, so rerunning the same list skips the
+ * requests that were already analyzed, and analyzes (rather than reroutes) those that were already routed and stored.
+ * A simulation with a portfolio races its algorithms, then stores and analyzes each algorithm's request set. Its
+ * generated request ID is journaled as analyzed once all of them are, and until then the whole race is rerun on resume.
+ */
+@Service
+@Slf4j
+public class MassRunService {
+
+    private GenerationService generationService;
+
+    private SubmissionService submissionService;
+
+    private PortfolioService portfolioService;
+
+    private AnalysisService analysisService;
+
+    private StorageService storageService;
+
+    private AdmissionService admissionService;
+
+    private int routingThreads;
+
+    private int analysisThreads;
+
+    private int persistenceThreads;
+
+    private int queueCapacity;
+
+    private String journalDir;
+
+    @Autowired
+    public MassRunService(GenerationService generationService, SubmissionService submissionService,
+                          PortfolioService portfolioService, AnalysisService analysisService, StorageService storageService,
+                          AdmissionService admissionService,
+                          @Value("${mass_run_routing_threads:0}") int routingThreads,
+                          @Value("${mass_run_analysis_threads:2}") int analysisThreads,
+                          @Value("${mass_run_persistence_threads:4}") int persistenceThreads,
+                          @Value("${mass_run_queue_capacity:8}") int queueCapacity,
+                          @Value("${mass_run_journal_dir:results/journal}") String journalDir){
+        this.generationService = generationService;
+        this.submissionService = submissionService;
+        this.portfolioService = portfolioService;
+        this.analysisService = analysisService;
+        this.storageService = storageService;
+        this.admissionService = admissionService;
+        this.routingThreads = routingThreads > 0 ? routingThreads : Runtime.getRuntime().availableProcessors();
+        this.analysisThreads = Math.max(1, analysisThreads);
+        this.persistenceThreads = Math.max(1, persistenceThreads);
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.journalDir = journalDir;
+    }
+
+    public Path getJournalPath(String runId){
+        return Paths.get(System.getProperty("user.dir"), journalDir, runId + ".journal");
+    }
+
+    /**
+     * Route, analyze, and store every simulation in the list, resuming from the run's journal if it exists.
+     * @param runId Names the journal, so the same ID must be used to resume a run.
+     * @param paramsList The simulations to run.
+     * @return The IDs of the request sets that have been routed, analyzed, and stored, including ones finished by an
+     * earlier attempt.
+     */
+    public List<String> run(String runId, List<SimulationParameters> paramsList) throws IOException {
+        // A portfolio takes a permit per algorithm, so leave room for the largest one even if every routing thread
+        // holds a permit of its own
+        int maxInFlight = routingThreads + Math.max(analysisThreads + persistenceThreads + queueCapacity,
+                Algorithm.values().length - 1);
+        ExecutorService routing = newStage("route", routingThreads, maxInFlight);
+        ExecutorService analysis = newStage("analyze", analysisThreads, maxInFlight);
+        ExecutorService persistence = newStage("persist", persistenceThreads, maxInFlight);
+        try(CheckpointJournal journal = new CheckpointJournal(getJournalPath(runId))){
+            Run run = new Run(journal, analysis, persistence, maxInFlight, paramsList.size());
+            for(int i = 0; i < paramsList.size(); i++){
+                SimulationParameters params = paramsList.get(i);
+                int index = i;
+                run.permits.acquire();
+                routing.execute(() -> run.route(params, index));
+            }
+            run.finished.await();
+            List<String> completed = run.completedIds.stream().flatMap(List::stream).collect(Collectors.toList());
+            log.info("Mass run " + runId + " finished: " + completed.size() + " of " + paramsList.size()
+                    + " request sets completed");
+            return completed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Mass run " + runId + " interrupted, rerun to resume from " + getJournalPath(runId));
+            return new ArrayList<>();
+        } finally {
+            routing.shutdownNow();
+            analysis.shutdownNow();
+            persistence.shutdownNow();
+        }
+    }
+
+    // Each request set holds a permit until it's finished - from before it's routed, or for a portfolio's other
+    // algorithms from when the race returns - and sits in at most one queue at a time, so a queue sized to the number
+    // of permits never rejects a task.
+    private ExecutorService newStage(String name, int threads, int capacity){
+        AtomicInteger count = new AtomicInteger(0);
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(capacity),
+                r -> {
+                    Thread t = new Thread(r, "mass-run-" + name + "-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    private class Run {
+        private final CheckpointJournal journal;
+        private final ExecutorService analysis;
+        private final ExecutorService persistence;
+        private final Semaphore permits;
+        private final CountDownLatch finished;
+        // Per simulation: the request sets it completed, how many (each with a permit) are still in the pipeline, and
+        // whether any failed
+        private final List<List<String>> completedIds;
+        private final AtomicInteger[] remaining;
+        private final boolean[] failed;
+        // The generated request ID of simulations run as a portfolio, journaled once all of its request sets are done
+        private final String[] portfolioIds;
+
+        private Run(CheckpointJournal journal, ExecutorService analysis, ExecutorService persistence,
+                    int maxInFlight, int numRequests){
+            this.journal = journal;
+            this.analysis = analysis;
+            this.persistence = persistence;
+            this.permits = new Semaphore(maxInFlight);
+            this.finished = new CountDownLatch(numRequests);
+            this.completedIds = new ArrayList<>();
+            this.remaining = new AtomicInteger[numRequests];
+            for(int i = 0; i < numRequests; i++){
+                completedIds.add(Collections.synchronizedList(new ArrayList<>()));
+                remaining[i] = new AtomicInteger(1);
+            }
+            this.failed = new boolean[numRequests];
+            this.portfolioIds = new String[numRequests];
+        }
+
+        private void route(SimulationParameters params, int index){
+            try {
+                Request request = generationService.generateFromSimParams(params);
+                String requestId = request.getId();
+                if(submissionService.isPortfolio(params)){
+                    routePortfolio(request, params, index);
+                    return;
+                }
+                if(journal.isCompleted(requestId, PipelineStage.Analyzed)){
+                    log.info("Request set " + requestId + " already analyzed, skipping");
+                    complete(index, requestId);
+                    return;
+                }
+                if(journal.isCompleted(requestId, PipelineStage.Routed)){
+                    // storeRequestSet always keeps a local copy, so only go to S3 if it's missing
+                    Request stored = storageService.retrieveRequestSet(requestId, false);
+                    if(stored == null && Boolean.TRUE.equals(params.getUseAws())){
+                        stored = storageService.retrieveRequestSet(requestId, true);
+                    }
+                    if(stored != null && stored.isCompleted()){
+                        log.info("Request set " + requestId + " already routed, resuming at analysis");
+                        Request resumed = stored;
+                        analysis.execute(() -> analyze(resumed, params, index));
+                        return;
+                    }
+                    log.warn("Request set " + requestId + " is journaled as routed but could not be loaded, rerouting");
+                }
+                Request routed = admissionService.admit("submit", request.getAlgorithm(),
+                        () -> submissionService.route(request, params));
+                persistence.execute(() -> storeRequest(routed, params, index));
+            } catch (Exception e) {
+                fail(index, params, "routing", e);
+            }
+        }
+
+        private void storeRequest(Request request, SimulationParameters params, int index){
+            try {
+                if(!submissionService.store(request, params)){
+                    throw new IOException("Could not store request set " + request.getId());
+                }
+                journal.record(request.getId(), PipelineStage.Routed);
+                analysis.execute(() -> analyze(request, params, index));
+            } catch (Exception e) {
+                fail(index, params, "storing the request set", e);
+            }
+        }
+
+        private void analyze(Request request, SimulationParameters params, int index){
+            try {
+                Analysis result = admissionService.admit("analyze", request.getAlgorithm(),
+                        () -> analysisService.analyzeRequest(request));
+                persistence.execute(() -> storeAnalysis(result, params, index));
+            } catch (Exception e) {
+                fail(index, params, "analysis", e);
+            }
+        }
+
+        private void storeAnalysis(Analysis result, SimulationParameters params, int index){
+            try {
+                if(!storageService.storeAnalyzedSet(result, Boolean.TRUE.equals(params.getUseAws()))){
+                    throw new IOException("Could not store analysis " + result.getRequestId());
+                }
+                journal.record(result.getRequestId(), PipelineStage.Analyzed);
+                log.info("Stored analysis " + result.getRequestId());
+                complete(index, result.getRequestId());
+            } catch (Exception e) {
+                fail(index, params, "storing the analysis", e);
+            }
+        }
+
+        // Each algorithm's request set goes through storage and analysis on its own
+        private void routePortfolio(Request request, SimulationParameters params, int index)
+                throws IOException, InterruptedException {
+            if(journal.isCompleted(request.getId(), PipelineStage.Analyzed)){
+                log.info("Portfolio for request set " + request.getId() + " already analyzed, skipping");
+                List<String> analyzed = portfolioService.requestIds(params).values().stream()
+                        .filter(id -> journal.isCompleted(id, PipelineStage.Analyzed))
+                        .collect(Collectors.toList());
+                completedIds.get(index).addAll(analyzed);
+                finishOne(index);
+                return;
+            }
+            PortfolioResult result = admissionService.admit("submit", request.getAlgorithm(),
+                    () -> submissionService.routePortfolio(request, params));
+            List<PortfolioEntry> routed = result.getEntries().stream()
+                    .filter(entry -> entry.getRequest() != null)
+                    .collect(Collectors.toList());
+            if(routed.isEmpty()){
+                throw new IOException("No algorithm in the portfolio routed request set " + request.getId());
+            }
+            permits.acquire(routed.size() - 1);
+            portfolioIds[index] = request.getId();
+            remaining[index].set(routed.size());
+            for(PortfolioEntry entry : routed){
+                SimulationParameters algorithmParams = submissionService.paramsFor(params, entry);
+                try {
+                    persistence.execute(() -> storeRequest(entry.getRequest(), algorithmParams, index));
+                } catch (RuntimeException e) {
+                    // Never queued, so it's finished here rather than by the pipeline
+                    fail(index, algorithmParams, "queueing the request set", e);
+                }
+            }
+        }
+
+        private void complete(int index, String requestId){
+            completedIds.get(index).add(requestId);
+            finishOne(index);
+        }
+
+        private void fail(int index, SimulationParameters params, String stage, Exception e){
+            log.error("Mass run failed during " + stage + " for request set " + params.getRequestId(), e);
+            failed[index] = true;
+            finishOne(index);
+        }
+
+        private void finishOne(int index){
+            permits.release();
+            if(remaining[index].decrementAndGet() > 0){
+                return;
+            }
+            if(portfolioIds[index] != null && !failed[index]){
+                try {
+                    journal.record(portfolioIds[index], PipelineStage.Analyzed);
+                } catch (IOException e) {
+                    log.error("Could not journal portfolio " + portfolioIds[index], e);
+                }
+            }
+            finished.countDown();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package netlab.submission.services;
 
 import lombok.extern.slf4j.Slf4j;
+import netlab.analysis.services.HashingService;
+import netlab.storage.cache.LruCache;
 import netlab.submission.request.Request;
 import netlab.submission.request.RequestParameters;
 import netlab.submission.simulate.*;
@@ -8,6 +10,7 @@ import netlab.topology.elements.Node;
 import netlab.topology.elements.Path;
 import netlab.topology.elements.SourceDestPair;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -18,12 +21,37 @@ import java.util.stream.Collectors;
 public class SimulateService {
 
     @Autowired
-    public SimulateService(GenerationService generationService){
+    public SimulateService(GenerationService generationService, HashingService hashingService,
+                           @Value("${simulate_cache_size:0}") int responseCacheSize,
+                           @Value("${simulate_cache_ttl_seconds:300}") long responseCacheTtlSeconds){
         this.generationService = generationService;
+        this.hashingService = hashingService;
+        this.responseCache = new LruCache<>(responseCacheSize, responseCacheTtlSeconds);
     }
 
     private GenerationService generationService;
 
+    private HashingService hashingService;
+
+    // Responses keyed by the content hash of the full request. Disabled when the configured size is 0.
+    private LruCache<String, SimResponse> responseCache;
+
+    public SimResponse getCachedResponse(SimRequest simRequest){
+        if(!responseCache.isEnabled()){
+            return null;
+        }
+        assignDefaults(simRequest);
+        return responseCache.get(hashingService.hashSimRequest(simRequest));
+    }
+
+    public void cacheResponse(SimRequest simRequest, SimResponse simResponse){
+        if(!responseCache.isEnabled()){
+            return;
+        }
+        assignDefaults(simRequest);
+        responseCache.put(hashingService.hashSimRequest(simRequest), simResponse);
+    }
+
     public Request generateRequest(SimRequest simRequest) {
         assignDefaults(simRequest);
         RequestParameters requestParameters = makeRequestParameters(simRequest);
@@ -32,7 +60,7 @@ public class SimulateService {
     }
 
     private void assignDefaults(SimRequest simRequest) {
-        System.out.println(simRequest);
+        log.debug("Assigning defaults to {}", simRequest);
         List<RoutingParam> routingParams = simRequest.getRoutingParams();
         for(RoutingParam rp : routingParams){
             if(rp.getNeededD() == null){
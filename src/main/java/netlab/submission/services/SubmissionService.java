@@ -0,0 +1,179 @@
+package netlab.submission.services;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.processing.ProcessingService;
+import netlab.processing.portfolio.PortfolioEntry;
+import netlab.processing.portfolio.PortfolioResult;
+import netlab.processing.portfolio.PortfolioService;
+import netlab.storage.services.StorageService;
+import netlab.submission.enums.JobStage;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import netlab.visualization.PrintingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+@Service
+@Slf4j
+public class SubmissionService {
+
+    private GenerationService generationService;
+
+    private ProcessingService processingService;
+
+    private StorageService storageService;
+
+    private PrintingService printingService;
+
+    private PortfolioService portfolioService;
+
+    @Autowired
+    public SubmissionService(GenerationService generationService, ProcessingService processingService,
+                             StorageService storageService, PrintingService printingService,
+                             PortfolioService portfolioService) {
+        this.generationService = generationService;
+        this.processingService = processingService;
+        this.storageService = storageService;
+        this.printingService = printingService;
+        this.portfolioService = portfolioService;
+    }
+
+    public String submitRequest(SimulationParameters simulationParameters){
+        return submitRequest(simulationParameters, (stage, progress) -> {});
+    }
+
+    /**
+     * Generate, route, and store a simulation run.
+     * @param simulationParameters The parameters describing the run.
+     * @param progressListener Receives each stage as it begins, along with the fraction of the run completed.
+     * @return The ID of the request set.
+     */
+    public String submitRequest(SimulationParameters simulationParameters, BiConsumer<JobStage, Double> progressListener){
+        progressListener.accept(JobStage.Generating, 0.0);
+        Request request = generationService.generateFromSimParams(simulationParameters);
+        log.info("Generated request set: " + request.getId());
+        if(isPortfolio(simulationParameters)){
+            return submitPortfolio(request, simulationParameters, progressListener);
+        }
+        // Find solutions as long as request has successfully been generated
+        boolean useAws = Boolean.TRUE.equals(simulationParameters.getUseAws());
+        if(useAws) {
+            List<SimulationParameters> matchingParams = storageService.queryForId(request.getId());
+            if (!matchingParams.isEmpty()) {
+                SimulationParameters previousRun = matchingParams.get(0);
+                log.info("Details Set ID: " + request.getId() + " is already in Dynamo DB!");
+                if (previousRun.getCompleted()) {
+                    log.info("Already completed, exiting...");
+                    progressListener.accept(JobStage.Completed, 1.0);
+                    return request.getId();
+                }
+                log.info("Has not been completed, rerunning now...");
+            }
+        }
+
+        // Process request
+        progressListener.accept(JobStage.Routing, 0.2);
+        request = route(request, simulationParameters);
+        System.out.println(printingService.outputPaths(request));
+
+        // Store the request set
+        progressListener.accept(JobStage.Storing, 0.8);
+        store(request, simulationParameters);
+        progressListener.accept(JobStage.Completed, 1.0);
+
+        // Return the request set ID
+        return request.getId();
+    }
+
+    /**
+     * Route a generated request, storing its sim params in Dynamo DB first if using AWS. The params and request are
+     * marked as completed.
+     * @return The routed request.
+     */
+    public Request route(Request request, SimulationParameters simulationParameters){
+        // Store the request ID and sim params in Dynamo DB
+        if(Boolean.TRUE.equals(simulationParameters.getUseAws())) {
+            storageService.putSimulationParameters(simulationParameters);
+            log.info("Stored params");
+        }
+        Request routed = processingService.processRequest(request);
+        simulationParameters.setCompleted(true);
+        simulationParameters.setTimedOut(routed.getTimedOut());
+        routed.setCompleted(true);
+        log.info("Processed request set " + routed.getId());
+        return routed;
+    }
+
+    /**
+     * Store a routed request set, and update its sim params in Dynamo DB if using AWS.
+     * @return True if the request set was stored.
+     */
+    public boolean store(Request request, SimulationParameters simulationParameters){
+        if(!storageService.storeRequestSet(request, request.isUseAws())){
+            log.error("Could not store request set " + request.getId());
+            return false;
+        }
+        log.info("Stored request set " + request.getId());
+        if(Boolean.TRUE.equals(simulationParameters.getUseAws())) {
+            storageService.putSimulationParameters(simulationParameters);
+            log.info("Updated params with ID: " + request.getId());
+        }
+        return true;
+    }
+
+    /**
+     * Race the portfolio's algorithms on the generated request, and store each algorithm's routing (and parameters,
+     * if using AWS) under its own ID, as if it had been submitted on its own.
+     * @return The ID of the best feasible request set, or the generated request's ID if none were feasible.
+     */
+    private String submitPortfolio(Request request, SimulationParameters simulationParameters,
+                                   BiConsumer<JobStage, Double> progressListener){
+        progressListener.accept(JobStage.Routing, 0.2);
+        PortfolioResult result = routePortfolio(request, simulationParameters);
+
+        progressListener.accept(JobStage.Storing, 0.8);
+        for(PortfolioEntry entry : result.getEntries()){
+            if(entry.getRequest() != null){
+                store(entry.getRequest(), paramsFor(simulationParameters, entry));
+            }
+        }
+        log.info("Stored portfolio request sets");
+        progressListener.accept(JobStage.Completed, 1.0);
+        return result.getBestRequestId() != null ? result.getBestRequestId() : request.getId();
+    }
+
+    public boolean isPortfolio(SimulationParameters simulationParameters){
+        return simulationParameters.getPortfolio() != null && !simulationParameters.getPortfolio().trim().isEmpty();
+    }
+
+    /**
+     * Race the portfolio's algorithms on a generated request. Every request set that was routed (i.e. wasn't
+     * cancelled or failed) is marked as completed, and can be stored with the params from paramsFor.
+     */
+    public PortfolioResult routePortfolio(Request request, SimulationParameters simulationParameters){
+        PortfolioResult result = portfolioService.run(request, simulationParameters);
+        for(PortfolioEntry entry : result.getEntries()){
+            if(entry.getRequest() != null){
+                entry.getRequest().setCompleted(true);
+            }
+        }
+        log.info("Processed portfolio for request set " + request.getId());
+        return result;
+    }
+
+    /**
+     * @return The sim params of one algorithm's run in a portfolio, as if it had been submitted on its own.
+     */
+    public SimulationParameters paramsFor(SimulationParameters simulationParameters, PortfolioEntry entry){
+        SimulationParameters algorithmParams = simulationParameters.clone();
+        algorithmParams.setAlgorithm(entry.getAlgorithm().getCode());
+        algorithmParams.setRequestId(entry.getRequestId());
+        algorithmParams.setPortfolio(null);
+        algorithmParams.setCompleted(entry.getRequest() != null);
+        algorithmParams.setTimedOut(entry.getRequest() != null ? entry.getRequest().getTimedOut() : null);
+        return algorithmParams;
+    }
+}
@@ -0,0 +1,275 @@
+package netlab.topology.elements;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.*;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * A path stored as an array of link indices into an IndexedTopology, for holding large numbers of precomputed paths
+ * (e.g. in TopologyMetrics). The node list, ID sets and string ID that Path keeps eagerly are derived on first use, and
+ * hashing and equality go through a 64-bit fingerprint of the link indices. Only the topology reference and the
+ * indices are serialized, and the topology is written once no matter how many paths share it.
+ * The string ID matches Path's, so the two can be used interchangeably as keys.
+ */
+public class CompactPath implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final IndexedTopology topology;
+    private final int[] links;
+
+    private transient long fingerprint;
+    private transient double totalWeight;
+
+    // Derived on first use
+    private transient String id;
+    private transient int[] nodes;
+    private transient Set<String> linkIds;
+    private transient Set<String> reverseLinkIds;
+    private transient Set<String> nodeIds;
+
+    public CompactPath(IndexedTopology topology, int[] links){
+        this.topology = topology;
+        this.links = links.clone();
+        init();
+    }
+
+    /**
+     * Convert a path into a compact one.
+     * @throws IllegalArgumentException If the path uses a link that isn't in the indexed topology.
+     */
+    public static CompactPath of(Path path, IndexedTopology topology){
+        int[] indices = new int[path.getLinks().size()];
+        for(int i = 0; i < indices.length; i++){
+            String linkId = path.getLinks().get(i).getId();
+            indices[i] = topology.indexOfLink(linkId);
+            if(indices[i] < 0){
+                throw new IllegalArgumentException("Link " + linkId + " is not in topology " + topology.getTopologyId());
+            }
+        }
+        return new CompactPath(topology, indices);
+    }
+
+    public IndexedTopology getTopology(){
+        return topology;
+    }
+
+    public int size(){
+        return links.length;
+    }
+
+    public boolean isEmpty(){
+        return links.length == 0;
+    }
+
+    public int getLinkIndex(int position){
+        return links[position];
+    }
+
+    public long getFingerprint(){
+        return fingerprint;
+    }
+
+    public Double getTotalWeight(){
+        return totalWeight;
+    }
+
+    public String getId(){
+        if(id == null){
+            if(links.length == 0){
+                id = "EMPTY";
+            } else{
+                StringBuilder builder = new StringBuilder();
+                for(int i = 0; i < links.length; i++){
+                    if(i > 0){
+                        builder.append('_');
+                    }
+                    builder.append(topology.getLink(links[i]).getId());
+                }
+                id = builder.toString();
+            }
+        }
+        return id;
+    }
+
+    public Node getSource(){
+        return links.length > 0 ? topology.getLink(links[0]).getOrigin() : null;
+    }
+
+    public Node getDestination(){
+        return links.length > 0 ? topology.getLink(links[links.length - 1]).getTarget() : null;
+    }
+
+    public List<Link> getLinks(){
+        List<Link> pathLinks = new ArrayList<>(links.length);
+        for(int link : links){
+            pathLinks.add(topology.getLink(link));
+        }
+        return pathLinks;
+    }
+
+    public List<Node> getNodes(){
+        List<Node> pathNodes = new ArrayList<>(links.length + 1);
+        if(links.length == 0){
+            return pathNodes;
+        }
+        for(int link : links){
+            pathNodes.add(topology.getLink(link).getOrigin());
+        }
+        pathNodes.add(getDestination());
+        return pathNodes;
+    }
+
+    public Set<String> getLinkIds(){
+        if(linkIds == null){
+            Set<String> ids = new HashSet<>();
+            for(int link : links){
+                ids.add(topology.getLink(link).getId());
+            }
+            linkIds = Collections.unmodifiableSet(ids);
+        }
+        return linkIds;
+    }
+
+    public Set<String> getReverseLinkIds(){
+        if(reverseLinkIds == null){
+            Set<String> ids = new HashSet<>();
+            for(int link : links){
+                ids.add(topology.getReverseLinkId(link));
+            }
+            reverseLinkIds = Collections.unmodifiableSet(ids);
+        }
+        return reverseLinkIds;
+    }
+
+    public Set<String> getNodeIds(){
+        if(nodeIds == null){
+            Set<String> ids = new HashSet<>();
+            for(Node node : getNodes()){
+                ids.add(node.getId());
+            }
+            nodeIds = Collections.unmodifiableSet(ids);
+        }
+        return nodeIds;
+    }
+
+    /**
+     * Same as Path.containsFailureId: whether a node on the path, or a link on it in either direction, has this ID.
+     */
+    public boolean containsFailureId(String failureId){
+        for(int matching : topology.linksMatchingFailure(failureId)){
+            for(int link : links){
+                if(link == matching){
+                    return true;
+                }
+            }
+        }
+        int node = topology.indexOfNode(failureId);
+        if(node < 0 || links.length == 0){
+            return false;
+        }
+        for(int pathNode : nodeIndices()){
+            if(pathNode == node){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean containsFailureIds(Collection<String> failureIds){
+        for(String failureId : failureIds){
+            if(containsFailureId(failureId)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isDisjoint(CompactPath otherPath, boolean nodeDisjoint){
+        if(nodeDisjoint){
+            int[] otherNodes = otherPath.nodeIndices();
+            for(int node : nodeIndices()){
+                for(int otherNode : otherNodes){
+                    if(node == otherNode){
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        for(int link : links){
+            for(int otherLink : otherPath.links){
+                if(link == otherLink){
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public Path toPath(){
+        return new Path(getLinks());
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if(this == o){
+            return true;
+        }
+        if(!(o instanceof CompactPath)){
+            return false;
+        }
+        CompactPath other = (CompactPath) o;
+        return fingerprint == other.fingerprint && Arrays.equals(links, other.links)
+                && (topology == other.topology || Objects.equals(topology.getTopologyId(), other.topology.getTopologyId()));
+    }
+
+    @Override
+    public int hashCode(){
+        return (int) (fingerprint ^ (fingerprint >>> 32));
+    }
+
+    public String toString(){
+        return getNodes().stream().map(Node::getId).collect(joining(", "));
+    }
+
+    private int[] nodeIndices(){
+        if(nodes == null){
+            int[] pathNodes = new int[links.length == 0 ? 0 : links.length + 1];
+            for(int i = 0; i < links.length; i++){
+                pathNodes[i] = topology.getOrigin(links[i]);
+            }
+            if(links.length > 0){
+                pathNodes[links.length] = topology.getTarget(links[links.length - 1]);
+            }
+            nodes = pathNodes;
+        }
+        return nodes;
+    }
+
+    private void init(){
+        long hash = 0x9E3779B97F4A7C15L * (links.length + 1);
+        double weight = 0.0;
+        for(int link : links){
+            hash = mix(hash ^ link);
+            weight += topology.getWeight(link);
+        }
+        fingerprint = hash;
+        totalWeight = weight;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        init();
+    }
+}
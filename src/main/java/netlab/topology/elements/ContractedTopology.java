@@ -0,0 +1,85 @@
+package netlab.topology.elements;
+
+import java.util.*;
+
+/**
+ * A topology with chains of contracted nodes replaced by super-links, along with the original links and nodes each
+ * super-link stands for, so paths found on the contracted topology can be mapped back onto the original one.
+ */
+public class ContractedTopology {
+
+    private final Topology topology;
+
+    // Super-link ID -> original links, from the super-link's origin to its target
+    private final Map<String, List<Link>> memberLinks;
+
+    // Super-link ID -> original nodes strictly between its origin and target
+    private final Map<String, List<Node>> memberNodes;
+
+    public ContractedTopology(Topology topology, Map<String, List<Link>> memberLinks, Map<String, List<Node>> memberNodes){
+        this.topology = topology;
+        this.memberLinks = memberLinks;
+        this.memberNodes = memberNodes;
+    }
+
+    public Topology getTopology(){
+        return topology;
+    }
+
+    public boolean isSuperLink(Link link){
+        return memberLinks.containsKey(link.getId());
+    }
+
+    public List<Link> getMemberLinks(Link superLink){
+        return memberLinks.getOrDefault(superLink.getId(), Collections.singletonList(superLink));
+    }
+
+    public List<Node> getMemberNodes(Link superLink){
+        return memberNodes.getOrDefault(superLink.getId(), Collections.emptyList());
+    }
+
+    public int getNumSuperLinks(){
+        return memberLinks.size();
+    }
+
+    public int getNumContractedNodes(){
+        // Each chain is stored once per direction
+        return memberNodes.values().stream().mapToInt(List::size).sum() / 2;
+    }
+
+    /**
+     * Replace any super-links in a path with the original links they stand for.
+     * @param path A path over the contracted topology.
+     * @return The same path over the original topology.
+     */
+    public Path expand(Path path){
+        if(path == null || path.getLinks() == null || path.getLinks().stream().noneMatch(this::isSuperLink)){
+            return path;
+        }
+        List<Link> links = new ArrayList<>();
+        for(Link link : path.getLinks()){
+            links.addAll(getMemberLinks(link));
+        }
+        return new Path(links);
+    }
+
+    public Map<SourceDestPair, Map<String, Path>> expand(Map<SourceDestPair, Map<String, Path>> chosenPaths){
+        if(chosenPaths == null || memberLinks.isEmpty()){
+            return chosenPaths;
+        }
+        Map<SourceDestPair, Map<String, Path>> expanded = new HashMap<>();
+        for(SourceDestPair pair : chosenPaths.keySet()){
+            Map<String, Path> pathMap = chosenPaths.get(pair);
+            if(pathMap == null){
+                expanded.put(pair, null);
+                continue;
+            }
+            Map<String, Path> expandedMap = new HashMap<>();
+            for(String pathId : pathMap.keySet()){
+                expandedMap.put(pathId, expand(pathMap.get(pathId)));
+            }
+            expanded.put(pair, expandedMap);
+        }
+        return expanded;
+    }
+}
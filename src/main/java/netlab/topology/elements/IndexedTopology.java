@@ -0,0 +1,133 @@
+package netlab.topology.elements;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * An immutable numbering of a topology's nodes and links, so paths over it can be stored as arrays of link indices
+ * (see CompactPath). Nodes and links are numbered in ID order, so the same topology always gets the same numbering.
+ * Only the nodes and links are serialized; the lookup tables are rebuilt on read.
+ */
+public class IndexedTopology implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int[] NONE = new int[0];
+
+    private final String topologyId;
+    private final Node[] nodes;
+    private final Link[] links;
+
+    private transient int[] origins;
+    private transient int[] targets;
+    private transient double[] weights;
+    private transient String[] reverseLinkIds;
+    private transient Map<String, Integer> nodeIndex;
+    private transient Map<String, Integer> linkIndex;
+    // Failure ID -> links whose ID or reverse ID matches it
+    private transient Map<String, int[]> failureLinkIndex;
+
+    public IndexedTopology(Topology topo){
+        this.topologyId = topo.getId();
+        this.nodes = topo.getNodes().stream().sorted(Comparator.comparing(Node::getId)).toArray(Node[]::new);
+        this.links = topo.getLinks().stream().sorted(Comparator.comparing(Link::getId)).toArray(Link[]::new);
+        buildIndex();
+    }
+
+    public String getTopologyId(){
+        return topologyId;
+    }
+
+    public int getNumNodes(){
+        return nodes.length;
+    }
+
+    public int getNumLinks(){
+        return links.length;
+    }
+
+    public Node getNode(int index){
+        return nodes[index];
+    }
+
+    public Link getLink(int index){
+        return links[index];
+    }
+
+    public int getOrigin(int linkIndex){
+        return origins[linkIndex];
+    }
+
+    public int getTarget(int linkIndex){
+        return targets[linkIndex];
+    }
+
+    public double getWeight(int linkIndex){
+        return weights[linkIndex];
+    }
+
+    public String getReverseLinkId(int linkIndex){
+        return reverseLinkIds[linkIndex];
+    }
+
+    /**
+     * @return The index of the node with this ID, or -1 if there is none.
+     */
+    public int indexOfNode(String nodeId){
+        Integer index = nodeIndex.get(nodeId);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return The index of the link with this ID, or -1 if there is none.
+     */
+    public int indexOfLink(String linkId){
+        Integer index = linkIndex.get(linkId);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return The indices of every link that a failure with this ID would take down, in either direction.
+     */
+    public int[] linksMatchingFailure(String failureId){
+        return failureLinkIndex.getOrDefault(failureId, NONE);
+    }
+
+    private void buildIndex(){
+        nodeIndex = new HashMap<>();
+        for(int i = 0; i < nodes.length; i++){
+            nodeIndex.put(nodes[i].getId(), i);
+        }
+        origins = new int[links.length];
+        targets = new int[links.length];
+        weights = new double[links.length];
+        reverseLinkIds = new String[links.length];
+        linkIndex = new HashMap<>();
+        Map<String, List<Integer>> matching = new HashMap<>();
+        for(int i = 0; i < links.length; i++){
+            Link link = links[i];
+            Integer origin = nodeIndex.get(link.getOrigin().getId());
+            Integer target = nodeIndex.get(link.getTarget().getId());
+            origins[i] = origin != null ? origin : -1;
+            targets[i] = target != null ? target : -1;
+            weights[i] = link.getWeight();
+            reverseLinkIds[i] = link.reverseId();
+            linkIndex.put(link.getId(), i);
+            matching.computeIfAbsent(link.getId(), k -> new ArrayList<>()).add(i);
+            if(!reverseLinkIds[i].equals(link.getId())){
+                matching.computeIfAbsent(reverseLinkIds[i], k -> new ArrayList<>()).add(i);
+            }
+        }
+        failureLinkIndex = new HashMap<>();
+        for(Map.Entry<String, List<Integer>> entry : matching.entrySet()){
+            failureLinkIndex.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        buildIndex();
+    }
+}
@@ -1,23 +1,30 @@
 package netlab.topology.elements;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
-import java.awt.Point;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@EqualsAndHashCode(exclude = "geometry")
+@ToString(exclude = "geometry")
 public class Link implements Serializable {
 
+    // Pinned to the UID computed before geometry replaced points, so stored request sets and metrics still load
+    private static final long serialVersionUID = -2117290664654802982L;
+
     private String id;
 
     private Node origin;
@@ -26,14 +33,16 @@ public class Link implements Serializable {
 
     private Double weight;
 
-    private Set<Location> points;
+    // Derived from the endpoints and weight when the link is first created, and shared with copies of it
+    @JsonIgnore
+    private LinkGeometry geometry;
 
     public Link(Node origin, Node target, Integer linkNum){
         this.origin = origin;
         this.target = target;
         this.id = origin.getId() + "-" + target.getId() + "-" + linkNum;
         this.weight = 1.0;
-        setPoints();
+        initGeometry();
     }
 
     public Link(Node origin, Node target, Double weight, Integer linkNum){
@@ -41,7 +50,7 @@ public class Link implements Serializable {
         this.target = target;
         this.id = origin.getId() + "-" + target.getId() + "-" + linkNum;
         this.weight = weight;
-        setPoints();
+        initGeometry();
     }
 
     public Link(Node origin, Node target){
@@ -49,7 +58,7 @@ public class Link implements Serializable {
         this.target = target;
         this.id = origin.getId() + "-" + target.getId();
         this.weight = 1.0;
-        setPoints();
+        initGeometry();
     }
 
     public Link(Node origin, Node target, Double weight){
@@ -57,19 +66,19 @@ public class Link implements Serializable {
         this.target = target;
         this.id = origin.getId() + "-" + target.getId();
         this.weight = weight;
-        setPoints();
+        initGeometry();
     }
 
-    public Link(Node origin, Node target, Double weight, Set<Location> points){
+    public Link(Node origin, Node target, Double weight, LinkGeometry geometry){
         this.origin = origin;
         this.target = target;
         this.id = origin.getId() + "-" + target.getId();
         this.weight = weight;
-        this.points = points;
+        this.geometry = geometry;
     }
 
     public Link reverse(){
-        return new Link(this.target, this.origin, this.weight, new HashSet<>(this.points));
+        return new Link(this.target, this.origin, this.weight, this.geometry);
     }
 
     public String reverseId(){
@@ -77,24 +86,19 @@ public class Link implements Serializable {
         return split[1] + "-" + split[0];
     }
 
-    private void setPoints(){
-        Location originPoint = origin.getPoint();
-        Location targetPoint = target.getPoint();
-
-
-        double numDivisions = weight / 50;
-        double stepDistance = weight / numDivisions;
-
-        List<Location> orderedPoints = new ArrayList<>();
-        orderedPoints.add(originPoint);
+    public Set<Location> getPoints(){
+        return geometry != null ? geometry.toLocations() : new HashSet<>();
+    }
 
-        double distanceSoFar = stepDistance;
-        while(distanceSoFar < weight){
-            Location newPoint = originPoint.locationBetweenGivenDistanceKM(targetPoint, distanceSoFar);
-            orderedPoints.add(newPoint);
-            distanceSoFar += stepDistance;
+    // Links stored before geometry was added carry their points instead, which are dropped and rebuilt as geometry
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if(geometry == null && origin != null && target != null && weight != null){
+            initGeometry();
         }
-        orderedPoints.add(targetPoint);
-        points = new HashSet<>(orderedPoints);
+    }
+
+    private void initGeometry(){
+        geometry = LinkGeometry.between(origin.getPoint(), target.getPoint(), weight);
     }
 }
@@ -0,0 +1,148 @@
+package netlab.topology.elements;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * The geographic points along a link, used to decide which links a failure area reaches. Creating one only records the
+ * endpoints and length; the points (every 50 km along the geodesic from origin to target, plus both endpoints) are
+ * interpolated on first access and kept in packed latitude/longitude arrays. A link's geometry is shared by reference
+ * with its reversed and re-weighted copies, so the points are computed at most once per physical link.
+ * Only the endpoints and length (or the points, if they were given up front) are serialized.
+ */
+public class LinkGeometry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final double STEP_KM = 50;
+
+    private final Location origin;
+    private final Location target;
+    private final double lengthKm;
+    // Set for a geometry made up of other links' geometries (e.g. a contracted chain), null otherwise
+    private final List<LinkGeometry> parts;
+    // Set for a geometry whose points are already known (e.g. read from a topology snapshot), null otherwise
+    private final double[][] fixedPoints;
+
+    // [0] = latitudes, [1] = longitudes. Published in one write so readers never see half of it.
+    private transient volatile double[][] packed;
+
+    private LinkGeometry(Location origin, Location target, double lengthKm, List<LinkGeometry> parts,
+                         double[][] fixedPoints){
+        this.origin = origin;
+        this.target = target;
+        this.lengthKm = lengthKm;
+        this.parts = parts;
+        this.fixedPoints = fixedPoints;
+        this.packed = fixedPoints;
+    }
+
+    public static LinkGeometry between(Location origin, Location target, double lengthKm){
+        return new LinkGeometry(origin, target, lengthKm, null, null);
+    }
+
+    /**
+     * A geometry holding every point of the given geometries.
+     */
+    public static LinkGeometry combine(List<LinkGeometry> parts){
+        return new LinkGeometry(null, null, 0.0, new ArrayList<>(parts), null);
+    }
+
+    /**
+     * A geometry with already computed points.
+     */
+    public static LinkGeometry ofPoints(double[] latitudes, double[] longitudes){
+        return new LinkGeometry(null, null, 0.0, null, new double[][]{latitudes.clone(), longitudes.clone()});
+    }
+
+    public int size(){
+        return points()[0].length;
+    }
+
+    public double latitude(int i){
+        return points()[0][i];
+    }
+
+    public double longitude(int i){
+        return points()[1][i];
+    }
+
+    public Location location(int i){
+        double[][] points = points();
+        return new Location(points[0][i], points[1][i]);
+    }
+
+    public Set<Location> toLocations(){
+        double[][] points = points();
+        Set<Location> locations = new HashSet<>();
+        for(int i = 0; i < points[0].length; i++){
+            locations.add(new Location(points[0][i], points[1][i]));
+        }
+        return locations;
+    }
+
+    public boolean isMaterialized(){
+        return packed != null;
+    }
+
+    private double[][] points(){
+        double[][] points = packed;
+        if(points == null && fixedPoints != null){
+            points = fixedPoints;
+            packed = points;
+        }
+        if(points == null){
+            points = materialize();
+            packed = points;
+        }
+        return points;
+    }
+
+    // Concurrent first accesses may both compute; the results are identical
+    private double[][] materialize(){
+        List<Location> locations = new ArrayList<>();
+        if(parts != null){
+            for(LinkGeometry part : parts){
+                if(part != null){
+                    double[][] partPoints = part.points();
+                    for(int i = 0; i < partPoints[0].length; i++){
+                        locations.add(new Location(partPoints[0][i], partPoints[1][i]));
+                    }
+                }
+            }
+        } else{
+            interpolate(locations);
+        }
+        // Points were kept in a set before, so exact duplicates (e.g. the node shared by two parts) count once
+        Set<Location> seen = new HashSet<>();
+        double[] latitudes = new double[locations.size()];
+        double[] longitudes = new double[locations.size()];
+        int count = 0;
+        for(Location location : locations){
+            if(location != null && seen.add(location)){
+                latitudes[count] = location.getLatitude();
+                longitudes[count] = location.getLongitude();
+                count++;
+            }
+        }
+        return new double[][]{Arrays.copyOf(latitudes, count), Arrays.copyOf(longitudes, count)};
+    }
+
+    private void interpolate(List<Location> locations){
+        locations.add(origin);
+        if(origin != null && target != null){
+            double numDivisions = lengthKm / STEP_KM;
+            double stepDistance = lengthKm / numDivisions;
+            double distanceSoFar = stepDistance;
+            while(distanceSoFar < lengthKm){
+                locations.add(origin.locationBetweenGivenDistanceKM(target, distanceSoFar));
+                distanceSoFar += stepDistance;
+            }
+        }
+        locations.add(target);
+    }
+
+    public String toString(){
+        return packed != null ? packed[0].length + " points" : "unmaterialized";
+    }
+}
@@ -0,0 +1,175 @@
+package netlab.topology.elements;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * The minimum path cost between every pair of nodes in a topology, held as a flat N x N array indexed by the node
+ * numbering of an IndexedTopology, along with the first link of a minimum cost path for each pair. The matrix is
+ * immutable, so topologies derived from the one it was computed for (e.g. with links removed or re-weighted) share it
+ * by reference instead of copying it.
+ */
+public class PathCostMatrix implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final IndexedTopology topology;
+    // costs[src * n + dst], POSITIVE_INFINITY if dst can't be reached from src
+    private final double[] costs;
+    // nextLinks[src * n + dst], index of the first link on a minimum cost path from src to dst, -1 if there is none
+    private final int[] nextLinks;
+
+    public PathCostMatrix(IndexedTopology topology, double[] costs, int[] nextLinks){
+        int numPairs = topology.getNumNodes() * topology.getNumNodes();
+        if(costs.length != numPairs || nextLinks.length != numPairs){
+            throw new IllegalArgumentException("Expected " + numPairs + " entries for topology "
+                    + topology.getTopologyId() + ", got " + costs.length + " costs and " + nextLinks.length + " links");
+        }
+        this.topology = topology;
+        this.costs = costs;
+        this.nextLinks = nextLinks;
+    }
+
+    /**
+     * A matrix with no paths, for topologies too large to compute the all-pairs costs for.
+     */
+    public static PathCostMatrix empty(String topologyId){
+        return new PathCostMatrix(new IndexedTopology(new Topology(topologyId, new HashSet<>(), new HashSet<>())),
+                new double[0], new int[0]);
+    }
+
+    /**
+     * Compute the matrix with one Dijkstra search per destination over the reversed links, run in parallel. Searching
+     * towards each destination means every next link for that destination comes from one shortest path tree, so
+     * following them never loops, even over zero weight links.
+     */
+    public static PathCostMatrix compute(IndexedTopology topology){
+        int n = topology.getNumNodes();
+        // Incoming links of each node, grouped by target
+        int[] inStart = new int[n + 1];
+        for(int l = 0; l < topology.getNumLinks(); l++){
+            if(topology.getOrigin(l) >= 0 && topology.getTarget(l) >= 0){
+                inStart[topology.getTarget(l) + 1]++;
+            }
+        }
+        for(int i = 0; i < n; i++){
+            inStart[i + 1] += inStart[i];
+        }
+        int[] inLinks = new int[inStart[n]];
+        int[] fill = Arrays.copyOf(inStart, n);
+        for(int l = 0; l < topology.getNumLinks(); l++){
+            if(topology.getOrigin(l) >= 0 && topology.getTarget(l) >= 0){
+                inLinks[fill[topology.getTarget(l)]++] = l;
+            }
+        }
+
+        double[] costs = new double[n * n];
+        int[] nextLinks = new int[n * n];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        Arrays.fill(nextLinks, -1);
+        // Each search only writes its own destination's column
+        IntStream.range(0, n).parallel().forEach(dst -> searchTowards(topology, dst, inStart, inLinks, costs, nextLinks));
+        return new PathCostMatrix(topology, costs, nextLinks);
+    }
+
+    private static void searchTowards(IndexedTopology topology, int dst, int[] inStart, int[] inLinks,
+                                      double[] costs, int[] nextLinks){
+        int n = topology.getNumNodes();
+        double[] distance = new double[n];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        boolean[] settled = new boolean[n];
+        distance[dst] = 0.0;
+        PriorityQueue<double[]> queue = new PriorityQueue<>(Comparator.comparingDouble(e -> e[0]));
+        queue.add(new double[]{0.0, dst});
+        while(!queue.isEmpty()){
+            int node = (int) queue.poll()[1];
+            if(settled[node]){
+                continue;
+            }
+            settled[node] = true;
+            costs[node * n + dst] = distance[node];
+            for(int i = inStart[node]; i < inStart[node + 1]; i++){
+                int link = inLinks[i];
+                int origin = topology.getOrigin(link);
+                double newDistance = distance[node] + topology.getWeight(link);
+                if(!settled[origin] && newDistance < distance[origin]){
+                    distance[origin] = newDistance;
+                    nextLinks[origin * n + dst] = link;
+                    queue.add(new double[]{newDistance, origin});
+                }
+            }
+        }
+    }
+
+    public IndexedTopology getTopology(){
+        return topology;
+    }
+
+    /**
+     * @return The number of nodes the matrix covers.
+     */
+    public int size(){
+        return topology.getNumNodes();
+    }
+
+    /**
+     * @return The minimum path cost between two node indices, POSITIVE_INFINITY if there is no path.
+     */
+    public double cost(int src, int dst){
+        return costs[src * size() + dst];
+    }
+
+    /**
+     * @return The index of the first link on a minimum cost path between two node indices, -1 if there is none.
+     */
+    public int nextLink(int src, int dst){
+        return nextLinks[src * size() + dst];
+    }
+
+    /**
+     * @return The minimum path cost between two nodes, 0 from a node to itself, or null if either node isn't in the
+     * matrix or there is no path between them.
+     */
+    public Double getCost(Node src, Node dst){
+        int srcIndex = topology.indexOfNode(src.getId());
+        int dstIndex = topology.indexOfNode(dst.getId());
+        if(srcIndex < 0 || dstIndex < 0){
+            return null;
+        }
+        double cost = cost(srcIndex, dstIndex);
+        return cost < Double.POSITIVE_INFINITY ? cost : null;
+    }
+
+    /**
+     * Follow the next links from src to dst.
+     * @return A minimum cost path between the two node indices (empty from a node to itself), or null if there is none.
+     */
+    public CompactPath path(int src, int dst){
+        if(cost(src, dst) == Double.POSITIVE_INFINITY){
+            return null;
+        }
+        int[] links = new int[size()];
+        int length = 0;
+        int node = src;
+        while(node != dst){
+            int link = nextLink(node, dst);
+            links[length++] = link;
+            node = topology.getTarget(link);
+        }
+        return new CompactPath(topology, Arrays.copyOf(links, length));
+    }
+
+    /**
+     * @return A minimum cost path between two nodes, or null if either node isn't in the matrix or there is no path.
+     */
+    public CompactPath getPath(Node src, Node dst){
+        int srcIndex = topology.indexOfNode(src.getId());
+        int dstIndex = topology.indexOfNode(dst.getId());
+        return srcIndex >= 0 && dstIndex >= 0 ? path(srcIndex, dstIndex) : null;
+    }
+
+    public String toString(){
+        return "PathCostMatrix(" + topology.getTopologyId() + ", " + size() + " nodes)";
+    }
+}
@@ -38,7 +38,8 @@ public class Topology {
 
     Map<SourceDestPair, List<Link>> neighborLinkMap;
 
-    Map<SourceDestPair, Double> minimumPathCostMap;
+    // Shared with every topology derived from this one
+    PathCostMatrix pathCosts;
 
     public Topology(String id, Set<Node> nodes, Set<Link> links){
         this.id = id;
@@ -70,7 +71,7 @@ public class Topology {
     }
 
     public void copyPathCosts(Topology otherTopo){
-        this.minimumPathCostMap = otherTopo.getMinimumPathCostMap() != null ? new HashMap<>(otherTopo.getMinimumPathCostMap()) : new HashMap<>();
+        this.pathCosts = otherTopo.getPathCosts();
     }
 
     private Map<Node, Set<Link>> makeNodeLinkMap(Set<Node> nodes, Set<Link> links){
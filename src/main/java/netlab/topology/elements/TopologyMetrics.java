@@ -16,8 +16,12 @@ import java.util.Set;
 @AllArgsConstructor
 public class TopologyMetrics implements Serializable {
 
+    // Pinned to the UID of the metrics stored before paths were compacted, see TopologyMetricsService
+    private static final long serialVersionUID = -691700190923290198L;
+
     String topologyId;
-    Map<String, Path> pathIdMap;
+    // Paths are stored as link indices into one shared IndexedTopology of this topology
+    Map<String, CompactPath> pathIdMap;
     Map<SourceDestPair, List<String>> minCostPaths;
     Map<SourceDestPair, List<String>> linkDisjointPaths;
     Map<SourceDestPair, List<String>> nodeDisjointPaths;
@@ -0,0 +1,357 @@
+package netlab.topology.services;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.submission.enums.SyntheticModel;
+import netlab.topology.elements.Link;
+import netlab.topology.elements.Node;
+import netlab.topology.elements.Topology;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Seeded generator for large synthetic topologies. Topologies are requested by id, in the form
+ * "model_numNodes[_seed[_avgDegree]]", e.g. "waxman_1000", "ba_5000_7" or "geometric_2000_1_6". The same id always
+ * produces the same topology. Nodes are placed within the continental US, so the link geometry and the quake/nuke
+ * failure areas behave the same way they do on nsfnet and tw.
+ */
+@Service
+@Slf4j
+public class SyntheticTopologyService {
+
+    private static final double MIN_LAT = 25.0;
+    private static final double MAX_LAT = 49.0;
+    private static final double MIN_LON = -124.0;
+    private static final double MAX_LON = -67.0;
+    // Used for the planar approximation of distances while deciding which links to create
+    private static final double KM_PER_DEGREE_LAT = 111.2;
+    private static final double KM_PER_DEGREE_LON = KM_PER_DEGREE_LAT * Math.cos(Math.toRadians((MIN_LAT + MAX_LAT) / 2));
+
+    private static final long DEFAULT_SEED = 1L;
+    private static final int DEFAULT_AVG_DEGREE = 4;
+    private static final double WAXMAN_BETA = 0.15;
+
+    /**
+     * Generate the topology described by a synthetic topology id.
+     * @param topologyId The id, e.g. "waxman_1000_1".
+     * @return The topology, or empty if the id does not describe a synthetic topology.
+     */
+    public Optional<Topology> generateFromId(String topologyId){
+        String[] components = topologyId.toLowerCase().split("_");
+        if(components.length < 2 || components.length > 4){
+            return Optional.empty();
+        }
+        Optional<SyntheticModel> model = SyntheticModel.get(components[0]);
+        if(!model.isPresent()){
+            return Optional.empty();
+        }
+        try {
+            int numNodes = Integer.parseInt(components[1]);
+            long seed = components.length > 2 ? Long.parseLong(components[2]) : DEFAULT_SEED;
+            int avgDegree = components.length > 3 ? Integer.parseInt(components[3]) : DEFAULT_AVG_DEGREE;
+            if(numNodes < 2 || avgDegree < 1){
+                return Optional.empty();
+            }
+            return Optional.of(generate(topologyId.toLowerCase(), model.get(), numNodes, seed, avgDegree));
+        } catch(NumberFormatException e){
+            return Optional.empty();
+        }
+    }
+
+    public Topology generate(String topologyId, SyntheticModel model, int numNodes, long seed, int avgDegree){
+        long startTime = System.nanoTime();
+        Random rng = new Random(seed);
+        Layout layout;
+        switch(model){
+            case Waxman:
+                layout = randomLayout(numNodes, rng);
+                addWaxmanLinks(layout, avgDegree, rng);
+                connectComponents(layout);
+                break;
+            case BarabasiAlbert:
+                layout = randomLayout(numNodes, rng);
+                addPreferentialLinks(layout, avgDegree, rng);
+                break;
+            case Grid:
+                layout = latticeLayout(numNodes, false);
+                break;
+            case Torus:
+                layout = latticeLayout(numNodes, true);
+                break;
+            case Geometric:
+            default:
+                layout = randomLayout(numNodes, rng);
+                addGeometricLinks(layout, avgDegree);
+                connectComponents(layout);
+                break;
+        }
+        Topology topo = layout.toTopology(topologyId);
+        log.info("Generated " + model.getCode() + " topology " + topologyId + " with " + topo.getNodes().size()
+                + " nodes and " + topo.getLinks().size() + " links in " + (System.nanoTime() - startTime) / 1e9 + " seconds");
+        return topo;
+    }
+
+    private Layout randomLayout(int numNodes, Random rng){
+        Layout layout = new Layout(numNodes);
+        for(int i = 0; i < numNodes; i++){
+            layout.setLocation(i, MIN_LAT + rng.nextDouble() * (MAX_LAT - MIN_LAT),
+                    MIN_LON + rng.nextDouble() * (MAX_LON - MIN_LON));
+        }
+        return layout;
+    }
+
+    // Rows and columns are as close to square as possible, so the node count is rounded up to fill the last row
+    private Layout latticeLayout(int numNodes, boolean wrap){
+        int rows = Math.max(1, (int) Math.round(Math.sqrt(numNodes)));
+        int cols = (int) Math.ceil((double) numNodes / rows);
+        Layout layout = new Layout(rows * cols);
+        for(int r = 0; r < rows; r++){
+            for(int c = 0; c < cols; c++){
+                layout.setLocation(r * cols + c, MIN_LAT + (MAX_LAT - MIN_LAT) * (r + 0.5) / rows,
+                        MIN_LON + (MAX_LON - MIN_LON) * (c + 0.5) / cols);
+            }
+        }
+        for(int r = 0; r < rows; r++){
+            for(int c = 0; c < cols; c++){
+                int index = r * cols + c;
+                if(c + 1 < cols){
+                    layout.addLink(index, index + 1);
+                } else if(wrap && cols > 2){
+                    layout.addLink(index, r * cols);
+                }
+                if(r + 1 < rows){
+                    layout.addLink(index, index + cols);
+                } else if(wrap && rows > 2){
+                    layout.addLink(index, c);
+                }
+            }
+        }
+        return layout;
+    }
+
+    /*
+        Waxman: link (u, v) exists with probability alpha * exp(-d(u,v) / (beta * L)), where L is the largest
+        possible distance. Alpha is chosen so the expected number of links matches the requested average degree.
+     */
+    private void addWaxmanLinks(Layout layout, int avgDegree, Random rng){
+        int n = layout.size();
+        double maxDistance = layout.maxDistance();
+        double weightSum = 0.0;
+        for(int i = 0; i < n; i++){
+            for(int j = i + 1; j < n; j++){
+                weightSum += Math.exp(-layout.distance(i, j) / (WAXMAN_BETA * maxDistance));
+            }
+        }
+        double targetLinks = n * avgDegree / 2.0;
+        double alpha = Math.min(1.0, targetLinks / weightSum);
+        for(int i = 0; i < n; i++){
+            for(int j = i + 1; j < n; j++){
+                double prob = alpha * Math.exp(-layout.distance(i, j) / (WAXMAN_BETA * maxDistance));
+                if(rng.nextDouble() < prob){
+                    layout.addLink(i, j);
+                }
+            }
+        }
+    }
+
+    /*
+        Barabasi-Albert: start from a clique of m + 1 nodes, then attach each new node to m existing nodes, chosen
+        with probability proportional to their degree. Always produces a connected graph.
+     */
+    private void addPreferentialLinks(Layout layout, int avgDegree, Random rng){
+        int n = layout.size();
+        int m = Math.max(1, avgDegree / 2);
+        int initial = Math.min(n, m + 1);
+        List<Integer> endpoints = new ArrayList<>();
+        for(int i = 0; i < initial; i++){
+            for(int j = i + 1; j < initial; j++){
+                layout.addLink(i, j);
+                endpoints.add(i);
+                endpoints.add(j);
+            }
+        }
+        for(int v = initial; v < n; v++){
+            Set<Integer> targets = new LinkedHashSet<>();
+            while(targets.size() < Math.min(m, v)){
+                targets.add(endpoints.get(rng.nextInt(endpoints.size())));
+            }
+            for(Integer target : targets){
+                layout.addLink(v, target);
+                endpoints.add(v);
+                endpoints.add(target);
+            }
+        }
+    }
+
+    /*
+        Random geometric: nodes within radius r of each other are linked, where r is chosen so that the expected
+        degree matches the requested average. Nodes are bucketed into cells of size r, so only neighboring cells
+        need to be checked.
+     */
+    private void addGeometricLinks(Layout layout, int avgDegree){
+        int n = layout.size();
+        double area = layout.width() * layout.height();
+        double radius = Math.sqrt(avgDegree * area / (Math.PI * n));
+        Map<Long, List<Integer>> cells = new HashMap<>();
+        for(int i = 0; i < n; i++){
+            cells.computeIfAbsent(cellKey(layout.x(i), layout.y(i), radius), k -> new ArrayList<>()).add(i);
+        }
+        for(int i = 0; i < n; i++){
+            long cx = (long) Math.floor(layout.x(i) / radius);
+            long cy = (long) Math.floor(layout.y(i) / radius);
+            for(long dx = -1; dx <= 1; dx++){
+                for(long dy = -1; dy <= 1; dy++){
+                    List<Integer> cell = cells.get(cellKey(cx + dx, cy + dy));
+                    if(cell == null){
+                        continue;
+                    }
+                    for(Integer j : cell){
+                        if(j > i && layout.distance(i, j) <= radius){
+                            layout.addLink(i, j);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private long cellKey(double x, double y, double cellSize){
+        return cellKey((long) Math.floor(x / cellSize), (long) Math.floor(y / cellSize));
+    }
+
+    private long cellKey(long cx, long cy){
+        return (cx << 32) ^ (cy & 0xffffffffL);
+    }
+
+    // Link every component to the nearest node of the component(s) connected so far, starting from the largest
+    private void connectComponents(Layout layout){
+        int n = layout.size();
+        int[] parent = new int[n];
+        for(int i = 0; i < n; i++){
+            parent[i] = i;
+        }
+        for(int[] link : layout.getLinks()){
+            parent[find(parent, link[0])] = find(parent, link[1]);
+        }
+        Map<Integer, List<Integer>> components = new HashMap<>();
+        for(int i = 0; i < n; i++){
+            components.computeIfAbsent(find(parent, i), k -> new ArrayList<>()).add(i);
+        }
+        if(components.size() <= 1){
+            return;
+        }
+        List<List<Integer>> sortedComponents = new ArrayList<>(components.values());
+        sortedComponents.sort(Comparator.comparing((List<Integer> c) -> -c.size()).thenComparing(c -> c.get(0)));
+
+        List<Integer> connectedNodes = new ArrayList<>(sortedComponents.get(0));
+        for(List<Integer> component : sortedComponents.subList(1, sortedComponents.size())){
+            int bestFrom = -1;
+            int bestTo = -1;
+            double bestDistance = Double.MAX_VALUE;
+            for(Integer from : component){
+                for(Integer to : connectedNodes){
+                    double distance = layout.distance(from, to);
+                    if(distance < bestDistance){
+                        bestDistance = distance;
+                        bestFrom = from;
+                        bestTo = to;
+                    }
+                }
+            }
+            layout.addLink(bestFrom, bestTo);
+            connectedNodes.addAll(component);
+        }
+    }
+
+    private int find(int[] parent, int i){
+        while(parent[i] != i){
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Node coordinates and undirected links, indexed by node number, before conversion into a Topology.
+     */
+    private static class Layout {
+        private final double[] lat;
+        private final double[] lon;
+        private final List<int[]> links;
+        private final Set<Long> linkKeys;
+
+        Layout(int numNodes){
+            lat = new double[numNodes];
+            lon = new double[numNodes];
+            links = new ArrayList<>();
+            linkKeys = new HashSet<>();
+        }
+
+        int size(){
+            return lat.length;
+        }
+
+        void setLocation(int i, double latitude, double longitude){
+            lat[i] = latitude;
+            lon[i] = longitude;
+        }
+
+        void addLink(int i, int j){
+            if(i == j){
+                return;
+            }
+            int a = Math.min(i, j);
+            int b = Math.max(i, j);
+            if(linkKeys.add((long) a * lat.length + b)){
+                links.add(new int[]{a, b});
+            }
+        }
+
+        List<int[]> getLinks(){
+            return links;
+        }
+
+        // Planar coordinates in km, with longitude scaled by the cosine of the region's mid-latitude
+        double x(int i){
+            return lon[i] * KM_PER_DEGREE_LON;
+        }
+
+        double y(int i){
+            return lat[i] * KM_PER_DEGREE_LAT;
+        }
+
+        double width(){
+            return (MAX_LON - MIN_LON) * KM_PER_DEGREE_LON;
+        }
+
+        double height(){
+            return (MAX_LAT - MIN_LAT) * KM_PER_DEGREE_LAT;
+        }
+
+        double maxDistance(){
+            return Math.sqrt(width() * width() + height() * height());
+        }
+
+        double distance(int i, int j){
+            double dx = x(i) - x(j);
+            double dy = y(i) - y(j);
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+
+        Topology toTopology(String topologyId){
+            Node[] nodes = new Node[lat.length];
+            for(int i = 0; i < lat.length; i++){
+                nodes[i] = new Node("N" + i, lat[i], lon[i]);
+            }
+            Set<Link> topoLinks = new HashSet<>();
+            for(int[] link : links){
+                Node origin = nodes[link[0]];
+                Node target = nodes[link[1]];
+                double distance = origin.getPoint().distanceTo(target.getPoint());
+                topoLinks.add(new Link(origin, target, distance));
+                topoLinks.add(new Link(target, origin, distance));
+            }
+            return new Topology(topologyId, new HashSet<>(Arrays.asList(nodes)), topoLinks);
+        }
+    }
+}
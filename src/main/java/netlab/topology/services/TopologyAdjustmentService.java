@@ -115,26 +115,27 @@ public class TopologyAdjustmentService {
     }
 
     public Link modifyLink(Link link, Double weight){
-        return new Link(link.getOrigin(), link.getTarget(), weight, link.getPoints());
+        return new Link(link.getOrigin(), link.getTarget(), weight, link.getGeometry());
     }
 
     public List<SourceDestPair> sortPairsByPathCost(Collection<SourceDestPair> pairs, Topology topo){
-        Map<SourceDestPair, Double> minimumPathCostMap = topo.getMinimumPathCostMap();
-        try {
-            return pairs
-                    .stream()
-                    .sorted(Comparator.comparing(minimumPathCostMap::get))
-                    .sorted(Comparator.comparing(p -> p.getSrc().getId()))
-                    .sorted(Comparator.comparing(p -> p.getDst().getId()))
-                    .collect(Collectors.toList());
-        } catch (Exception e){
-            e.printStackTrace();
+        PathCostMatrix pathCosts = topo.getPathCosts();
+        // Topologies too large for the all-pairs costs (or with unreachable pairs) are only sorted by ID
+        boolean hasCosts = pathCosts != null
+                && pairs.stream().allMatch(p -> pathCosts.getCost(p.getSrc(), p.getDst()) != null);
+        if(!hasCosts){
             return pairs
                     .stream()
                     .sorted(Comparator.comparing(p -> p.getSrc().getId()))
                     .sorted(Comparator.comparing(p -> p.getDst().getId()))
                     .collect(Collectors.toList());
         }
+        return pairs
+                .stream()
+                .sorted(Comparator.comparing(p -> pathCosts.getCost(p.getSrc(), p.getDst())))
+                .sorted(Comparator.comparing(p -> p.getSrc().getId()))
+                .sorted(Comparator.comparing(p -> p.getDst().getId()))
+                .collect(Collectors.toList());
     }
 
     public Topology removeLinksFromTopology(Topology topo, Collection<Link> linksToRemove){
@@ -0,0 +1,229 @@
+package netlab.topology.services;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.submission.enums.Objective;
+import netlab.submission.request.Details;
+import netlab.submission.request.Failures;
+import netlab.submission.request.Request;
+import netlab.topology.elements.*;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Contracts chains of degree-2 nodes into super-links before routing. A node is only contracted if it has exactly two
+ * neighbors, one link to and from each of them, and it isn't a source, destination, or failure (and neither are its
+ * links). Since no failure-relevant element is ever folded into a super-link, a super-link fails exactly when one of
+ * its endpoints does, and routing on the contracted topology sees the same failures as on the original.
+ * A super-link's weight is the sum of its members', but it's still one link, so requests that minimize the number of
+ * links used aren't contracted.
+ */
+@Service
+@Slf4j
+public class TopologyContractionService {
+
+    public ContractedTopology contract(Topology topo, Request request){
+        if(Objective.LinksUsed.equals(request.getObjective())){
+            log.info("Not contracting " + topo.getId() + " for request " + request.getId() + ", it minimizes links used");
+            return new ContractedTopology(topo, new HashMap<>(), new HashMap<>());
+        }
+        Details details = request.getDetails();
+        Set<String> protectedNodes = new HashSet<>();
+        Set<String> protectedLinks = new HashSet<>();
+        if(details != null){
+            for(Node member : details.getSources()){
+                protectedNodes.add(member.getId());
+            }
+            for(Node member : details.getDestinations()){
+                protectedNodes.add(member.getId());
+            }
+            for(Failure failure : collectFailures(details.getFailures())){
+                if(failure.getNode() != null){
+                    protectedNodes.add(failure.getNode().getId());
+                } else if(failure.getLink() != null){
+                    protectedLinks.add(undirectedKey(failure.getLink().getOrigin(), failure.getLink().getTarget()));
+                }
+            }
+        }
+        return contract(topo, protectedNodes, protectedLinks);
+    }
+
+    /**
+     * Contract every chain of degree-2 nodes that don't touch a protected element.
+     * @param topo The original topology.
+     * @param protectedNodes IDs of nodes that must be kept.
+     * @param protectedLinks Links that must be kept, as undirected origin/target keys (see undirectedKey).
+     * @return The contracted topology. If nothing could be contracted, it contains the original topology.
+     */
+    public ContractedTopology contract(Topology topo, Set<String> protectedNodes, Set<String> protectedLinks){
+        Map<Node, List<Link>> outLinks = new HashMap<>();
+        Map<Node, List<Link>> inLinks = new HashMap<>();
+        for(Link link : topo.getLinks()){
+            outLinks.computeIfAbsent(link.getOrigin(), n -> new ArrayList<>()).add(link);
+            inLinks.computeIfAbsent(link.getTarget(), n -> new ArrayList<>()).add(link);
+        }
+        Set<Node> contractible = new HashSet<>();
+        for(Node node : topo.getNodes()){
+            if(isContractible(node, outLinks, inLinks, protectedNodes, protectedLinks)){
+                contractible.add(node);
+            }
+        }
+
+        Map<String, List<Link>> memberLinks = new HashMap<>();
+        Map<String, List<Node>> memberNodes = new HashMap<>();
+        Set<Link> removedLinks = new HashSet<>();
+        Set<Node> removedNodes = new HashSet<>();
+        Set<Link> superLinks = new HashSet<>();
+        Set<Node> visited = new HashSet<>();
+        // Walk the nodes in ID order so the same chains are found on every run
+        List<Node> sortedNodes = contractible.stream().sorted(Comparator.comparing(Node::getId)).collect(Collectors.toList());
+        for(Node start : sortedNodes){
+            if(visited.contains(start)){
+                continue;
+            }
+            List<Node> neighbors = outLinks.get(start).stream().map(Link::getTarget)
+                    .sorted(Comparator.comparing(Node::getId)).collect(Collectors.toList());
+            Deque<Node> chain = new ArrayDeque<>();
+            chain.add(start);
+            visited.add(start);
+            Node left = walk(start, neighbors.get(0), chain, true, contractible, visited, outLinks);
+            Node right = walk(start, neighbors.get(1), chain, false, contractible, visited, outLinks);
+            // Skip rings with no endpoint, loops back to the same endpoint, and chains that would duplicate a link
+            if(left == null || right == null || left.equals(right)){
+                continue;
+            }
+            String forwardId = left.getId() + "-" + right.getId();
+            String backwardId = right.getId() + "-" + left.getId();
+            if(topo.getLinkIdMap().containsKey(forwardId) || topo.getLinkIdMap().containsKey(backwardId)
+                    || memberLinks.containsKey(forwardId) || memberLinks.containsKey(backwardId)){
+                continue;
+            }
+
+            List<Node> sequence = new ArrayList<>();
+            sequence.add(left);
+            sequence.addAll(chain);
+            sequence.add(right);
+            List<Link> forward = new ArrayList<>();
+            List<Link> backward = new ArrayList<>();
+            for(int i = 0; i < sequence.size() - 1; i++){
+                forward.add(findLink(outLinks, sequence.get(i), sequence.get(i + 1)));
+                backward.add(0, findLink(outLinks, sequence.get(i + 1), sequence.get(i)));
+            }
+            List<Node> interior = new ArrayList<>(chain);
+            List<Node> reversedInterior = new ArrayList<>(chain);
+            Collections.reverse(reversedInterior);
+
+            superLinks.add(makeSuperLink(forwardId, left, right, forward));
+            superLinks.add(makeSuperLink(backwardId, right, left, backward));
+            memberLinks.put(forwardId, forward);
+            memberLinks.put(backwardId, backward);
+            memberNodes.put(forwardId, interior);
+            memberNodes.put(backwardId, reversedInterior);
+            removedLinks.addAll(forward);
+            removedLinks.addAll(backward);
+            removedNodes.addAll(chain);
+        }
+
+        if(superLinks.isEmpty()){
+            return new ContractedTopology(topo, memberLinks, memberNodes);
+        }
+        Set<Node> nodes = topo.getNodes().stream().filter(n -> !removedNodes.contains(n)).collect(Collectors.toSet());
+        Set<Link> links = topo.getLinks().stream().filter(l -> !removedLinks.contains(l)).collect(Collectors.toSet());
+        links.addAll(superLinks);
+        Topology contracted = new Topology(topo.getId(), nodes, links);
+        contracted.copyPathCosts(topo);
+        log.info("Contracted " + removedNodes.size() + " of " + topo.getNodes().size() + " nodes in " + topo.getId()
+                + " into " + superLinks.size() / 2 + " super-links");
+        return new ContractedTopology(contracted, memberLinks, memberNodes);
+    }
+
+    public String undirectedKey(Node a, Node b){
+        return a.getId().compareTo(b.getId()) <= 0 ? a.getId() + "|" + b.getId() : b.getId() + "|" + a.getId();
+    }
+
+    private boolean isContractible(Node node, Map<Node, List<Link>> outLinks, Map<Node, List<Link>> inLinks,
+                                   Set<String> protectedNodes, Set<String> protectedLinks){
+        if(protectedNodes.contains(node.getId())){
+            return false;
+        }
+        List<Link> out = outLinks.getOrDefault(node, Collections.emptyList());
+        List<Link> in = inLinks.getOrDefault(node, Collections.emptyList());
+        if(out.size() != 2 || in.size() != 2){
+            return false;
+        }
+        Set<Node> outNeighbors = out.stream().map(Link::getTarget).collect(Collectors.toSet());
+        Set<Node> inNeighbors = in.stream().map(Link::getOrigin).collect(Collectors.toSet());
+        if(outNeighbors.size() != 2 || !outNeighbors.equals(inNeighbors) || outNeighbors.contains(node)){
+            return false;
+        }
+        for(Node neighbor : outNeighbors){
+            if(protectedLinks.contains(undirectedKey(node, neighbor))){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Follow the chain from start through next until reaching a node that can't be contracted, adding the contracted
+    // nodes to one end of the chain. Returns that node, or null if the chain loops back on itself.
+    private Node walk(Node start, Node next, Deque<Node> chain, boolean atFront, Set<Node> contractible,
+                      Set<Node> visited, Map<Node, List<Link>> outLinks){
+        Node previous = start;
+        Node current = next;
+        while(contractible.contains(current)){
+            if(current.equals(start) || visited.contains(current)){
+                return null;
+            }
+            visited.add(current);
+            if(atFront){
+                chain.addFirst(current);
+            } else{
+                chain.addLast(current);
+            }
+            Node from = previous;
+            Node following = outLinks.get(current).stream().map(Link::getTarget)
+                    .filter(n -> !n.equals(from)).findFirst().orElse(null);
+            previous = current;
+            current = following;
+        }
+        return current;
+    }
+
+    private Link findLink(Map<Node, List<Link>> outLinks, Node origin, Node target){
+        return outLinks.get(origin).stream().filter(l -> l.getTarget().equals(target)).findFirst().orElse(null);
+    }
+
+    private Link makeSuperLink(String id, Node origin, Node target, List<Link> members){
+        List<LinkGeometry> geometries = new ArrayList<>();
+        double weight = 0.0;
+        for(Link member : members){
+            weight += member.getWeight();
+            geometries.add(member.getGeometry());
+        }
+        return Link.builder()
+                .id(id)
+                .origin(origin)
+                .target(target)
+                .weight(weight)
+                .geometry(LinkGeometry.combine(geometries))
+                .build();
+    }
+
+    private List<Failure> collectFailures(Failures failures){
+        List<Failure> all = new ArrayList<>();
+        if(failures == null){
+            return all;
+        }
+        if(failures.getFailureSet() != null){
+            all.addAll(failures.getFailureSet());
+        }
+        for(Map<?, Set<Failure>> memberFailures : Arrays.asList(failures.getPairFailuresMap(),
+                failures.getSrcFailuresMap(), failures.getDstFailuresMap())){
+            if(memberFailures != null){
+                memberFailures.values().forEach(all::addAll);
+            }
+        }
+        return all;
+    }
+}
@@ -1,12 +1,15 @@
 package netlab.topology.services;
 
 import lombok.extern.slf4j.Slf4j;
+import netlab.analysis.services.HashingService;
 import netlab.processing.disjointpaths.BhandariService;
 import netlab.processing.shortestPaths.MinimumCostPathService;
 import netlab.processing.shortestPaths.YensService;
+import netlab.storage.cache.LruCache;
 import netlab.storage.services.StorageService;
 import netlab.topology.elements.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -19,20 +22,37 @@ public class TopologyMetricsService {
     private YensService yensService;
     private BhandariService bhandariService;
     private StorageService storageService;
+    private HashingService hashingService;
+
+    // Metrics for converted ("generated") topologies, which all share an ID, keyed by topology content hash
+    private LruCache<String, TopologyMetrics> generatedMetricsCache;
 
     @Autowired
-    public TopologyMetricsService(YensService yensService, BhandariService bhandariService, StorageService storageService){
+    public TopologyMetricsService(YensService yensService, BhandariService bhandariService, StorageService storageService,
+                                  HashingService hashingService, @Value("${topology_cache_size:64}") int topologyCacheSize){
         this.yensService = yensService;
         this.bhandariService = bhandariService;
         this.storageService = storageService;
+        this.hashingService = hashingService;
+        this.generatedMetricsCache = new LruCache<>(topologyCacheSize, 0);
     }
 
     public TopologyMetrics generateMetrics(Topology topo){
+        if(topo.getId().equals("generated")){
+            return generatedMetricsCache.computeIfAbsent(hashingService.hashTopology(topo), hash -> computeMetrics(topo));
+        }
         TopologyMetrics tm = storageService.retrieveTopologyMetrics(topo.getId());
         if(tm != null){
-            return tm;
+            return upgradeStoredPaths(tm, topo);
         }
-        Map<String, Path> pathIdMap = new HashMap<>();
+        tm = computeMetrics(topo);
+        storageService.storeTopologyMetrics(tm);
+        return tm;
+    }
+
+    private TopologyMetrics computeMetrics(Topology topo){
+        IndexedTopology indexedTopo = new IndexedTopology(topo);
+        Map<String, CompactPath> pathIdMap = new HashMap<>();
         Map<SourceDestPair, List<String>> minCostPaths = new HashMap<>();
         Map<SourceDestPair, List<String>> linkDisjointPaths = new HashMap<>();
         Map<SourceDestPair, List<String>> nodeDisjointPaths = new HashMap<>();
@@ -53,9 +73,9 @@ public class TopologyMetricsService {
                     List<String> nDisjointIds = kNodeDisjointPaths.stream().map(Path::getId).collect(Collectors.toList());
                     nodeDisjointPaths.put(pair, nDisjointIds);
                     // Store all path IDs
-                    addToPathIdMap(pathIdMap, kShortestPaths);
-                    addToPathIdMap(pathIdMap, kLinkDisjointPaths);
-                    addToPathIdMap(pathIdMap, kNodeDisjointPaths);
+                    addToPathIdMap(pathIdMap, kShortestPaths, indexedTopo);
+                    addToPathIdMap(pathIdMap, kLinkDisjointPaths, indexedTopo);
+                    addToPathIdMap(pathIdMap, kNodeDisjointPaths, indexedTopo);
                 }
             }
         }
@@ -96,14 +116,30 @@ public class TopologyMetricsService {
         }
         */
 
-        tm = new TopologyMetrics(topo.getId(), pathIdMap, minCostPaths, linkDisjointPaths, nodeDisjointPaths);
+        return new TopologyMetrics(topo.getId(), pathIdMap, minCostPaths, linkDisjointPaths, nodeDisjointPaths);
+    }
+
+    // Metrics stored before paths were compacted hold Path values under the same (erased) map type
+    private TopologyMetrics upgradeStoredPaths(TopologyMetrics tm, Topology topo){
+        Map<String, ?> stored = tm.getPathIdMap();
+        if(stored.values().stream().allMatch(p -> p instanceof CompactPath)){
+            return tm;
+        }
+        IndexedTopology indexedTopo = new IndexedTopology(topo);
+        Map<String, CompactPath> pathIdMap = new HashMap<>();
+        for(Map.Entry<String, ?> entry : stored.entrySet()){
+            Object path = entry.getValue();
+            pathIdMap.put(entry.getKey(), path instanceof CompactPath ? (CompactPath) path : CompactPath.of((Path) path, indexedTopo));
+        }
+        tm.setPathIdMap(pathIdMap);
         storageService.storeTopologyMetrics(tm);
+        log.info("Converted " + pathIdMap.size() + " stored paths for " + topo.getId() + " to compact paths");
         return tm;
     }
 
-    private void addToPathIdMap(Map<String, Path> pathIdMap, List<Path> paths) {
+    private void addToPathIdMap(Map<String, CompactPath> pathIdMap, List<Path> paths, IndexedTopology indexedTopo) {
         for(Path path : paths){
-            pathIdMap.put(path.getId(), path);
+            pathIdMap.computeIfAbsent(path.getId(), id -> CompactPath.of(path, indexedTopo));
         }
     }
 }
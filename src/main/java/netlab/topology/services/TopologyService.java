@@ -2,7 +2,10 @@ package netlab.topology.services;
 
 
 import lombok.extern.slf4j.Slf4j;
+import netlab.analysis.services.HashingService;
+import netlab.metrics.services.MetricsService;
 import netlab.processing.shortestPaths.MinimumCostPathService;
+import netlab.storage.cache.LruCache;
 import netlab.submission.enums.FailureClass;
 import netlab.submission.enums.FailureScenario;
 import netlab.submission.request.FailureArea;
@@ -17,23 +20,36 @@ import org.graphstream.stream.file.FileSource;
 import org.graphstream.stream.file.FileSourceFactory;
 import org.graphstream.stream.file.FileSourceGML;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.awt.*;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class TopologyService {
 
-    private Map<String, Topology> topologyIdMap;
+    // Bump when makeNsfNet changes, so existing snapshots of it are rebuilt
+    private static final String NSFNET_VERSION = "nsfnet-1";
 
-    private Map<String, Node> nodeIdMap;
+    // Topologies that have been built (or read from a snapshot) so far
+    private ConcurrentHashMap<String, Topology> topologyIdMap;
 
-    private Map<String, Link> linkIdMap;
+    // Every known topology, by lower-case id, and the directory it (and its snapshot) lives in
+    private Map<String, Supplier<Topology>> topologyBuilders;
+
+    private Map<String, java.nio.file.Path> topologyDirs;
+
+    private java.nio.file.Path topologyDir;
 
     private MinimumCostPathService minimumCostPathService;
 
@@ -41,31 +57,128 @@ public class TopologyService {
 
     private FailureAreaService failureAreaService;
 
+    private HashingService hashingService;
+
+    private MetricsService metricsService;
+
+    private SyntheticTopologyService syntheticTopologyService;
+
+    private TopologySnapshotService topologySnapshotService;
+
+    // Converted networks, keyed by the content hash of their node and link lists
+    private LruCache<String, Topology> convertedTopologyCache;
+
+    // Synthetic topologies, keyed by id. Kept small, as these can have thousands of nodes
+    private LruCache<String, Topology> syntheticTopologyCache;
+
+    // All-pairs path costs are only computed for synthetic topologies up to this size
+    private int pathCostMaxNodes;
 
     @Autowired
     public TopologyService(MinimumCostPathService minimumCostPathService,
-                           TopologyAdjustmentService topologyAdjustmentService, FailureAreaService failureAreaService){
+                           TopologyAdjustmentService topologyAdjustmentService, FailureAreaService failureAreaService,
+                           HashingService hashingService, MetricsService metricsService,
+                           SyntheticTopologyService syntheticTopologyService,
+                           TopologySnapshotService topologySnapshotService,
+                           @Value("${topology_dir:config/topologies}") String topologyDir,
+                           @Value("${topology_cache_size:64}") int topologyCacheSize,
+                           @Value("${synthetic_topology_cache_size:4}") int syntheticTopologyCacheSize,
+                           @Value("${synthetic_path_cost_max_nodes:1000}") int pathCostMaxNodes){
         this.minimumCostPathService = minimumCostPathService;
         this.topologyAdjustmentService = topologyAdjustmentService;
         this.failureAreaService = failureAreaService;
-        topologyIdMap = new HashMap<>();
-        topologyIdMap.put("nsfnet", makeNsfNet());
-        topologyIdMap.put("tw", makeTWTelecom());
-
-        nodeIdMap = new HashMap<>();
-        linkIdMap = new HashMap<>();
-        for(Topology topo : topologyIdMap.values()){
-            for(Node node : topo.getNodes()){
-                nodeIdMap.put(node.getId(), node);
+        this.hashingService = hashingService;
+        this.metricsService = metricsService;
+        this.syntheticTopologyService = syntheticTopologyService;
+        this.topologySnapshotService = topologySnapshotService;
+        this.convertedTopologyCache = new LruCache<>(topologyCacheSize, 0);
+        this.syntheticTopologyCache = new LruCache<>(syntheticTopologyCacheSize, 0);
+        this.pathCostMaxNodes = pathCostMaxNodes;
+        topologyIdMap = new ConcurrentHashMap<>();
+        topologyBuilders = new HashMap<>();
+        topologyDirs = new HashMap<>();
+        this.topologyDir = Paths.get(System.getProperty("user.dir"), topologyDir);
+        discoverTopologies(this.topologyDir);
+    }
+
+    // nsfnet is built in code, and every directory with a <name>.gml file in it is a GML topology. Nothing is built
+    // until it is first asked for.
+    private void discoverTopologies(java.nio.file.Path topologyDir){
+        topologyBuilders.put("nsfnet", this::makeNsfNet);
+        topologyDirs.put("nsfnet", topologyDir.resolve("nsfnet"));
+        if(!Files.isDirectory(topologyDir)){
+            log.warn("Topology directory " + topologyDir + " does not exist, only nsfnet is available");
+            return;
+        }
+        try(DirectoryStream<java.nio.file.Path> dirs = Files.newDirectoryStream(topologyDir, Files::isDirectory)){
+            for(java.nio.file.Path dir : dirs){
+                String name = dir.getFileName().toString();
+                if(Files.exists(dir.resolve(name + ".gml"))){
+                    topologyBuilders.put(name.toLowerCase(), () -> makeTopologyFromGraph(readGraphModel(name)));
+                    topologyDirs.put(name.toLowerCase(), dir);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not list topologies in " + topologyDir, e);
+        }
+    }
+
+    // Read the topology's snapshot if it is current, otherwise build it, compute its path costs and snapshot it
+    private Topology loadTopology(String id){
+        return metricsService.time("topology.load", () -> {
+            java.nio.file.Path dir = topologyDirs.get(id);
+            java.nio.file.Path snapshotFile = dir.resolve(id + ".snapshot");
+            String sourceHash = sourceHash(id, dir);
+            if(sourceHash != null){
+                Optional<Topology> snapshot = topologySnapshotService.read(snapshotFile, sourceHash);
+                if(snapshot.isPresent()){
+                    log.info("Loaded topology " + id + " from " + snapshotFile);
+                    return snapshot.get();
+                }
             }
-            for(Link link : topo.getLinks()){
-                linkIdMap.put(link.getId(), link);
+            Topology topo = populatePathCosts(topologyBuilders.get(id).get());
+            if(sourceHash != null){
+                topologySnapshotService.write(snapshotFile, sourceHash, topo);
             }
+            return topo;
+        });
+    }
+
+    private String sourceHash(String id, java.nio.file.Path dir){
+        if(id.equals("nsfnet")){
+            return NSFNET_VERSION;
+        }
+        try {
+            return hashingService.hashFile(dir.resolve(dir.getFileName().toString() + ".gml"));
+        } catch (IOException e) {
+            log.warn("Could not hash the source of topology " + id + ", not using a snapshot", e);
+            return null;
         }
     }
 
+    /**
+     * Get a topology by id. Besides the built-in topologies, ids such as "waxman_1000_1" are generated by the
+     * SyntheticTopologyService. Unknown ids fall back to nsfnet.
+     */
     public Topology getTopologyById(String id){
-        return topologyIdMap.getOrDefault(id.toLowerCase(), topologyIdMap.get("nsfnet"));
+        String lookupId = id.toLowerCase();
+        Topology topo = topologyBuilders.containsKey(lookupId) ? topologyIdMap.computeIfAbsent(lookupId, this::loadTopology)
+                : syntheticTopologyCache.computeIfAbsent(lookupId, this::makeSyntheticTopology);
+        return topo != null ? topo : topologyIdMap.computeIfAbsent("nsfnet", this::loadTopology);
+    }
+
+    private Topology makeSyntheticTopology(String id){
+        return metricsService.time("topology.synthetic", () -> syntheticTopologyService.generateFromId(id)
+                .map(topo -> {
+                    if(topo.getNodes().size() <= pathCostMaxNodes){
+                        return populatePathCosts(topo);
+                    }
+                    log.warn("Skipping all-pairs path costs for " + id + " (" + topo.getNodes().size() + " nodes), "
+                            + "memberforwarding, cyclefortwo and collapsedring will not work on this topology");
+                    topo.setPathCosts(PathCostMatrix.empty(id));
+                    return topo;
+                })
+                .orElse(null));
     }
 
     /*
@@ -158,6 +271,7 @@ public class TopologyService {
         links.add(new Link(ithaca, pittsburgh, 500.0));
         links.add(new Link(ithaca, collegePark, 300.0));
         Topology topo = new Topology("nsfnet", nodes, links);
+        // Path costs are populated by loadTopology
 
         /*
         Map<Node, String> simpleIdMap = new HashMap<>();
@@ -197,14 +311,7 @@ public class TopologyService {
         System.out.println(actualFailureLinks);
         */
 
-        return populatePathCosts(topo);
-    }
-
-    public Topology makeTWTelecom(){
-        String graphName = "tw";
-        Graph g = readGraphModel(graphName);
-
-        return populatePathCosts(makeTopologyFromGraph(g));
+        return topo;
     }
 
     private Topology makeTopologyFromGraph(Graph g) {
@@ -306,7 +413,7 @@ public class TopologyService {
 
 
     public Graph readGraphModel(String graphName){
-        String filePath = System.getProperty("user.dir") + "/config/topologies/" + graphName + "/" + graphName + ".gml";
+        String filePath = topologyDir.resolve(graphName).resolve(graphName + ".gml").toString();
         Graph g = new DefaultGraph(graphName);
         FileSource fs = new FileSourceGML();
 
@@ -323,19 +430,45 @@ public class TopologyService {
     }
 
     public Topology populatePathCosts(Topology topo) {
-        Map<SourceDestPair, Path> allPairsPathMap = minimumCostPathService.findAllShortestPaths(topo);
-        Map<SourceDestPair, Double> allPairsWeightMap = allPairsPathMap.keySet().stream()
-                .collect(Collectors.toMap(p -> p, p -> allPairsPathMap.get(p).getTotalWeight()));
-        topo.setMinimumPathCostMap(allPairsWeightMap);
+        topo.setPathCosts(metricsService.time("topology.pathcosts",
+                () -> PathCostMatrix.compute(new IndexedTopology(topo))));
         return topo;
     }
 
+    /**
+     * Find a node among the topologies loaded so far (nsfnet, the default, is always loaded), without loading any
+     * others. Prefer looking the node up in the request's own topology. When ids collide, topologies later in id
+     * order win, so tw's nodes shadow nsfnet's as they always have.
+     */
     public Node getNodeById(String id){
-        return nodeIdMap.get(id);
+        for(Topology topo : loadedTopologies()){
+            Node node = topo.getNodeIdMap().get(id);
+            if(node != null){
+                return node;
+            }
+        }
+        return null;
     }
 
+    /**
+     * Find a link among the topologies loaded so far, see getNodeById.
+     */
     public Link getLinkById(String id){
-        return linkIdMap.get(id);
+        for(Topology topo : loadedTopologies()){
+            Link link = topo.getLinkIdMap().get(id);
+            if(link != null){
+                return link;
+            }
+        }
+        return null;
+    }
+
+    private List<Topology> loadedTopologies(){
+        topologyIdMap.computeIfAbsent("nsfnet", this::loadTopology);
+        return topologyIdMap.keySet().stream()
+                .sorted(Comparator.reverseOrder())
+                .map(topologyIdMap::get)
+                .collect(Collectors.toList());
     }
 
     public String getMetrics(Topology topo){
@@ -386,7 +519,19 @@ public class TopologyService {
         return metrics;
     }
 
+    /**
+     * Convert a network into a topology, with the all-pairs minimum path costs populated. Identical networks map to
+     * the same (shared) topology instance, so conversion and the all-pairs computation only happen once per network.
+     */
     public Topology convert(Network network) {
+        String networkHash = hashingService.hashNetwork(network);
+        return convertedTopologyCache.computeIfAbsent(networkHash, hash -> metricsService.time("topology.convert", () -> {
+            Topology topo = convertNetwork(network);
+            return topo != null ? populatePathCosts(topo) : null;
+        }));
+    }
+
+    private Topology convertNetwork(Network network) {
 
         List<String> nodeStrings = network.getNodes();
         List<String> linkStrings = network.getLinks();
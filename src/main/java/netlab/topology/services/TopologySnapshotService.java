@@ -0,0 +1,212 @@
+package netlab.topology.services;
+
+import lombok.extern.slf4j.Slf4j;
+import netlab.topology.elements.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Binary snapshots of built topologies: nodes, links, link geometry and the all-pairs minimum path costs, so later
+ * JVMs can map the file instead of parsing the source and re-running the all-pairs computation. Each snapshot records
+ * the format version and a hash of the source it was built from, and is ignored (and rewritten) if either changed.
+ * Snapshots are written to a temporary file and moved into place, so concurrent JVMs never read a partial one.
+ */
+@Service
+@Slf4j
+public class TopologySnapshotService {
+
+    private static final int MAGIC = 0x4E4C5453;
+    private static final int VERSION = 2;
+
+    private boolean enabled;
+
+    @Autowired
+    public TopologySnapshotService(@Value("${topology_snapshots_enabled:true}") boolean enabled){
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    /**
+     * Read a snapshot, if there is one for this exact source.
+     * @param file The snapshot file.
+     * @param sourceHash Hash of the source the topology is built from.
+     * @return The topology with its path costs, or empty if the snapshot is missing, stale, or unreadable.
+     */
+    public Optional<Topology> read(Path file, String sourceHash){
+        if(!enabled || !Files.exists(file)){
+            return Optional.empty();
+        }
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION || !readString(buffer).equals(sourceHash)){
+                log.info("Topology snapshot " + file + " is out of date");
+                return Optional.empty();
+            }
+            return Optional.of(readTopology(buffer));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read topology snapshot " + file + ", rebuilding", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Write a snapshot of a topology, including its geometry and path costs.
+     */
+    public void write(Path file, String sourceHash, Topology topo){
+        if(!enabled){
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))){
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, sourceHash);
+                writeTopology(out, topo);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write topology snapshot " + file, e);
+        }
+    }
+
+    private void writeTopology(DataOutputStream out, Topology topo) throws IOException {
+        writeString(out, topo.getId());
+        List<Node> nodes = new ArrayList<>(topo.getNodes());
+        nodes.sort(Comparator.comparing(Node::getId));
+        Map<String, Integer> nodeIndex = new HashMap<>();
+        out.writeInt(nodes.size());
+        for(int i = 0; i < nodes.size(); i++){
+            Node node = nodes.get(i);
+            nodeIndex.put(node.getId(), i);
+            writeString(out, node.getId());
+            Location point = node.getPoint();
+            out.writeDouble(point != null ? point.getLatitude() : Double.NaN);
+            out.writeDouble(point != null ? point.getLongitude() : Double.NaN);
+        }
+
+        List<Link> links = new ArrayList<>(topo.getLinks());
+        links.sort(Comparator.comparing(Link::getId));
+        out.writeInt(links.size());
+        for(Link link : links){
+            writeString(out, link.getId());
+            out.writeInt(nodeIndex.get(link.getOrigin().getId()));
+            out.writeInt(nodeIndex.get(link.getTarget().getId()));
+            out.writeDouble(link.getWeight());
+            LinkGeometry geometry = link.getGeometry();
+            int numPoints = geometry != null ? geometry.size() : -1;
+            out.writeInt(numPoints);
+            for(int p = 0; p < numPoints; p++){
+                out.writeDouble(geometry.latitude(p));
+                out.writeDouble(geometry.longitude(p));
+            }
+        }
+
+        // Row-major costs and next links, in the same node and link numbering as the matrix
+        PathCostMatrix pathCosts = topo.getPathCosts();
+        boolean writeCosts = pathCosts != null && sameNumbering(pathCosts.getTopology(), nodes, links);
+        out.writeInt(writeCosts ? nodes.size() : 0);
+        if(writeCosts){
+            for(int src = 0; src < nodes.size(); src++){
+                for(int dst = 0; dst < nodes.size(); dst++){
+                    out.writeDouble(pathCosts.cost(src, dst));
+                }
+            }
+            for(int src = 0; src < nodes.size(); src++){
+                for(int dst = 0; dst < nodes.size(); dst++){
+                    out.writeInt(pathCosts.nextLink(src, dst));
+                }
+            }
+        }
+    }
+
+    private boolean sameNumbering(IndexedTopology indexed, List<Node> nodes, List<Link> links){
+        if(indexed.getNumNodes() != nodes.size() || indexed.getNumLinks() != links.size()){
+            return false;
+        }
+        for(int i = 0; i < nodes.size(); i++){
+            if(!indexed.getNode(i).getId().equals(nodes.get(i).getId())){
+                return false;
+            }
+        }
+        for(int i = 0; i < links.size(); i++){
+            if(!indexed.getLink(i).getId().equals(links.get(i).getId())){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Topology readTopology(ByteBuffer buffer){
+        String id = readString(buffer);
+        int numNodes = buffer.getInt();
+        Node[] nodes = new Node[numNodes];
+        for(int i = 0; i < numNodes; i++){
+            String nodeId = readString(buffer);
+            double latitude = buffer.getDouble();
+            double longitude = buffer.getDouble();
+            nodes[i] = Double.isNaN(latitude) ? Node.builder().id(nodeId).build() : new Node(nodeId, latitude, longitude);
+        }
+
+        int numLinks = buffer.getInt();
+        Set<Link> links = new HashSet<>();
+        for(int l = 0; l < numLinks; l++){
+            String linkId = readString(buffer);
+            Node origin = nodes[buffer.getInt()];
+            Node target = nodes[buffer.getInt()];
+            double weight = buffer.getDouble();
+            int numPoints = buffer.getInt();
+            LinkGeometry geometry = null;
+            if(numPoints >= 0){
+                double[] latitudes = new double[numPoints];
+                double[] longitudes = new double[numPoints];
+                for(int p = 0; p < numPoints; p++){
+                    latitudes[p] = buffer.getDouble();
+                    longitudes[p] = buffer.getDouble();
+                }
+                geometry = LinkGeometry.ofPoints(latitudes, longitudes);
+            }
+            links.add(Link.builder().id(linkId).origin(origin).target(target).weight(weight).geometry(geometry).build());
+        }
+
+        Topology topo = new Topology(id, new HashSet<>(Arrays.asList(nodes)), links);
+        int matrixSize = buffer.getInt();
+        if(matrixSize > 0){
+            double[] costs = new double[matrixSize * matrixSize];
+            int[] nextLinks = new int[matrixSize * matrixSize];
+            buffer.asDoubleBuffer().get(costs);
+            buffer.position(buffer.position() + costs.length * Double.BYTES);
+            buffer.asIntBuffer().get(nextLinks);
+            buffer.position(buffer.position() + nextLinks.length * Integer.BYTES);
+            topo.setPathCosts(new PathCostMatrix(new IndexedTopology(topo), costs, nextLinks));
+        } else{
+            topo.setPathCosts(PathCostMatrix.empty(id));
+        }
+        return topo;
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(ByteBuffer buffer){
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
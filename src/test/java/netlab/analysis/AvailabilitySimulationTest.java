@@ -0,0 +1,114 @@
+package netlab.analysis;
+
+import netlab.analysis.analyzed.AvailabilitySimulationParameters;
+import netlab.analysis.analyzed.AvailabilitySimulationResult;
+import netlab.analysis.services.AvailabilitySimulationService;
+import netlab.analysis.services.EventQueue;
+import netlab.metrics.services.MetricsService;
+import netlab.submission.request.Details;
+import netlab.submission.request.Failures;
+import netlab.submission.request.Request;
+import netlab.topology.elements.*;
+import org.junit.Test;
+
+import java.util.*;
+
+public class AvailabilitySimulationTest {
+
+    private Node s = new Node("s", 0, 0);
+    private Node t = new Node("t", 0, 1);
+    private Node y = new Node("y", 1, 0);
+    private Link st = new Link(s, t, 1.0);
+    private Link sy = new Link(s, y, 1.0);
+    private Link yt = new Link(y, t, 1.0);
+
+    private AvailabilitySimulationService availabilitySimulationService =
+            new AvailabilitySimulationService(new MetricsService(false, false, 0));
+
+    @Test
+    public void unprotectedTest(){
+        Request request = makeRequest(false);
+        AvailabilitySimulationResult result = availabilitySimulationService.simulate(request, makeParams(1L));
+        // 100 failures a year with 10 hour repairs: up 87.6 hours, then down 10
+        double expected = 87.6 / 97.6;
+        assert(result.getNumConnections() == 1);
+        assert(result.getNumFailureElements() == 2);
+        assert(Math.abs(result.getAvailability() - expected) < 0.01);
+        assert(result.getMinAvailability() <= result.getAvailability() && result.getAvailability() <= result.getMaxAvailability());
+        assert(result.getSwitchoversPerYear() == 0.0);
+        assert(Math.abs(result.getOutagesPerYear() - 100 * expected) < 5);
+    }
+
+    @Test
+    public void protectedTest(){
+        Request request = makeRequest(true);
+        AvailabilitySimulationResult first = availabilitySimulationService.simulate(request, makeParams(1L));
+        // Down only while s-t and s-y are both down
+        double unavailability = 10 / 97.6;
+        assert(Math.abs(first.getAvailability() - (1 - unavailability * unavailability)) < 0.005);
+        assert(first.getSwitchoversPerYear() > 0);
+        assert(first.getOutagesPerYear() > 0);
+        assert(first.getConnectionAvailability().get("s") == first.getAvailability());
+
+        AvailabilitySimulationResult second = availabilitySimulationService.simulate(request, makeParams(1L));
+        assert(first.getAvailability() == second.getAvailability());
+        assert(first.getNumEvents() == second.getNumEvents());
+        assert(first.getSwitchoversPerYear() == second.getSwitchoversPerYear());
+
+        AvailabilitySimulationResult other = availabilitySimulationService.simulate(request, makeParams(2L));
+        assert(other.getNumEvents() != first.getNumEvents());
+    }
+
+    @Test
+    public void eventQueueTest(){
+        Random random = new Random(1);
+        EventQueue queue = new EventQueue(1000);
+        for(int slot = 0; slot < 1000; slot++){
+            queue.schedule(slot, random.nextDouble());
+        }
+        for(int slot = 0; slot < 1000; slot += 3){
+            queue.schedule(slot, random.nextDouble());
+        }
+        for(int slot = 1; slot < 1000; slot += 5){
+            queue.cancel(slot);
+        }
+        assert(queue.size() == 800);
+        double previous = -1;
+        while(!queue.isEmpty()){
+            double time = queue.peekTime();
+            int slot = queue.poll();
+            assert(time >= previous);
+            assert(slot % 5 != 1 && !queue.isScheduled(slot));
+            previous = time;
+        }
+        assert(queue.poll() == -1);
+    }
+
+    private AvailabilitySimulationParameters makeParams(Long seed){
+        return AvailabilitySimulationParameters.builder()
+                .years(100.0)
+                .replications(8)
+                .seed(seed)
+                .failuresPerYear(100.0)
+                .meanRepairHours(10.0)
+                .build();
+    }
+
+    private Request makeRequest(boolean withBackup){
+        Map<String, Path> paths = new HashMap<>();
+        paths.put("0", new Path(new ArrayList<>(Collections.singletonList(st))));
+        if(withBackup){
+            paths.put("1", new Path(new ArrayList<>(Arrays.asList(sy, yt))));
+        }
+        Map<SourceDestPair, Map<String, Path>> chosenPaths = new HashMap<>();
+        chosenPaths.put(new SourceDestPair(s, t), paths);
+        Set<Failure> failureSet = new HashSet<>(Arrays.asList(new Failure(null, st, 1.0), new Failure(null, sy, 1.0)));
+        return Request.builder()
+                .id("availability")
+                .details(Details.builder()
+                        .chosenPaths(chosenPaths)
+                        .failures(Failures.builder().failureSet(failureSet).build())
+                        .build())
+                .build();
+    }
+}
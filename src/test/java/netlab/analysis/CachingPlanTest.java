@@ -0,0 +1,85 @@
+package netlab.analysis;
+
+import netlab.analysis.analyzed.CachingResult;
+import netlab.analysis.enums.CachingType;
+import netlab.analysis.services.CachingPlan;
+import netlab.analysis.services.CachingService;
+import netlab.topology.elements.*;
+import org.junit.Test;
+
+import java.util.*;
+
+public class CachingPlanTest {
+
+    private Node s = new Node("s", 0, 0);
+    private Node a = new Node("a", 0, 1);
+    private Node b = new Node("b", 1, 0);
+    private Node c = new Node("c", 1, 1);
+    private Node d = new Node("d", 1, 2);
+
+    private CachingService cachingService = new CachingService(null);
+
+    @Test
+    public void evaluateTest(){
+        List<CachingResult> cachingResults = makeResults();
+        CachingPlan plan = makePlan(cachingResults);
+
+        // Link a-d fails: the primary path only reaches a
+        double[][] linkValues = plan.evaluate(Collections.singletonList(new Failure(null, new Link(d, a), 1.0)));
+        // No caches - content is at d, only reachable on the backup
+        assert(linkValues[0][CachingPlan.AVG_HOP_BEFORE] == 2.0);
+        assert(linkValues[0][CachingPlan.AVG_HOP_AFTER] == 3.0);
+        assert(linkValues[0][CachingPlan.REACH_ON_PRIMARY] == 0.0);
+        assert(linkValues[0][CachingPlan.REACH_ON_BACKUP] == 1.0);
+        assert(linkValues[0][CachingPlan.REACH_ONLY_BACKUP] == 1.0);
+        // Caches at a and c - a is still reachable on the primary
+        assert(linkValues[1][CachingPlan.AVG_HOP_BEFORE] == 1.0);
+        assert(linkValues[1][CachingPlan.AVG_HOP_AFTER] == 1.0);
+        assert(linkValues[1][CachingPlan.REACH_ON_PRIMARY] == 1.0);
+        assert(linkValues[1][CachingPlan.REACH_ONLY_BACKUP] == 0.0);
+
+        // Node a fails: nothing on the primary path is reachable
+        double[][] nodeValues = plan.evaluate(Collections.singletonList(new Failure(a, null, 1.0)));
+        assert(nodeValues[1][CachingPlan.AVG_HOP_AFTER] == 2.0);
+        assert(nodeValues[1][CachingPlan.REACH_ON_PRIMARY] == 0.0);
+        assert(nodeValues[1][CachingPlan.REACH_ONLY_BACKUP] == 1.0);
+    }
+
+    @Test
+    public void accumulateTest(){
+        List<CachingResult> cachingResults = makeResults();
+        CachingPlan plan = makePlan(cachingResults);
+        List<List<Failure>> failureGroups = new ArrayList<>();
+        for(int i = 0; i < 10; i++){
+            failureGroups.add(Collections.singletonList(new Failure(null, new Link(a, d), 1.0)));
+            failureGroups.add(Collections.singletonList(new Failure(a, null, 1.0)));
+        }
+        cachingService.evaluateContentAccessibility(plan, cachingResults, failureGroups);
+        cachingService.averageContentAccessibility(cachingResults, failureGroups.size());
+
+        CachingResult cached = cachingResults.get(1);
+        assert(cached.getAvgHopCountBefore() == 1.0);
+        assert(Math.abs(cached.getAvgHopCountAfter() - 1.5) < 1e-9);
+        assert(Math.abs(cached.getReachOnPrimary() - 0.5) < 1e-9);
+        assert(Math.abs(cached.getReachOnBackup() - 1.0) < 1e-9);
+        assert(Math.abs(cached.getReachOnlyBackup() - 0.5) < 1e-9);
+    }
+
+    private List<CachingResult> makeResults(){
+        CachingResult none = new CachingResult(CachingType.None);
+        CachingResult cached = new CachingResult(CachingType.EntirePath);
+        cached.setCachingLocations(new HashSet<>(Arrays.asList(a, c)));
+        return Arrays.asList(none, cached);
+    }
+
+    private CachingPlan makePlan(List<CachingResult> cachingResults){
+        Path primary = new Path(new ArrayList<>(Arrays.asList(new Link(s, a), new Link(a, d))));
+        Path backup = new Path(new ArrayList<>(Arrays.asList(new Link(s, b), new Link(b, c), new Link(c, d))));
+        Map<Node, Set<Path>> pathsPerSrc = new HashMap<>();
+        pathsPerSrc.put(s, new HashSet<>(Arrays.asList(primary, backup)));
+        Map<Node, Path> primaryPathPerSrc = new HashMap<>();
+        primaryPathPerSrc.put(s, primary);
+        return cachingService.buildEvaluationPlan(cachingResults, pathsPerSrc, primaryPathPerSrc,
+                Collections.singleton(d));
+    }
+}
@@ -0,0 +1,110 @@
+package netlab.analysis;
+
+import netlab.TestConfiguration;
+import netlab.analysis.analyzed.DisasterSample;
+import netlab.analysis.analyzed.DisasterSimulationParameters;
+import netlab.analysis.analyzed.DisasterSimulationResult;
+import netlab.analysis.services.DisasterSimulationService;
+import netlab.processing.ProcessingService;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import netlab.submission.services.GenerationService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TestConfiguration.class)
+public class DisasterSimulationTest {
+
+    @Autowired
+    private GenerationService generationService;
+
+    @Autowired
+    private ProcessingService processingService;
+
+    @Autowired
+    private DisasterSimulationService disasterSimulationService;
+
+    @Test
+    public void deterministicTest(){
+        Request request = makeRoutedRequest();
+        DisasterSimulationParameters params = DisasterSimulationParameters.builder()
+                .numSamples(500)
+                .seed(3L)
+                .minRadius(100.0)
+                .maxRadius(800.0)
+                .mustFail(true)
+                .worstK(5)
+                .build();
+        DisasterSimulationResult first = disasterSimulationService.simulate(request, params);
+        DisasterSimulationResult second = disasterSimulationService.simulate(request, params);
+        assert(first.getPairSurvivability().equals(second.getPairSurvivability()));
+        assert(first.getPathSurvivability().equals(second.getPathSurvivability()));
+        assert(first.getWorstSamples().equals(second.getWorstSamples()));
+        assert(first.getNumSamplesWithFailures() == second.getNumSamplesWithFailures());
+
+        params.setSeed(4L);
+        DisasterSimulationResult other = disasterSimulationService.simulate(request, params);
+        assert(!other.getWorstSamples().equals(first.getWorstSamples()));
+    }
+
+    @Test
+    public void distributionTest(){
+        Request request = makeRoutedRequest();
+        DisasterSimulationParameters params = DisasterSimulationParameters.builder()
+                .numSamples(500)
+                .seed(1L)
+                .radiusDistribution("exponential")
+                .minRadius(50.0)
+                .maxRadius(1500.0)
+                .meanRadius(300.0)
+                .mustFail(true)
+                .worstK(10)
+                .build();
+        DisasterSimulationResult result = disasterSimulationService.simulate(request, params);
+        assert(result.getNumSamples() == 500);
+        assert(result.getNumSamplesWithFailures() > 0);
+        double min = result.getPairSurvivability().getMin();
+        double max = result.getPairSurvivability().getMax();
+        double mean = result.getPairSurvivability().getMean();
+        assert(min <= mean && mean <= max && max <= 1.0);
+        // Quantiles are non-decreasing
+        double previous = min;
+        for(Double value : result.getPairSurvivability().getQuantiles().values()){
+            assert(value >= previous);
+            previous = value;
+        }
+        List<DisasterSample> worst = result.getWorstSamples();
+        assert(worst.size() == 10);
+        assert(worst.get(0).getPairSurvivability() == min);
+        for(DisasterSample sample : worst){
+            assert(sample.getRadius() >= 50 && sample.getRadius() <= 1500);
+        }
+    }
+
+    private Request makeRoutedRequest(){
+        SimulationParameters params = SimulationParameters.builder()
+                .seed(1L)
+                .topologyId("NSFnet")
+                .algorithm("flexbhandari")
+                .problemClass("flex")
+                .objective("totalcost")
+                .routingType("default")
+                .numSources(2)
+                .numDestinations(2)
+                .minConnections(2)
+                .failureSetSize(0)
+                .failureClass("both")
+                .numFailureEvents(0)
+                .useAws(false)
+                .build();
+        Request request = generationService.generateFromSimParams(params);
+        processingService.processRequest(request);
+        return request;
+    }
+}
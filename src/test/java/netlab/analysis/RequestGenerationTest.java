@@ -1,8 +1,12 @@
 package netlab.analysis;
 
 import netlab.TestConfiguration;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import netlab.submission.services.GenerationService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -16,6 +20,9 @@ import java.util.stream.IntStream;
 @SpringBootTest(classes = TestConfiguration.class)
 public class RequestGenerationTest {
 
+    @Autowired
+    private GenerationService generationService;
+
     @Test
     public void generateRandomIntStream(){
         long seed = 11242424L;
@@ -32,4 +39,47 @@ public class RequestGenerationTest {
         assert(values.equals(expectedValues));
     }
 
+    @Test
+    public void sharedScenarioTest(){
+        Request bhandari = generationService.generateFromSimParams(makeParams("bhandari"));
+        Request ilp = generationService.generateFromSimParams(makeParams("ilp"));
+        assert(!bhandari.getId().equals(ilp.getId()));
+        assert(bhandari.getDetails() != ilp.getDetails());
+        // Same seed and scenario: the generated inputs are shared, not regenerated
+        assert(bhandari.getDetails().getSources() == ilp.getDetails().getSources());
+        assert(bhandari.getDetails().getFailures().getFailureSet() == ilp.getDetails().getFailures().getFailureSet());
+        assert(bhandari.getDetails().getFailures().getFailureGroups() == ilp.getDetails().getFailures().getFailureGroups());
+        assert(bhandari.getDetails().getFailures() != ilp.getDetails().getFailures());
+        boolean readOnly = false;
+        try {
+            bhandari.getDetails().getFailures().getFailureGroups().get(0).clear();
+        } catch (UnsupportedOperationException e) {
+            readOnly = true;
+        }
+        assert(readOnly);
+
+        SimulationParameters otherSeed = makeParams("bhandari");
+        otherSeed.setSeed(2L);
+        Request other = generationService.generateFromSimParams(otherSeed);
+        assert(other.getDetails().getFailures().getFailureSet() != bhandari.getDetails().getFailures().getFailureSet());
+    }
+
+    private SimulationParameters makeParams(String algorithm){
+        return SimulationParameters.builder()
+                .seed(1L)
+                .topologyId("NSFnet")
+                .algorithm(algorithm)
+                .problemClass("flex")
+                .objective("totalcost")
+                .routingType("default")
+                .numSources(2)
+                .numDestinations(2)
+                .minConnections(2)
+                .failureSetSize(5)
+                .failureClass("link")
+                .numFailureEvents(1)
+                .useAws(false)
+                .build();
+    }
+
 }
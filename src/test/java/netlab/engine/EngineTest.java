@@ -0,0 +1,138 @@
+package netlab.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import netlab.analysis.analyzed.Analysis;
+import netlab.analysis.analyzed.AnalysisParameters;
+import netlab.storage.services.StorageService;
+import netlab.submission.request.Details;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class EngineTest {
+
+    @Test
+    public void propertiesTest(){
+        EngineProperties properties = EngineProperties.load(Paths.get("config", "missing.properties"),
+                new String[]{"--sim={\"seed\": 1}", "--topology_cache_size=8", "--metrics_enabled=false"});
+        assert(properties.getInt("topology_cache_size", 64) == 8);
+        assert(!properties.getBoolean("metrics_enabled", true));
+        assert(properties.getLong("admission_max_wait_ms", 10000) == 10000);
+        assert(properties.get("shortest_path_backend", "dijkstra").equals("dijkstra"));
+    }
+
+    @Test
+    public void submitAndAnalyzeTest(){
+        EngineProperties properties = new EngineProperties()
+                .set("metrics_enabled", "false")
+                .set("ampl_backend", "fake");
+        try(Engine engine = new Engine(properties)){
+            SimulationParameters params = SimulationParameters.builder()
+                    .seed(1L)
+                    .topologyId("NSFnet")
+                    .algorithm("bhandari")
+                    .objective("totalcost")
+                    .routingType("unicast")
+                    .numSources(1)
+                    .numDestinations(1)
+                    .failureSetSize(1)
+                    .failureClass("link")
+                    .numFailureEvents(1)
+                    .useAws(true)
+                    .build();
+            String requestId = engine.submit(params);
+            assert(requestId != null);
+            // AWS isn't available without Spring, so the run is stored locally
+            assert(!params.getUseAws());
+
+            Analysis analysis = engine.analyze(AnalysisParameters.builder().requestId(requestId).useAws(false).build());
+            assert(analysis != null);
+            assert(analysis.getRequestId().equals(requestId));
+        }
+    }
+
+    @Test
+    public void storedRequestTest() throws IOException {
+        EngineProperties properties = new EngineProperties()
+                .set("metrics_enabled", "false")
+                .set("ampl_backend", "fake");
+        try(Engine engine = new Engine(properties)){
+            SimulationParameters params = SimulationParameters.builder()
+                    .seed(2L)
+                    .topologyId("NSFnet")
+                    .algorithm("bhandari")
+                    .objective("totalcost")
+                    .routingType("unicast")
+                    .numSources(1)
+                    .numDestinations(1)
+                    .failureSetSize(2)
+                    .failureClass("link")
+                    .numFailureEvents(1)
+                    .useAws(false)
+                    .build();
+            Request request = engine.getProcessingService().processRequest(engine.getGenerationService().generateFromSimParams(params));
+
+            // The native image can only serialize registered classes, and the JVM doesn't check
+            Set<String> unregistered = serializedClasses(request);
+            unregistered.removeAll(registeredClasses());
+            System.out.println("Unregistered classes: " + unregistered);
+            assert(unregistered.isEmpty());
+
+            StorageService storageService = engine.getStorageService();
+            try {
+                assert(storageService.storeRequestSet(request, false));
+                Request stored = storageService.retrieveRequestSet(request.getId(), false);
+                assert(stored != null);
+                assert(stored.getId().equals(request.getId()));
+                Details details = request.getDetails();
+                Details storedDetails = stored.getDetails();
+                assert(storedDetails.getFailures().getFailureGroups().size() == details.getFailures().getFailureGroups().size());
+                assert(storedDetails.getNumFailureEvents().getPairNumFailureEvents().size()
+                        == details.getNumFailureEvents().getPairNumFailureEvents().size());
+                assert(countPaths(storedDetails) == countPaths(details));
+            } finally {
+                Files.deleteIfExists(Paths.get(System.getProperty("user.dir"), "results", "raw", request.getId()));
+            }
+        }
+    }
+
+    private int countPaths(Details details){
+        return details.getChosenPaths().values().stream().mapToInt(Map::size).sum();
+    }
+
+    // Every class described in the object's serialized stream
+    private Set<String> serializedClasses(Object object) throws IOException {
+        Set<String> names = new TreeSet<>();
+        try(ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream()){
+            @Override
+            protected void annotateClass(Class<?> cl){
+                names.add(cl.getName());
+            }
+        }){
+            out.writeObject(object);
+        }
+        return names;
+    }
+
+    private Set<String> registeredClasses() throws IOException {
+        Set<String> names = new HashSet<>();
+        try(InputStream in = getClass().getResourceAsStream("/META-INF/native-image/netlab/survivability-sim/serialization-config.json")){
+            for(JsonNode entry : new ObjectMapper().readTree(in)){
+                names.add(entry.get("name").asText());
+            }
+        }
+        return names;
+    }
+}
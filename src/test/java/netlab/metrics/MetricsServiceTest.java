@@ -0,0 +1,74 @@
+package netlab.metrics;
+
+import netlab.metrics.elements.MetricsSnapshot;
+import netlab.metrics.elements.TimerSnapshot;
+import netlab.metrics.services.MetricsService;
+import org.junit.Test;
+
+import java.util.Optional;
+
+public class MetricsServiceTest {
+
+    @Test
+    public void timerTest(){
+        MetricsService metricsService = new MetricsService(true, true, 0);
+        for(int i = 0; i < 10; i++){
+            Integer result = metricsService.time("routing.test", () -> sleep(2));
+            assert(result == 2);
+        }
+        metricsService.increment("routing.infeasible.test");
+        metricsService.increment("routing.infeasible.test", 2);
+
+        MetricsSnapshot snapshot = metricsService.snapshot();
+        assert(snapshot.getEnabled());
+        TimerSnapshot timer = findTimer(snapshot, "routing.test").orElse(null);
+        assert(timer != null);
+        assert(timer.getCount() == 10);
+        assert(timer.getMeanMillis() >= 2.0);
+        assert(timer.getMaxMillis() >= timer.getMeanMillis());
+        assert(timer.getP50Millis() <= timer.getP90Millis());
+        assert(timer.getP90Millis() <= timer.getP99Millis());
+        assert(timer.getP99Millis() <= timer.getMaxMillis());
+        assert(snapshot.getCounters().get("routing.infeasible.test") == 3L);
+
+        metricsService.reset();
+        assert(metricsService.snapshot().getTimers().isEmpty());
+    }
+
+    @Test
+    public void sampleTest(){
+        MetricsService metricsService = new MetricsService(true, true, 0);
+        try(MetricsService.Sample sample = metricsService.start("storage.writeLocal")){
+            sleep(1);
+        }
+        TimerSnapshot timer = findTimer(metricsService.snapshot(), "storage.writeLocal").orElse(null);
+        assert(timer != null);
+        assert(timer.getCount() == 1);
+        assert(timer.getTotalSeconds() > 0);
+    }
+
+    @Test
+    public void disabledTest(){
+        MetricsService metricsService = new MetricsService(false, true, 0);
+        Integer result = metricsService.time("routing.test", () -> sleep(1));
+        assert(result == 1);
+        metricsService.increment("routing.infeasible.test");
+        MetricsSnapshot snapshot = metricsService.snapshot();
+        assert(!snapshot.getEnabled());
+        assert(snapshot.getTimers().isEmpty());
+        assert(snapshot.getCounters().isEmpty());
+    }
+
+    private Optional<TimerSnapshot> findTimer(MetricsSnapshot snapshot, String name){
+        return snapshot.getTimers().stream().filter(t -> t.getName().equals(name)).findFirst();
+    }
+
+    private Integer sleep(int millis){
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return millis;
+    }
+}
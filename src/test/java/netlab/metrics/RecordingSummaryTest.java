@@ -0,0 +1,48 @@
+package netlab.metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import netlab.metrics.events.RecordingSummary;
+import netlab.metrics.events.RoutingEvent;
+import netlab.metrics.events.StorageEvent;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+public class RecordingSummaryTest {
+
+    @Test
+    public void summarizeTest() throws Exception {
+        Path file = Files.createTempFile("netlab", ".jfr");
+        try(Recording recording = new Recording(Configuration.create(Paths.get("config", "jfr", "netlab.jfc")))){
+            recording.start();
+            for(int i = 0; i < 3; i++){
+                RoutingEvent routing = new RoutingEvent();
+                routing.begin();
+                routing.end();
+                routing.algorithm = i < 2 ? "bhandari" : "yens";
+                routing.commit();
+            }
+            StorageEvent storage = new StorageEvent();
+            storage.begin();
+            storage.end();
+            storage.operation = "write";
+            storage.bytes = 1024;
+            storage.commit();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordingSummary.PhaseSummary> phases = RecordingSummary.summarize(RecordingFile.readAllEvents(file));
+        assert(phases.size() == 3);
+        assert(phases.get(0).getName().equals("Routing.bhandari") && phases.get(0).getCount() == 2);
+        assert(phases.get(1).getName().equals("Routing.yens") && phases.get(1).getCount() == 1);
+        assert(phases.get(2).getName().equals("Storage.write") && phases.get(2).getBytes() == 1024);
+        assert(RecordingSummary.format(phases).contains("Routing.bhandari"));
+        Files.delete(file);
+    }
+}
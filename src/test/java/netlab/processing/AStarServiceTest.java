@@ -3,10 +3,13 @@ package netlab.processing;
 
 import netlab.TestConfiguration;
 import netlab.processing.shortestPaths.AStarService;
+import netlab.processing.shortestPaths.DijkstraService;
+import netlab.processing.shortestPaths.LandmarkIndex;
 import netlab.topology.elements.Link;
 import netlab.topology.elements.Node;
 import netlab.topology.elements.SourceDestPair;
 import netlab.topology.elements.Topology;
+import netlab.topology.services.TopologyAdjustmentService;
 import netlab.topology.services.TopologyService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -14,8 +17,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RunWith(SpringRunner.class)
@@ -25,9 +30,15 @@ public class AStarServiceTest {
     @Autowired
     AStarService aStarService;
 
+    @Autowired
+    DijkstraService dijkstraService;
+
     @Autowired
     TopologyService topologyService;
 
+    @Autowired
+    TopologyAdjustmentService topologyAdjustmentService;
+
 
     @Test
     public void spTest(){
@@ -48,4 +59,51 @@ public class AStarServiceTest {
         }
     }
 
+    @Test
+    public void altMatchesDijkstraTest(){
+        for(String topoId : new String[]{"NSFnet", "tw"}){
+            Topology topo = topologyService.getTopologyById(topoId);
+            compareAllPairs(topo);
+            LandmarkIndex index = aStarService.getIndex(topo);
+            assert(index != null && index.dominates(topo));
+
+            // Raise the weights along one shortest path, like Yen's and Bhandari's algorithms do. The cached index
+            // should still be used.
+            Node src = topo.getNodes().stream().min((a, b) -> a.getId().compareTo(b.getId())).get();
+            Node dst = topo.getNodes().stream().max((a, b) -> a.getId().compareTo(b.getId())).get();
+            Set<Link> pathLinks = new HashSet<>(dijkstraService.shortestPath(topo, src, dst));
+            Topology overlay = topologyAdjustmentService.adjustWeightsToMaxWithLinks(topo, pathLinks);
+            assert(aStarService.getIndex(overlay) == index);
+            compareAllPairs(overlay);
+
+            // Replacing the overlay's links with a cheaper one invalidates the bounds, even though it was accepted
+            Set<Link> cheaperLinks = overlay.getLinks().stream()
+                    .map(l -> Link.builder().id(l.getId()).origin(l.getOrigin()).target(l.getTarget()).weight(l.getWeight()).build())
+                    .collect(Collectors.toSet());
+            Link cheaper = cheaperLinks.stream().min((a, b) -> a.getId().compareTo(b.getId())).get();
+            cheaper.setWeight(cheaper.getWeight() / 2);
+            overlay.setLinks(cheaperLinks);
+            assert(aStarService.getIndex(overlay) != index);
+        }
+    }
+
+    private void compareAllPairs(Topology topo){
+        for(Node src : topo.getNodes()){
+            for(Node dst : topo.getNodes()){
+                if(src == dst){
+                    continue;
+                }
+                List<Link> alt = aStarService.shortestPath(topo, src, dst);
+                List<Link> dijkstra = dijkstraService.shortestPath(topo, src, dst);
+                assert(alt.isEmpty() == dijkstra.isEmpty());
+                double altWeight = totalWeight(alt);
+                double dijkstraWeight = totalWeight(dijkstra);
+                assert(altWeight == dijkstraWeight || Math.abs(altWeight - dijkstraWeight) <= 1e-9 * Math.max(1.0, dijkstraWeight));
+            }
+        }
+    }
+
+    private double totalWeight(List<Link> links){
+        return links.stream().mapToDouble(Link::getWeight).sum();
+    }
 }
@@ -0,0 +1,78 @@
+package netlab.processing;
+
+import netlab.processing.admission.AdmissionLimiter;
+import netlab.processing.admission.AdmissionRejectedException;
+import netlab.processing.admission.AdmissionStats;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+
+public class AdmissionLimiterTest {
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void queueFullRejectionTest() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter("simulate.ilp", 1, 1, false, 1);
+        long first = limiter.acquire(ONE_SECOND);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Long> second = executor.submit(() -> limiter.acquire(10 * ONE_SECOND));
+        waitForQueueDepth(limiter, 1);
+
+        boolean rejected = false;
+        try {
+            limiter.acquire(ONE_SECOND);
+        } catch (AdmissionRejectedException e) {
+            rejected = true;
+        }
+        assert(rejected);
+
+        limiter.release(first, true);
+        long secondAcquired = second.get(5, TimeUnit.SECONDS);
+        limiter.release(secondAcquired, true);
+        executor.shutdown();
+
+        AdmissionStats stats = limiter.getStats();
+        assert(stats.getAdmitted() == 2);
+        assert(stats.getRejectedQueueFull() == 1);
+        assert(stats.getInFlight() == 0);
+        assert(stats.getQueueDepth() == 0);
+    }
+
+    @Test
+    public void deadlineRejectionTest() {
+        AdmissionLimiter limiter = new AdmissionLimiter("analyze.tabu", 1, 4, false, 1);
+        long first = limiter.acquire(ONE_SECOND);
+        boolean rejected = false;
+        try {
+            limiter.acquire(TimeUnit.MILLISECONDS.toNanos(50));
+        } catch (AdmissionRejectedException e) {
+            rejected = true;
+        }
+        assert(rejected);
+        assert(limiter.getStats().getRejectedDeadline() == 1);
+        limiter.release(first, true);
+        limiter.release(limiter.acquire(ONE_SECOND), true);
+    }
+
+    @Test
+    public void adaptiveLimitStaysInBoundsTest() {
+        AdmissionLimiter limiter = new AdmissionLimiter("submit.minimumcost", 2, 4, true, 8);
+        for(int i = 0; i < 1000; i++){
+            long a = limiter.acquire(ONE_SECOND);
+            long b = limiter.acquire(ONE_SECOND);
+            limiter.release(a, true);
+            limiter.release(b, true);
+        }
+        int limit = limiter.getStats().getLimit();
+        assert(limit >= 1 && limit <= 8);
+    }
+
+    private void waitForQueueDepth(AdmissionLimiter limiter, int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while(limiter.getStats().getQueueDepth() < depth && System.currentTimeMillis() < deadline){
+            Thread.sleep(10);
+        }
+    }
+}
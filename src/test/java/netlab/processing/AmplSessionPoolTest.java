@@ -0,0 +1,116 @@
+package netlab.processing;
+
+import netlab.processing.ampl.AmplData;
+import netlab.processing.ampl.AmplSession;
+import netlab.processing.ampl.AmplSessionPool;
+import netlab.processing.ampl.FakeAmplSession;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class AmplSessionPoolTest {
+
+    private static final String UNICAST = "linear-programs/models/unicast.mod";
+    private static final String MANYCAST = "linear-programs/models/manycast.mod";
+
+    @Test
+    public void reuseTest() throws Exception {
+        AmplSessionPool pool = new AmplSessionPool(FakeAmplSession::new, 2);
+        AmplSession first = pool.borrow(UNICAST);
+        first.setOption("solver", "gurobi");
+        first.loadData(new AmplData().addParam("c", 1));
+        pool.release(first, true);
+        assert(pool.getIdleCount(UNICAST) == 1);
+
+        AmplSession second = pool.borrow(UNICAST);
+        assert(second == first);
+        assert(((FakeAmplSession) second).getResetCount() == 1);
+        // Resetting clears the data, as reset data does, but keeps the options
+        assert(((FakeAmplSession) second).getLastData() == null);
+        assert(((FakeAmplSession) second).getOptions().get("solver").equals("gurobi"));
+        assert(pool.getCreatedCount() == 1);
+        assert(pool.getReusedCount() == 1);
+    }
+
+    @Test
+    public void perModelTest() throws Exception {
+        AmplSessionPool pool = new AmplSessionPool(FakeAmplSession::new, 2);
+        AmplSession unicast = pool.borrow(UNICAST);
+        pool.release(unicast, true);
+
+        AmplSession manycast = pool.borrow(MANYCAST);
+        assert(manycast != unicast);
+        assert(manycast.getModelFile().equals(MANYCAST));
+        assert(pool.getIdleCount(UNICAST) == 1);
+        assert(pool.getCreatedCount() == 2);
+    }
+
+    @Test
+    public void unhealthyTest() throws Exception {
+        AmplSessionPool pool = new AmplSessionPool(FakeAmplSession::new, 2);
+        FakeAmplSession session = (FakeAmplSession) pool.borrow(UNICAST);
+        pool.release(session, false);
+        assert(session.isClosed());
+        assert(pool.getIdleCount(UNICAST) == 0);
+
+        // Sessions that died while idle are not handed out
+        FakeAmplSession idle = (FakeAmplSession) pool.borrow(UNICAST);
+        pool.release(idle, true);
+        idle.setRunning(false);
+        AmplSession replacement = pool.borrow(UNICAST);
+        assert(replacement != idle);
+        assert(idle.isClosed());
+    }
+
+    @Test
+    public void boundedTest() throws Exception {
+        AmplSessionPool pool = new AmplSessionPool(FakeAmplSession::new, 2);
+        List<AmplSession> sessions = new ArrayList<>();
+        for(int i = 0; i < 3; i++){
+            sessions.add(pool.borrow(UNICAST));
+        }
+        for(AmplSession session : sessions){
+            pool.release(session, true);
+        }
+        assert(pool.getIdleCount(UNICAST) == 2);
+        assert(((FakeAmplSession) sessions.get(2)).isClosed());
+
+        pool.shutdown();
+        assert(pool.getIdleCount(UNICAST) == 0);
+        assert(((FakeAmplSession) sessions.get(0)).isClosed());
+    }
+
+    @Test
+    public void disabledTest() throws Exception {
+        AmplSessionPool pool = new AmplSessionPool(FakeAmplSession::new, 0);
+        FakeAmplSession session = (FakeAmplSession) pool.borrow(UNICAST);
+        pool.release(session, true);
+        assert(session.isClosed());
+        assert(pool.getIdleCount(UNICAST) == 0);
+    }
+
+    @Test
+    public void dataOrderTest() {
+        AmplData data = new AmplData()
+                .addSet("V", Arrays.asList(AmplData.tuple("1"), AmplData.tuple("2")))
+                .addParam("NumGroups", 1)
+                .addSetInstance("FG", AmplData.tuple(1), Collections.singletonList(AmplData.tuple("1", "2")))
+                .addParamValues("A", Arrays.asList(AmplData.tuple("1", "2"), AmplData.tuple("2", "1")), Arrays.<Object>asList(1, 1));
+        assert(data.getEntries().size() == 4);
+        assert(data.getEntries().get(0).getName().equals("V"));
+        assert(data.getEntries().get(2).getType() == AmplData.EntryType.SetInstance);
+        assert(data.getEntry("A").isPresent());
+        assert(data.getEntry("A").get().getTuples().size() == 2);
+
+        boolean rejected = false;
+        try {
+            data.addParamValues("Weight", Collections.singletonList(AmplData.tuple("1", "2")), new ArrayList<>());
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assert(rejected);
+    }
+}
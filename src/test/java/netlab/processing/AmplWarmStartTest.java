@@ -0,0 +1,132 @@
+package netlab.processing;
+
+import netlab.TestConfiguration;
+import netlab.processing.ampl.*;
+import netlab.processing.ilp.FlowTranslationService;
+import netlab.submission.enums.Algorithm;
+import netlab.submission.request.Details;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import netlab.submission.services.GenerationService;
+import netlab.topology.elements.Topology;
+import netlab.topology.services.TopologyService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TestConfiguration.class)
+public class AmplWarmStartTest {
+
+    @Autowired
+    private GenerationService generationService;
+
+    @Autowired
+    private TopologyService topologyService;
+
+    @Autowired
+    private AmplWarmStartService warmStartService;
+
+    @Autowired
+    private FlowTranslationService flowTranslationService;
+
+    @Test
+    public void unicastWarmStartTest(){
+        List<FakeAmplSession> sessions = new ArrayList<>();
+        AmplService amplService = makeService(sessions);
+        Request request = makeRequest("unicast", "flexbhandari", 60);
+        Topology topo = topologyService.getTopologyById(request.getTopologyId());
+        Details details = amplService.solve(request, topo);
+
+        assert(request.getWarmStart() == Algorithm.FlexBhandari);
+        assert(sessions.size() == 1);
+        FakeAmplSession session = sessions.get(0);
+        assert(session.getSolveCount() == 1);
+        // Two connections, each starting at the source and ending at the destination
+        List<Object[]> connections = session.getInitialValues().get("C");
+        assert(connections.size() == 2);
+        assert(connections.get(0).length == 1);
+        List<Object[]> linkFlows = session.getInitialValues().get("L");
+        assert(linkFlows.stream().allMatch(l -> l.length == 5));
+        assert(session.getEvaluated().stream().anyMatch(e -> e.contains("timelim") && e.contains("mipstart 1")));
+
+        assert(details.getIsFeasible());
+        assert(details.getIncumbentObjective() == 12.0);
+        assert(details.getBestBound() == 9.0);
+        assert(Math.abs(details.getMipGap() - 0.25) < 1e-9);
+    }
+
+    @Test
+    public void coldStartTest(){
+        List<FakeAmplSession> sessions = new ArrayList<>();
+        AmplService amplService = makeService(sessions);
+        Request request = makeRequest("manycast", "none", 60);
+        Topology topo = topologyService.getTopologyById(request.getTopologyId());
+        amplService.solve(request, topo);
+
+        assert(request.getWarmStart() == null);
+        FakeAmplSession session = sessions.get(0);
+        assert(session.getInitialValues().isEmpty());
+        assert(session.getEvaluated().stream().noneMatch(e -> e.contains("mipstart")));
+    }
+
+    @Test
+    public void timeLimitTest(){
+        AmplService amplService = makeService(new ArrayList<>());
+        Request request = makeRequest("unicast", "none", 100);
+        assert(amplService.createGurobiOptions(request, false, 0.0).contains("timelim 100"));
+        // Time spent on the warm start comes out of the cutoff
+        assert(amplService.createGurobiOptions(request, true, 30.5).contains("timelim 70"));
+        assert(amplService.createGurobiOptions(request, true, 200.0).contains("timelim 1"));
+    }
+
+    @Test
+    public void manycastConnectionIndexTest(){
+        Request request = makeRequest("manycast", "flexbhandari", 60);
+        Topology topo = topologyService.getTopologyById(request.getTopologyId());
+        WarmStart warmStart = warmStartService.findWarmStart(request, topo, 10).orElse(null);
+        assert(warmStart != null);
+        assert(!warmStart.getConnections().isEmpty());
+        // C is indexed by (d, i) in the manycast model
+        assert(warmStart.getConnections().stream().allMatch(c -> c.length == 2));
+        // The request's details are untouched by the heuristic
+        assert(request.getDetails().getChosenPaths() == null || request.getDetails().getChosenPaths().isEmpty());
+    }
+
+    private AmplService makeService(List<FakeAmplSession> sessions){
+        AmplSessionPool pool = new AmplSessionPool(modelFile -> {
+            FakeAmplSession session = new FakeAmplSession(modelFile);
+            session.getValues().put("totalcost", 12.0);
+            session.getValues().put("totalcost.bestbound", 9.0);
+            sessions.add(session);
+            return session;
+        }, 0);
+        return new AmplService(pool, warmStartService, flowTranslationService);
+    }
+
+    private Request makeRequest(String routingType, String warmStart, Integer cutoff){
+        SimulationParameters params = SimulationParameters.builder()
+                .seed(1L)
+                .topologyId("NSFnet")
+                .algorithm("ilp")
+                .problemClass("combined")
+                .objective("totalcost")
+                .routingType(routingType)
+                .numSources(1)
+                .numDestinations(routingType.equals("unicast") ? 1 : 3)
+                .minConnections(2)
+                .failureSetSize(0)
+                .failureClass("both")
+                .numFailureEvents(0)
+                .useAws(false)
+                .cutoffTimeSeconds(cutoff)
+                .warmStart(warmStart)
+                .build();
+        return generationService.generateFromSimParams(params);
+    }
+}
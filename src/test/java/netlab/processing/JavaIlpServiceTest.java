@@ -0,0 +1,173 @@
+package netlab.processing;
+
+import netlab.TestConfiguration;
+import netlab.processing.ampl.AmplService;
+import netlab.processing.ilp.IlpService;
+import netlab.processing.ilp.JavaIlpService;
+import netlab.processing.ilp.mip.BranchAndBound;
+import netlab.processing.ilp.mip.MipModel;
+import netlab.processing.ilp.mip.MipResult;
+import netlab.submission.request.Details;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import netlab.submission.services.GenerationService;
+import netlab.topology.elements.Node;
+import netlab.topology.elements.Path;
+import netlab.topology.elements.SourceDestPair;
+import netlab.topology.elements.Topology;
+import netlab.topology.services.TopologyService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TestConfiguration.class)
+public class JavaIlpServiceTest {
+
+    @Autowired
+    private GenerationService generationService;
+
+    @Autowired
+    private TopologyService topologyService;
+
+    @Autowired
+    private JavaIlpService javaIlpService;
+
+    @Autowired
+    private IlpService ilpService;
+
+    @Autowired
+    private AmplService amplService;
+
+    @Test
+    public void knapsackTest(){
+        int[] weights = {23, 31, 29, 44, 53, 38, 63, 85, 89, 82};
+        int[] profits = {92, 57, 49, 68, 60, 43, 67, 84, 87, 72};
+        int capacity = 165;
+        MipModel model = new MipModel();
+        MipModel.Expression weight = new MipModel.Expression();
+        for(int j = 0; j < weights.length; j++){
+            int x = model.addBinary("x" + j, -profits[j]);
+            weight.add(x, weights[j]);
+        }
+        model.addConstraint(weight, MipModel.Sense.LessEqual, capacity);
+
+        List<Double> incumbents = new ArrayList<>();
+        MipResult result = new BranchAndBound(model, 2, 0, (objective, values) -> incumbents.add(objective)).solve();
+        assert(result.getStatus() == MipResult.Status.Optimal);
+        assert(Math.abs(result.getObjective() + 309) < 1e-6);
+        assert(result.getGap() < 1e-6);
+        assert(!incumbents.isEmpty());
+        assert(incumbents.get(incumbents.size() - 1) == result.getObjective());
+    }
+
+    @Test
+    public void infeasibleTest(){
+        MipModel model = new MipModel();
+        int x = model.addBinary("x", 1.0);
+        int y = model.addBinary("y", 1.0);
+        model.addConstraint(new MipModel.Expression().add(x).add(y), MipModel.Sense.GreaterEqual, 1.5);
+        model.addConstraint(new MipModel.Expression().add(x).add(y), MipModel.Sense.LessEqual, 1.2);
+        MipResult result = new BranchAndBound(model, 1, 0, null).solve();
+        assert(result.getStatus() == MipResult.Status.Infeasible);
+        assert(!result.hasSolution());
+    }
+
+    @Test
+    public void manycastTest(){
+        Request request = makeRequest("manycast", 2, 0);
+        Topology topo = topologyService.getTopologyById("NSFnet");
+        // AMPL stays the default, auto only picks the Java solver for small supported requests
+        assert(ilpService.selectSolver(request, topo) != javaIlpService);
+        assert(new IlpService(null, javaIlpService, "auto", 2000).selectSolver(request, topo) == javaIlpService);
+
+        Details details = javaIlpService.solve(request, topo);
+        assert(details.getIsFeasible());
+        assert(details.getMipGap() < 1e-6);
+        assert(countPaths(details) >= 2);
+        for(Map.Entry<SourceDestPair, Map<String, Path>> entry : details.getChosenPaths().entrySet()){
+            for(Path path : entry.getValue().values()){
+                List<Node> nodes = path.getNodes();
+                assert(nodes.get(0).equals(entry.getKey().getSrc()));
+                assert(nodes.get(nodes.size() - 1).equals(entry.getKey().getDst()));
+            }
+        }
+    }
+
+    @Test
+    public void manycastWithFailuresTest(){
+        Request request = makeRequest("manycast", 2, 1);
+        Topology topo = topologyService.getTopologyById("NSFnet");
+        Details details = javaIlpService.solve(request, topo);
+        assert(details.getIsFeasible());
+        assert(countPaths(details) >= 2);
+    }
+
+    @Test
+    public void backendsAgreeTest(){
+        Topology topo = topologyService.getTopologyById("NSFnet");
+        assertSameSolution(makeRequest("manycast", 2, 0), makeRequest("manycast", 2, 0), topo);
+
+        // Forbid a pair the unrestricted solution uses, the way SimulateService zeroes disallowed pairs
+        Details unrestricted = javaIlpService.solve(makeRequest("manytomany", 2, 0), topo);
+        SourceDestPair forbidden = unrestricted.getChosenPaths().entrySet().stream()
+                .filter(entry -> !entry.getValue().isEmpty())
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse(null);
+        assert(forbidden != null);
+        Request javaRequest = makeRequest("manytomany", 2, 0);
+        Request amplRequest = makeRequest("manytomany", 2, 0);
+        javaRequest.getDetails().getConnections().getPairMaxConnectionsMap().put(forbidden, 0);
+        amplRequest.getDetails().getConnections().getPairMaxConnectionsMap().put(forbidden, 0);
+        assertSameSolution(javaRequest, amplRequest, topo);
+        assert(javaRequest.getDetails().getChosenPaths().getOrDefault(forbidden, Collections.emptyMap()).isEmpty());
+        assert(amplRequest.getDetails().getChosenPaths().getOrDefault(forbidden, Collections.emptyMap()).isEmpty());
+    }
+
+    private void assertSameSolution(Request javaRequest, Request amplRequest, Topology topo){
+        Details javaDetails = javaIlpService.solve(javaRequest, topo);
+        Details amplDetails = amplService.solve(amplRequest, topo);
+        assert(javaDetails.getIsFeasible().equals(amplDetails.getIsFeasible()));
+        assert(countPaths(javaDetails) == countPaths(amplDetails));
+        assert(Math.abs(totalWeight(javaDetails) - totalWeight(amplDetails)) < 1e-6);
+    }
+
+    private double totalWeight(Details details){
+        return details.getChosenPaths().values().stream()
+                .flatMap(paths -> paths.values().stream())
+                .mapToDouble(Path::getTotalWeight)
+                .sum();
+    }
+
+    private int countPaths(Details details){
+        return details.getChosenPaths().values().stream().mapToInt(Map::size).sum();
+    }
+
+    private Request makeRequest(String routingType, Integer minConnections, Integer numFailureEvents){
+        SimulationParameters params = SimulationParameters.builder()
+                .seed(1L)
+                .topologyId("NSFnet")
+                .algorithm("ilp")
+                .problemClass("combined")
+                .objective("totalcost")
+                .routingType(routingType)
+                .numSources(1)
+                .numDestinations(3)
+                .minConnections(minConnections)
+                .failureSetSize(numFailureEvents > 0 ? 3 : 0)
+                .failureClass("link")
+                .numFailureEvents(numFailureEvents)
+                .useAws(false)
+                .cutoffTimeSeconds(60)
+                .build();
+        return generationService.generateFromSimParams(params);
+    }
+}
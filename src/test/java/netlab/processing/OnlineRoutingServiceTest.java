@@ -0,0 +1,96 @@
+package netlab.processing;
+
+import netlab.TestConfiguration;
+import netlab.processing.online.LiveNetwork;
+import netlab.processing.online.OnlineArrival;
+import netlab.processing.online.OnlineRoutingService;
+import netlab.processing.online.OnlineTraceResult;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import netlab.submission.services.GenerationService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TestConfiguration.class)
+public class OnlineRoutingServiceTest {
+
+    @Autowired
+    OnlineRoutingService onlineRoutingService;
+
+    @Autowired
+    GenerationService generationService;
+
+    @Test
+    public void admitAndReleaseTest(){
+        LiveNetwork network = onlineRoutingService.open("NSFnet", 2);
+        Request request = generationService.generateFromSimParams(makeParams("bhandari", 1L));
+
+        // The same request under new IDs, until the links between its members run out
+        List<String> admitted = new ArrayList<>();
+        for(int i = 0; i < 50 && admitted.size() == i; i++){
+            request.setId("online_" + i);
+            if(onlineRoutingService.admit(network, request, 1)){
+                admitted.add(request.getId());
+            }
+        }
+        assert(!admitted.isEmpty() && admitted.size() < 50);
+        assert(network.getBlocked() == 1);
+        assert(network.getUtilization() > 0);
+        // Admissions only rebuild the overlay when a link runs out
+        assert(network.getOverlayBuilds() <= admitted.size());
+
+        assert(onlineRoutingService.release(network, admitted.get(0)));
+        assert(!onlineRoutingService.release(network, admitted.get(0)));
+        request.setId("online_again");
+        assert(onlineRoutingService.admit(network, request, 1));
+
+        admitted.subList(1, admitted.size()).forEach(id -> onlineRoutingService.release(network, id));
+        onlineRoutingService.release(network, "online_again");
+        assert(network.getNumActive() == 0);
+        assert(network.getUtilization() == 0.0);
+    }
+
+    @Test
+    public void traceTest(){
+        for(String algorithm : new String[]{"bhandari", "flexbhandari", "memberforwarding"}){
+            List<OnlineArrival> trace = onlineRoutingService.generateTrace(makeParams(algorithm, 1L), 100, 20.0, 1.0, 1, 1L);
+            LiveNetwork network = onlineRoutingService.open("NSFnet", 5);
+            OnlineTraceResult result = onlineRoutingService.replay(network, trace);
+            assert(result.getArrivals() == 100);
+            assert(result.getAdmitted() + result.getBlocked() == 100);
+            assert(result.getAdmitted() > 0);
+            assert(result.getBlockingProbability() >= 0 && result.getBlockingProbability() <= 1);
+            assert(result.getAdmissionsPerSecond() > 0);
+            assert(network.getNumActive() == 0 && network.getUtilization() == 0.0);
+        }
+
+        // Less capacity blocks more of the same trace
+        List<OnlineArrival> trace = onlineRoutingService.generateTrace(makeParams("bhandari", 1L), 100, 20.0, 1.0, 1, 1L);
+        OnlineTraceResult small = onlineRoutingService.replay(onlineRoutingService.open("NSFnet", 2), trace);
+        OnlineTraceResult large = onlineRoutingService.replay(onlineRoutingService.open("NSFnet", 20), trace);
+        assert(small.getBlockingProbability() >= large.getBlockingProbability());
+    }
+
+    private SimulationParameters makeParams(String algorithm, Long seed){
+        return SimulationParameters.builder()
+                .seed(seed)
+                .topologyId("NSFnet")
+                .algorithm(algorithm)
+                .objective("totalcost")
+                .routingType("manycast")
+                .numSources(1)
+                .numDestinations(3)
+                .failureSetSize(1)
+                .failureClass("link")
+                .numFailureEvents(1)
+                .useAws(false)
+                .build();
+    }
+}
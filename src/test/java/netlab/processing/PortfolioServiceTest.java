@@ -0,0 +1,150 @@
+package netlab.processing;
+
+import netlab.TestConfiguration;
+import netlab.analysis.services.HashingService;
+import netlab.metrics.services.MetricsService;
+import netlab.processing.portfolio.PortfolioEntry;
+import netlab.processing.portfolio.PortfolioResult;
+import netlab.processing.portfolio.PortfolioService;
+import netlab.submission.enums.Algorithm;
+import netlab.submission.enums.PortfolioMode;
+import netlab.submission.request.Request;
+import netlab.submission.request.SimulationParameters;
+import netlab.submission.services.GenerationService;
+import netlab.topology.elements.Topology;
+import netlab.topology.services.TopologyService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TestConfiguration.class)
+public class PortfolioServiceTest {
+
+    @Autowired
+    PortfolioService portfolioService;
+
+    @Autowired
+    GenerationService generationService;
+
+    @Autowired
+    ProcessingService processingService;
+
+    @Autowired
+    TopologyService topologyService;
+
+    @Autowired
+    HashingService hashingService;
+
+    @Autowired
+    MetricsService metricsService;
+
+    @Test
+    public void allTest(){
+        SimulationParameters params = makeParams("bhandari,flexbhandari,tabu", "all");
+        Request request = generationService.generateFromSimParams(params);
+        PortfolioResult result = portfolioService.run(request, params);
+        assert(result.getMode() == PortfolioMode.All);
+        assert(result.getEntries().size() == 3);
+        Set<String> ids = new HashSet<>();
+        for(PortfolioEntry entry : result.getEntries()){
+            assert(entry.getStatus() == PortfolioEntry.Status.Completed);
+            assert(entry.getRequest().getAlgorithm() == entry.getAlgorithm());
+            assert(entry.getRequest().getId().equals(entry.getRequestId()));
+            ids.add(entry.getRequestId());
+            if(entry.getObjectiveValue() != null){
+                assert(result.getBestObjectiveValue() <= entry.getObjectiveValue());
+            }
+        }
+        // Each algorithm's routing is kept apart, under its own ID
+        assert(ids.size() == 3 && !ids.contains(request.getId()));
+        assert(request.getDetails().getChosenPaths() == null || request.getDetails().getChosenPaths().isEmpty());
+        assert(result.getBestAlgorithm() != null);
+    }
+
+    @Test
+    public void bestTest(){
+        SimulationParameters params = makeParams("ilp,bhandari,tabu", "best");
+        params.setPortfolioBudgets("ilp:60,tabu:30");
+        Request request = generationService.generateFromSimParams(params);
+        PortfolioResult result = portfolioService.run(request, params);
+        assert(result.getMode() == PortfolioMode.Best);
+        assert(result.getEntries().size() == 3);
+        assert(result.getBestAlgorithm() != null);
+        for(PortfolioEntry entry : result.getEntries()){
+            if(entry.getObjectiveValue() != null){
+                assert(result.getBestObjectiveValue() <= entry.getObjectiveValue());
+            }
+        }
+        // Nothing can be better than the bound the ILP proves
+        if(result.getLowerBound() != null){
+            assert(result.getBestObjectiveValue() >= result.getLowerBound() - 1e-6);
+        }
+    }
+
+    @Test
+    public void dominatedTest(){
+        SimulationParameters params = makeParams("ilp,tabu", "best");
+        Request request = generationService.generateFromSimParams(params);
+        // The "ILP" finishes straight away without timing out, so it's optimal. The other never finishes on its own.
+        AtomicBoolean interrupted = new AtomicBoolean(false);
+        ProcessingService racingService = new ProcessingService(null, null, null, null, null, null, null, null, null,
+                null, null, null, null, null, null, null, null, null){
+            @Override
+            public Request processRequestOnTopology(Request copy, Topology topo){
+                if(copy.getAlgorithm() == Algorithm.ILP){
+                    copy.setAlgorithm(Algorithm.Bhandari);
+                    Request routed = processingService.processRequestOnTopology(copy, topo);
+                    routed.setAlgorithm(Algorithm.ILP);
+                    return routed;
+                }
+                try {
+                    Thread.sleep(60000);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+                return copy;
+            }
+        };
+        PortfolioService racing = new PortfolioService(racingService, topologyService, hashingService, metricsService);
+        try {
+            PortfolioResult result = racing.run(request, params);
+            assert(result.getBestAlgorithm() == Algorithm.ILP);
+            assert(result.getLowerBound() != null && result.getLowerBound().equals(result.getBestObjectiveValue()));
+            assert(result.getEntries().get(1).getStatus() == PortfolioEntry.Status.Dominated);
+            assert(result.getEntries().get(1).getRequest() == null);
+            assert(result.getRunningTimeSeconds() < 30);
+            long waitStart = System.nanoTime();
+            while(!interrupted.get() && System.nanoTime() - waitStart < 5_000_000_000L){
+                Thread.yield();
+            }
+            assert(interrupted.get());
+        } finally {
+            racing.shutdown();
+        }
+    }
+
+    private SimulationParameters makeParams(String portfolio, String mode){
+        return SimulationParameters.builder()
+                .seed(1L)
+                .topologyId("NSFnet")
+                .algorithm("bhandari")
+                .objective("totalcost")
+                .routingType("unicast")
+                .numSources(1)
+                .numDestinations(1)
+                .failureSetSize(1)
+                .failureClass("link")
+                .numFailureEvents(1)
+                .useAws(false)
+                .portfolio(portfolio)
+                .portfolioMode(mode)
+                .build();
+    }
+}
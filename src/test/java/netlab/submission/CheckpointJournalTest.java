@@ -0,0 +1,44 @@
+package netlab.submission;
+
+import netlab.submission.enums.PipelineStage;
+import netlab.submission.services.CheckpointJournal;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public class CheckpointJournalTest {
+
+    @Test
+    public void resumeTest() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        Path file = dir.resolve("run.journal");
+        try(CheckpointJournal journal = new CheckpointJournal(file)){
+            journal.record("a", PipelineStage.Routed);
+            journal.record("a", PipelineStage.Analyzed);
+            journal.record("b", PipelineStage.Routed);
+        }
+        // Simulate a kill partway through writing an entry
+        Files.write(file, "c rou".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try(CheckpointJournal journal = new CheckpointJournal(file)){
+            assert(journal.isCompleted("a", PipelineStage.Routed));
+            assert(journal.isCompleted("a", PipelineStage.Analyzed));
+            assert(journal.isCompleted("b", PipelineStage.Routed));
+            assert(!journal.isCompleted("b", PipelineStage.Analyzed));
+            assert(!journal.isCompleted("c", PipelineStage.Routed));
+            journal.record("c", PipelineStage.Routed);
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assert(lines.size() == 4);
+        assert(lines.get(3).equals("c routed"));
+        try(CheckpointJournal journal = new CheckpointJournal(file)){
+            assert(journal.isCompleted("c", PipelineStage.Routed));
+        }
+    }
+}
@@ -3,9 +3,12 @@ package netlab.submission;
 import netlab.TestConfiguration;
 import netlab.submission.enums.FailureClass;
 import netlab.submission.enums.FailureScenario;
+import netlab.submission.request.FailureArea;
+import netlab.submission.services.FailureAreaIndex;
 import netlab.submission.services.FailureAreaService;
 import netlab.topology.elements.Failure;
 import netlab.topology.elements.Link;
+import netlab.topology.elements.LinkGeometry;
 import netlab.topology.elements.Node;
 import netlab.topology.elements.Topology;
 import netlab.topology.services.TopologyService;
@@ -16,7 +19,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
-import java.util.Set;
+import java.util.*;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = TestConfiguration.class)
@@ -142,4 +145,48 @@ public class FailureAreaServiceTest {
         Set<Failure> failures = failureAreaService.generateFailures(FailureScenario.Quake_3, nodes, links, failureClass);
         System.out.println(printingService.outputFailures(failures));
     }
+
+    @Test
+    public void indexMatchesFullScanTest(){
+        Topology topo = topologyService.getTopologyById("tw");
+        FailureAreaIndex index = failureAreaService.buildIndex(topo.getNodes(), topo.getLinks());
+        Random rng = new Random(7);
+        for(int i = 0; i < 200; i++){
+            FailureArea area = new FailureArea(25 + rng.nextDouble() * 25, -125 + rng.nextDouble() * 60,
+                    50 + rng.nextInt(1500), i % 4 == 0);
+            List<FailureArea> areas = Collections.singletonList(area);
+            Set<Failure> failures = failureAreaService.determineFailuresBasedOnArea(areas, index, FailureClass.Both);
+            Map<String, Double> expected = scanAllPoints(area, topo);
+            assert(failures.size() == expected.size());
+            for(Failure failure : failures){
+                // Same weights, to the bit
+                assert(expected.get(failure.getId()).equals(failure.getProbability()));
+            }
+        }
+    }
+
+    // The weights of every node and link, checking every point of every link
+    private Map<String, Double> scanAllPoints(FailureArea area, Topology topo){
+        Map<String, Double> weights = new HashMap<>();
+        for(Node node : topo.getNodes()){
+            double weight = Math.max(0.0, 1.0 - area.getCenter().distanceTo(node.getPoint())/area.getRadius());
+            if(weight > 0.0){
+                weights.put(node.getId(), area.getMustFail() ? 1.0 : weight);
+            }
+        }
+        for(Link link : topo.getLinks()){
+            // Multiplied in the geometry's order, like the index, since the product depends on the order
+            double runningProb = 1.0;
+            LinkGeometry geometry = link.getGeometry();
+            for(int p = 0; geometry != null && p < geometry.size(); p++){
+                double weight = Math.max(0.0, 1.0 - area.getCenter().distanceTo(geometry.location(p))/area.getRadius());
+                runningProb *= (1 - weight);
+            }
+            double compoundWeight = 1.0 - runningProb;
+            if(compoundWeight > 0.0){
+                weights.put(link.getId(), area.getMustFail() ? 1.0 : compoundWeight);
+            }
+        }
+        return weights;
+    }
 }
@@ -0,0 +1,88 @@
+package netlab.submission;
+
+import netlab.TestConfiguration;
+import netlab.submission.controller.JobNotFoundException;
+import netlab.submission.controller.SubmissionController;
+import netlab.submission.enums.JobStage;
+import netlab.submission.enums.JobStatus;
+import netlab.submission.request.Job;
+import netlab.submission.request.SimulationParameters;
+import netlab.submission.services.JobService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TestConfiguration.class)
+public class JobServiceTest {
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private SubmissionController submissionController;
+
+    @Test
+    public void jobsCompleteTest() throws InterruptedException {
+        List<Job> jobs = new ArrayList<>();
+        for(long seed = 1; seed <= 4; seed++){
+            jobs.add(jobService.submit(makeParams(seed, "minimumcost"), (int) seed, null));
+        }
+        for(Job job : jobs){
+            assert(job.getStatus() != JobStatus.Rejected);
+        }
+        waitForJobs(jobs, 120);
+        for(Job job : jobs){
+            Job polled = jobService.getJob(job.getJobId());
+            assert(polled.getStatus() == JobStatus.Completed);
+            assert(polled.getStage() == JobStage.Completed);
+            assert(polled.getRequestId() != null);
+            assert(polled.getProgress() == 1.0);
+        }
+    }
+
+    @Test
+    public void mixedAlgorithmsTest() throws InterruptedException {
+        List<Job> jobs = new ArrayList<>();
+        jobs.add(jobService.submit(makeParams(1L, "bhandari"), null, null));
+        jobs.add(jobService.submit(makeParams(1L, "yens"), null, null));
+        jobs.add(jobService.submit(makeParams(1L, "minimumcost"), 10, null));
+        waitForJobs(jobs, 120);
+        for(Job job : jobs){
+            assert(jobService.getJob(job.getJobId()).getStatus() == JobStatus.Completed);
+        }
+        assert(jobService.getQueueDepth() == 0);
+    }
+
+    @Test(expected = JobNotFoundException.class)
+    public void unknownJobTest(){
+        submissionController.getJob("no-such-job");
+    }
+
+    private void waitForJobs(List<Job> jobs, int timeoutSeconds) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutSeconds * 1000L;
+        while(System.currentTimeMillis() < deadline
+                && !jobs.stream().allMatch(j -> jobService.getJob(j.getJobId()).getStatus().isFinished())){
+            Thread.sleep(100);
+        }
+    }
+
+    private SimulationParameters makeParams(Long seed, String algorithm){
+        return SimulationParameters.builder()
+                .seed(seed)
+                .topologyId("NSFnet")
+                .algorithm(algorithm)
+                .objective("totalcost")
+                .routingType("unicast")
+                .numSources(1)
+                .numDestinations(1)
+                .numFailureEvents(0)
+                .useAws(false)
+                .build();
+    }
+}
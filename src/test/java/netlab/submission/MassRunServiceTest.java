@@ -0,0 +1,109 @@
+package netlab.submission;
+
+import netlab.TestConfiguration;
+import netlab.submission.request.SimulationParameters;
+import netlab.submission.services.MassRunService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TestConfiguration.class)
+public class MassRunServiceTest {
+
+    @Autowired
+    MassRunService massRunService;
+
+    @Test
+    public void runAndResumeTest() throws IOException {
+        String runId = "mass_run_test_" + System.nanoTime();
+        Path journal = massRunService.getJournalPath(runId);
+        try {
+            List<String> completed = massRunService.run(runId, makeParamsList());
+            assert(completed.size() == 4);
+            assert(new HashSet<>(completed).size() == 4);
+            assert(countLines(journal, "routed") == 4);
+            assert(countLines(journal, "analyzed") == 4);
+
+            // Everything is analyzed, so nothing is routed or analyzed again
+            assert(massRunService.run(runId, makeParamsList()).equals(completed));
+            assert(countLines(journal, "routed") == 4);
+            assert(countLines(journal, "analyzed") == 4);
+
+            // Killed after routing, so the stored request sets are analyzed without being routed again
+            List<String> routedOnly = Files.readAllLines(journal, StandardCharsets.UTF_8).stream()
+                    .filter(line -> line.endsWith(" routed"))
+                    .collect(Collectors.toList());
+            Files.write(journal, routedOnly, StandardCharsets.UTF_8);
+            assert(massRunService.run(runId, makeParamsList()).equals(completed));
+            assert(countLines(journal, "routed") == 4);
+            assert(countLines(journal, "analyzed") == 4);
+        } finally {
+            Files.deleteIfExists(journal);
+        }
+    }
+
+    @Test
+    public void portfolioTest() throws IOException {
+        String runId = "mass_run_portfolio_test_" + System.nanoTime();
+        Path journal = massRunService.getJournalPath(runId);
+        try {
+            List<SimulationParameters> paramsList = makeParamsList();
+            paramsList.forEach(params -> params.setPortfolio("bhandari,flexbhandari"));
+            List<String> completed = massRunService.run(runId, paramsList);
+            // Every algorithm's request set is routed, stored and analyzed under its own ID
+            assert(completed.size() == 8);
+            assert(new HashSet<>(completed).size() == 8);
+            assert(countLines(journal, "routed") == 8);
+            // Plus one line per generated request once its whole portfolio is analyzed
+            assert(countLines(journal, "analyzed") == 12);
+
+            List<SimulationParameters> rerunList = makeParamsList();
+            rerunList.forEach(params -> params.setPortfolio("bhandari,flexbhandari"));
+            assert(new HashSet<>(massRunService.run(runId, rerunList)).equals(new HashSet<>(completed)));
+            assert(countLines(journal, "routed") == 8);
+            assert(countLines(journal, "analyzed") == 12);
+        } finally {
+            Files.deleteIfExists(journal);
+        }
+    }
+
+    private long countLines(Path journal, String stage) throws IOException {
+        return Files.readAllLines(journal, StandardCharsets.UTF_8).stream().filter(line -> line.endsWith(" " + stage)).count();
+    }
+
+    private List<SimulationParameters> makeParamsList(){
+        List<SimulationParameters> paramsList = new ArrayList<>();
+        for(long seed = 1; seed <= 4; seed++){
+            paramsList.add(makeParams(seed));
+        }
+        return paramsList;
+    }
+
+    // useAws is left unset, as it often is in mass run files
+    private SimulationParameters makeParams(Long seed){
+        return SimulationParameters.builder()
+                .seed(seed)
+                .topologyId("NSFnet")
+                .algorithm("bhandari")
+                .objective("totalcost")
+                .routingType("unicast")
+                .numSources(1)
+                .numDestinations(1)
+                .failureSetSize(1)
+                .failureClass("link")
+                .numFailureEvents(1)
+                .build();
+    }
+}
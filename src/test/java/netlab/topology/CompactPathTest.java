@@ -0,0 +1,95 @@
+package netlab.topology;
+
+import netlab.topology.elements.*;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.*;
+
+public class CompactPathTest {
+
+    private Node a = new Node("a", 0, 0);
+    private Node b = new Node("b", 0, 1);
+    private Node c = new Node("c", 0, 2);
+    private Node d = new Node("d", 1, 1);
+
+    @Test
+    public void matchesPathTest(){
+        Topology topo = makeTopology();
+        IndexedTopology indexedTopo = new IndexedTopology(topo);
+        Path path = new Path(Arrays.asList(topo.getLinkIdMap().get("a-b"), topo.getLinkIdMap().get("b-c")));
+        CompactPath compact = CompactPath.of(path, indexedTopo);
+
+        assert(compact.getId().equals(path.getId()));
+        assert(compact.getTotalWeight().equals(path.getTotalWeight()));
+        assert(compact.getNodes().equals(path.getNodes()));
+        assert(compact.getLinkIds().equals(path.getLinkIds()));
+        assert(compact.getReverseLinkIds().equals(path.getReverseLinkIds()));
+        assert(compact.getNodeIds().equals(path.getNodeIds()));
+        assert(compact.getSource().equals(a) && compact.getDestination().equals(c));
+        for(String failureId : Arrays.asList("a", "b", "c", "d", "a-b", "b-a", "c-b", "a-d", "d-c", "x")){
+            assert(compact.containsFailureId(failureId) == path.containsFailureId(failureId));
+        }
+        assert(compact.toPath().getId().equals(path.getId()));
+
+        CompactPath empty = new CompactPath(indexedTopo, new int[0]);
+        assert(empty.getId().equals(new Path(new ArrayList<>()).getId()));
+        assert(empty.isEmpty() && !empty.containsFailureId("a"));
+    }
+
+    @Test
+    public void equalityAndDisjointTest(){
+        Topology topo = makeTopology();
+        IndexedTopology indexedTopo = new IndexedTopology(topo);
+        CompactPath top = CompactPath.of(new Path(Arrays.asList(topo.getLinkIdMap().get("a-b"), topo.getLinkIdMap().get("b-c"))), indexedTopo);
+        CompactPath sameTop = CompactPath.of(new Path(Arrays.asList(topo.getLinkIdMap().get("a-b"), topo.getLinkIdMap().get("b-c"))), indexedTopo);
+        CompactPath bottom = CompactPath.of(new Path(Arrays.asList(topo.getLinkIdMap().get("a-d"), topo.getLinkIdMap().get("d-c"))), indexedTopo);
+
+        assert(top.equals(sameTop) && top.hashCode() == sameTop.hashCode());
+        assert(top.getFingerprint() != bottom.getFingerprint() && !top.equals(bottom));
+        assert(top.isDisjoint(bottom, false));
+        // They share the source and destination
+        assert(!top.isDisjoint(bottom, true));
+    }
+
+    @Test
+    public void serializationTest() throws Exception {
+        Topology topo = makeTopology();
+        IndexedTopology indexedTopo = new IndexedTopology(topo);
+        Map<String, CompactPath> pathIdMap = new HashMap<>();
+        CompactPath top = CompactPath.of(new Path(Arrays.asList(topo.getLinkIdMap().get("a-b"), topo.getLinkIdMap().get("b-c"))), indexedTopo);
+        CompactPath bottom = CompactPath.of(new Path(Arrays.asList(topo.getLinkIdMap().get("a-d"), topo.getLinkIdMap().get("d-c"))), indexedTopo);
+        pathIdMap.put(top.getId(), top);
+        pathIdMap.put(bottom.getId(), bottom);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(ObjectOutputStream out = new ObjectOutputStream(bytes)){
+            out.writeObject(pathIdMap);
+        }
+        Map<String, CompactPath> read;
+        try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))){
+            read = (Map<String, CompactPath>) in.readObject();
+        }
+        CompactPath readTop = read.get(top.getId());
+        CompactPath readBottom = read.get(bottom.getId());
+        assert(readTop.equals(top) && readTop.getFingerprint() == top.getFingerprint());
+        assert(readTop.getTotalWeight().equals(top.getTotalWeight()));
+        assert(readTop.containsFailureId("b-a") && !readTop.containsFailureId("d"));
+        // Both paths still share one topology
+        assert(readTop.getTopology() == readBottom.getTopology());
+    }
+
+    private Topology makeTopology(){
+        Set<Link> links = new HashSet<>();
+        addBoth(links, a, b, 1.0);
+        addBoth(links, b, c, 2.0);
+        addBoth(links, a, d, 3.0);
+        addBoth(links, d, c, 4.0);
+        return new Topology("square", new HashSet<>(Arrays.asList(a, b, c, d)), links);
+    }
+
+    private void addBoth(Set<Link> links, Node origin, Node target, double weight){
+        links.add(new Link(origin, target, weight));
+        links.add(new Link(target, origin, weight));
+    }
+}
@@ -0,0 +1,46 @@
+package netlab.topology;
+
+import netlab.topology.elements.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class LinkGeometryTest {
+
+    private Node seattle = new Node("Seattle", 47.6062, -122.3321);
+    private Node portland = new Node("Portland", 45.5152, -122.6784);
+    private Node boise = new Node("Boise", 43.6150, -116.2023);
+
+    @Test
+    public void lazyAndSharedTest(){
+        Link link = new Link(seattle, portland, 120.0);
+        LinkGeometry geometry = link.getGeometry();
+        assert(!geometry.isMaterialized());
+
+        // Reversed and re-weighted copies share the same geometry
+        Link reversed = link.reverse();
+        Link reweighted = new Link(link.getOrigin(), link.getTarget(), Double.MAX_VALUE, link.getGeometry());
+        assert(reversed.getGeometry() == geometry && reweighted.getGeometry() == geometry);
+        assert(!geometry.isMaterialized());
+
+        // Origin, 50 km, 100 km, target
+        assert(geometry.size() == 4);
+        assert(geometry.isMaterialized());
+        assert(geometry.latitude(0) == seattle.getPoint().getLatitude());
+        assert(geometry.longitude(3) == portland.getPoint().getLongitude());
+        assert(reversed.getPoints().equals(link.getPoints()));
+
+        // Geometry doesn't take part in equality
+        assert(link.equals(new Link(seattle, portland, 120.0, (LinkGeometry) null)));
+    }
+
+    @Test
+    public void combineTest(){
+        Link first = new Link(seattle, portland, 1.0);
+        Link second = new Link(portland, boise, 1.0);
+        LinkGeometry combined = LinkGeometry.combine(Arrays.asList(first.getGeometry(), second.getGeometry()));
+        // Portland is in both parts but only counted once
+        assert(combined.size() == 3);
+        assert(combined.toLocations().contains(boise.getPoint()));
+    }
+}
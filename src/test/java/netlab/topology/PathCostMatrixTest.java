@@ -0,0 +1,92 @@
+package netlab.topology;
+
+import netlab.topology.elements.*;
+import org.junit.Test;
+
+import java.util.*;
+
+public class PathCostMatrixTest {
+
+    @Test
+    public void matchesFloydWarshallTest(){
+        Random random = new Random(7);
+        for(int trial = 0; trial < 20; trial++){
+            int n = 5 + random.nextInt(20);
+            List<Node> nodes = new ArrayList<>();
+            for(int i = 0; i < n; i++){
+                nodes.add(new Node("n" + i, 0, i));
+            }
+            Set<Link> links = new HashSet<>();
+            for(int i = 0; i < n * 2; i++){
+                Node origin = nodes.get(random.nextInt(n));
+                Node target = nodes.get(random.nextInt(n));
+                if(!origin.equals(target)){
+                    links.add(new Link(origin, target, (double) random.nextInt(5)));
+                }
+            }
+            Topology topo = new Topology("random", new HashSet<>(nodes), links);
+            PathCostMatrix matrix = PathCostMatrix.compute(new IndexedTopology(topo));
+            double[][] expected = floydWarshall(topo);
+
+            for(Node src : nodes){
+                for(Node dst : nodes){
+                    double cost = expected[index(src)][index(dst)];
+                    Double matrixCost = matrix.getCost(src, dst);
+                    CompactPath path = matrix.getPath(src, dst);
+                    if(cost == Double.POSITIVE_INFINITY){
+                        assert(matrixCost == null && path == null);
+                    } else{
+                        assert(matrixCost == cost);
+                        assert(path.getTotalWeight() == cost);
+                        assert(path.isEmpty() == src.equals(dst));
+                        assert(path.isEmpty() || path.getSource().equals(src) && path.getDestination().equals(dst));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sharedByDerivedTopologiesTest(){
+        Node a = new Node("a", 0, 0);
+        Node b = new Node("b", 0, 1);
+        Node c = new Node("c", 0, 2);
+        Topology topo = new Topology("line", new HashSet<>(Arrays.asList(a, b, c)),
+                new HashSet<>(Arrays.asList(new Link(a, b, 1.0), new Link(b, c, 2.0))));
+        topo.setPathCosts(PathCostMatrix.compute(new IndexedTopology(topo)));
+
+        Topology derived = new Topology("line", topo.getNodes(), new HashSet<>(Collections.singletonList(new Link(a, b, 1.0))));
+        derived.copyPathCosts(topo);
+        assert(derived.getPathCosts() == topo.getPathCosts());
+        assert(derived.getPathCosts().getCost(a, c) == 3.0);
+        // Links only go one way
+        assert(derived.getPathCosts().getCost(c, a) == null);
+        assert(PathCostMatrix.empty("line").getCost(a, c) == null);
+    }
+
+    private double[][] floydWarshall(Topology topo){
+        int n = topo.getNodes().size();
+        double[][] dist = new double[n][n];
+        for(int i = 0; i < n; i++){
+            Arrays.fill(dist[i], Double.POSITIVE_INFINITY);
+            dist[i][i] = 0.0;
+        }
+        for(Link link : topo.getLinks()){
+            int origin = index(link.getOrigin());
+            int target = index(link.getTarget());
+            dist[origin][target] = Math.min(dist[origin][target], link.getWeight());
+        }
+        for(int k = 0; k < n; k++){
+            for(int i = 0; i < n; i++){
+                for(int j = 0; j < n; j++){
+                    dist[i][j] = Math.min(dist[i][j], dist[i][k] + dist[k][j]);
+                }
+            }
+        }
+        return dist;
+    }
+
+    private int index(Node node){
+        return Integer.parseInt(node.getId().substring(1));
+    }
+}
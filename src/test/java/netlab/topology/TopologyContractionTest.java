@@ -0,0 +1,111 @@
+package netlab.topology;
+
+import netlab.submission.enums.Objective;
+import netlab.submission.request.Details;
+import netlab.submission.request.Request;
+import netlab.topology.elements.*;
+import netlab.topology.services.TopologyContractionService;
+import org.junit.Test;
+
+import java.util.*;
+
+public class TopologyContractionTest {
+
+    private Node s = new Node("s", 0, 0);
+    private Node x1 = new Node("x1", 0, 1);
+    private Node x2 = new Node("x2", 0, 2);
+    private Node t = new Node("t", 0, 3);
+    private Node y = new Node("y", 1, 1);
+    private Node z = new Node("z", 2, 1);
+
+    private TopologyContractionService contractionService = new TopologyContractionService();
+
+    @Test
+    public void contractChainTest(){
+        Topology topo = makeTopology();
+        ContractedTopology contracted = contractionService.contract(topo, new HashSet<>(Arrays.asList("s", "t")),
+                new HashSet<>());
+        Topology small = contracted.getTopology();
+        // s-x1-x2-t becomes s-t. s-y-z-t would also be s-t, so it's left alone.
+        assert(small.getNodes().size() == 4);
+        assert(!small.getNodeIdMap().containsKey("x1") && !small.getNodeIdMap().containsKey("x2"));
+        assert(small.getNodeIdMap().containsKey("y") && small.getNodeIdMap().containsKey("z"));
+        Link superLink = small.getLinkIdMap().get("s-t");
+        assert(superLink != null && contracted.isSuperLink(superLink));
+        assert(superLink.getWeight() == 3.0);
+        assert(contracted.getMemberNodes(superLink).equals(Arrays.asList(x1, x2)));
+        assert(small.getLinkIdMap().containsKey("t-s"));
+        assert(contracted.getNumContractedNodes() == 2);
+
+        Path expanded = contracted.expand(new Path(new ArrayList<>(Collections.singletonList(small.getLinkIdMap().get("t-s")))));
+        assert(expanded.getNodes().equals(Arrays.asList(t, x2, x1, s)));
+        assert(expanded.getTotalWeight() == 3.0);
+    }
+
+    @Test
+    public void keepFailuresTest(){
+        Topology topo = makeTopology();
+        // A failing node stays, and only the nodes between it and the next kept node are contracted
+        ContractedTopology nodeFails = contractionService.contract(topo, new HashSet<>(Arrays.asList("s", "t", "x2")),
+                new HashSet<>());
+        Topology small = nodeFails.getTopology();
+        assert(small.getNodeIdMap().containsKey("x2"));
+        assert(!small.getNodeIdMap().containsKey("x1"));
+        assert(nodeFails.getMemberNodes(small.getLinkIdMap().get("s-x2")).equals(Collections.singletonList(x1)));
+        // With s-x1-x2-t broken up, s-y-z-t no longer duplicates a link and is contracted too
+        assert(nodeFails.getMemberNodes(small.getLinkIdMap().get("s-t")).equals(Arrays.asList(y, z)));
+        assert(nodeFails.getNumSuperLinks() == 4);
+        assert(nodeFails.getNumContractedNodes() == 3);
+
+        // A failing link, in either direction, keeps both of its endpoints and isn't folded into a super-link
+        ContractedTopology linkFails = contractionService.contract(topo, new HashSet<>(Arrays.asList("s", "t")),
+                new HashSet<>(Collections.singletonList(contractionService.undirectedKey(x2, x1))));
+        small = linkFails.getTopology();
+        assert(small.getLinkIdMap().containsKey("x1-x2") && small.getLinkIdMap().containsKey("x2-x1"));
+        assert(small.getNodeIdMap().containsKey("x1") && small.getNodeIdMap().containsKey("x2"));
+        assert(linkFails.getMemberNodes(small.getLinkIdMap().get("s-t")).equals(Arrays.asList(y, z)));
+        assert(linkFails.getNumSuperLinks() == 2);
+
+        // With every node kept, the original topology is returned
+        ContractedTopology allKept = contractionService.contract(topo,
+                new HashSet<>(Arrays.asList("s", "t", "x1", "x2", "y", "z")), new HashSet<>());
+        assert(allKept.getNumSuperLinks() == 0);
+        assert(allKept.getTopology() == topo);
+    }
+
+    @Test
+    public void linksUsedTest(){
+        Topology topo = makeTopology();
+        Details details = Details.builder()
+                .sources(new HashSet<>(Collections.singletonList(s)))
+                .destinations(new HashSet<>(Collections.singletonList(t)))
+                .build();
+        // s-x1-x2-t would count as one link used, rather than three, so nothing is contracted
+        ContractedTopology linksUsed = contractionService.contract(topo,
+                Request.builder().details(details).objective(Objective.LinksUsed).build());
+        assert(linksUsed.getNumSuperLinks() == 0);
+        assert(linksUsed.getTopology() == topo);
+
+        ContractedTopology totalCost = contractionService.contract(topo,
+                Request.builder().details(details).objective(Objective.TotalCost).build());
+        assert(totalCost.getNumSuperLinks() == 2);
+        assert(totalCost.getMemberNodes(totalCost.getTopology().getLinkIdMap().get("s-t")).equals(Arrays.asList(x1, x2)));
+    }
+
+    private Topology makeTopology(){
+        Set<Link> links = new HashSet<>();
+        addBoth(links, s, x1);
+        addBoth(links, x1, x2);
+        addBoth(links, x2, t);
+        addBoth(links, s, y);
+        addBoth(links, y, z);
+        addBoth(links, z, t);
+        Topology topo = new Topology("chain", new HashSet<>(Arrays.asList(s, x1, x2, t, y, z)), links);
+        return topo;
+    }
+
+    private void addBoth(Set<Link> links, Node a, Node b){
+        links.add(new Link(a, b, 1.0));
+        links.add(new Link(b, a, 1.0));
+    }
+}
@@ -1,8 +1,11 @@
 package netlab.topology;
 
 import netlab.TestConfiguration;
+import netlab.submission.simulate.Network;
 import netlab.topology.elements.Link;
+import netlab.topology.elements.Node;
 import netlab.topology.elements.Topology;
+import netlab.topology.services.SyntheticTopologyService;
 import netlab.topology.services.TopologyService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -10,6 +13,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.util.*;
+
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = TestConfiguration.class)
 public class TopologyServiceTest
@@ -17,6 +22,9 @@ public class TopologyServiceTest
     @Autowired
     private TopologyService topologyService;
 
+    @Autowired
+    private SyntheticTopologyService syntheticTopologyService;
+
 
     @Test
     public void twTest(){
@@ -49,4 +57,79 @@ public class TopologyServiceTest
         System.out.println(twMetrics);
     }
 
+
+    @Test
+    public void convertCacheTest(){
+        Network network = Network.builder()
+                .nodes(Arrays.asList("1", "2", "3", "4"))
+                .links(Arrays.asList("1-2", "2-3", "3-4", "4-1"))
+                .build();
+        Network reordered = Network.builder()
+                .nodes(Arrays.asList("1", "2", "3", "4"))
+                .links(Arrays.asList("4-3", "1-4", "2-1", "3-2"))
+                .build();
+        Network different = Network.builder()
+                .nodes(Arrays.asList("1", "2", "3", "4"))
+                .links(Arrays.asList("1-2", "2-3", "3-4"))
+                .build();
+
+        Topology topo = topologyService.convert(network);
+        assert(topo.getLinks().size() == 8);
+        assert(topo.getPathCosts() != null && topo.getPathCosts().size() == topo.getNodes().size());
+        assert(topologyService.convert(reordered) == topo);
+        Topology differentTopo = topologyService.convert(different);
+        assert(differentTopo != topo);
+        assert(differentTopo.getLinks().size() == 6);
+    }
+
+    @Test
+    public void syntheticTopologyTest(){
+        for(String id : Arrays.asList("waxman_200", "ba_200", "grid_200", "torus_200", "geometric_200")){
+            Topology topo = topologyService.getTopologyById(id);
+            assert(topo.getId().equals(id));
+            assert(topo.getNodes().size() >= 200);
+            assert(topo.getPathCosts() != null && topo.getPathCosts().size() == topo.getNodes().size());
+            assert(isConnected(topo));
+            for(Link link : topo.getLinks()){
+                assert(topo.getLinkIdMap().containsKey(link.reverseId()));
+                assert(link.getWeight() > 0);
+            }
+            assert(topologyService.getTopologyById(id) == topo);
+        }
+    }
+
+    @Test
+    public void syntheticSeedTest(){
+        Topology first = syntheticTopologyService.generateFromId("waxman_150_3").orElse(null);
+        Topology second = syntheticTopologyService.generateFromId("waxman_150_3").orElse(null);
+        Topology otherSeed = syntheticTopologyService.generateFromId("waxman_150_4").orElse(null);
+        assert(first != null && second != null && otherSeed != null);
+        assert(first.getLinkIdMap().keySet().equals(second.getLinkIdMap().keySet()));
+        assert(!first.getLinkIdMap().keySet().equals(otherSeed.getLinkIdMap().keySet()));
+
+        Topology denser = syntheticTopologyService.generateFromId("geometric_500_1_8").orElse(null);
+        Topology sparser = syntheticTopologyService.generateFromId("geometric_500_1_3").orElse(null);
+        assert(denser != null && sparser != null);
+        assert(denser.getLinks().size() > sparser.getLinks().size());
+
+        assert(!syntheticTopologyService.generateFromId("unknown_100").isPresent());
+        assert(!syntheticTopologyService.generateFromId("waxman_abc").isPresent());
+        assert(topologyService.getTopologyById("unknown_100").getId().equals("nsfnet"));
+    }
+
+    private boolean isConnected(Topology topo){
+        Node start = topo.getNodes().iterator().next();
+        Set<Node> visited = new HashSet<>();
+        Deque<Node> queue = new ArrayDeque<>();
+        queue.add(start);
+        visited.add(start);
+        while(!queue.isEmpty()){
+            for(Node neighbor : topo.getNeighborMap().getOrDefault(queue.poll(), new HashSet<>())){
+                if(visited.add(neighbor)){
+                    queue.add(neighbor);
+                }
+            }
+        }
+        return visited.size() == topo.getNodes().size();
+    }
 }
@@ -0,0 +1,45 @@
+package netlab.topology;
+
+import netlab.topology.elements.*;
+import netlab.topology.services.TopologySnapshotService;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+public class TopologySnapshotTest {
+
+    private TopologySnapshotService snapshotService = new TopologySnapshotService(true);
+
+    @Test
+    public void roundTripTest() throws Exception {
+        Node a = new Node("a", 40.0, -100.0);
+        Node b = new Node("b", 41.0, -100.0);
+        Node c = new Node("c", 41.0, -101.0);
+        Set<Link> links = new HashSet<>(Arrays.asList(new Link(a, b, 120.0), new Link(b, a, 120.0),
+                new Link(b, c, 90.0), new Link(c, b, 90.0)));
+        Topology topo = new Topology("snap", new HashSet<>(Arrays.asList(a, b, c)), links);
+        topo.setPathCosts(PathCostMatrix.compute(new IndexedTopology(topo)));
+
+        Path dir = Files.createTempDirectory("snapshot");
+        Path file = dir.resolve("snap.snapshot");
+        snapshotService.write(file, "hash-1", topo);
+
+        Optional<Topology> read = snapshotService.read(file, "hash-1");
+        assert(read.isPresent());
+        Topology readTopo = read.get();
+        assert(readTopo.getId().equals("snap"));
+        assert(readTopo.getNodes().equals(topo.getNodes()));
+        assert(readTopo.getLinks().equals(topo.getLinks()));
+        assert(readTopo.getPathCosts().getCost(a, c) == 210.0);
+        assert(readTopo.getPathCosts().getPath(c, a).getId().equals(topo.getPathCosts().getPath(c, a).getId()));
+        Link readLink = readTopo.getLinkIdMap().get("a-b");
+        assert(readLink.getGeometry().isMaterialized());
+        assert(readLink.getPoints().equals(topo.getLinkIdMap().get("a-b").getPoints()));
+
+        // A different source hash means the snapshot is stale
+        assert(!snapshotService.read(file, "hash-2").isPresent());
+        assert(!new TopologySnapshotService(false).read(file, "hash-1").isPresent());
+    }
+}